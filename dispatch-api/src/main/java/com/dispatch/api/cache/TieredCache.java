@@ -0,0 +1,244 @@
+package com.dispatch.api.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+/**
+ * A Spring {@link org.springframework.cache.Cache} with a bounded in-JVM level in front of a
+ * shared Redis level.
+ *
+ * Reads go local, then Redis, then the caller's loader; whatever is found further down is kept
+ * locally. Writes and evictions go through both levels. Evictions, and writes that replace a
+ * value Redis still had, are announced to the other nodes (see {@link TieredCacheManager}),
+ * which drop their local copy; filling an entry after a miss is not. A missed announcement is
+ * bounded by the local TTL.
+ *
+ * Keys are stored as strings on both levels, so an invalidation names the same entry everywhere.
+ * Null values are not cached.
+ */
+public class TieredCache<V> extends AbstractValueAdaptingCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(TieredCache.class);
+
+    private final String name;
+    private final Class<V> type;
+    private final Cache<String, V> local;
+    private final RedisTemplate<String, V> redisTemplate;
+    private final Duration redisTtl;
+    // Told about every changed key (null for all of them), to tell the other nodes
+    private final Consumer<String> changes;
+    // Loads in progress on this node, by key
+    private final ConcurrentMap<String, CompletableFuture<V>> loading = new ConcurrentHashMap<>();
+
+    private final Counter redisHits;
+    private final Counter redisMisses;
+    private final Counter redisErrors;
+
+    TieredCache(String name, Class<V> type, Cache<String, V> local, RedisTemplate<String, V> redisTemplate,
+                Duration redisTtl, Consumer<String> changes, MeterRegistry meterRegistry) {
+        super(false);
+        this.name = name;
+        this.type = type;
+        this.local = local;
+        this.redisTemplate = redisTemplate;
+        this.redisTtl = redisTtl;
+        this.changes = changes;
+
+        this.redisHits = meterRegistry.counter("dispatch.cache.redis", "cache", name, "result", "hit");
+        this.redisMisses = meterRegistry.counter("dispatch.cache.redis", "cache", name, "result", "miss");
+        this.redisErrors = meterRegistry.counter("dispatch.cache.redis", "cache", name, "result", "error");
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return local;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        String cacheKey = String.valueOf(key);
+        V cached = local.getIfPresent(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+
+        V shared = readShared(cacheKey);
+        if (shared != null) {
+            local.put(cacheKey, shared);
+        }
+        return shared;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String cacheKey = String.valueOf(key);
+        V cached = local.getIfPresent(cacheKey);
+        if (cached != null) {
+            return (T) cached;
+        }
+
+        // Concurrent misses for the same key on this node share one load. The load runs outside
+        // the local cache's compute, so Redis and the loader do not hold its lock and the loader
+        // may use this cache for other keys.
+        CompletableFuture<V> load = new CompletableFuture<>();
+        CompletableFuture<V> running = loading.putIfAbsent(cacheKey, load);
+        if (running != null) {
+            return (T) await(running);
+        }
+        try {
+            load.complete(load(key, cacheKey, valueLoader));
+        } catch (RuntimeException | Error e) {
+            load.completeExceptionally(e);
+        } finally {
+            loading.remove(cacheKey, load);
+        }
+        return (T) await(load);
+    }
+
+    private V load(Object key, String cacheKey, Callable<?> valueLoader) {
+        // Another load of the key may have finished since the first check
+        V cached = local.getIfPresent(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+
+        V shared = readShared(cacheKey);
+        if (shared != null) {
+            local.put(cacheKey, shared);
+            return shared;
+        }
+
+        V loaded;
+        try {
+            loaded = type.cast(valueLoader.call());
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        if (loaded != null) {
+            local.put(cacheKey, loaded);
+            // Nothing to announce: other nodes' copies, if any, came from Redis and have just expired
+            writeShared(cacheKey, loaded);
+        }
+        return loaded;
+    }
+
+    private static <V> V await(CompletableFuture<V> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw (RuntimeException) e.getCause();
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        String cacheKey = String.valueOf(key);
+        V typed = type.cast(toStoreValue(value));
+        local.put(cacheKey, typed);
+        try {
+            if (Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(redisKey(cacheKey), typed, redisTtl))) {
+                // A fill after a miss: other nodes' copies, if any, came from Redis and have expired
+                return;
+            }
+            redisTemplate.opsForValue().set(redisKey(cacheKey), typed, redisTtl);
+        } catch (Exception e) {
+            redisErrors.increment();
+            logger.warn("Failed to write {} to cache {} in Redis", cacheKey, name, e);
+        }
+        changes.accept(cacheKey);
+    }
+
+    @Override
+    public void evict(Object key) {
+        String cacheKey = String.valueOf(key);
+        local.invalidate(cacheKey);
+        try {
+            redisTemplate.delete(redisKey(cacheKey));
+        } catch (Exception e) {
+            redisErrors.increment();
+            logger.warn("Failed to evict {} from cache {} in Redis", cacheKey, name, e);
+        }
+        changes.accept(cacheKey);
+    }
+
+    @Override
+    public void clear() {
+        local.invalidateAll();
+        try {
+            redisTemplate.execute((RedisCallback<Void>) connection -> {
+                ScanOptions options = ScanOptions.scanOptions().match(redisKey("*")).count(500).build();
+                try (Cursor<byte[]> keys = connection.keyCommands().scan(options)) {
+                    while (keys.hasNext()) {
+                        connection.keyCommands().del(keys.next());
+                    }
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            redisErrors.increment();
+            logger.warn("Failed to clear cache {} in Redis", name, e);
+        }
+        changes.accept(null);
+    }
+
+    /**
+     * Another node changed the entry; drop only the local copy
+     */
+    void invalidateLocal(String cacheKey) {
+        if (cacheKey == null) {
+            local.invalidateAll();
+        } else {
+            local.invalidate(cacheKey);
+        }
+    }
+
+    private V readShared(String cacheKey) {
+        try {
+            V value = redisTemplate.opsForValue().get(redisKey(cacheKey));
+            (value == null ? redisMisses : redisHits).increment();
+            return value;
+        } catch (Exception e) {
+            redisErrors.increment();
+            logger.warn("Failed to read {} from cache {} in Redis", cacheKey, name, e);
+            return null;
+        }
+    }
+
+    private void writeShared(String cacheKey, V value) {
+        try {
+            redisTemplate.opsForValue().set(redisKey(cacheKey), value, redisTtl);
+        } catch (Exception e) {
+            redisErrors.increment();
+            logger.warn("Failed to write {} to cache {} in Redis", cacheKey, name, e);
+        }
+    }
+
+    private String redisKey(String cacheKey) {
+        return "cache:" + name + ":" + cacheKey;
+    }
+}
@@ -0,0 +1,142 @@
+package com.dispatch.api.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache manager for {@code @Cacheable} with a fixed set of {@link TieredCache}s.
+ *
+ * Each cache is registered up front with its value type, Redis codec and limits; an unknown
+ * cache name is an error rather than an unbounded cache created on the fly. Changes made on one
+ * node are published on a Redis channel so that the other nodes drop their local copies.
+ *
+ * Local levels are Caffeine caches (W-TinyLFU admission, bounded size, expire after write) and
+ * export the usual {@code cache.gets}, {@code cache.evictions} and {@code cache.size} meters
+ * tagged with the cache name.
+ */
+public class TieredCacheManager implements CacheManager, InitializingBean, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(TieredCacheManager.class);
+
+    static final String INVALIDATION_CHANNEL = "dispatch:cache:invalidate";
+
+    private final Map<String, TieredCache<?>> caches = new LinkedHashMap<>();
+
+    private final RedisConnectionFactory connectionFactory;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final String nodeId;
+
+    private RedisMessageListenerContainer listenerContainer;
+
+    public TieredCacheManager(RedisConnectionFactory connectionFactory,
+                              StringRedisTemplate stringRedisTemplate,
+                              ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry,
+                              String nodeId) {
+        this.connectionFactory = connectionFactory;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.nodeId = nodeId;
+    }
+
+    /**
+     * Limits of one cache. The local TTL is also how long a node can serve a value changed
+     * elsewhere if it misses the invalidation.
+     */
+    public record Spec(long localMaxSize, Duration localTtl, Duration redisTtl) {
+    }
+
+    public <V> TieredCacheManager addCache(String name, Class<V> type, RedisTemplate<String, V> redisTemplate, Spec spec) {
+        Cache<String, V> local = Caffeine.newBuilder()
+                .maximumSize(spec.localMaxSize())
+                .expireAfterWrite(spec.localTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, local, name);
+
+        caches.put(name, new TieredCache<>(name, type, local, redisTemplate, spec.redisTtl(),
+                key -> publish(name, key), meterRegistry));
+        return this;
+    }
+
+    @Override
+    public org.springframework.cache.Cache getCache(String name) {
+        return caches.get(name);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        listenerContainer = new RedisMessageListenerContainer();
+        listenerContainer.setConnectionFactory(connectionFactory);
+        listenerContainer.addMessageListener((message, pattern) -> onInvalidation(message.getBody()),
+                new ChannelTopic(INVALIDATION_CHANNEL));
+        listenerContainer.afterPropertiesSet();
+        listenerContainer.start();
+
+        logger.info("Tiered caches {} enabled on node {}", caches.keySet(), nodeId);
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (listenerContainer != null) {
+            listenerContainer.destroy();
+        }
+    }
+
+    private void publish(String cacheName, String key) {
+        try {
+            stringRedisTemplate.convertAndSend(INVALIDATION_CHANNEL,
+                    objectMapper.writeValueAsString(new Invalidation(nodeId, cacheName, key)));
+        } catch (Exception e) {
+            logger.warn("Failed to publish invalidation of {} in cache {}", key, cacheName, e);
+        }
+    }
+
+    void onInvalidation(byte[] body) {
+        try {
+            Invalidation invalidation = objectMapper.readValue(body, Invalidation.class);
+            if (nodeId.equals(invalidation.origin())) {
+                return;
+            }
+            TieredCache<?> cache = caches.get(invalidation.cache());
+            if (cache != null) {
+                cache.invalidateLocal(invalidation.key());
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to apply cache invalidation", e);
+        }
+    }
+
+    /**
+     * A changed entry; {@code key} is null when the whole cache was cleared
+     */
+    record Invalidation(String origin, String cache, String key) {
+    }
+}
@@ -0,0 +1,57 @@
+package com.dispatch.api.config;
+
+import com.dispatch.api.cache.TieredCacheManager;
+import com.dispatch.api.cache.TieredCacheManager.Spec;
+import com.dispatch.api.redis.ScalarRedisSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+/**
+ * The caches behind {@code @Cacheable}: local near-cache plus Redis, bounded per cache.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    @Value("${app.caches.surge.local-max-size:10000}")
+    private long surgeLocalMaxSize;
+
+    @Value("${app.caches.surge.local-ttl:15s}")
+    private Duration surgeLocalTtl;
+
+    @Value("${app.caches.surge.redis-ttl:2m}")
+    private Duration surgeRedisTtl;
+
+    @Value("${app.caches.eta.local-max-size:50000}")
+    private long etaLocalMaxSize;
+
+    @Value("${app.caches.eta.local-ttl:30s}")
+    private Duration etaLocalTtl;
+
+    @Value("${app.caches.eta.redis-ttl:5m}")
+    private Duration etaRedisTtl;
+
+    @Bean
+    public TieredCacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                           StringRedisTemplate stringRedisTemplate,
+                                           ObjectMapper objectMapper,
+                                           MeterRegistry meterRegistry,
+                                           @Value("${app.websocket.node-id}") String nodeId) {
+        return new TieredCacheManager(connectionFactory, stringRedisTemplate, objectMapper, meterRegistry, nodeId)
+                .addCache("surge-cache", BigDecimal.class,
+                        RedisConfig.template(connectionFactory, ScalarRedisSerializer.decimals()),
+                        new Spec(surgeLocalMaxSize, surgeLocalTtl, surgeRedisTtl))
+                .addCache("eta-cache", Integer.class,
+                        RedisConfig.template(connectionFactory, ScalarRedisSerializer.integers()),
+                        new Spec(etaLocalMaxSize, etaLocalTtl, etaRedisTtl));
+    }
+}
@@ -0,0 +1,52 @@
+package com.dispatch.api.config;
+
+import com.dispatch.api.dto.response.RideResponse;
+import com.dispatch.api.redis.RideSnapshotRedisSerializer;
+import com.dispatch.api.redis.ScalarRedisSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.math.BigDecimal;
+
+/**
+ * Typed Redis templates with compact value codecs.
+ *
+ * Keys are plain strings everywhere. Beans are injected by their generic type, e.g.
+ * {@code RedisTemplate<String, BigDecimal>}; Boot's default {@code redisTemplate}
+ * (JDK serialization for keys and values) is left for nothing to use.
+ */
+@Configuration
+public class RedisConfig {
+
+    @Bean
+    public RedisTemplate<String, BigDecimal> decimalRedisTemplate(RedisConnectionFactory connectionFactory) {
+        return template(connectionFactory, ScalarRedisSerializer.decimals());
+    }
+
+    @Bean
+    public RedisTemplate<String, Double> doubleRedisTemplate(RedisConnectionFactory connectionFactory) {
+        return template(connectionFactory, ScalarRedisSerializer.doubles());
+    }
+
+    @Bean
+    public RedisTemplate<String, RideResponse> rideSnapshotRedisTemplate(RedisConnectionFactory connectionFactory,
+                                                                         ObjectMapper objectMapper) {
+        return template(connectionFactory, new RideSnapshotRedisSerializer(objectMapper));
+    }
+
+    static <V> RedisTemplate<String, V> template(RedisConnectionFactory connectionFactory,
+                                                 RedisSerializer<V> valueSerializer) {
+        RedisTemplate<String, V> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(RedisSerializer.string());
+        template.setHashKeySerializer(RedisSerializer.string());
+        template.setValueSerializer(valueSerializer);
+        template.setHashValueSerializer(valueSerializer);
+        template.afterPropertiesSet();
+        return template;
+    }
+}
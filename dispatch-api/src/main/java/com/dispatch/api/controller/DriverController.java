@@ -1,22 +1,49 @@
 package com.dispatch.api.controller;
 
+import com.dispatch.api.dto.projection.DriverListItem;
 import com.dispatch.api.dto.request.UpdateDriverLocationRequest;
+import com.dispatch.api.dto.response.BatchLocationUpdateResponse;
+import com.dispatch.api.dto.response.BatchLocationUpdateResponse.ItemResult;
+import com.dispatch.api.dto.response.BatchLocationUpdateResponse.ItemStatus;
 import com.dispatch.api.dto.response.DriverResponse;
+import com.dispatch.api.dto.response.SliceResponse;
 import com.dispatch.api.model.Driver;
 import com.dispatch.api.model.DriverStatus;
+import com.dispatch.api.ratelimit.RateLimitedEndpoint;
+import com.dispatch.api.ratelimit.RateLimiter;
 import com.dispatch.api.repository.DriverRepository;
 import com.dispatch.api.service.DriverLocationService;
+import com.dispatch.api.util.KeysetCursor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/drivers")
@@ -25,16 +52,31 @@ public class DriverController {
     
     private static final Logger logger = LoggerFactory.getLogger(DriverController.class);
     
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    
     private final DriverRepository driverRepository;
     private final DriverLocationService driverLocationService;
     private final DriverMapper driverMapper;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final RateLimiter rateLimiter;
+    
+    @Value("${app.location.batch.max-items:5000}")
+    private int maxBatchItems;
     
     public DriverController(DriverRepository driverRepository, 
                            DriverLocationService driverLocationService,
-                           DriverMapper driverMapper) {
+                           DriverMapper driverMapper,
+                           Validator validator,
+                           ObjectMapper objectMapper,
+                           RateLimiter rateLimiter) {
         this.driverRepository = driverRepository;
         this.driverLocationService = driverLocationService;
         this.driverMapper = driverMapper;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.rateLimiter = rateLimiter;
     }
     
     @GetMapping("/{driverId}")
@@ -49,22 +91,27 @@ public class DriverController {
     }
     
     @GetMapping
-    @Operation(summary = "Get all drivers")
-    public ResponseEntity<List<DriverResponse>> getAllDrivers(
-            @RequestParam(required = false) DriverStatus status) {
+    @Operation(summary = "Get drivers, newest first")
+    public ResponseEntity<SliceResponse<DriverResponse>> getAllDrivers(
+            @RequestParam(required = false) DriverStatus status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
         
-        List<Driver> drivers;
-        if (status != null) {
-            drivers = driverRepository.findByStatus(status);
-        } else {
-            drivers = driverRepository.findAll();
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        KeysetCursor after = null;
+        if (cursor != null) {
+            try {
+                after = KeysetCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
         }
         
-        List<DriverResponse> response = drivers.stream()
-                .map(driverMapper::toResponse)
-                .toList();
+        List<DriverListItem> drivers = driverRepository.findSlice(status, after, pageSize + 1);
         
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(SliceResponse.of(drivers, pageSize,
+                driver -> new KeysetCursor(driver.createdAt(), driver.id()),
+                DriverListItem::toResponse));
     }
     
     @PostMapping("/{driverId}/location")
@@ -79,6 +126,19 @@ public class DriverController {
                 return ResponseEntity.badRequest().build();
             }
             
+            if (!rateLimiter.tryAcquire(RateLimitedEndpoint.DRIVER_LOCATION, driverId).isZero()) {
+                // Over the limit: keep only the latest position for the next flush instead of rejecting it
+                driverLocationService.conflateDriverLocation(
+                    driverId,
+                    request.getLat(),
+                    request.getLng(),
+                    request.getHeading(),
+                    request.getSpeedKmh(),
+                    request.getAccuracyMeters()
+                );
+                return ResponseEntity.accepted().build();
+            }
+            
             Driver driver = driverLocationService.updateDriverLocation(
                 driverId,
                 request.getLat(),
@@ -99,6 +159,151 @@ public class DriverController {
         }
     }
     
+    @PostMapping(value = "/locations:batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Update many driver locations from a JSON array")
+    public ResponseEntity<BatchLocationUpdateResponse> updateDriverLocations(
+            @RequestBody List<UpdateDriverLocationRequest> requests) {
+        
+        if (requests.size() > maxBatchItems) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+        
+        return ResponseEntity.ok(applyLocationBatch(requests, Map.of()));
+    }
+    
+    @PostMapping(value = "/locations:batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Update many driver locations from a newline-delimited JSON stream")
+    public ResponseEntity<BatchLocationUpdateResponse> updateDriverLocationsStream(InputStream body) throws IOException {
+        
+        List<UpdateDriverLocationRequest> requests = new ArrayList<>();
+        Map<Integer, String> parseErrors = new HashMap<>();
+        
+        // Parse line by line so the body is never buffered as a whole and a bad line only fails itself
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            if (requests.size() == maxBatchItems) {
+                return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+            }
+            
+            try {
+                requests.add(objectMapper.readValue(line, UpdateDriverLocationRequest.class));
+            } catch (JsonProcessingException e) {
+                parseErrors.put(requests.size(), "Malformed JSON: " + e.getOriginalMessage());
+                requests.add(null);
+            }
+        }
+        
+        return ResponseEntity.ok(applyLocationBatch(requests, parseErrors));
+    }
+    
+    private BatchLocationUpdateResponse applyLocationBatch(List<UpdateDriverLocationRequest> requests,
+                                                           Map<Integer, String> parseErrors) {
+        ItemResult[] results = new ItemResult[requests.size()];
+        List<UpdateDriverLocationRequest> valid = new ArrayList<>(requests.size());
+        List<Integer> validIndexes = new ArrayList<>(requests.size());
+        
+        // Validate everything up front; invalid items are reported, not fatal for the batch
+        for (int i = 0; i < requests.size(); i++) {
+            UpdateDriverLocationRequest request = requests.get(i);
+            if (request == null) {
+                results[i] = new ItemResult(i, null, ItemStatus.INVALID, parseErrors.getOrDefault(i, "Empty item"));
+                continue;
+            }
+            
+            Set<ConstraintViolation<UpdateDriverLocationRequest>> violations = validator.validate(request);
+            if (!violations.isEmpty()) {
+                String message = violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining("; "));
+                results[i] = new ItemResult(i, request.getDriverId(), ItemStatus.INVALID, message);
+                continue;
+            }
+            
+            valid.add(request);
+            validIndexes.add(i);
+        }
+        
+        conflateRateLimited(valid, validIndexes, results);
+        
+        List<ItemStatus> statuses;
+        try {
+            statuses = driverLocationService.updateDriverLocations(valid);
+        } catch (Exception e) {
+            logger.error("Error applying batch of {} driver locations", valid.size(), e);
+            statuses = valid.stream().map(request -> ItemStatus.FAILED).toList();
+        }
+        
+        for (int j = 0; j < valid.size(); j++) {
+            int index = validIndexes.get(j);
+            ItemStatus status = statuses.get(j);
+            String message = status == ItemStatus.NOT_FOUND ? "Driver not found" : null;
+            results[index] = new ItemResult(index, valid.get(j).getDriverId(), status, message);
+        }
+        
+        return new BatchLocationUpdateResponse(Arrays.asList(results));
+    }
+    
+    /**
+     * Take one token per driver in the batch, as for a single ping. Drivers over their limit
+     * only get their latest position conflated, like a single ping would; their items are
+     * removed from {@code valid} and given a result here.
+     */
+    private void conflateRateLimited(List<UpdateDriverLocationRequest> valid, List<Integer> validIndexes,
+                                     ItemResult[] results) {
+        Map<String, Integer> latest = new HashMap<>();
+        for (int j = 0; j < valid.size(); j++) {
+            latest.put(valid.get(j).getDriverId(), j);
+        }
+        
+        Set<String> limited = new HashSet<>();
+        for (String driverId : latest.keySet()) {
+            if (!rateLimiter.tryAcquire(RateLimitedEndpoint.DRIVER_LOCATION, driverId).isZero()) {
+                limited.add(driverId);
+            }
+        }
+        if (limited.isEmpty()) {
+            return;
+        }
+        
+        for (int j = valid.size() - 1; j >= 0; j--) {
+            UpdateDriverLocationRequest request = valid.get(j);
+            if (!limited.contains(request.getDriverId())) {
+                continue;
+            }
+            
+            int index = validIndexes.get(j);
+            results[index] = latest.get(request.getDriverId()) == j
+                    ? conflate(index, request)
+                    : new ItemResult(index, request.getDriverId(), ItemStatus.SUPERSEDED, null);
+            valid.remove(j);
+            validIndexes.remove(j);
+        }
+    }
+    
+    private ItemResult conflate(int index, UpdateDriverLocationRequest request) {
+        try {
+            driverLocationService.conflateDriverLocation(
+                request.getDriverId(),
+                request.getLat(),
+                request.getLng(),
+                request.getHeading(),
+                request.getSpeedKmh(),
+                request.getAccuracyMeters()
+            );
+            return new ItemResult(index, request.getDriverId(), ItemStatus.CONFLATED, "Rate limited; kept as the latest position");
+        } catch (IllegalArgumentException e) {
+            return new ItemResult(index, request.getDriverId(), ItemStatus.NOT_FOUND, "Driver not found");
+        } catch (Exception e) {
+            logger.error("Error conflating location for driver {}", request.getDriverId(), e);
+            return new ItemResult(index, request.getDriverId(), ItemStatus.FAILED, null);
+        }
+    }
+    
     @PostMapping("/{driverId}/status")
     @Operation(summary = "Update driver status")
     public ResponseEntity<DriverResponse> updateDriverStatus(
@@ -166,12 +371,13 @@ public class DriverController {
     public ResponseEntity<List<DriverResponse>> getNearbyDrivers(
             @RequestParam BigDecimal lat,
             @RequestParam BigDecimal lng,
-            @RequestParam(defaultValue = "10.0") double radiusKm) {
+            @RequestParam(defaultValue = "10.0") double radiusKm,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
         
         try {
-            List<Driver> nearbyDrivers = driverLocationService.getAvailableDriversInArea(lat, lng, radiusKm);
-            List<DriverResponse> response = nearbyDrivers.stream()
-                    .map(driverMapper::toResponse)
+            int maxResults = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+            List<DriverResponse> response = driverLocationService.getAvailableDriversInArea(lat, lng, radiusKm, maxResults).stream()
+                    .map(DriverListItem::toResponse)
                     .toList();
             
             return ResponseEntity.ok(response);
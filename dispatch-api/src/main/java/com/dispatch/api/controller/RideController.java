@@ -1,28 +1,44 @@
 package com.dispatch.api.controller;
 
+import com.dispatch.api.dto.projection.RideListItem;
 import com.dispatch.api.dto.request.CreateRideRequest;
 import com.dispatch.api.dto.response.RideResponse;
+import com.dispatch.api.dto.response.SliceResponse;
 import com.dispatch.api.dto.mapper.RideMapper;
 import com.dispatch.api.model.Ride;
 import com.dispatch.api.model.RideStatus;
+import com.dispatch.api.ratelimit.RateLimitedEndpoint;
+import com.dispatch.api.ratelimit.RateLimiter;
+import com.dispatch.api.repository.GeoSearchJdbcRepository;
 import com.dispatch.api.repository.RideRepository;
+import com.dispatch.api.security.AuthContext;
+import com.dispatch.api.service.ActiveRideRegistry;
 import com.dispatch.api.service.DispatchService;
+import com.dispatch.api.service.RideEventStreamService;
+import com.dispatch.api.service.RideSnapshotCache;
+import com.dispatch.api.util.KeysetCursor;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.micrometer.core.instrument.LongTaskTimer;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @RestController
@@ -32,21 +48,58 @@ public class RideController {
     
     private static final Logger logger = LoggerFactory.getLogger(RideController.class);
     
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    
     private final DispatchService dispatchService;
     private final RideRepository rideRepository;
+    private final GeoSearchJdbcRepository geoSearchJdbcRepository;
     private final RideMapper rideMapper;
+    private final RideEventStreamService rideEventStreamService;
+    private final RideSnapshotCache rideSnapshotCache;
+    private final ActiveRideRegistry activeRideRegistry;
+    private final RateLimiter rateLimiter;
+    
+    // In-flight ride creations, used to compare thread modes under load
+    private final LongTaskTimer createRideTimer;
     
     public RideController(DispatchService dispatchService, 
                          RideRepository rideRepository,
-                         RideMapper rideMapper) {
+                         GeoSearchJdbcRepository geoSearchJdbcRepository,
+                         RideMapper rideMapper,
+                         RideEventStreamService rideEventStreamService,
+                         RideSnapshotCache rideSnapshotCache,
+                         ActiveRideRegistry activeRideRegistry,
+                         RateLimiter rateLimiter,
+                         MeterRegistry meterRegistry) {
         this.dispatchService = dispatchService;
         this.rideRepository = rideRepository;
+        this.geoSearchJdbcRepository = geoSearchJdbcRepository;
         this.rideMapper = rideMapper;
+        this.rideEventStreamService = rideEventStreamService;
+        this.rideSnapshotCache = rideSnapshotCache;
+        this.activeRideRegistry = activeRideRegistry;
+        this.rateLimiter = rateLimiter;
+        this.createRideTimer = LongTaskTimer.builder("dispatch.rides.create.inflight")
+                .description("Ride creations currently being processed")
+                .register(meterRegistry);
     }
     
     @PostMapping
     @Operation(summary = "Create a new ride request")
-    public ResponseEntity<RideResponse> createRide(@Valid @RequestBody CreateRideRequest request) {
+    public ResponseEntity<RideResponse> createRide(@Valid @RequestBody CreateRideRequest request,
+                                                   @AuthenticationPrincipal AuthContext caller,
+                                                   HttpServletRequest httpRequest) {
+        // Keyed on who is calling, not on the rider id the body names; anonymous callers by address
+        String callerKey = caller != null ? caller.userId() : "addr:" + httpRequest.getRemoteAddr();
+        Duration retryAfter = rateLimiter.tryAcquire(RateLimitedEndpoint.RIDE_REQUEST, callerKey);
+        if (!retryAfter.isZero()) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, retryAfter.toSeconds())))
+                    .build();
+        }
+        
+        LongTaskTimer.Sample inFlight = createRideTimer.start();
         try {
             Ride ride = dispatchService.createRide(
                 request.getRiderId(),
@@ -66,6 +119,8 @@ public class RideController {
         } catch (Exception e) {
             logger.error("Error creating ride for rider {}", request.getRiderId(), e);
             return ResponseEntity.internalServerError().build();
+        } finally {
+            inFlight.stop();
         }
     }
     
@@ -74,56 +129,124 @@ public class RideController {
     public ResponseEntity<RideResponse> getRide(
             @Parameter(description = "Ride ID") @PathVariable UUID rideId) {
         
-        return rideRepository.findById(rideId)
-                .map(rideMapper::toResponse)
+        return rideSnapshotCache.get(rideId)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
     
+    @GetMapping(value = "/{rideId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream ride status updates as Server-Sent Events")
+    public ResponseEntity<SseEmitter> streamRide(
+            @Parameter(description = "Ride ID") @PathVariable UUID rideId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        
+        if (!rideRepository.existsById(rideId)) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        return ResponseEntity.ok()
+                .header("X-Accel-Buffering", "no")
+                .body(rideEventStreamService.subscribe(rideId, lastEventId));
+    }
+    
     @GetMapping
-    @Operation(summary = "Get rides with optional filtering")
-    public ResponseEntity<Page<RideResponse>> getRides(
+    @Operation(summary = "Get rides with optional filtering, newest first")
+    public ResponseEntity<SliceResponse<RideResponse>> getRides(
             @RequestParam(required = false) String riderId,
             @RequestParam(required = false) String driverId,
             @RequestParam(required = false) RideStatus status,
-            @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size,
-            @RequestParam(defaultValue = "createdAt") String sortBy,
-            @RequestParam(defaultValue = "desc") String sortDir) {
-        
-        Sort.Direction direction = sortDir.equalsIgnoreCase("asc") ? 
-            Sort.Direction.ASC : Sort.Direction.DESC;
-        Pageable pageable = PageRequest.of(page, size, Sort.by(direction, sortBy));
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
         
-        Page<Ride> rides = rideRepository.findAll(pageable);
-        Page<RideResponse> response = rides.map(rideMapper::toResponse);
-        return ResponseEntity.ok(response);
+        return findSlice(riderId, driverId, status, cursor, limit);
     }
     
     @GetMapping("/rider/{riderId}")
-    @Operation(summary = "Get rides for a specific rider")
-    public ResponseEntity<List<RideResponse>> getRidesByRider(
-            @Parameter(description = "Rider ID") @PathVariable String riderId) {
+    @Operation(summary = "Get rides for a specific rider, newest first")
+    public ResponseEntity<SliceResponse<RideResponse>> getRidesByRider(
+            @Parameter(description = "Rider ID") @PathVariable String riderId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
         
-        List<Ride> rides = rideRepository.findByRiderIdOrderByCreatedAtDesc(riderId);
-        List<RideResponse> response = rides.stream()
-                .map(rideMapper::toResponse)
-                .toList();
-        
-        return ResponseEntity.ok(response);
+        return findSlice(riderId, null, null, cursor, limit);
     }
     
     @GetMapping("/driver/{driverId}")
-    @Operation(summary = "Get rides for a specific driver")
-    public ResponseEntity<List<RideResponse>> getRidesByDriver(
+    @Operation(summary = "Get rides for a specific driver, newest first")
+    public ResponseEntity<SliceResponse<RideResponse>> getRidesByDriver(
+            @Parameter(description = "Driver ID") @PathVariable String driverId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        
+        return findSlice(null, driverId, null, cursor, limit);
+    }
+    
+    @GetMapping("/nearby")
+    @Operation(summary = "Find rides picked up near a location, nearest first")
+    public ResponseEntity<List<RideResponse>> getNearbyRides(
+            @RequestParam BigDecimal lat,
+            @RequestParam BigDecimal lng,
+            @RequestParam(defaultValue = "5.0") double radiusKm,
+            @Parameter(description = "Ride statuses to include") @RequestParam(defaultValue = "REQUESTED") List<RideStatus> status,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        
+        try {
+            int maxResults = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+            List<RideResponse> response = geoSearchJdbcRepository.findRidesNear(
+                    status, lat.doubleValue(), lng.doubleValue(), radiusKm * 1000, maxResults).stream()
+                    .map(RideListItem::toResponse)
+                    .toList();
+            
+            return ResponseEntity.ok(response);
+            
+        } catch (Exception e) {
+            logger.error("Error finding nearby rides at ({}, {})", lat, lng, e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+    
+    @GetMapping("/rider/{riderId}/current")
+    @Operation(summary = "Get the rider's active ride")
+    public ResponseEntity<RideResponse> getCurrentRideForRider(
+            @Parameter(description = "Rider ID") @PathVariable String riderId) {
+        
+        return currentRide(activeRideRegistry.findActiveRideForRider(riderId));
+    }
+    
+    @GetMapping("/driver/{driverId}/current")
+    @Operation(summary = "Get the driver's active ride")
+    public ResponseEntity<RideResponse> getCurrentRideForDriver(
             @Parameter(description = "Driver ID") @PathVariable String driverId) {
         
-        List<Ride> rides = rideRepository.findByDriverIdOrderByCreatedAtDesc(driverId);
-        List<RideResponse> response = rides.stream()
-                .map(rideMapper::toResponse)
-                .toList();
+        return currentRide(activeRideRegistry.findActiveRideForDriver(driverId));
+    }
+    
+    private ResponseEntity<RideResponse> currentRide(Optional<UUID> rideId) {
+        return rideId.flatMap(rideSnapshotCache::get)
+                .filter(ride -> ActiveRideRegistry.isActive(ride.getStatus()))
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    private ResponseEntity<SliceResponse<RideResponse>> findSlice(String riderId, String driverId, RideStatus status,
+                                                                  String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        KeysetCursor after = null;
+        if (cursor != null) {
+            try {
+                after = KeysetCursor.decode(cursor);
+                // Ride cursors carry a ride id; reject a tampered one here, not halfway through the query
+                UUID.fromString(after.id());
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+        
+        List<RideListItem> rides = rideRepository.findSlice(riderId, driverId, status, after, pageSize + 1);
         
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(SliceResponse.of(rides, pageSize,
+                ride -> new KeysetCursor(ride.createdAt(), ride.id().toString()),
+                RideListItem::toResponse));
     }
     
     @PostMapping("/{rideId}/start")
@@ -142,6 +265,9 @@ public class RideController {
             return ResponseEntity.notFound().build();
         } catch (IllegalStateException e) {
             return ResponseEntity.badRequest().build();
+        } catch (QueryTimeoutException e) {
+            logger.warn("Timed out waiting for ride {} transition to commit", rideId);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
         } catch (Exception e) {
             logger.error("Error starting ride {} for driver {}", rideId, driverId, e);
             return ResponseEntity.internalServerError().build();
@@ -165,6 +291,9 @@ public class RideController {
             return ResponseEntity.notFound().build();
         } catch (IllegalStateException e) {
             return ResponseEntity.badRequest().build();
+        } catch (QueryTimeoutException e) {
+            logger.warn("Timed out waiting for ride {} transition to commit", rideId);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
         } catch (Exception e) {
             logger.error("Error completing ride {} for driver {}", rideId, driverId, e);
             return ResponseEntity.internalServerError().build();
@@ -187,6 +316,9 @@ public class RideController {
             return ResponseEntity.notFound().build();
         } catch (IllegalStateException e) {
             return ResponseEntity.badRequest().build();
+        } catch (QueryTimeoutException e) {
+            logger.warn("Timed out waiting for ride {} transition to commit", rideId);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
         } catch (Exception e) {
             logger.error("Error cancelling ride {} initiated by {}", rideId, initiatedBy, e);
             return ResponseEntity.internalServerError().build();
@@ -0,0 +1,43 @@
+package com.dispatch.api.dto.projection;
+
+import com.dispatch.api.dto.response.DriverResponse;
+import com.dispatch.api.model.DriverStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * The columns a driver listing shows, selected straight into this record without loading the entity
+ */
+public record DriverListItem(
+        String id,
+        String name,
+        String phone,
+        String licensePlate,
+        BigDecimal currentLat,
+        BigDecimal currentLng,
+        DriverStatus status,
+        LocalDateTime lastLocationUpdate,
+        LocalDateTime createdAt) {
+
+    /**
+     * JPQL select list matching the constructor, for {@code d} bound to {@code Driver}
+     */
+    public static final String SELECT = "SELECT new com.dispatch.api.dto.projection.DriverListItem(" +
+            "d.id, d.name, d.phone, d.licensePlate, d.currentLat, d.currentLng, " +
+            "d.status, d.lastLocationUpdate, d.createdAt) FROM Driver d";
+
+    public DriverResponse toResponse() {
+        DriverResponse response = new DriverResponse();
+        response.setId(id);
+        response.setName(name);
+        response.setPhone(phone);
+        response.setLicensePlate(licensePlate);
+        response.setCurrentLat(currentLat);
+        response.setCurrentLng(currentLng);
+        response.setStatus(status);
+        response.setLastLocationUpdate(lastLocationUpdate);
+        response.setCreatedAt(createdAt);
+        return response;
+    }
+}
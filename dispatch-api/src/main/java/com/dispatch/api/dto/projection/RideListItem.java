@@ -0,0 +1,72 @@
+package com.dispatch.api.dto.projection;
+
+import com.dispatch.api.dto.response.RideResponse;
+import com.dispatch.api.model.RideStatus;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * The columns a ride listing shows, selected straight into this record without loading the entity
+ */
+public record RideListItem(
+        UUID id,
+        String riderId,
+        String driverId,
+        BigDecimal pickupLat,
+        BigDecimal pickupLng,
+        BigDecimal destinationLat,
+        BigDecimal destinationLng,
+        RideStatus status,
+        BigDecimal estimatedFare,
+        BigDecimal fareAmount,
+        Integer estimatedDurationMinutes,
+        LocalDateTime createdAt,
+        LocalDateTime acceptedAt,
+        LocalDateTime startedAt,
+        LocalDateTime completedAt,
+        LocalDateTime cancelledAt) {
+
+    /**
+     * JPQL select list matching the constructor, for {@code r} bound to {@code Ride}
+     */
+    public static final String SELECT = "SELECT new com.dispatch.api.dto.projection.RideListItem(" +
+            "r.id, r.riderId, r.driverId, r.pickupLat, r.pickupLng, r.destinationLat, r.destinationLng, " +
+            "r.status, r.estimatedFare, r.fareAmount, r.estimatedDurationMinutes, " +
+            "r.createdAt, r.acceptedAt, r.startedAt, r.completedAt, r.cancelledAt) FROM Ride r";
+
+    /**
+     * Same fields as {@code RideMapper.toResponse} fills from the entity
+     */
+    public RideResponse toResponse() {
+        RideResponse response = new RideResponse();
+        response.setRideId(id.toString());
+        response.setRiderId(riderId);
+        response.setDriverId(driverId);
+        response.setPickupLocation(formatLocation(pickupLat, pickupLng));
+        response.setDestinationLocation(formatLocation(destinationLat, destinationLng));
+        response.setStatus(status);
+        response.setEstimatedFare(estimatedFare);
+        response.setActualFare(fareAmount);
+        response.setEstimatedDuration(estimatedDurationMinutes);
+        if (startedAt != null && completedAt != null) {
+            response.setActualDuration((int) Duration.between(startedAt, completedAt).toMinutes());
+        }
+        response.setCreatedAt(createdAt);
+        response.setAcceptedAt(acceptedAt);
+        response.setStartedAt(startedAt);
+        response.setCompletedAt(completedAt);
+        response.setCancelledAt(cancelledAt);
+        return response;
+    }
+
+    private static String formatLocation(BigDecimal lat, BigDecimal lng) {
+        if (lat == null || lng == null) {
+            return null;
+        }
+        return String.format(Locale.ROOT, "%.6f,%.6f", lat, lng);
+    }
+}
@@ -0,0 +1,81 @@
+package com.dispatch.api.dto.response;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BatchLocationUpdateResponse {
+
+    public enum ItemStatus {
+        ACCEPTED,
+        // Valid but dropped by location coalescing (no significant movement)
+        SUPPRESSED,
+        // A later item in the same batch carried a newer location for the driver
+        SUPERSEDED,
+        // Over the driver's rate limit; kept as their latest position for the next flush
+        CONFLATED,
+        INVALID,
+        NOT_FOUND,
+        FAILED
+    }
+
+    private int received;
+    private int accepted;
+    private int rejected;
+    private List<ItemResult> results = new ArrayList<>();
+
+    // Constructors
+    public BatchLocationUpdateResponse() {}
+
+    public BatchLocationUpdateResponse(List<ItemResult> results) {
+        this.results = results;
+        this.received = results.size();
+        for (ItemResult result : results) {
+            switch (result.getStatus()) {
+                case ACCEPTED, SUPPRESSED, SUPERSEDED, CONFLATED -> accepted++;
+                default -> rejected++;
+            }
+        }
+    }
+
+    // Getters and Setters
+    public int getReceived() { return received; }
+    public void setReceived(int received) { this.received = received; }
+
+    public int getAccepted() { return accepted; }
+    public void setAccepted(int accepted) { this.accepted = accepted; }
+
+    public int getRejected() { return rejected; }
+    public void setRejected(int rejected) { this.rejected = rejected; }
+
+    public List<ItemResult> getResults() { return results; }
+    public void setResults(List<ItemResult> results) { this.results = results; }
+
+    public static class ItemResult {
+
+        private int index;
+        private String driverId;
+        private ItemStatus status;
+        private String message;
+
+        public ItemResult() {}
+
+        public ItemResult(int index, String driverId, ItemStatus status, String message) {
+            this.index = index;
+            this.driverId = driverId;
+            this.status = status;
+            this.message = message;
+        }
+
+        public int getIndex() { return index; }
+        public void setIndex(int index) { this.index = index; }
+
+        public String getDriverId() { return driverId; }
+        public void setDriverId(String driverId) { this.driverId = driverId; }
+
+        public ItemStatus getStatus() { return status; }
+        public void setStatus(ItemStatus status) { this.status = status; }
+
+        public String getMessage() { return message; }
+        public void setMessage(String message) { this.message = message; }
+    }
+}
@@ -0,0 +1,46 @@
+package com.dispatch.api.dto.response;
+
+import com.dispatch.api.util.KeysetCursor;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One slice of a keyset-paginated listing; pass {@code nextCursor} back to get the next one
+ */
+public class SliceResponse<T> {
+    
+    private List<T> items;
+    private String nextCursor;
+    private boolean hasMore;
+    
+    public SliceResponse() {}
+    
+    public SliceResponse(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.hasMore = nextCursor != null;
+    }
+    
+    /**
+     * Build a slice from up to {@code limit + 1} rows; the extra row only signals that there is more
+     */
+    public static <E, T> SliceResponse<T> of(List<E> rows, int limit,
+                                             Function<E, KeysetCursor> cursorOf,
+                                             Function<E, T> mapper) {
+        boolean hasMore = rows.size() > limit;
+        List<E> page = hasMore ? rows.subList(0, limit) : rows;
+        String nextCursor = hasMore ? cursorOf.apply(page.get(page.size() - 1)).encode() : null;
+        return new SliceResponse<>(page.stream().map(mapper).toList(), nextCursor);
+    }
+    
+    // Getters and Setters
+    public List<T> getItems() { return items; }
+    public void setItems(List<T> items) { this.items = items; }
+    
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+    
+    public boolean isHasMore() { return hasMore; }
+    public void setHasMore(boolean hasMore) { this.hasMore = hasMore; }
+}
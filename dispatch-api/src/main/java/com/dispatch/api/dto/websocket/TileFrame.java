@@ -0,0 +1,80 @@
+package com.dispatch.api.dto.websocket;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * One tick's worth of driver positions for a map tile
+ */
+public class TileFrame {
+    private int z;
+    private int x;
+    private int y;
+    private List<DriverPosition> drivers;
+    // Drivers that moved out of this tile since the previous frame
+    private List<String> departed;
+    private LocalDateTime timestamp;
+    
+    public TileFrame() {}
+    
+    public TileFrame(int z, int x, int y, List<DriverPosition> drivers, List<String> departed, LocalDateTime timestamp) {
+        this.z = z;
+        this.x = x;
+        this.y = y;
+        this.drivers = drivers;
+        this.departed = departed;
+        this.timestamp = timestamp;
+    }
+    
+    // Getters and setters
+    public int getZ() { return z; }
+    public void setZ(int z) { this.z = z; }
+    
+    public int getX() { return x; }
+    public void setX(int x) { this.x = x; }
+    
+    public int getY() { return y; }
+    public void setY(int y) { this.y = y; }
+    
+    public List<DriverPosition> getDrivers() { return drivers; }
+    public void setDrivers(List<DriverPosition> drivers) { this.drivers = drivers; }
+    
+    public List<String> getDeparted() { return departed; }
+    public void setDeparted(List<String> departed) { this.departed = departed; }
+    
+    public LocalDateTime getTimestamp() { return timestamp; }
+    public void setTimestamp(LocalDateTime timestamp) { this.timestamp = timestamp; }
+    
+    public static class DriverPosition {
+        private String driverId;
+        private double lat;
+        private double lng;
+        private Integer heading;
+        private String status;
+        
+        public DriverPosition() {}
+        
+        public DriverPosition(String driverId, double lat, double lng, Integer heading, String status) {
+            this.driverId = driverId;
+            this.lat = lat;
+            this.lng = lng;
+            this.heading = heading;
+            this.status = status;
+        }
+        
+        public String getDriverId() { return driverId; }
+        public void setDriverId(String driverId) { this.driverId = driverId; }
+        
+        public double getLat() { return lat; }
+        public void setLat(double lat) { this.lat = lat; }
+        
+        public double getLng() { return lng; }
+        public void setLng(double lng) { this.lng = lng; }
+        
+        public Integer getHeading() { return heading; }
+        public void setHeading(Integer heading) { this.heading = heading; }
+        
+        public String getStatus() { return status; }
+        public void setStatus(String status) { this.status = status; }
+    }
+}
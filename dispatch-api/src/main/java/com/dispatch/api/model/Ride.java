@@ -82,19 +82,19 @@ public class Ride {
     
     // Business methods
     public boolean canBeAccepted() {
-        return status == RideStatus.REQUESTED;
+        return RideTransition.ACCEPT.isAllowedFrom(status);
     }
     
     public boolean canBeStarted() {
-        return status == RideStatus.ACCEPTED;
+        return RideTransition.START.isAllowedFrom(status);
     }
     
     public boolean canBeCompleted() {
-        return status == RideStatus.IN_PROGRESS;
+        return RideTransition.COMPLETE.isAllowedFrom(status);
     }
     
     public boolean canBeCancelled() {
-        return status == RideStatus.REQUESTED || status == RideStatus.ACCEPTED;
+        return RideTransition.CANCEL.isAllowedFrom(status);
     }
     
     public void accept(String driverId) {
@@ -0,0 +1,65 @@
+package com.dispatch.api.model;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * The ride state machine: which statuses each transition may start from, and what it records.
+ * Shared by the entity's checks and the conditional UPDATEs in {@code RideTransitionRepository}.
+ */
+public enum RideTransition {
+
+    ACCEPT(RideStatus.ACCEPTED, "accepted_at", "accepted", false, EnumSet.of(RideStatus.REQUESTED)),
+    START(RideStatus.IN_PROGRESS, "started_at", "started", true, EnumSet.of(RideStatus.ACCEPTED)),
+    COMPLETE(RideStatus.COMPLETED, "completed_at", "completed", true, EnumSet.of(RideStatus.IN_PROGRESS)),
+    CANCEL(RideStatus.CANCELLED, "cancelled_at", "cancelled", false, EnumSet.of(RideStatus.REQUESTED, RideStatus.ACCEPTED));
+
+    private final RideStatus target;
+    private final String timestampColumn;
+    private final String pastTense;
+    private final boolean requiresAssignedDriver;
+    private final Set<RideStatus> allowedFrom;
+
+    RideTransition(RideStatus target, String timestampColumn, String pastTense,
+                   boolean requiresAssignedDriver, Set<RideStatus> allowedFrom) {
+        this.target = target;
+        this.timestampColumn = timestampColumn;
+        this.pastTense = pastTense;
+        this.requiresAssignedDriver = requiresAssignedDriver;
+        this.allowedFrom = allowedFrom;
+    }
+
+    public RideStatus target() {
+        return target;
+    }
+
+    public String timestampColumn() {
+        return timestampColumn;
+    }
+
+    /**
+     * Only the driver assigned to the ride may perform it
+     */
+    public boolean requiresAssignedDriver() {
+        return requiresAssignedDriver;
+    }
+
+    public Set<RideStatus> allowedFrom() {
+        return allowedFrom;
+    }
+
+    public boolean isAllowedFrom(RideStatus status) {
+        return allowedFrom.contains(status);
+    }
+
+    /**
+     * Whether the assigned driver becomes available again afterwards
+     */
+    public boolean freesDriver() {
+        return this == COMPLETE || this == CANCEL;
+    }
+
+    public String rejectionMessage(RideStatus current) {
+        return "Ride cannot be " + pastTense + " in current status: " + current;
+    }
+}
@@ -0,0 +1,35 @@
+package com.dispatch.api.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Buckets held in this JVM only, so each API node enforces the limits on its own share of traffic
+ */
+@Component
+@ConditionalOnProperty(name = "app.rate-limits.store", havingValue = "local", matchIfMissing = true)
+public class LocalRateLimitBuckets implements RateLimitBuckets {
+
+    private final Cache<String, Bucket> buckets;
+
+    public LocalRateLimitBuckets(@Value("${app.rate-limits.max-buckets:200000}") long maxBuckets,
+                                 @Value("${app.rate-limits.idle-timeout:10m}") Duration idleTimeout) {
+        // An idle bucket has refilled completely, so dropping it loses nothing
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxBuckets)
+                .expireAfterAccess(idleTimeout)
+                .build();
+    }
+
+    @Override
+    public Bucket bucket(String key, Bandwidth limit) {
+        return buckets.get(key, k -> Bucket.builder().addLimit(limit).build());
+    }
+}
@@ -0,0 +1,15 @@
+package com.dispatch.api.ratelimit;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+
+/**
+ * Where the token buckets behind {@link RateLimiter} live.
+ */
+public interface RateLimitBuckets {
+
+    /**
+     * The bucket for {@code key}, created with {@code limit} on first use
+     */
+    Bucket bucket(String key, Bandwidth limit);
+}
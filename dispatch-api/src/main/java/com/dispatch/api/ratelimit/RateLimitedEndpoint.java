@@ -0,0 +1,28 @@
+package com.dispatch.api.ratelimit;
+
+/**
+ * Endpoints with a token bucket per caller; limits are configured under
+ * {@code app.rate-limits.<name>}.
+ */
+public enum RateLimitedEndpoint {
+
+    /**
+     * POST /drivers/{driverId}/location and each driver of POST /drivers/locations:batch, per driver
+     */
+    DRIVER_LOCATION("driver-location"),
+
+    /**
+     * POST /rides, per authenticated caller (per client address without a token)
+     */
+    RIDE_REQUEST("ride-request");
+
+    private final String name;
+
+    RateLimitedEndpoint(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,79 @@
+package com.dispatch.api.ratelimit;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.ConsumptionProbe;
+import io.github.bucket4j.Refill;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Token bucket per endpoint and caller, e.g. one per driver for location pings.
+ *
+ * Each endpoint allows {@code capacity} requests at once and refills that many per
+ * {@code refill-period}. A failure to reach the bucket store lets the request through; the
+ * limits protect the write path, they are not a security boundary.
+ */
+@Component
+public class RateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimiter.class);
+
+    private final RateLimitBuckets buckets;
+    private final boolean enabled;
+    private final Map<RateLimitedEndpoint, Bandwidth> limits = new EnumMap<>(RateLimitedEndpoint.class);
+
+    private final Map<RateLimitedEndpoint, Counter> allowedCounters = new EnumMap<>(RateLimitedEndpoint.class);
+    private final Map<RateLimitedEndpoint, Counter> limitedCounters = new EnumMap<>(RateLimitedEndpoint.class);
+    private final Map<RateLimitedEndpoint, Counter> errorCounters = new EnumMap<>(RateLimitedEndpoint.class);
+
+    public RateLimiter(RateLimitBuckets buckets, Environment environment, MeterRegistry meterRegistry) {
+        this.buckets = buckets;
+        this.enabled = environment.getProperty("app.rate-limits.enabled", Boolean.class, true);
+
+        for (RateLimitedEndpoint endpoint : RateLimitedEndpoint.values()) {
+            String prefix = "app.rate-limits." + endpoint.getName() + ".";
+            long capacity = environment.getRequiredProperty(prefix + "capacity", Long.class);
+            Duration refillPeriod = environment.getRequiredProperty(prefix + "refill-period", Duration.class);
+            limits.put(endpoint, Bandwidth.classic(capacity, Refill.greedy(capacity, refillPeriod)));
+
+            allowedCounters.put(endpoint, meterRegistry.counter("dispatch.ratelimit", "endpoint", endpoint.getName(), "outcome", "allowed"));
+            limitedCounters.put(endpoint, meterRegistry.counter("dispatch.ratelimit", "endpoint", endpoint.getName(), "outcome", "limited"));
+            errorCounters.put(endpoint, meterRegistry.counter("dispatch.ratelimit", "endpoint", endpoint.getName(), "outcome", "error"));
+        }
+    }
+
+    /**
+     * Take one token from the caller's bucket.
+     *
+     * @return zero if the request may proceed, otherwise how long until a token is available
+     */
+    public Duration tryAcquire(RateLimitedEndpoint endpoint, String caller) {
+        if (!enabled) {
+            return Duration.ZERO;
+        }
+
+        ConsumptionProbe probe;
+        try {
+            probe = buckets.bucket(endpoint.getName() + ":" + caller, limits.get(endpoint)).tryConsumeAndReturnRemaining(1);
+        } catch (Exception e) {
+            errorCounters.get(endpoint).increment();
+            logger.warn("Rate limit check for {} on {} failed, allowing the request", caller, endpoint.getName(), e);
+            return Duration.ZERO;
+        }
+
+        if (probe.isConsumed()) {
+            allowedCounters.get(endpoint).increment();
+            return Duration.ZERO;
+        }
+        limitedCounters.get(endpoint).increment();
+        return Duration.ofNanos(probe.getNanosToWaitForRefill());
+    }
+}
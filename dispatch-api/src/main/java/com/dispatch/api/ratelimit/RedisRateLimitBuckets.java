@@ -0,0 +1,82 @@
+package com.dispatch.api.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.ExpirationAfterWriteStrategy;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import io.github.bucket4j.distributed.proxy.optimization.DelayParameters;
+import io.github.bucket4j.distributed.proxy.optimization.Optimization;
+import io.github.bucket4j.distributed.proxy.optimization.Optimizations;
+import io.github.bucket4j.redis.lettuce.cas.LettuceBasedProxyManager;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.codec.ByteArrayCodec;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * Buckets shared by all API nodes, stored in Redis with compare-and-swap updates.
+ *
+ * Each node consumes from its own copy of a bucket and synchronizes with Redis only after
+ * {@code max-unsynced-tokens} tokens or {@code max-unsynced-time}, whichever comes first, so a
+ * request normally costs no Redis round trip. Across nodes a caller can therefore overshoot its
+ * limit by up to that many tokens per node.
+ */
+@Component
+@ConditionalOnProperty(name = "app.rate-limits.store", havingValue = "redis")
+public class RedisRateLimitBuckets implements RateLimitBuckets {
+
+    private static final String KEY_PREFIX = "dispatch:ratelimit:";
+
+    private final StatefulRedisConnection<byte[], byte[]> connection;
+    private final ProxyManager<byte[]> proxyManager;
+    private final Optimization optimization;
+
+    // Proxies carry the unsynchronized local state, so each node keeps one per key
+    private final Cache<String, Bucket> proxies;
+
+    public RedisRateLimitBuckets(RedisConnectionFactory connectionFactory,
+                                 @Value("${app.rate-limits.max-buckets:200000}") long maxBuckets,
+                                 @Value("${app.rate-limits.idle-timeout:10m}") Duration idleTimeout,
+                                 @Value("${app.rate-limits.redis.max-unsynced-tokens:20}") long maxUnsyncedTokens,
+                                 @Value("${app.rate-limits.redis.max-unsynced-time:500ms}") Duration maxUnsyncedTime) {
+        if (!(connectionFactory instanceof LettuceConnectionFactory lettuce)
+                || !(lettuce.getNativeClient() instanceof RedisClient client)) {
+            throw new IllegalStateException("Redis rate limits need a standalone Lettuce connection");
+        }
+
+        this.connection = client.connect(ByteArrayCodec.INSTANCE);
+        this.proxyManager = LettuceBasedProxyManager.builderFor(connection.async())
+                // Keys disappear once the bucket would have refilled anyway
+                .withExpirationStrategy(ExpirationAfterWriteStrategy.basedOnTimeForRefillingBucketUpToMax(idleTimeout))
+                .build();
+        this.optimization = Optimizations.delaying(new DelayParameters(maxUnsyncedTokens, maxUnsyncedTime));
+        this.proxies = Caffeine.newBuilder()
+                .maximumSize(maxBuckets)
+                .expireAfterAccess(idleTimeout)
+                .build();
+    }
+
+    @Override
+    public Bucket bucket(String key, Bandwidth limit) {
+        return proxies.get(key, k -> proxyManager.builder()
+                .withOptimization(optimization)
+                .build((KEY_PREFIX + k).getBytes(StandardCharsets.UTF_8),
+                        () -> BucketConfiguration.builder().addLimit(limit).build()));
+    }
+
+    @PreDestroy
+    public void close() {
+        connection.close();
+    }
+}
@@ -0,0 +1,126 @@
+package com.dispatch.api.redis;
+
+import com.dispatch.api.dto.response.RideResponse;
+import com.dispatch.api.model.RideStatus;
+import com.dispatch.api.redis.CacheProto.RideSnapshot;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.function.Consumer;
+
+/**
+ * Ride snapshots as a {@code RideSnapshot} protobuf message (see cache.proto), typically a
+ * third of the JSON size and without reflection on either side.
+ *
+ * Snapshots written by earlier versions are JSON. A protobuf message never starts with '{'
+ * (0x7B would be a start-group tag, which proto3 never writes), so those are told apart
+ * by the first byte and still read; they expire with the snapshot TTL.
+ */
+public final class RideSnapshotRedisSerializer implements RedisSerializer<RideResponse> {
+
+    private final ObjectMapper legacyMapper;
+
+    public RideSnapshotRedisSerializer(ObjectMapper legacyMapper) {
+        this.legacyMapper = legacyMapper;
+    }
+
+    @Override
+    public byte[] serialize(RideResponse ride) throws SerializationException {
+        if (ride == null) {
+            return null;
+        }
+
+        RideSnapshot.Builder snapshot = RideSnapshot.newBuilder();
+        setIfPresent(ride.getRideId(), snapshot::setRideId);
+        setIfPresent(ride.getRiderId(), snapshot::setRiderId);
+        setIfPresent(ride.getDriverId(), snapshot::setDriverId);
+        setIfPresent(ride.getPickupLocation(), snapshot::setPickupLocation);
+        setIfPresent(ride.getDestinationLocation(), snapshot::setDestinationLocation);
+        if (ride.getStatus() != null) {
+            snapshot.setStatus(ride.getStatus().name());
+        }
+        if (ride.getEstimatedFare() != null) {
+            snapshot.setEstimatedFare(ride.getEstimatedFare().toPlainString());
+        }
+        if (ride.getActualFare() != null) {
+            snapshot.setActualFare(ride.getActualFare().toPlainString());
+        }
+        setIfPresent(ride.getEstimatedDuration(), snapshot::setEstimatedDuration);
+        setIfPresent(ride.getActualDuration(), snapshot::setActualDuration);
+        setIfPresent(toMicros(ride.getCreatedAt()), snapshot::setCreatedAt);
+        setIfPresent(toMicros(ride.getAcceptedAt()), snapshot::setAcceptedAt);
+        setIfPresent(toMicros(ride.getStartedAt()), snapshot::setStartedAt);
+        setIfPresent(toMicros(ride.getCompletedAt()), snapshot::setCompletedAt);
+        setIfPresent(toMicros(ride.getCancelledAt()), snapshot::setCancelledAt);
+        return snapshot.build().toByteArray();
+    }
+
+    @Override
+    public RideResponse deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] == '{') {
+            return fromLegacyJson(bytes);
+        }
+
+        RideSnapshot snapshot;
+        try {
+            snapshot = RideSnapshot.parseFrom(bytes);
+        } catch (InvalidProtocolBufferException e) {
+            throw new SerializationException("Invalid ride snapshot", e);
+        }
+
+        RideResponse ride = new RideResponse();
+        ride.setRideId(snapshot.getRideId().isEmpty() ? null : snapshot.getRideId());
+        ride.setRiderId(snapshot.getRiderId().isEmpty() ? null : snapshot.getRiderId());
+        ride.setDriverId(snapshot.hasDriverId() ? snapshot.getDriverId() : null);
+        ride.setPickupLocation(snapshot.hasPickupLocation() ? snapshot.getPickupLocation() : null);
+        ride.setDestinationLocation(snapshot.hasDestinationLocation() ? snapshot.getDestinationLocation() : null);
+        ride.setStatus(snapshot.hasStatus() ? RideStatus.valueOf(snapshot.getStatus()) : null);
+        ride.setEstimatedFare(snapshot.hasEstimatedFare() ? new BigDecimal(snapshot.getEstimatedFare()) : null);
+        ride.setActualFare(snapshot.hasActualFare() ? new BigDecimal(snapshot.getActualFare()) : null);
+        ride.setEstimatedDuration(snapshot.hasEstimatedDuration() ? snapshot.getEstimatedDuration() : null);
+        ride.setActualDuration(snapshot.hasActualDuration() ? snapshot.getActualDuration() : null);
+        ride.setCreatedAt(snapshot.hasCreatedAt() ? fromMicros(snapshot.getCreatedAt()) : null);
+        ride.setAcceptedAt(snapshot.hasAcceptedAt() ? fromMicros(snapshot.getAcceptedAt()) : null);
+        ride.setStartedAt(snapshot.hasStartedAt() ? fromMicros(snapshot.getStartedAt()) : null);
+        ride.setCompletedAt(snapshot.hasCompletedAt() ? fromMicros(snapshot.getCompletedAt()) : null);
+        ride.setCancelledAt(snapshot.hasCancelledAt() ? fromMicros(snapshot.getCancelledAt()) : null);
+        return ride;
+    }
+
+    @Override
+    public Class<?> getTargetType() {
+        return RideResponse.class;
+    }
+
+    private RideResponse fromLegacyJson(byte[] bytes) {
+        try {
+            return legacyMapper.readValue(bytes, RideResponse.class);
+        } catch (IOException e) {
+            throw new SerializationException("Invalid legacy ride snapshot", e);
+        }
+    }
+
+    private static <V> void setIfPresent(V value, Consumer<V> setter) {
+        if (value != null) {
+            setter.accept(value);
+        }
+    }
+
+    private static Long toMicros(LocalDateTime time) {
+        return time == null ? null : ChronoUnit.MICROS.between(LocalDateTime.ofEpochSecond(0, 0, ZoneOffset.UTC), time);
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(0, 0, ZoneOffset.UTC).plus(micros, ChronoUnit.MICROS);
+    }
+}
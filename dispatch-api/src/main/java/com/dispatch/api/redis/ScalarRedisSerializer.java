@@ -0,0 +1,97 @@
+package com.dispatch.api.redis;
+
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+
+/**
+ * Numbers as their plain decimal string, e.g. {@code 1.25} is stored as the 4 bytes "1.25"
+ * instead of a ~200 byte JDK serialization stream. The values stay readable from redis-cli and
+ * usable with INCRBYFLOAT.
+ *
+ * Values written before this serializer was introduced are JDK-serialized; those are still
+ * read (recognised by the stream magic) and converted, and get rewritten in the new format
+ * the next time they are set.
+ */
+public final class ScalarRedisSerializer<T extends Number> implements RedisSerializer<T> {
+
+    // java.io.ObjectStreamConstants.STREAM_MAGIC
+    private static final byte JDK_MAGIC_0 = (byte) 0xAC;
+    private static final byte JDK_MAGIC_1 = (byte) 0xED;
+
+    private static final JdkSerializationRedisSerializer LEGACY = new JdkSerializationRedisSerializer();
+
+    private final Class<T> type;
+    private final Function<T, String> format;
+    private final Function<String, T> parse;
+    private final Function<Number, T> convert;
+
+    private ScalarRedisSerializer(Class<T> type, Function<T, String> format,
+                                  Function<String, T> parse, Function<Number, T> convert) {
+        this.type = type;
+        this.format = format;
+        this.parse = parse;
+        this.convert = convert;
+    }
+
+    public static ScalarRedisSerializer<BigDecimal> decimals() {
+        return new ScalarRedisSerializer<>(BigDecimal.class, BigDecimal::toPlainString, BigDecimal::new,
+                number -> number instanceof BigDecimal decimal ? decimal : new BigDecimal(number.toString()));
+    }
+
+    public static ScalarRedisSerializer<Double> doubles() {
+        // Double.toString is the shortest string that parses back to the same double
+        return new ScalarRedisSerializer<>(Double.class, String::valueOf, Double::valueOf, Number::doubleValue);
+    }
+
+    public static ScalarRedisSerializer<Integer> integers() {
+        return new ScalarRedisSerializer<>(Integer.class, String::valueOf, Integer::valueOf, Number::intValue);
+    }
+
+    public static ScalarRedisSerializer<Long> longs() {
+        return new ScalarRedisSerializer<>(Long.class, String::valueOf, Long::valueOf, Number::longValue);
+    }
+
+    @Override
+    public byte[] serialize(T value) throws SerializationException {
+        if (value == null) {
+            return null;
+        }
+        return format.apply(value).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Override
+    public T deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (isJdkSerialized(bytes)) {
+            return fromLegacy(LEGACY.deserialize(bytes));
+        }
+        try {
+            return parse.apply(new String(bytes, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            throw new SerializationException("Not a " + type.getSimpleName() + " value", e);
+        }
+    }
+
+    @Override
+    public Class<?> getTargetType() {
+        return type;
+    }
+
+    static boolean isJdkSerialized(byte[] bytes) {
+        return bytes.length >= 2 && bytes[0] == JDK_MAGIC_0 && bytes[1] == JDK_MAGIC_1;
+    }
+
+    private T fromLegacy(Object value) {
+        if (value instanceof Number number) {
+            return convert.apply(number);
+        }
+        throw new SerializationException("Legacy value is not a number: " + (value == null ? null : value.getClass()));
+    }
+}
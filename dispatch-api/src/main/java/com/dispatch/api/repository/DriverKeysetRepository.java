@@ -0,0 +1,18 @@
+package com.dispatch.api.repository;
+
+import com.dispatch.api.dto.projection.DriverListItem;
+import com.dispatch.api.model.DriverStatus;
+import com.dispatch.api.util.KeysetCursor;
+
+import java.util.List;
+
+/**
+ * Keyset-paginated driver listings, newest first
+ */
+public interface DriverKeysetRepository {
+    
+    /**
+     * Up to {@code limit} drivers after {@code after} (null for the first slice), optionally with one status
+     */
+    List<DriverListItem> findSlice(DriverStatus status, KeysetCursor after, int limit);
+}
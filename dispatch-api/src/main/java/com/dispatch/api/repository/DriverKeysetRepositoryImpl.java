@@ -0,0 +1,49 @@
+package com.dispatch.api.repository;
+
+import com.dispatch.api.dto.projection.DriverListItem;
+import com.dispatch.api.model.DriverStatus;
+import com.dispatch.api.util.KeysetCursor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class DriverKeysetRepositoryImpl implements DriverKeysetRepository {
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Override
+    @Transactional(readOnly = true)
+    public List<DriverListItem> findSlice(DriverStatus status, KeysetCursor after, int limit) {
+        StringBuilder jpql = new StringBuilder(DriverListItem.SELECT);
+        List<String> conditions = new ArrayList<>();
+        
+        if (status != null) {
+            conditions.add("d.status = :status");
+        }
+        if (after != null) {
+            conditions.add("(d.createdAt, d.id) < (:afterCreatedAt, :afterId)");
+        }
+        if (!conditions.isEmpty()) {
+            jpql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        jpql.append(" ORDER BY d.createdAt DESC, d.id DESC");
+        
+        TypedQuery<DriverListItem> query = entityManager.createQuery(jpql.toString(), DriverListItem.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, limit);
+        if (status != null) {
+            query.setParameter("status", status);
+        }
+        if (after != null) {
+            query.setParameter("afterCreatedAt", after.createdAt());
+            query.setParameter("afterId", after.id());
+        }
+        
+        return query.setMaxResults(limit).getResultList();
+    }
+}
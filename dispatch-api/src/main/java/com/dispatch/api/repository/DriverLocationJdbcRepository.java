@@ -0,0 +1,143 @@
+package com.dispatch.api.repository;
+
+import com.dispatch.api.dto.events.DriverLocationEvent;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plain JDBC writes for the driver location hot path.
+ * Bypasses entity loading and dirty checking so a whole batch goes out as one JDBC batch.
+ */
+@Repository
+public class DriverLocationJdbcRepository {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String UPDATE_LOCATION_SQL =
+        "UPDATE drivers SET current_lat = ?, current_lng = ?, last_location_update = ? WHERE id = ?";
+
+    private static final String MARK_OFFLINE_SQL =
+        "UPDATE drivers SET status = 'OFFLINE', updated_at = now() " +
+        "WHERE id = ANY (?) AND status <> 'OFFLINE' " +
+        "AND (last_location_update IS NULL OR last_location_update < ?) RETURNING id, current_lat, current_lng";
+
+    private static final String MARK_ALL_STALE_OFFLINE_SQL =
+        "UPDATE drivers SET status = 'OFFLINE', updated_at = now() " +
+        "WHERE status <> 'OFFLINE' " +
+        "AND (last_location_update IS NULL OR last_location_update < ?) RETURNING id, current_lat, current_lng";
+
+    private static final String FIND_STATUSES_SQL =
+        "SELECT id, status FROM drivers WHERE id = ANY (?)";
+
+    private static final String FIND_ONLINE_HEARTBEATS_SQL =
+        "SELECT id, last_location_update FROM drivers WHERE status <> 'OFFLINE'";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DriverLocationJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Write the latest location of each driver. Returns the number of rows updated.
+     */
+    public int batchUpdateLocations(Collection<DriverLocationEvent> events) {
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        int[][] results = jdbcTemplate.batchUpdate(UPDATE_LOCATION_SQL, events, BATCH_SIZE, (ps, event) -> {
+            ps.setBigDecimal(1, event.getLat());
+            ps.setBigDecimal(2, event.getLng());
+            ps.setTimestamp(3, Timestamp.valueOf(event.getTimestamp()));
+            ps.setString(4, event.getDriverId());
+        });
+
+        int updated = 0;
+        for (int[] batch : results) {
+            for (int count : batch) {
+                // The JDBC driver may report SUCCESS_NO_INFO when it rewrites batches
+                updated += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+            }
+        }
+        return updated;
+    }
+
+    /**
+     * Mark the given drivers offline in one statement, skipping any whose last location
+     * update is newer than {@code cutoff} (e.g. a ping handled by another node).
+     * Returns an OFFLINE event at the last known position of each driver actually switched offline.
+     */
+    public List<DriverLocationEvent> markOffline(Collection<String> driverIds, LocalDateTime cutoff) {
+        if (driverIds.isEmpty()) {
+            return List.of();
+        }
+
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(MARK_OFFLINE_SQL);
+            ps.setArray(1, connection.createArrayOf("varchar", driverIds.toArray()));
+            ps.setTimestamp(2, Timestamp.valueOf(cutoff));
+            return ps;
+        }, (rs, rowNum) -> offlineEvent(rs));
+    }
+
+    /**
+     * Current status of each given driver that exists, keyed by driver id.
+     */
+    public Map<String, String> findStatuses(Collection<String> driverIds) {
+        Map<String, String> statuses = new HashMap<>();
+        if (driverIds.isEmpty()) {
+            return statuses;
+        }
+
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(FIND_STATUSES_SQL);
+            ps.setArray(1, connection.createArrayOf("varchar", driverIds.toArray()));
+            return ps;
+        }, rs -> {
+            statuses.put(rs.getString(1), rs.getString(2));
+        });
+        return statuses;
+    }
+
+    /**
+     * Mark every online driver without a location update since {@code cutoff} offline.
+     * Returns an OFFLINE event at the last known position of each driver switched offline.
+     */
+    public List<DriverLocationEvent> markAllStaleOffline(LocalDateTime cutoff) {
+        return jdbcTemplate.query(MARK_ALL_STALE_OFFLINE_SQL,
+                                  (rs, rowNum) -> offlineEvent(rs),
+                                  Timestamp.valueOf(cutoff));
+    }
+
+    private static DriverLocationEvent offlineEvent(ResultSet rs) throws SQLException {
+        return new DriverLocationEvent(rs.getString(1), rs.getBigDecimal(2), rs.getBigDecimal(3), "OFFLINE");
+    }
+
+    /**
+     * Stream the last location update of every driver that is not offline.
+     * Drivers that never sent a location are passed {@code null}.
+     */
+    public void forEachOnlineHeartbeat(HeartbeatConsumer consumer) {
+        jdbcTemplate.query(FIND_ONLINE_HEARTBEATS_SQL, rs -> {
+            Timestamp lastUpdate = rs.getTimestamp(2);
+            consumer.accept(rs.getString(1), lastUpdate != null ? lastUpdate.toLocalDateTime() : null);
+        });
+    }
+
+    @FunctionalInterface
+    public interface HeartbeatConsumer {
+        void accept(String driverId, LocalDateTime lastLocationUpdate);
+    }
+}
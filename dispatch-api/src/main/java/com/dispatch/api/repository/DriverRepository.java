@@ -11,7 +11,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
-public interface DriverRepository extends JpaRepository<Driver, String> {
+public interface DriverRepository extends JpaRepository<Driver, String>, DriverKeysetRepository {
     
     // Find drivers by status
     List<Driver> findByStatus(DriverStatus status);
@@ -19,17 +19,6 @@ public interface DriverRepository extends JpaRepository<Driver, String> {
     // Find available drivers
     List<Driver> findByStatusOrderByLastLocationUpdateDesc(DriverStatus status);
     
-    // Find drivers in area (simple bounding box)
-    @Query("SELECT d FROM Driver d WHERE d.status = :status " +
-           "AND d.currentLat BETWEEN :minLat AND :maxLat " +
-           "AND d.currentLng BETWEEN :minLng AND :maxLng " +
-           "AND d.lastLocationUpdate > :cutoffTime " +
-           "ORDER BY d.lastLocationUpdate DESC")
-    List<Driver> findAvailableDriversInArea(@Param("status") DriverStatus status,
-                                           @Param("minLat") Double minLat, @Param("maxLat") Double maxLat,
-                                           @Param("minLng") Double minLng, @Param("maxLng") Double maxLng,
-                                           @Param("cutoffTime") LocalDateTime cutoffTime);
-    
     // Find drivers with recent location updates
     @Query("SELECT d FROM Driver d WHERE d.lastLocationUpdate > :cutoffTime ORDER BY d.lastLocationUpdate DESC")
     List<Driver> findDriversWithRecentUpdates(@Param("cutoffTime") LocalDateTime cutoffTime);
@@ -0,0 +1,121 @@
+package com.dispatch.api.repository;
+
+import com.dispatch.api.dto.projection.DriverListItem;
+import com.dispatch.api.dto.projection.RideListItem;
+import com.dispatch.api.model.DriverStatus;
+import com.dispatch.api.model.RideStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Radius searches on the PostGIS columns maintained from lat/lng.
+ *
+ * {@code ST_DWithin} on geography is a true radius in meters and uses the GiST index;
+ * ordering by {@code <->} walks that same index nearest first, so a LIMIT stops early.
+ */
+@Repository
+public class GeoSearchJdbcRepository {
+
+    private static final String FIND_DRIVERS_NEAR_SQL =
+        "SELECT id, name, phone, license_plate, current_lat, current_lng, status, last_location_update, created_at " +
+        "FROM drivers " +
+        "WHERE status = ? AND last_location_update > ? " +
+        "AND ST_DWithin(location, ST_SetSRID(ST_MakePoint(?, ?), 4326)::geography, ?) " +
+        "ORDER BY location <-> ST_SetSRID(ST_MakePoint(?, ?), 4326)::geography " +
+        "LIMIT ?";
+
+    private static final String FIND_RIDES_NEAR_SQL =
+        "SELECT id, rider_id, driver_id, pickup_lat, pickup_lng, destination_lat, destination_lng, status, " +
+        "estimated_fare, fare_amount, estimated_duration_minutes, " +
+        "created_at, accepted_at, started_at, completed_at, cancelled_at " +
+        "FROM rides " +
+        "WHERE status = ANY (?) " +
+        "AND ST_DWithin(pickup_location, ST_SetSRID(ST_MakePoint(?, ?), 4326)::geography, ?) " +
+        "ORDER BY pickup_location <-> ST_SetSRID(ST_MakePoint(?, ?), 4326)::geography " +
+        "LIMIT ?";
+
+    private static final RowMapper<DriverListItem> DRIVER_ROW = (rs, rowNum) -> new DriverListItem(
+        rs.getString("id"),
+        rs.getString("name"),
+        rs.getString("phone"),
+        rs.getString("license_plate"),
+        rs.getBigDecimal("current_lat"),
+        rs.getBigDecimal("current_lng"),
+        DriverStatus.valueOf(rs.getString("status")),
+        toLocalDateTime(rs, "last_location_update"),
+        toLocalDateTime(rs, "created_at")
+    );
+
+    private static final RowMapper<RideListItem> RIDE_ROW = (rs, rowNum) -> new RideListItem(
+        rs.getObject("id", UUID.class),
+        rs.getString("rider_id"),
+        rs.getString("driver_id"),
+        rs.getBigDecimal("pickup_lat"),
+        rs.getBigDecimal("pickup_lng"),
+        rs.getBigDecimal("destination_lat"),
+        rs.getBigDecimal("destination_lng"),
+        RideStatus.valueOf(rs.getString("status")),
+        rs.getBigDecimal("estimated_fare"),
+        rs.getBigDecimal("fare_amount"),
+        (Integer) rs.getObject("estimated_duration_minutes"),
+        toLocalDateTime(rs, "created_at"),
+        toLocalDateTime(rs, "accepted_at"),
+        toLocalDateTime(rs, "started_at"),
+        toLocalDateTime(rs, "completed_at"),
+        toLocalDateTime(rs, "cancelled_at")
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public GeoSearchJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Drivers with the given status and a location newer than {@code updatedAfter}, nearest first
+     */
+    @Transactional(readOnly = true)
+    public List<DriverListItem> findDriversNear(DriverStatus status, double lat, double lng, double radiusMeters,
+                                                LocalDateTime updatedAfter, int limit) {
+        return jdbcTemplate.query(FIND_DRIVERS_NEAR_SQL, DRIVER_ROW,
+            status.name(), Timestamp.valueOf(updatedAfter),
+            lng, lat, radiusMeters,
+            lng, lat,
+            limit);
+    }
+
+    /**
+     * Rides in the given statuses picked up within the radius, nearest first
+     */
+    @Transactional(readOnly = true)
+    public List<RideListItem> findRidesNear(Collection<RideStatus> statuses, double lat, double lng,
+                                            double radiusMeters, int limit) {
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(FIND_RIDES_NEAR_SQL);
+            ps.setArray(1, connection.createArrayOf("varchar", statuses.stream().map(Enum::name).toArray()));
+            ps.setDouble(2, lng);
+            ps.setDouble(3, lat);
+            ps.setDouble(4, radiusMeters);
+            ps.setDouble(5, lng);
+            ps.setDouble(6, lat);
+            ps.setInt(7, limit);
+            return ps;
+        }, RIDE_ROW);
+    }
+
+    private static LocalDateTime toLocalDateTime(ResultSet rs, String column) throws SQLException {
+        Timestamp timestamp = rs.getTimestamp(column);
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
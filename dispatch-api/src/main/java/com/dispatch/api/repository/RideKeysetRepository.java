@@ -0,0 +1,18 @@
+package com.dispatch.api.repository;
+
+import com.dispatch.api.dto.projection.RideListItem;
+import com.dispatch.api.model.RideStatus;
+import com.dispatch.api.util.KeysetCursor;
+
+import java.util.List;
+
+/**
+ * Keyset-paginated ride listings, newest first
+ */
+public interface RideKeysetRepository {
+    
+    /**
+     * Up to {@code limit} rides after {@code after} (null for the first slice); null filters are not applied
+     */
+    List<RideListItem> findSlice(String riderId, String driverId, RideStatus status, KeysetCursor after, int limit);
+}
@@ -0,0 +1,71 @@
+package com.dispatch.api.repository;
+
+import com.dispatch.api.dto.projection.RideListItem;
+import com.dispatch.api.model.RideStatus;
+import com.dispatch.api.util.KeysetCursor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Builds the query from the filters actually given, so each combination gets its own plan
+ * and the matching {@code (filter, created_at, id)} index. The row-value comparison on
+ * {@code (created_at, id)} turns into a single index range condition in Postgres.
+ *
+ * Rows are selected straight into {@link RideListItem}, so nothing enters the persistence
+ * context. The read-only transaction keeps autocommit off, which the Postgres driver needs
+ * to honor the fetch size.
+ */
+class RideKeysetRepositoryImpl implements RideKeysetRepository {
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Override
+    @Transactional(readOnly = true)
+    public List<RideListItem> findSlice(String riderId, String driverId, RideStatus status, KeysetCursor after, int limit) {
+        StringBuilder jpql = new StringBuilder(RideListItem.SELECT);
+        List<String> conditions = new ArrayList<>();
+        
+        if (riderId != null) {
+            conditions.add("r.riderId = :riderId");
+        }
+        if (driverId != null) {
+            conditions.add("r.driverId = :driverId");
+        }
+        if (status != null) {
+            conditions.add("r.status = :status");
+        }
+        if (after != null) {
+            conditions.add("(r.createdAt, r.id) < (:afterCreatedAt, :afterId)");
+        }
+        if (!conditions.isEmpty()) {
+            jpql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        jpql.append(" ORDER BY r.createdAt DESC, r.id DESC");
+        
+        TypedQuery<RideListItem> query = entityManager.createQuery(jpql.toString(), RideListItem.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, limit);
+        if (riderId != null) {
+            query.setParameter("riderId", riderId);
+        }
+        if (driverId != null) {
+            query.setParameter("driverId", driverId);
+        }
+        if (status != null) {
+            query.setParameter("status", status);
+        }
+        if (after != null) {
+            query.setParameter("afterCreatedAt", after.createdAt());
+            query.setParameter("afterId", UUID.fromString(after.id()));
+        }
+        
+        return query.setMaxResults(limit).getResultList();
+    }
+}
@@ -13,22 +13,19 @@ import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface RideRepository extends JpaRepository<Ride, UUID> {
-    
-    // Find rides by rider
-    List<Ride> findByRiderIdOrderByCreatedAtDesc(String riderId);
-    
-    // Find rides by driver
-    List<Ride> findByDriverIdOrderByCreatedAtDesc(String driverId);
+public interface RideRepository extends JpaRepository<Ride, UUID>, RideKeysetRepository {
     
     // Find rides by status
     List<Ride> findByStatusOrderByCreatedAtDesc(RideStatus status);
     
-    // Find active ride for driver
-    Optional<Ride> findByDriverIdAndStatusIn(String driverId, List<RideStatus> statuses);
+    // Rides in any of the given statuses, e.g. to rebuild the active ride registry
+    List<Ride> findByStatusIn(List<RideStatus> statuses);
     
-    // Find active ride for rider
-    Optional<Ride> findByRiderIdAndStatusIn(String riderId, List<RideStatus> statuses);
+    // Find active rides for driver
+    List<Ride> findByDriverIdAndStatusIn(String driverId, List<RideStatus> statuses);
+    
+    // Find active rides for rider
+    List<Ride> findByRiderIdAndStatusIn(String riderId, List<RideStatus> statuses);
     
     // Count rides by status in time period
     @Query("SELECT COUNT(r) FROM Ride r WHERE r.status = :status AND r.createdAt BETWEEN :startTime AND :endTime")
@@ -36,15 +33,6 @@ public interface RideRepository extends JpaRepository<Ride, UUID> {
                                          @Param("startTime") LocalDateTime startTime, 
                                          @Param("endTime") LocalDateTime endTime);
     
-    // Find rides in area (simple bounding box)
-    @Query("SELECT r FROM Ride r WHERE r.status IN :statuses " +
-           "AND r.pickupLat BETWEEN :minLat AND :maxLat " +
-           "AND r.pickupLng BETWEEN :minLng AND :maxLng " +
-           "ORDER BY r.createdAt DESC")
-    List<Ride> findRidesInArea(@Param("statuses") List<RideStatus> statuses,
-                              @Param("minLat") Double minLat, @Param("maxLat") Double maxLat,
-                              @Param("minLng") Double minLng, @Param("maxLng") Double maxLng);
-    
     // Find pending rides (requested but not accepted)
     @Query("SELECT r FROM Ride r WHERE r.status = 'REQUESTED' AND r.createdAt > :cutoffTime ORDER BY r.createdAt ASC")
     List<Ride> findPendingRides(@Param("cutoffTime") LocalDateTime cutoffTime);
@@ -0,0 +1,131 @@
+package com.dispatch.api.repository;
+
+import com.dispatch.api.model.DriverStatus;
+import com.dispatch.api.model.RideTransition;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Ride transitions as single conditional UPDATEs.
+ *
+ * The WHERE clause carries the state machine check ({@code status IN (...)}, and the assigned
+ * driver where required), so no read is needed beforehand and two concurrent transitions on
+ * the same ride cannot both succeed. Zero affected rows means the transition was rejected.
+ */
+@Repository
+public class RideTransitionRepository {
+
+    private static final Map<RideTransition, String> UPDATE_SQL = new EnumMap<>(RideTransition.class);
+
+    static {
+        for (RideTransition transition : RideTransition.values()) {
+            String allowedFrom = transition.allowedFrom().stream()
+                    .map(status -> "'" + status.name() + "'")
+                    .collect(Collectors.joining(", "));
+            UPDATE_SQL.put(transition,
+                "UPDATE rides SET status = ?, " + transition.timestampColumn() + " = ?, updated_at = ?, " +
+                "driver_id = COALESCE(?, driver_id), fare_amount = COALESCE(?, fare_amount) " +
+                "WHERE id = ? AND status IN (" + allowedFrom + ")" +
+                (transition.requiresAssignedDriver() ? " AND driver_id = ?" : ""));
+        }
+    }
+
+    private static final String RELEASE_DRIVER_SQL =
+        "UPDATE drivers SET status = '" + DriverStatus.AVAILABLE.name() + "', updated_at = ? " +
+        "WHERE id = ? AND status = '" + DriverStatus.BUSY.name() + "'";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public RideTransitionRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @return affected rows: 1 if the transition was applied, 0 if it was rejected
+     */
+    public int apply(Command command) {
+        return applyAll(List.of(command))[0];
+    }
+
+    /**
+     * Apply several transitions in the order given. Consecutive commands of the same transition
+     * type go out as one JDBC batch, so a later command for a ride always sees the earlier one.
+     *
+     * @return affected rows per command, in the order given
+     */
+    public int[] applyAll(List<Command> commands) {
+        int[] updated = new int[commands.size()];
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        int runStart = 0;
+        while (runStart < commands.size()) {
+            RideTransition transition = commands.get(runStart).transition();
+            int runEnd = runStart + 1;
+            while (runEnd < commands.size() && commands.get(runEnd).transition() == transition) {
+                runEnd++;
+            }
+
+            List<Command> run = commands.subList(runStart, runEnd);
+            int[][] counts = jdbcTemplate.batchUpdate(UPDATE_SQL.get(transition), run, run.size(), (ps, command) -> {
+                ps.setString(1, transition.target().name());
+                ps.setTimestamp(2, Timestamp.valueOf(command.at()));
+                ps.setTimestamp(3, now);
+                ps.setString(4, command.driverId());
+                ps.setBigDecimal(5, command.fareAmount());
+                ps.setObject(6, command.rideId());
+                if (transition.requiresAssignedDriver()) {
+                    ps.setString(7, command.driverId());
+                }
+            });
+            System.arraycopy(counts[0], 0, updated, runStart, run.size());
+
+            runStart = runEnd;
+        }
+
+        return updated;
+    }
+
+    /**
+     * Make drivers available again after their ride ended; drivers not busy are left alone
+     */
+    public void releaseDrivers(Collection<String> driverIds) {
+        if (driverIds.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(RELEASE_DRIVER_SQL, driverIds, driverIds.size(), (ps, driverId) -> {
+            ps.setTimestamp(1, now);
+            ps.setString(2, driverId);
+        });
+    }
+
+    /**
+     * One requested transition. {@code driverId} is the driver performing it for transitions that
+     * require the assigned driver, and the driver being assigned for {@link RideTransition#ACCEPT}.
+     */
+    public record Command(RideTransition transition, UUID rideId, String driverId,
+                          BigDecimal fareAmount, LocalDateTime at) {
+
+        public static Command start(UUID rideId, String driverId) {
+            return new Command(RideTransition.START, rideId, driverId, null, LocalDateTime.now());
+        }
+
+        public static Command complete(UUID rideId, String driverId, BigDecimal fareAmount) {
+            return new Command(RideTransition.COMPLETE, rideId, driverId, fareAmount, LocalDateTime.now());
+        }
+
+        public static Command cancel(UUID rideId) {
+            return new Command(RideTransition.CANCEL, rideId, null, null, LocalDateTime.now());
+        }
+    }
+}
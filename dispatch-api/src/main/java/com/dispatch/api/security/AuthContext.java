@@ -0,0 +1,26 @@
+package com.dispatch.api.security;
+
+import java.security.Principal;
+import java.time.Instant;
+import java.util.Set;
+
+/**
+ * What a verified token says about its caller. Parsed once per token and shared by every check
+ * made for it, see {@link JwtTokenProvider#authenticate(String)}.
+ */
+public record AuthContext(String userId, String userType, Set<String> permissions, Instant expiresAt)
+        implements Principal {
+
+    @Override
+    public String getName() {
+        return userId;
+    }
+
+    public boolean hasPermission(String permission) {
+        return permissions.contains(permission);
+    }
+
+    public boolean isExpired(Instant now) {
+        return expiresAt != null && !expiresAt.isAfter(now);
+    }
+}
@@ -0,0 +1,61 @@
+package com.dispatch.api.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Authenticates requests carrying {@code Authorization: Bearer <jwt>}.
+ *
+ * The token is verified at most once per request, and not at all while its parsed claims are
+ * cached. The {@link AuthContext} becomes the principal; permissions are granted as authorities
+ * and the user type as {@code ROLE_<type>}. Requests without a valid token continue
+ * unauthenticated and are left to the authorization rules.
+ */
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final JwtTokenProvider tokenProvider;
+
+    public JwtAuthenticationFilter(JwtTokenProvider tokenProvider) {
+        this.tokenProvider = tokenProvider;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.startsWith(BEARER_PREFIX)
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            tokenProvider.authenticate(header.substring(BEARER_PREFIX.length()).trim()).ifPresent(context -> {
+                UsernamePasswordAuthenticationToken authentication =
+                        new UsernamePasswordAuthenticationToken(context, null, authorities(context));
+                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+            });
+        }
+        chain.doFilter(request, response);
+    }
+
+    private static List<GrantedAuthority> authorities(AuthContext context) {
+        List<GrantedAuthority> authorities = new ArrayList<>(context.permissions().size() + 1);
+        if (context.userType() != null) {
+            authorities.add(new SimpleGrantedAuthority("ROLE_" + context.userType()));
+        }
+        context.permissions().forEach(permission -> authorities.add(new SimpleGrantedAuthority(permission)));
+        return authorities;
+    }
+}
@@ -1,5 +1,8 @@
 package com.dispatch.api.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import jakarta.annotation.PostConstruct;
@@ -9,11 +12,20 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Component
 public class JwtTokenProvider {
@@ -26,11 +38,50 @@ public class JwtTokenProvider {
     @Value("${app.security.jwt.expiration:86400}") // 24 hours
     private int jwtExpirationInSeconds;
     
+    @Value("${app.security.jwt.cache.max-size:100000}")
+    private long cacheMaxSize;
+
+    // Longest a verified token is trusted without verifying it again, also for tokens without an expiry
+    @Value("${app.security.jwt.cache.max-ttl:10m}")
+    private Duration cacheMaxTtl;
+
     private SecretKey secretKey;
+    private JwtParser parser;
+
+    // Verified tokens by SHA-256 of the compact token, each kept until the token expires
+    private Cache<String, AuthContext> verified;
     
     @PostConstruct
     public void init() {
         this.secretKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        this.parser = Jwts.parser().verifyWith(secretKey).build();
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new Expiry<String, AuthContext>() {
+                    @Override
+                    public long expireAfterCreate(String key, AuthContext context, long currentTime) {
+                        return timeToLive(context).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, AuthContext context, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, AuthContext context, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    private Duration timeToLive(AuthContext context) {
+        if (context.expiresAt() == null) {
+            return cacheMaxTtl;
+        }
+        Duration remaining = Duration.between(Instant.now(), context.expiresAt());
+        return remaining.isNegative() ? Duration.ZERO : remaining.compareTo(cacheMaxTtl) > 0 ? cacheMaxTtl : remaining;
     }
     
     public String generateToken(String userId, String userType, Map<String, Object> claims) {
@@ -68,34 +119,37 @@ public class JwtTokenProvider {
         return generateToken(riderId, "RIDER", claims);
     }
     
-    public String getUserIdFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(secretKey)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        
-        return claims.getSubject();
-    }
-    
-    public String getUserTypeFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(secretKey)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        
-        return claims.get("user_type", String.class);
+    /**
+     * Verify a token and return its caller, or throw {@link JwtException} if it is invalid or
+     * expired. Parsed tokens are cached until their expiry, so repeated checks of the same token
+     * do not verify its signature again.
+     */
+    public AuthContext parse(String token) {
+        if (token == null || token.isEmpty()) {
+            throw new IllegalArgumentException("JWT string is empty");
+        }
+
+        String key = hash(token);
+        AuthContext context = verified.getIfPresent(key);
+        if (context == null) {
+            context = toAuthContext(parser.parseSignedClaims(token).getPayload());
+            verified.put(key, context);
+        }
+        if (context.isExpired(Instant.now())) {
+            // The cache entry is about to expire on its own
+            verified.invalidate(key);
+            throw new ExpiredJwtException(null, null, "JWT expired at " + context.expiresAt());
+        }
+        return context;
     }
-    
-    public boolean validateToken(String authToken) {
+
+    /**
+     * The caller of a valid token, or empty (and logged) for any invalid one
+     */
+    public Optional<AuthContext> authenticate(String token) {
         try {
-            Jwts.parserBuilder()
-                .setSigningKey(secretKey)
-                .build()
-                .parseClaimsJws(authToken);
-            return true;
-        } catch (SecurityException ex) {
+            return Optional.of(parse(token));
+        } catch (SecurityException | io.jsonwebtoken.security.SecurityException ex) {
             logger.error("Invalid JWT signature");
         } catch (MalformedJwtException ex) {
             logger.error("Invalid JWT token");
@@ -105,39 +159,51 @@ public class JwtTokenProvider {
             logger.error("Unsupported JWT token");
         } catch (IllegalArgumentException ex) {
             logger.error("JWT claims string is empty");
+        } catch (JwtException ex) {
+            logger.error("Invalid JWT: {}", ex.getMessage());
         }
-        return false;
+        return Optional.empty();
+    }
+
+    public String getUserIdFromToken(String token) {
+        return parse(token).userId();
+    }
+    
+    public String getUserTypeFromToken(String token) {
+        return parse(token).userType();
+    }
+    
+    public boolean validateToken(String authToken) {
+        return authenticate(authToken).isPresent();
     }
     
     public boolean hasPermission(String token, String permission) {
-        try {
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(secretKey)
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
-            
-            @SuppressWarnings("unchecked")
-            java.util.List<String> permissions = (java.util.List<String>) claims.get("permissions");
-            
-            return permissions != null && permissions.contains(permission);
-        } catch (Exception e) {
-            logger.error("Error checking permission {}", permission, e);
-            return false;
-        }
+        return authenticate(token).map(context -> context.hasPermission(permission)).orElse(false);
     }
     
     public boolean isTokenExpired(String token) {
         try {
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(secretKey)
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
-            
-            return claims.getExpiration().before(new Date());
+            return parse(token).isExpired(Instant.now());
         } catch (Exception e) {
             return true;
         }
     }
+
+    private static AuthContext toAuthContext(Claims claims) {
+        Set<String> permissions = claims.get("permissions") instanceof Collection<?> granted
+                ? granted.stream().map(String::valueOf).collect(Collectors.toUnmodifiableSet())
+                : Set.of();
+        Date expiration = claims.getExpiration();
+        return new AuthContext(claims.getSubject(), claims.get("user_type", String.class), permissions,
+                expiration != null ? expiration.toInstant() : null);
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
 }
@@ -0,0 +1,225 @@
+package com.dispatch.api.service;
+
+import com.dispatch.api.model.Ride;
+import com.dispatch.api.model.RideStatus;
+import com.dispatch.api.repository.RideRepository;
+import com.dispatch.api.service.ActiveRideStore.Claim;
+import com.dispatch.api.service.ActiveRideStore.Party;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Which ride each rider and driver currently holds, so duplicate checks and "current ride"
+ * lookups don't query Postgres.
+ *
+ * {@link DispatchService} claims the rider when a ride is created and the driver when it is
+ * assigned; a claim fails if another active ride already holds it. Claims are released once a
+ * ride completes or is cancelled, and dropped again if the claiming transaction rolls back.
+ * The registry is rebuilt from the database at startup, before the web server starts taking
+ * requests; a node that cannot rebuild it does not start.
+ *
+ * A claim left behind by a crash is detected when it gets in the way: the database is only
+ * consulted then, and a claim whose ride is no longer active is taken over.
+ */
+@Component
+public class ActiveRideRegistry implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(ActiveRideRegistry.class);
+
+    public static final List<RideStatus> ACTIVE_STATUSES =
+        List.of(RideStatus.REQUESTED, RideStatus.ACCEPTED, RideStatus.IN_PROGRESS);
+
+    private static final int MAX_CLAIM_ATTEMPTS = 3;
+
+    private final ActiveRideStore store;
+    private final RideRepository rideRepository;
+    private final Counter staleClaims;
+
+    // A claim for a ride not in the database yet may belong to a transaction still in flight
+    @Value("${app.rides.active-registry.claim-grace:30s}")
+    private Duration claimGrace;
+
+    public ActiveRideRegistry(ActiveRideStore store, RideRepository rideRepository, MeterRegistry meterRegistry) {
+        this.store = store;
+        this.rideRepository = rideRepository;
+        this.staleClaims = meterRegistry.counter("dispatch.rides.active.stale");
+    }
+
+    public static boolean isActive(RideStatus status) {
+        return ACTIVE_STATUSES.contains(status);
+    }
+
+    public Optional<UUID> findActiveRideForRider(String riderId) {
+        return find(Party.RIDER, riderId);
+    }
+
+    public Optional<UUID> findActiveRideForDriver(String driverId) {
+        return find(Party.DRIVER, driverId);
+    }
+
+    /**
+     * @throws IllegalStateException if the rider already has another active ride
+     */
+    public void claimRider(String riderId, UUID rideId) {
+        claim(Party.RIDER, riderId, rideId, "Rider already has an active ride");
+    }
+
+    /**
+     * @throws IllegalStateException if the driver is already on another active ride
+     */
+    public void claimDriver(String driverId, UUID rideId) {
+        claim(Party.DRIVER, driverId, rideId, "Driver already has an active ride");
+    }
+
+    /**
+     * Drop the driver's claim on a ride it was not assigned after all, right away
+     */
+    public void releaseDriver(String driverId, UUID rideId) {
+        remove(Party.DRIVER, driverId, rideId);
+    }
+
+    /**
+     * Free the ride's rider and driver, after the surrounding transaction commits
+     */
+    public void release(Ride ride) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    releaseNow(ride.getId(), ride.getRiderId(), ride.getDriverId());
+                }
+            });
+        } else {
+            releaseNow(ride.getId(), ride.getRiderId(), ride.getDriverId());
+        }
+    }
+
+    // Runs before the web server starts: requests served from a partial registry could
+    // give a driver who is already on a ride a second one
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+
+    void rebuild() {
+        try {
+            long now = System.currentTimeMillis();
+            List<Ride> activeRides = rideRepository.findByStatusIn(ACTIVE_STATUSES);
+            for (Ride ride : activeRides) {
+                Claim claim = new Claim(ride.getId(), now);
+                store.putIfAbsent(Party.RIDER, ride.getRiderId(), claim);
+                if (ride.getDriverId() != null) {
+                    store.putIfAbsent(Party.DRIVER, ride.getDriverId(), claim);
+                }
+            }
+            logger.info("Rebuilt active ride registry from {} active rides", activeRides.size());
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to rebuild active ride registry", e);
+        }
+    }
+
+    private Optional<UUID> find(Party party, String id) {
+        try {
+            return Optional.ofNullable(store.get(party, id)).map(Claim::rideId);
+        } catch (Exception e) {
+            logger.warn("Failed to look up active ride for {} {}", party, id, e);
+            return Optional.empty();
+        }
+    }
+
+    private void claim(Party party, String id, UUID rideId, String conflictMessage) {
+        try {
+            if (!tryClaim(party, id, new Claim(rideId, System.currentTimeMillis()))) {
+                throw new IllegalStateException(conflictMessage);
+            }
+        } catch (IllegalStateException e) {
+            throw e;
+        } catch (Exception e) {
+            // Store unreachable: fall back to the database so the check still happens
+            logger.warn("Failed to claim {} {} for ride {}, checking the database instead", party, id, rideId, e);
+            if (hasOtherActiveRide(party, id, rideId)) {
+                throw new IllegalStateException(conflictMessage);
+            }
+        }
+    }
+
+    private boolean tryClaim(Party party, String id, Claim claim) {
+        for (int attempt = 0; attempt < MAX_CLAIM_ATTEMPTS; attempt++) {
+            Claim held = store.putIfAbsent(party, id, claim);
+            if (held == null) {
+                releaseOnRollback(party, id, claim.rideId());
+                return true;
+            }
+            if (held.rideId().equals(claim.rideId())) {
+                return true;
+            }
+            if (!isStale(held)) {
+                return false;
+            }
+            if (store.replace(party, id, held, claim)) {
+                staleClaims.increment();
+                logger.info("Took over stale claim of {} {} by ride {}", party, id, held.rideId());
+                releaseOnRollback(party, id, claim.rideId());
+                return true;
+            }
+            // Someone else changed the claim in the meantime; look again
+        }
+        return false;
+    }
+
+    private boolean isStale(Claim held) {
+        Optional<Ride> ride = rideRepository.findById(held.rideId());
+        if (ride.isEmpty()) {
+            return System.currentTimeMillis() - held.claimedAt() > claimGrace.toMillis();
+        }
+        return !isActive(ride.get().getStatus());
+    }
+
+    private boolean hasOtherActiveRide(Party party, String id, UUID rideId) {
+        List<Ride> rides = party == Party.RIDER
+            ? rideRepository.findByRiderIdAndStatusIn(id, ACTIVE_STATUSES)
+            : rideRepository.findByDriverIdAndStatusIn(id, ACTIVE_STATUSES);
+        return rides.stream().anyMatch(ride -> !ride.getId().equals(rideId));
+    }
+
+    private void releaseOnRollback(Party party, String id, UUID rideId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    remove(party, id, rideId);
+                }
+            }
+        });
+    }
+
+    private void releaseNow(UUID rideId, String riderId, String driverId) {
+        remove(Party.RIDER, riderId, rideId);
+        if (driverId != null) {
+            remove(Party.DRIVER, driverId, rideId);
+        }
+    }
+
+    private void remove(Party party, String id, UUID rideId) {
+        try {
+            store.remove(party, id, rideId);
+        } catch (Exception e) {
+            logger.warn("Failed to release {} {} from ride {}", party, id, rideId, e);
+        }
+    }
+}
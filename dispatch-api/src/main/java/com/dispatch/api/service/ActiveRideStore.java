@@ -0,0 +1,41 @@
+package com.dispatch.api.service;
+
+import java.util.UUID;
+
+/**
+ * Storage behind {@link ActiveRideRegistry}: which ride a rider or driver currently holds.
+ *
+ * All updates are conditional, so concurrent claims for the same rider or driver resolve
+ * to exactly one winner.
+ */
+public interface ActiveRideStore {
+
+    enum Party {
+        RIDER,
+        DRIVER
+    }
+
+    /**
+     * A ride held by a rider or driver, and when the hold was taken
+     */
+    record Claim(UUID rideId, long claimedAt) {}
+
+    Claim get(Party party, String id);
+
+    /**
+     * Store the claim unless one is already held
+     *
+     * @return the claim already held, or null if this one was stored
+     */
+    Claim putIfAbsent(Party party, String id, Claim claim);
+
+    /**
+     * Swap {@code expected} for {@code replacement}, only if {@code expected} is still the one held
+     */
+    boolean replace(Party party, String id, Claim expected, Claim replacement);
+
+    /**
+     * Drop the claim, only if it is still for {@code rideId}
+     */
+    void remove(Party party, String id, UUID rideId);
+}
@@ -6,17 +6,27 @@ import com.dispatch.api.model.Driver;
 import com.dispatch.api.model.Ride;
 import com.dispatch.api.repository.DriverRepository;
 import com.dispatch.api.repository.RideRepository;
+import com.dispatch.api.repository.RideTransitionRepository.Command;
+import com.dispatch.api.util.DriverCandidates;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 @Transactional
@@ -29,6 +39,11 @@ public class DispatchService {
     private final GeoIndexService geoIndexService;
     private final EventPublishingService eventPublishingService;
     private final FeatureFlagService featureFlagService;
+    private final DriverLocationCoalescer driverLocationCoalescer;
+    private final RideSnapshotCache rideSnapshotCache;
+    private final ActiveRideRegistry activeRideRegistry;
+    private final RideStateWriter rideStateWriter;
+    private final RealtimeNotificationService realtimeNotificationService;
     
     @Value("${app.matching.max-search-radius-km}")
     private double maxSearchRadiusKm;
@@ -39,33 +54,34 @@ public class DispatchService {
     @Value("${app.matching.assignment-timeout-seconds}")
     private int assignmentTimeoutSeconds;
     
+    @Value("${app.rides.writer.commit-timeout:5s}")
+    private Duration commitTimeout;
+    
     public DispatchService(RideRepository rideRepository, 
                           DriverRepository driverRepository,
                           GeoIndexService geoIndexService, 
                           EventPublishingService eventPublishingService,
-                          FeatureFlagService featureFlagService) {
+                          FeatureFlagService featureFlagService,
+                          DriverLocationCoalescer driverLocationCoalescer,
+                          RideSnapshotCache rideSnapshotCache,
+                          ActiveRideRegistry activeRideRegistry,
+                          RideStateWriter rideStateWriter,
+                          RealtimeNotificationService realtimeNotificationService) {
         this.rideRepository = rideRepository;
         this.driverRepository = driverRepository;
         this.geoIndexService = geoIndexService;
         this.eventPublishingService = eventPublishingService;
         this.featureFlagService = featureFlagService;
+        this.driverLocationCoalescer = driverLocationCoalescer;
+        this.rideSnapshotCache = rideSnapshotCache;
+        this.activeRideRegistry = activeRideRegistry;
+        this.rideStateWriter = rideStateWriter;
+        this.realtimeNotificationService = realtimeNotificationService;
     }
     
     public Ride createRide(String riderId, BigDecimal pickupLat, BigDecimal pickupLng, 
                           BigDecimal destinationLat, BigDecimal destinationLng) {
         
-        // Check if rider has any active rides
-        List<com.dispatch.api.model.RideStatus> activeStatuses = List.of(
-            com.dispatch.api.model.RideStatus.REQUESTED,
-            com.dispatch.api.model.RideStatus.ACCEPTED,
-            com.dispatch.api.model.RideStatus.IN_PROGRESS
-        );
-        
-        Optional<Ride> existingRide = rideRepository.findByRiderIdAndStatusIn(riderId, activeStatuses);
-        if (existingRide.isPresent()) {
-            throw new IllegalStateException("Rider already has an active ride");
-        }
-        
         // Create new ride
         Ride ride = new Ride(riderId, pickupLat, pickupLng);
         ride.setDestinationLat(destinationLat);
@@ -73,6 +89,10 @@ public class DispatchService {
         
         ride = rideRepository.save(ride);
         
+        // Fails if the rider already has an active ride; the insert is only flushed on commit
+        activeRideRegistry.claimRider(riderId, ride.getId());
+        rideSnapshotCache.put(ride);
+        
         // Publish ride requested event
         RideEvent rideEvent = RideEvent.requested(ride.getId(), riderId, pickupLat, pickupLng);
         rideEvent.setDestinationLat(destinationLat);
@@ -136,10 +156,7 @@ public class DispatchService {
     private DriverLocation selectDriverAdvanced(List<DriverLocation> drivers, Ride ride) {
         // Advanced strategy: consider distance, driver rating, surge area, etc.
         // For now, implement simple distance-based selection
-        return drivers.stream()
-                .filter(d -> d.getStatus() == com.dispatch.api.grpc.GeoIndexProto.DriverStatus.AVAILABLE)
-                .min((d1, d2) -> Double.compare(d1.getDistanceKm(), d2.getDistanceKm()))
-                .orElse(null);
+        return DriverCandidates.nearestAvailable(drivers);
     }
     
     private void assignRideToDriver(Ride ride, String driverId) {
@@ -157,15 +174,26 @@ public class DispatchService {
                 return;
             }
             
-            // Accept the ride
-            ride.accept(driverId);
-            driver.startRide();
-            
-            // Save changes
-            rideRepository.save(ride);
-            driverRepository.save(driver);
+            // Fails if the driver was already given another ride
+            activeRideRegistry.claimDriver(driverId, ride.getId());
+            try {
+                // Accept the ride
+                ride.accept(driverId);
+                driver.startRide();
+                
+                // Save changes
+                rideRepository.save(ride);
+                driverRepository.save(driver);
+            } catch (RuntimeException e) {
+                // Not assigned after all; the exception is handled below and the transaction
+                // may still commit, so the claim would otherwise outlive it
+                activeRideRegistry.releaseDriver(driverId, ride.getId());
+                throw e;
+            }
+            rideSnapshotCache.put(ride);
             
             // Update driver status in geo-index
+            driverLocationCoalescer.updateStatus(driverId, "BUSY");
             geoIndexService.updateDriverLocation(
                 driverId, 
                 driver.getCurrentLat(), 
@@ -176,6 +204,8 @@ public class DispatchService {
             // Publish events
             RideEvent acceptedEvent = RideEvent.accepted(ride.getId(), ride.getRiderId(), driverId);
             eventPublishingService.publishRideEvent(acceptedEvent);
+            // The rider must not be told about an assignment that is rolled back with the transaction
+            afterCommit(() -> realtimeNotificationService.handleRideEvent(acceptedEvent));
             eventPublishingService.publishRideAssignmentEvent(
                 ride.getId().toString(), 
                 driverId, 
@@ -184,64 +214,52 @@ public class DispatchService {
             
             logger.info("Assigned ride {} to driver {}", ride.getId(), driverId);
             
+        } catch (IllegalStateException e) {
+            logger.warn("Could not assign ride {} to driver {}: {}", ride.getId(), driverId, e.getMessage());
         } catch (Exception e) {
             logger.error("Error assigning ride {} to driver {}", ride.getId(), driverId, e);
         }
     }
     
-    public Ride startRide(UUID rideId, String driverId) {
-        Ride ride = rideRepository.findById(rideId)
-                .orElseThrow(() -> new IllegalArgumentException("Ride not found"));
-        
-        if (!driverId.equals(ride.getDriverId())) {
-            throw new IllegalArgumentException("Driver not assigned to this ride");
-        }
-        
-        if (!ride.canBeStarted()) {
-            throw new IllegalStateException("Ride cannot be started in current status: " + ride.getStatus());
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
         }
-        
-        ride.start();
-        ride = rideRepository.save(ride);
+    }
+    
+    // Each transition is one conditional UPDATE, applied through the group-commit writer;
+    // no transaction (and connection) is held while waiting for it
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Ride startRide(UUID rideId, String driverId) {
+        Ride ride = awaitCommit(Command.start(rideId, driverId));
+        rideSnapshotCache.put(ride);
         
         // Publish started event
         RideEvent startedEvent = RideEvent.started(ride.getId(), ride.getRiderId(), driverId);
         eventPublishingService.publishRideEvent(startedEvent);
+        realtimeNotificationService.handleRideEvent(startedEvent);
         
         logger.info("Started ride {} with driver {}", rideId, driverId);
         
         return ride;
     }
     
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Ride completeRide(UUID rideId, String driverId, BigDecimal fareAmount) {
-        Ride ride = rideRepository.findById(rideId)
-                .orElseThrow(() -> new IllegalArgumentException("Ride not found"));
-        
-        if (!driverId.equals(ride.getDriverId())) {
-            throw new IllegalArgumentException("Driver not assigned to this ride");
-        }
-        
-        if (!ride.canBeCompleted()) {
-            throw new IllegalStateException("Ride cannot be completed in current status: " + ride.getStatus());
-        }
-        
-        ride.setFareAmount(fareAmount);
-        ride.complete();
-        ride = rideRepository.save(ride);
-        
-        // Update driver status
-        Driver driver = driverRepository.findById(driverId)
-                .orElseThrow(() -> new IllegalArgumentException("Driver not found"));
-        driver.finishRide();
-        driverRepository.save(driver);
+        // The driver is made available in the same commit
+        Ride ride = awaitCommit(Command.complete(rideId, driverId, fareAmount));
+        rideSnapshotCache.put(ride);
+        activeRideRegistry.release(ride);
         
         // Update driver status in geo-index
-        geoIndexService.updateDriverLocation(
-            driverId, 
-            driver.getCurrentLat(), 
-            driver.getCurrentLng(), 
-            "AVAILABLE"
-        );
+        updateFreedDriver(driverId);
         
         // Calculate duration
         Integer durationMinutes = null;
@@ -258,51 +276,63 @@ public class DispatchService {
             durationMinutes
         );
         eventPublishingService.publishRideEvent(completedEvent);
+        realtimeNotificationService.handleRideEvent(completedEvent);
         
         logger.info("Completed ride {} with driver {} for fare ${}", rideId, driverId, fareAmount);
         
         return ride;
     }
     
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Ride cancelRide(UUID rideId, String initiatedBy) {
-        Ride ride = rideRepository.findById(rideId)
-                .orElseThrow(() -> new IllegalArgumentException("Ride not found"));
-        
-        if (!ride.canBeCancelled()) {
-            throw new IllegalStateException("Ride cannot be cancelled in current status: " + ride.getStatus());
-        }
+        // If driver was assigned, they are made available in the same commit
+        Ride ride = awaitCommit(Command.cancel(rideId));
+        rideSnapshotCache.put(ride);
+        activeRideRegistry.release(ride);
         
         String driverId = ride.getDriverId();
-        ride.cancel();
-        ride = rideRepository.save(ride);
-        
-        // If driver was assigned, update their status
         if (driverId != null) {
-            Optional<Driver> driverOpt = driverRepository.findById(driverId);
-            if (driverOpt.isPresent()) {
-                Driver driver = driverOpt.get();
-                driver.finishRide();
-                driverRepository.save(driver);
-                
-                // Update driver status in geo-index
-                geoIndexService.updateDriverLocation(
-                    driverId, 
-                    driver.getCurrentLat(), 
-                    driver.getCurrentLng(), 
-                    "AVAILABLE"
-                );
-            }
+            // Update driver status in geo-index
+            updateFreedDriver(driverId);
         }
         
         // Publish cancelled event
         RideEvent cancelledEvent = RideEvent.cancelled(ride.getId(), ride.getRiderId(), driverId);
         eventPublishingService.publishRideEvent(cancelledEvent);
+        realtimeNotificationService.handleRideEvent(cancelledEvent);
         
         logger.info("Cancelled ride {} initiated by {}", rideId, initiatedBy);
         
         return ride;
     }
     
+    private Ride awaitCommit(Command command) {
+        try {
+            return rideStateWriter.submit(command)
+                    .orTimeout(commitTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                    .join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                // The writer may still commit it; the caller has to re-read the ride rather than assume either way
+                throw new QueryTimeoutException("Ride " + command.rideId() + " transition not committed within " + commitTimeout, e);
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+    
+    private void updateFreedDriver(String driverId) {
+        driverLocationCoalescer.updateStatus(driverId, "AVAILABLE");
+        driverRepository.findById(driverId).ifPresent(driver -> geoIndexService.updateDriverLocation(
+            driverId, 
+            driver.getCurrentLat(), 
+            driver.getCurrentLng(), 
+            "AVAILABLE"
+        ));
+    }
+    
     /**
      * Get count of available drivers in specified area
      */
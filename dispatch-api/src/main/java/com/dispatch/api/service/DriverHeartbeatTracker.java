@@ -0,0 +1,147 @@
+package com.dispatch.api.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks the last heartbeat of every online driver and hands back the ones that went silent.
+ *
+ * Deadlines live in a hashed timing wheel with one slot per tick. A heartbeat only bumps the
+ * driver's timestamp; the wheel entry is left where it is and re-checked lazily when its slot
+ * comes due, moving to the slot of the real deadline if the driver pinged in the meantime.
+ * Each driver therefore sits in roughly one slot and a tick only touches drivers whose
+ * deadline falls in it, instead of scanning every driver.
+ */
+@Component
+public class DriverHeartbeatTracker {
+
+    @Value("${app.drivers.heartbeat.timeout:10m}")
+    private Duration timeout = Duration.ofMinutes(10);
+
+    @Value("${app.drivers.heartbeat.tick:1s}")
+    private Duration tick = Duration.ofSeconds(1);
+
+    private final Map<String, Long> lastHeartbeat = new ConcurrentHashMap<>();
+
+    private Set<String>[] wheel;
+    private long timeoutMillis;
+    private long tickMillis;
+    private volatile long lastTick = -1;
+
+    @PostConstruct
+    @SuppressWarnings("unchecked")
+    void init() {
+        timeoutMillis = timeout.toMillis();
+        tickMillis = Math.max(tick.toMillis(), 1);
+
+        // One extra slot so a deadline a full timeout away never lands in the slot being expired
+        int slots = (int) ((timeoutMillis + tickMillis - 1) / tickMillis) + 2;
+        wheel = new Set[slots];
+        for (int i = 0; i < slots; i++) {
+            wheel[i] = ConcurrentHashMap.newKeySet();
+        }
+    }
+
+    /**
+     * Record a heartbeat at {@code timestampMillis}. Older timestamps never overwrite newer ones.
+     */
+    public void heartbeat(String driverId, long timestampMillis) {
+        boolean[] added = new boolean[1];
+        lastHeartbeat.compute(driverId, (id, previous) -> {
+            if (previous == null) {
+                added[0] = true;
+                return timestampMillis;
+            }
+            return Math.max(previous, timestampMillis);
+        });
+
+        // Drivers already on the wheel are re-checked when their current slot comes due
+        if (added[0]) {
+            schedule(driverId, timestampMillis + timeoutMillis);
+        }
+    }
+
+    /**
+     * Stop tracking a driver, e.g. because it went offline on its own.
+     * Its wheel entry is dropped lazily when the slot comes due.
+     */
+    public void remove(String driverId) {
+        lastHeartbeat.remove(driverId);
+    }
+
+    /**
+     * Advance the wheel to {@code nowMillis} and return the drivers whose last heartbeat is
+     * older than the timeout. Returned drivers are no longer tracked.
+     * Must be called from a single thread.
+     */
+    public List<String> expire(long nowMillis) {
+        List<String> expired = new ArrayList<>();
+        long currentTick = nowMillis / tickMillis;
+
+        if (lastTick < 0) {
+            lastTick = currentTick - wheel.length;
+        }
+        // After a long pause every slot is due once; walking further would repeat them
+        long firstTick = Math.max(lastTick + 1, currentTick - wheel.length + 1);
+
+        for (long t = firstTick; t <= currentTick; t++) {
+            Iterator<String> slot = wheel[slotOf(t)].iterator();
+            while (slot.hasNext()) {
+                String driverId = slot.next();
+                slot.remove();
+
+                Long last = lastHeartbeat.get(driverId);
+                if (last == null) {
+                    continue;
+                }
+
+                long deadline = last + timeoutMillis;
+                if (deadline <= nowMillis) {
+                    if (lastHeartbeat.remove(driverId, last)) {
+                        expired.add(driverId);
+                    } else if ((last = lastHeartbeat.get(driverId)) != null) {
+                        // Pinged while we were looking at it
+                        schedule(driverId, last + timeoutMillis);
+                    }
+                } else {
+                    schedule(driverId, deadline);
+                }
+            }
+        }
+
+        lastTick = currentTick;
+        return expired;
+    }
+
+    public int size() {
+        return lastHeartbeat.size();
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    private void schedule(String driverId, long deadlineMillis) {
+        // Deadlines already in the past (e.g. seeded from old timestamps) go to the next tick
+        long tickNumber = Math.max(deadlineTick(deadlineMillis), lastTick + 1);
+        wheel[slotOf(tickNumber)].add(driverId);
+    }
+
+    // Round up so a slot is only processed once its whole tick has passed the deadline
+    private long deadlineTick(long deadlineMillis) {
+        return (deadlineMillis + tickMillis - 1) / tickMillis;
+    }
+
+    private int slotOf(long tickNumber) {
+        return (int) Math.floorMod(tickNumber, (long) wheel.length);
+    }
+}
@@ -0,0 +1,236 @@
+package com.dispatch.api.service;
+
+import com.dispatch.api.dto.events.DriverLocationEvent;
+import com.dispatch.api.repository.DriverLocationJdbcRepository;
+import com.dispatch.api.util.GeoUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Coalesces driver location pings before they fan out to the database, geo-index and Kafka.
+ *
+ * Only the latest accepted ping per driver is kept; a ticker flushes changed drivers in one batch.
+ * Pings that move the driver less than the configured distance and heading thresholds are
+ * suppressed, unless the driver has been silent for longer than {@code max-silence}.
+ * Pings of a flush that fails are retried with the next one, unless a newer ping replaced them.
+ */
+@Component
+public class DriverLocationCoalescer {
+
+    private static final Logger logger = LoggerFactory.getLogger(DriverLocationCoalescer.class);
+
+    private final DriverLocationJdbcRepository driverLocationJdbcRepository;
+    private final GeoIndexService geoIndexService;
+    private final EventPublishingService eventPublishingService;
+
+    // Latest accepted ping per driver that has not been flushed yet
+    private final ConcurrentMap<String, DriverLocationEvent> pending = new ConcurrentHashMap<>();
+
+    // Pings taken by the flush in progress; they go back to pending if it fails
+    private final ConcurrentMap<String, DriverLocationEvent> inFlight = new ConcurrentHashMap<>();
+
+    // Last ping per driver that was flushed downstream, used as the suppression baseline
+    private final ConcurrentMap<String, DriverLocationEvent> lastForwarded = new ConcurrentHashMap<>();
+
+    private final Counter acceptedCounter;
+    private final Counter suppressedCounter;
+    private final Counter coalescedCounter;
+    private final Counter flushedCounter;
+    private final Counter flushFailuresCounter;
+
+    @Value("${app.location.coalescing.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.location.coalescing.min-distance-meters:15}")
+    private double minDistanceMeters;
+
+    @Value("${app.location.coalescing.min-heading-delta-degrees:20}")
+    private int minHeadingDeltaDegrees;
+
+    @Value("${app.location.coalescing.max-silence:30s}")
+    private Duration maxSilence;
+
+    public DriverLocationCoalescer(DriverLocationJdbcRepository driverLocationJdbcRepository,
+                                   GeoIndexService geoIndexService,
+                                   EventPublishingService eventPublishingService,
+                                   MeterRegistry meterRegistry) {
+        this.driverLocationJdbcRepository = driverLocationJdbcRepository;
+        this.geoIndexService = geoIndexService;
+        this.eventPublishingService = eventPublishingService;
+
+        this.acceptedCounter = meterRegistry.counter("dispatch.location.pings", "outcome", "accepted");
+        this.suppressedCounter = meterRegistry.counter("dispatch.location.pings", "outcome", "suppressed");
+        this.coalescedCounter = meterRegistry.counter("dispatch.location.pings", "outcome", "coalesced");
+        this.flushedCounter = meterRegistry.counter("dispatch.location.flushed");
+        this.flushFailuresCounter = meterRegistry.counter("dispatch.location.flush.failures");
+        meterRegistry.gaugeMapSize("dispatch.location.pending", List.of(), pending);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Offer a ping to the coalescing stage.
+     * Returns false when the ping was suppressed as insignificant.
+     */
+    public boolean offer(DriverLocationEvent event) {
+        String driverId = event.getDriverId();
+        DriverLocationEvent baseline = baseline(driverId);
+
+        if (baseline != null && !isSignificant(baseline, event)) {
+            suppressedCounter.increment();
+            return false;
+        }
+
+        if (pending.put(driverId, event) != null) {
+            coalescedCounter.increment();
+        }
+        acceptedCounter.increment();
+        return true;
+    }
+
+    /**
+     * Take a ping from a driver over their rate limit. It replaces the driver's pending position
+     * like any other accepted ping, so it costs at most a share of the next flush.
+     * The driver's status is taken from their last known ping; returns false if there is none.
+     */
+    public boolean conflate(DriverLocationEvent event) {
+        String driverId = event.getDriverId();
+        DriverLocationEvent baseline = baseline(driverId);
+        if (baseline == null) {
+            return false;
+        }
+
+        event.setStatus(baseline.getStatus());
+        offer(event);
+        return true;
+    }
+
+    /**
+     * Keep a pending ping consistent with a status change made outside the location path,
+     * so the next flush does not push a stale status to the geo-index.
+     */
+    public void updateStatus(String driverId, String status) {
+        pending.computeIfPresent(driverId, (id, event) -> {
+            event.setStatus(status);
+            return event;
+        });
+        inFlight.computeIfPresent(driverId, (id, event) -> {
+            event.setStatus(status);
+            return event;
+        });
+        lastForwarded.computeIfPresent(driverId, (id, event) -> {
+            event.setStatus(status);
+            return event;
+        });
+    }
+
+    /**
+     * Drop everything buffered for a driver, e.g. when they go offline.
+     */
+    public void evict(String driverId) {
+        pending.remove(driverId);
+        inFlight.remove(driverId);
+        lastForwarded.remove(driverId);
+    }
+
+    @Scheduled(fixedDelayString = "${app.location.coalescing.flush-interval-ms:1000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        // Remove entries one by one so pings arriving during the flush land in the next batch
+        List<DriverLocationEvent> batch = new ArrayList<>(pending.size());
+        for (String driverId : pending.keySet()) {
+            DriverLocationEvent event = pending.remove(driverId);
+            if (event != null) {
+                batch.add(event);
+                inFlight.put(driverId, event);
+            }
+        }
+
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            int updatedRows = driverLocationJdbcRepository.batchUpdateLocations(batch);
+            int indexed = geoIndexService.updateDriverLocations(batch);
+            batch.forEach(eventPublishingService::publishDriverLocationEvent);
+
+            // Only now are these what downstream has; unless evicted in the meantime
+            for (DriverLocationEvent event : batch) {
+                if (inFlight.remove(event.getDriverId(), event)) {
+                    lastForwarded.put(event.getDriverId(), event);
+                }
+            }
+
+            flushedCounter.increment(batch.size());
+            logger.debug("Flushed {} coalesced driver locations ({} rows updated, {} indexed)",
+                        batch.size(), updatedRows, indexed);
+
+        } catch (Exception e) {
+            flushFailuresCounter.increment();
+            logger.error("Error flushing {} coalesced driver locations, retrying them with the next batch", batch.size(), e);
+
+            // Back for the next flush, unless a newer ping for the driver arrived meanwhile
+            for (DriverLocationEvent event : batch) {
+                if (inFlight.remove(event.getDriverId(), event)) {
+                    pending.putIfAbsent(event.getDriverId(), event);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private DriverLocationEvent baseline(String driverId) {
+        DriverLocationEvent baseline = pending.get(driverId);
+        if (baseline == null) {
+            baseline = inFlight.get(driverId);
+        }
+        if (baseline == null) {
+            baseline = lastForwarded.get(driverId);
+        }
+        return baseline;
+    }
+
+    boolean isSignificant(DriverLocationEvent baseline, DriverLocationEvent event) {
+        if (!Objects.equals(baseline.getStatus(), event.getStatus())) {
+            return true;
+        }
+
+        if (Duration.between(baseline.getTimestamp(), event.getTimestamp()).compareTo(maxSilence) >= 0) {
+            return true;
+        }
+
+        double movedMeters = GeoUtils.distanceMeters(
+            baseline.getLat().doubleValue(), baseline.getLng().doubleValue(),
+            event.getLat().doubleValue(), event.getLng().doubleValue()
+        );
+        if (movedMeters >= minDistanceMeters) {
+            return true;
+        }
+
+        return baseline.getHeading() != null && event.getHeading() != null &&
+               GeoUtils.headingDelta(baseline.getHeading(), event.getHeading()) >= minHeadingDeltaDegrees;
+    }
+}
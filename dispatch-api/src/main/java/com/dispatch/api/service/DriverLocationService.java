@@ -1,17 +1,32 @@
 package com.dispatch.api.service;
 
 import com.dispatch.api.dto.events.DriverLocationEvent;
+import com.dispatch.api.dto.request.UpdateDriverLocationRequest;
+import com.dispatch.api.dto.response.BatchLocationUpdateResponse.ItemStatus;
+import com.dispatch.api.dto.projection.DriverListItem;
 import com.dispatch.api.model.Driver;
 import com.dispatch.api.model.DriverStatus;
+import com.dispatch.api.repository.DriverLocationJdbcRepository;
 import com.dispatch.api.repository.DriverRepository;
+import com.dispatch.api.repository.GeoSearchJdbcRepository;
+import jakarta.persistence.EntityManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @Transactional
@@ -22,13 +37,28 @@ public class DriverLocationService {
     private final DriverRepository driverRepository;
     private final GeoIndexService geoIndexService;
     private final EventPublishingService eventPublishingService;
+    private final DriverLocationCoalescer driverLocationCoalescer;
+    private final EntityManager entityManager;
+    private final DriverHeartbeatTracker heartbeatTracker;
+    private final DriverLocationJdbcRepository driverLocationJdbcRepository;
+    private final GeoSearchJdbcRepository geoSearchJdbcRepository;
     
     public DriverLocationService(DriverRepository driverRepository, 
                                GeoIndexService geoIndexService,
-                               EventPublishingService eventPublishingService) {
+                               EventPublishingService eventPublishingService,
+                               DriverLocationCoalescer driverLocationCoalescer,
+                               EntityManager entityManager,
+                               DriverHeartbeatTracker heartbeatTracker,
+                               DriverLocationJdbcRepository driverLocationJdbcRepository,
+                               GeoSearchJdbcRepository geoSearchJdbcRepository) {
         this.driverRepository = driverRepository;
         this.geoIndexService = geoIndexService;
         this.eventPublishingService = eventPublishingService;
+        this.driverLocationCoalescer = driverLocationCoalescer;
+        this.entityManager = entityManager;
+        this.heartbeatTracker = heartbeatTracker;
+        this.driverLocationJdbcRepository = driverLocationJdbcRepository;
+        this.geoSearchJdbcRepository = geoSearchJdbcRepository;
     }
     
     public Driver updateDriverLocation(String driverId, BigDecimal lat, BigDecimal lng, 
@@ -37,6 +67,15 @@ public class DriverLocationService {
         Driver driver = driverRepository.findById(driverId)
                 .orElseThrow(() -> new IllegalArgumentException("Driver not found: " + driverId));
         
+        // Every ping counts as a heartbeat, even one the coalescer suppresses; offline drivers are not tracked
+        if (driver.getStatus() != DriverStatus.OFFLINE) {
+            heartbeatTracker.heartbeat(driverId, System.currentTimeMillis());
+        }
+        
+        if (driverLocationCoalescer.isEnabled()) {
+            return coalesceDriverLocation(driver, lat, lng, heading, speedKmh, accuracyMeters);
+        }
+        
         // Update location in database
         driver.updateLocation(lat, lng);
         driver = driverRepository.save(driver);
@@ -65,6 +104,140 @@ public class DriverLocationService {
         return driver;
     }
     
+    /**
+     * Apply a ping from a driver over their rate limit without loading the driver: only the
+     * latest such position is kept and written with the next coalescer flush, whether or not
+     * coalescing is enabled for regular pings.
+     */
+    public void conflateDriverLocation(String driverId, BigDecimal lat, BigDecimal lng,
+                                       Integer heading, BigDecimal speedKmh, BigDecimal accuracyMeters) {
+        DriverLocationEvent locationEvent = new DriverLocationEvent(driverId, lat, lng, null);
+        locationEvent.setHeading(heading);
+        locationEvent.setSpeedKmh(speedKmh);
+        locationEvent.setAccuracyMeters(accuracyMeters);
+        
+        if (!driverLocationCoalescer.conflate(locationEvent)) {
+            // First ping this node sees from the driver; later ones reuse the status looked up here
+            String status = driverLocationJdbcRepository.findStatuses(List.of(driverId)).get(driverId);
+            if (status == null) {
+                throw new IllegalArgumentException("Driver not found: " + driverId);
+            }
+            locationEvent.setStatus(status);
+            driverLocationCoalescer.offer(locationEvent);
+        }
+        
+        heartbeatTracker.heartbeat(driverId, System.currentTimeMillis());
+        logger.debug("Conflated rate-limited location ping for driver {} at ({}, {})", driverId, lat, lng);
+    }
+    
+    private Driver coalesceDriverLocation(Driver driver, BigDecimal lat, BigDecimal lng,
+                                          Integer heading, BigDecimal speedKmh, BigDecimal accuracyMeters) {
+        DriverLocationEvent locationEvent = new DriverLocationEvent(
+            driver.getId(), lat, lng, driver.getStatus().name()
+        );
+        locationEvent.setHeading(heading);
+        locationEvent.setSpeedKmh(speedKmh);
+        locationEvent.setAccuracyMeters(accuracyMeters);
+        
+        boolean accepted = driverLocationCoalescer.offer(locationEvent);
+        
+        // The coalescer owns the write; detach so the response reflects the ping without a flush
+        entityManager.detach(driver);
+        driver.updateLocation(lat, lng);
+        
+        logger.debug("{} location ping for driver {} at ({}, {})", 
+                    accepted ? "Coalesced" : "Suppressed", driver.getId(), lat, lng);
+        
+        return driver;
+    }
+    
+    /**
+     * Apply many already validated location updates at once, as sent by fleet gateways.
+     *
+     * Driver lookup is a single query, and accepted updates go through the coalescer or,
+     * with coalescing off, through one JDBC batch, one geo-index RPC and pipelined Kafka sends.
+     * Returns a status per update, in request order.
+     *
+     * Runs outside a transaction: a failed batch write is reported per item rather than
+     * rethrown, and catching it inside a Postgres transaction would leave that aborted.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<ItemStatus> updateDriverLocations(List<UpdateDriverLocationRequest> updates) {
+        ItemStatus[] statuses = new ItemStatus[updates.size()];
+        
+        // Only the last update per driver in a batch matters
+        Map<String, Integer> latestIndex = new LinkedHashMap<>();
+        for (int i = 0; i < updates.size(); i++) {
+            Integer previous = latestIndex.put(updates.get(i).getDriverId(), i);
+            if (previous != null) {
+                statuses[previous] = ItemStatus.SUPERSEDED;
+            }
+        }
+        
+        Map<String, String> driverStatuses = driverLocationJdbcRepository.findStatuses(latestIndex.keySet());
+        long now = System.currentTimeMillis();
+        
+        List<DriverLocationEvent> events = new ArrayList<>(latestIndex.size());
+        List<Integer> eventIndexes = new ArrayList<>(latestIndex.size());
+        
+        for (Map.Entry<String, Integer> entry : latestIndex.entrySet()) {
+            String driverStatus = driverStatuses.get(entry.getKey());
+            if (driverStatus == null) {
+                statuses[entry.getValue()] = ItemStatus.NOT_FOUND;
+                continue;
+            }
+            
+            UpdateDriverLocationRequest update = updates.get(entry.getValue());
+            DriverLocationEvent locationEvent = new DriverLocationEvent(
+                update.getDriverId(), update.getLat(), update.getLng(), driverStatus
+            );
+            locationEvent.setHeading(update.getHeading());
+            locationEvent.setSpeedKmh(update.getSpeedKmh());
+            locationEvent.setAccuracyMeters(update.getAccuracyMeters());
+            
+            if (!DriverStatus.OFFLINE.name().equals(driverStatus)) {
+                heartbeatTracker.heartbeat(update.getDriverId(), now);
+            }
+            events.add(locationEvent);
+            eventIndexes.add(entry.getValue());
+        }
+        
+        if (driverLocationCoalescer.isEnabled()) {
+            for (int i = 0; i < events.size(); i++) {
+                statuses[eventIndexes.get(i)] = driverLocationCoalescer.offer(events.get(i))
+                        ? ItemStatus.ACCEPTED : ItemStatus.SUPPRESSED;
+            }
+        } else {
+            ItemStatus outcome = writeLocations(events);
+            eventIndexes.forEach(index -> statuses[index] = outcome);
+        }
+        
+        logger.debug("Applied batch of {} location updates for {} drivers", updates.size(), events.size());
+        
+        return Arrays.asList(statuses);
+    }
+    
+    private ItemStatus writeLocations(List<DriverLocationEvent> events) {
+        if (events.isEmpty()) {
+            return ItemStatus.ACCEPTED;
+        }
+        
+        try {
+            driverLocationJdbcRepository.batchUpdateLocations(events);
+        } catch (DataAccessException e) {
+            logger.error("Failed to write batch of {} driver locations", events.size(), e);
+            return ItemStatus.FAILED;
+        }
+        
+        int indexed = geoIndexService.updateDriverLocations(events);
+        if (indexed < events.size()) {
+            logger.warn("Geo-index accepted {} of {} batched driver locations", indexed, events.size());
+        }
+        
+        events.forEach(eventPublishingService::publishDriverLocationEvent);
+        return ItemStatus.ACCEPTED;
+    }
+    
     public Driver updateDriverStatus(String driverId, DriverStatus newStatus) {
         Driver driver = driverRepository.findById(driverId)
                 .orElseThrow(() -> new IllegalArgumentException("Driver not found: " + driverId));
@@ -72,6 +245,7 @@ public class DriverLocationService {
         DriverStatus oldStatus = driver.getStatus();
         driver.setStatus(newStatus);
         driver = driverRepository.save(driver);
+        driverLocationCoalescer.updateStatus(driverId, newStatus.name());
         
         // Update status in geo-index if location is available
         if (driver.getCurrentLat() != null && driver.getCurrentLng() != null) {
@@ -89,7 +263,10 @@ public class DriverLocationService {
         
         // If driver goes offline, remove from geo-index
         if (newStatus == DriverStatus.OFFLINE) {
+            heartbeatTracker.remove(driverId);
+            driverLocationCoalescer.evict(driverId);
             geoIndexService.removeDriver(driverId);
+            publishOffline(driver);
         }
         
         logger.info("Updated driver {} status from {} to {}", driverId, oldStatus, newStatus);
@@ -105,6 +282,8 @@ public class DriverLocationService {
         driver.updateLocation(lat, lng);
         driver.goOnline();
         driver = driverRepository.save(driver);
+        driverLocationCoalescer.updateStatus(driverId, DriverStatus.AVAILABLE.name());
+        heartbeatTracker.heartbeat(driverId, System.currentTimeMillis());
         
         // Add to geo-index
         boolean geoIndexUpdated = geoIndexService.updateDriverLocation(
@@ -132,56 +311,117 @@ public class DriverLocationService {
         
         driver.goOffline();
         driver = driverRepository.save(driver);
+        heartbeatTracker.remove(driverId);
+        driverLocationCoalescer.evict(driverId);
         
         // Remove from geo-index
         boolean removed = geoIndexService.removeDriver(driverId);
         if (!removed) {
             logger.warn("Failed to remove driver {} from geo-index", driverId);
         }
+        publishOffline(driver);
         
         logger.info("Driver {} went offline", driverId);
         
         return driver;
     }
     
-    public List<Driver> getAvailableDriversInArea(BigDecimal lat, BigDecimal lng, double radiusKm) {
-        // Calculate bounding box (simplified)
-        double latDelta = radiusKm / 111.0; // Rough conversion: 1 degree lat ≈ 111 km
-        double lngDelta = radiusKm / (111.0 * Math.cos(Math.toRadians(lat.doubleValue())));
-        
-        double minLat = lat.doubleValue() - latDelta;
-        double maxLat = lat.doubleValue() + latDelta;
-        double minLng = lng.doubleValue() - lngDelta;
-        double maxLng = lng.doubleValue() + lngDelta;
-        
+    @Transactional(readOnly = true)
+    public List<DriverListItem> getAvailableDriversInArea(BigDecimal lat, BigDecimal lng, double radiusKm, int limit) {
         LocalDateTime cutoffTime = LocalDateTime.now().minusMinutes(5); // Consider stale after 5 minutes
-        
-        return driverRepository.findAvailableDriversInArea(
-            DriverStatus.AVAILABLE, minLat, maxLat, minLng, maxLng, cutoffTime
+
+        // True radius on the GiST index, nearest first
+        return geoSearchJdbcRepository.findDriversNear(
+            DriverStatus.AVAILABLE, lat.doubleValue(), lng.doubleValue(), radiusKm * 1000, cutoffTime, limit
         );
     }
     
-    public void cleanupStaleDrivers() {
-        LocalDateTime cutoffTime = LocalDateTime.now().minusMinutes(10); // Consider stale after 10 minutes
-        List<Driver> staleDrivers = driverRepository.findStaleDrivers(cutoffTime);
-        
-        for (Driver driver : staleDrivers) {
-            try {
-                driver.goOffline();
-                driverRepository.save(driver);
-                
-                // Remove from geo-index
-                geoIndexService.removeDriver(driver.getId());
-                
-                logger.info("Marked stale driver {} as offline", driver.getId());
-                
-            } catch (Exception e) {
-                logger.error("Error cleaning up stale driver {}", driver.getId(), e);
-            }
+    /**
+     * Take drivers whose heartbeat expired on this node offline.
+     * Only drivers due in the elapsed ticks are looked at, so this is cheap to run often.
+     */
+    public void reapExpiredDrivers() {
+        long now = System.currentTimeMillis();
+        List<String> expired = heartbeatTracker.expire(now);
+        if (expired.isEmpty()) {
+            return;
         }
         
+        // The cutoff guards against drivers that pinged another node in the meantime
+        LocalDateTime cutoff = LocalDateTime.now().minus(heartbeatTracker.getTimeout());
+        List<DriverLocationEvent> offline = driverLocationJdbcRepository.markOffline(expired, cutoff);
+        removeOfflineDrivers(offline);
+        
+        logger.info("Reaped {} of {} expired drivers", offline.size(), expired.size());
+    }
+    
+    /**
+     * Bulk reconciliation for drivers no node is tracking any more, e.g. after a node
+     * went away. A single set-based UPDATE instead of loading and saving each driver.
+     */
+    public void cleanupStaleDrivers() {
+        LocalDateTime cutoffTime = LocalDateTime.now().minus(heartbeatTracker.getTimeout());
+        List<DriverLocationEvent> staleDrivers = driverLocationJdbcRepository.markAllStaleOffline(cutoffTime);
+        
+        staleDrivers.forEach(event -> heartbeatTracker.remove(event.getDriverId()));
+        removeOfflineDrivers(staleDrivers);
+        
         if (!staleDrivers.isEmpty()) {
             logger.info("Cleaned up {} stale drivers", staleDrivers.size());
         }
     }
+    
+    /**
+     * Start tracking drivers that were online before this node started,
+     * so they expire even if they never ping this node.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedHeartbeats() {
+        try {
+            ZoneId zone = ZoneId.systemDefault();
+            driverLocationJdbcRepository.forEachOnlineHeartbeat((driverId, lastLocationUpdate) ->
+                heartbeatTracker.heartbeat(driverId, lastLocationUpdate != null
+                    ? lastLocationUpdate.atZone(zone).toInstant().toEpochMilli()
+                    : 0L)
+            );
+            logger.info("Tracking heartbeats of {} online drivers", heartbeatTracker.size());
+        } catch (Exception e) {
+            logger.error("Failed to seed driver heartbeats", e);
+        }
+    }
+    
+    /**
+     * Tell live map views on every node that the driver left; a driver without a position was never on one
+     */
+    private void publishOffline(Driver driver) {
+        if (driver.getCurrentLat() != null && driver.getCurrentLng() != null) {
+            eventPublishingService.publishDriverLocationEvent(new DriverLocationEvent(
+                driver.getId(), driver.getCurrentLat(), driver.getCurrentLng(), DriverStatus.OFFLINE.name()
+            ));
+        }
+    }
+    
+    /**
+     * Drop drivers switched offline in bulk from this node and the geo-index, and tell live
+     * map views and riders the same way {@link #publishOffline} does for a single driver
+     */
+    private void removeOfflineDrivers(List<DriverLocationEvent> offline) {
+        if (offline.isEmpty()) {
+            return;
+        }
+        
+        List<String> driverIds = offline.stream().map(DriverLocationEvent::getDriverId).toList();
+        driverIds.forEach(driverLocationCoalescer::evict);
+        
+        int removed = geoIndexService.removeDrivers(driverIds);
+        if (removed < driverIds.size()) {
+            logger.debug("Removed {} of {} offline drivers from geo-index", removed, driverIds.size());
+        }
+        
+        for (DriverLocationEvent event : offline) {
+            if (event.getLat() != null && event.getLng() != null) {
+                eventPublishingService.publishDriverLocationEvent(event);
+            }
+        }
+    }
 }
@@ -48,7 +48,7 @@ public class ETAPredictionService {
     
     @CircuitBreaker(name = "eta-prediction", fallbackMethod = "fallbackETA")
     @Retry(name = "eta-prediction")
-    @Cacheable(value = "eta-cache", key = "#pickupLat + '-' + #pickupLng + '-' + #destLat + '-' + #destLng")
+    @Cacheable(value = "eta-cache", key = "#pickupLat + '-' + #pickupLng + '-' + #destLat + '-' + #destLng", sync = true)
     public int predictETA(double pickupLat, double pickupLng, double destLat, double destLng, Driver driver) {
         try {
             // 1. Calculate base distance and time
@@ -94,10 +94,11 @@ public class ETAPredictionService {
     }
     
     /**
-     * Simplified neural network model for ETA prediction
+     * Simplified neural network model for ETA prediction, in minutes, from factors already looked up.
+     * Public so the model step can be measured apart from the lookups.
      */
-    private double applyMLModel(double distance, double traffic, double day, 
-                               double driver, double route, double weather, double events) {
+    public double applyMLModel(double distance, double traffic, double day, 
+                              double driver, double route, double weather, double events) {
         
         // Input layer normalization
         double[] inputs = {
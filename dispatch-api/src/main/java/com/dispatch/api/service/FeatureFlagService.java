@@ -3,26 +3,51 @@ package com.dispatch.api.service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Feature flags served from an in-memory snapshot.
+ *
+ * The snapshot is an immutable map swapped atomically by a background poll of the flag
+ * service, so checks never leave the JVM. Percentage rollouts are evaluated locally by
+ * hashing the flag name and context into a stable bucket. If the flag service is down the
+ * last good snapshot keeps serving; flags never seen fall back to built-in defaults.
+ */
 @Service
 public class FeatureFlagService {
     
     private static final Logger logger = LoggerFactory.getLogger(FeatureFlagService.class);
     
+    private static final int ROLLOUT_BUCKETS = 10_000;
+    
     private final RestTemplate restTemplate;
     
+    private final AtomicReference<Map<String, FeatureFlag>> snapshot = new AtomicReference<>(Map.of());
+    private volatile Instant lastRefreshed;
+    
     @Value("${app.feature-flags.api-url}")
     private String featureFlagApiUrl;
     
     @Value("${app.feature-flags.enabled}")
     private boolean featureFlagsEnabled;
     
-    public FeatureFlagService() {
-        this.restTemplate = new RestTemplate();
+    public FeatureFlagService(RestTemplateBuilder restTemplateBuilder,
+                              @Value("${app.feature-flags.connect-timeout:1s}") Duration connectTimeout,
+                              @Value("${app.feature-flags.read-timeout:2s}") Duration readTimeout) {
+        // Bounded so a hung flag service cannot stall the refresh thread indefinitely
+        this.restTemplate = restTemplateBuilder
+                .setConnectTimeout(connectTimeout)
+                .setReadTimeout(readTimeout)
+                .build();
     }
     
     public boolean isFeatureEnabled(String featureName, String context) {
@@ -31,23 +56,12 @@ public class FeatureFlagService {
             return getDefaultValue(featureName);
         }
         
-        try {
-            String url = featureFlagApiUrl + "/flags/" + featureName + "?context=" + context;
-            @SuppressWarnings("unchecked")
-            Map<String, Object> response = restTemplate.getForObject(url, Map.class);
-            
-            if (response != null && response.containsKey("enabled")) {
-                boolean enabled = (Boolean) response.get("enabled");
-                logger.debug("Feature flag '{}' for context '{}': {}", featureName, context, enabled);
-                return enabled;
-            }
-            
-        } catch (Exception e) {
-            logger.warn("Failed to fetch feature flag '{}' for context '{}', using default", 
-                       featureName, context, e);
+        FeatureFlag flag = snapshot.get().get(featureName);
+        if (flag == null) {
+            return getDefaultValue(featureName);
         }
         
-        return getDefaultValue(featureName);
+        return flag.enabled() && isInRollout(featureName, context, flag.rolloutPercentage());
     }
     
     public double getFeaturePercentage(String featureName, String context) {
@@ -55,23 +69,75 @@ public class FeatureFlagService {
             return 0.0;
         }
         
+        FeatureFlag flag = snapshot.get().get(featureName);
+        if (flag == null || !flag.enabled()) {
+            return 0.0;
+        }
+        
+        return flag.rolloutPercentage() != null ? flag.rolloutPercentage() : 100.0;
+    }
+    
+    /**
+     * Poll the flag service and atomically replace the snapshot.
+     * Failures keep the previous snapshot in place.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${app.feature-flags.refresh-interval-ms:15000}")
+    public void refreshFlags() {
+        if (!featureFlagsEnabled) {
+            return;
+        }
+        
         try {
-            String url = featureFlagApiUrl + "/flags/" + featureName + "/percentage?context=" + context;
-            @SuppressWarnings("unchecked")
-            Map<String, Object> response = restTemplate.getForObject(url, Map.class);
+            FeatureFlag[] flags = restTemplate.getForObject(featureFlagApiUrl + "/flags", FeatureFlag[].class);
+            if (flags == null) {
+                logger.warn("Feature flag service returned no flags, keeping previous snapshot");
+                return;
+            }
             
-            if (response != null && response.containsKey("percentage")) {
-                double percentage = ((Number) response.get("percentage")).doubleValue();
-                logger.debug("Feature flag percentage '{}' for context '{}': {}%", featureName, context, percentage);
-                return percentage;
+            Map<String, FeatureFlag> next = new HashMap<>();
+            for (FeatureFlag flag : flags) {
+                if (flag != null && flag.name() != null) {
+                    next.put(flag.name(), flag);
+                }
             }
             
+            snapshot.set(Map.copyOf(next));
+            lastRefreshed = Instant.now();
+            logger.debug("Refreshed {} feature flags", next.size());
+            
         } catch (Exception e) {
-            logger.warn("Failed to fetch feature flag percentage '{}' for context '{}', using default", 
-                       featureName, context, e);
+            logger.warn("Failed to refresh feature flags, serving snapshot from {}", lastRefreshed, e);
+        }
+    }
+    
+    public Instant getLastRefreshed() {
+        return lastRefreshed;
+    }
+    
+    /**
+     * Stable percentage rollout: the same flag and context always land in the same bucket,
+     * and raising the percentage only ever adds contexts.
+     */
+    static boolean isInRollout(String featureName, String context, Double rolloutPercentage) {
+        if (rolloutPercentage == null || rolloutPercentage >= 100.0) {
+            return true;
+        }
+        if (rolloutPercentage <= 0.0) {
+            return false;
         }
         
-        return 0.0;
+        int bucket = Math.floorMod(mix(featureName.hashCode() * 31 + String.valueOf(context).hashCode()), ROLLOUT_BUCKETS);
+        return bucket < rolloutPercentage * (ROLLOUT_BUCKETS / 100);
+    }
+    
+    // MurmurHash3 finalizer, spreads String.hashCode() evenly across buckets
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
     }
     
     private boolean getDefaultValue(String featureName) {
@@ -84,4 +150,9 @@ public class FeatureFlagService {
             default -> false;
         };
     }
+    
+    /**
+     * Flag definition as served by {@code GET /flags}
+     */
+    public record FeatureFlag(String name, boolean enabled, Double rolloutPercentage) {}
 }
@@ -1,5 +1,6 @@
 package com.dispatch.api.service;
 
+import com.dispatch.api.dto.events.DriverLocationEvent;
 import com.dispatch.api.grpc.GeoIndexProto.*;
 import com.dispatch.api.grpc.GeoIndexServiceGrpc;
 import io.grpc.ManagedChannel;
@@ -13,6 +14,7 @@ import org.springframework.stereotype.Service;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
@@ -103,6 +105,43 @@ public class GeoIndexService {
         }
     }
     
+    /**
+     * Push many driver locations to the geo-index in a single RPC.
+     * Returns the number of drivers the index accepted.
+     */
+    public int updateDriverLocations(Collection<DriverLocationEvent> events) {
+        if (events.isEmpty()) {
+            return 0;
+        }
+        
+        try {
+            BatchUpdateDriverLocationsRequest.Builder request = BatchUpdateDriverLocationsRequest.newBuilder();
+            for (DriverLocationEvent event : events) {
+                request.addUpdates(UpdateDriverLocationRequest.newBuilder()
+                        .setDriverId(event.getDriverId())
+                        .setLat(event.getLat().doubleValue())
+                        .setLng(event.getLng().doubleValue())
+                        .setStatus(mapToGrpcStatus(event.getStatus()))
+                        .build());
+            }
+            
+            BatchUpdateDriverLocationsResponse response = blockingStub.batchUpdateDriverLocations(request.build());
+            
+            if (response.getFailedDriverIdsCount() > 0) {
+                logger.warn("Geo-index rejected {} of {} batched location updates: {}", 
+                           response.getFailedDriverIdsCount(), events.size(), response.getFailedDriverIdsList());
+            } else {
+                logger.debug("Batch updated {} driver locations in geo-index", response.getUpdatedCount());
+            }
+            
+            return response.getUpdatedCount();
+            
+        } catch (StatusRuntimeException e) {
+            logger.error("gRPC call failed when batch updating {} driver locations", events.size(), e);
+            return 0;
+        }
+    }
+    
     public boolean removeDriver(String driverId) {
         try {
             RemoveDriverRequest request = RemoveDriverRequest.newBuilder()
@@ -125,6 +164,31 @@ public class GeoIndexService {
         }
     }
     
+    /**
+     * Remove many drivers from the geo-index in a single RPC.
+     * Returns the number of drivers that were present and removed.
+     */
+    public int removeDrivers(Collection<String> driverIds) {
+        if (driverIds.isEmpty()) {
+            return 0;
+        }
+        
+        try {
+            BatchRemoveDriversRequest request = BatchRemoveDriversRequest.newBuilder()
+                    .addAllDriverIds(driverIds)
+                    .build();
+            
+            BatchRemoveDriversResponse response = blockingStub.batchRemoveDrivers(request);
+            logger.debug("Removed {} of {} drivers from geo-index", response.getRemovedCount(), driverIds.size());
+            
+            return response.getRemovedCount();
+            
+        } catch (StatusRuntimeException e) {
+            logger.error("gRPC call failed when batch removing {} drivers", driverIds.size(), e);
+            return 0;
+        }
+    }
+    
     public DriverLocation getDriverLocation(String driverId) {
         try {
             GetDriverLocationRequest request = GetDriverLocationRequest.newBuilder()
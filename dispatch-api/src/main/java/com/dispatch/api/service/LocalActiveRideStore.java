@@ -0,0 +1,43 @@
+package com.dispatch.api.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Active rides held in this JVM only; correct as long as a single API node handles ride transitions
+ */
+@Component
+@ConditionalOnProperty(name = "app.rides.active-registry.store", havingValue = "local", matchIfMissing = true)
+public class LocalActiveRideStore implements ActiveRideStore {
+
+    private final Map<String, Claim> riders = new ConcurrentHashMap<>();
+    private final Map<String, Claim> drivers = new ConcurrentHashMap<>();
+
+    @Override
+    public Claim get(Party party, String id) {
+        return claims(party).get(id);
+    }
+
+    @Override
+    public Claim putIfAbsent(Party party, String id, Claim claim) {
+        return claims(party).putIfAbsent(id, claim);
+    }
+
+    @Override
+    public boolean replace(Party party, String id, Claim expected, Claim replacement) {
+        return claims(party).replace(id, expected, replacement);
+    }
+
+    @Override
+    public void remove(Party party, String id, UUID rideId) {
+        claims(party).computeIfPresent(id, (key, claim) -> claim.rideId().equals(rideId) ? null : claim);
+    }
+
+    private Map<String, Claim> claims(Party party) {
+        return party == Party.RIDER ? riders : drivers;
+    }
+}
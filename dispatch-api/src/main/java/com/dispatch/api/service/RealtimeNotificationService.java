@@ -1,38 +1,97 @@
 package com.dispatch.api.service;
 
+import com.dispatch.api.dto.events.DriverLocationEvent;
 import com.dispatch.api.dto.events.RideEvent;
+import com.dispatch.api.dto.response.RideResponse;
 import com.dispatch.api.dto.websocket.DriverLocationUpdate;
 import com.dispatch.api.dto.websocket.RideStatusUpdate;
 import com.dispatch.api.dto.websocket.SurgeUpdate;
 import com.dispatch.api.model.Driver;
+import com.dispatch.api.model.DriverStatus;
 import com.dispatch.api.model.Ride;
+import com.dispatch.api.websocket.LocationFrameCodec;
+import com.dispatch.api.websocket.SerializedMessageSender;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
 
 /**
  * Real-time notification service using WebSocket
  * Handles driver location updates, ride status changes, surge pricing notifications
+ * Payloads are serialized once and sent as ready-made buffers, bypassing per-send conversion
  */
 @Service
 public class RealtimeNotificationService {
     
     private static final Logger logger = LoggerFactory.getLogger(RealtimeNotificationService.class);
     
-    private final SimpMessagingTemplate messagingTemplate;
+    private final SerializedMessageSender messageSender;
+    private final RideEventStreamService rideEventStreamService;
     private final ObjectMapper objectMapper;
+    private final ActiveRideRegistry activeRideRegistry;
+    private final RideSnapshotCache rideSnapshotCache;
     
-    public RealtimeNotificationService(SimpMessagingTemplate messagingTemplate, ObjectMapper objectMapper) {
-        this.messagingTemplate = messagingTemplate;
+    public RealtimeNotificationService(SerializedMessageSender messageSender,
+                                       RideEventStreamService rideEventStreamService,
+                                       ObjectMapper objectMapper,
+                                       ActiveRideRegistry activeRideRegistry,
+                                       RideSnapshotCache rideSnapshotCache) {
+        this.messageSender = messageSender;
+        this.rideEventStreamService = rideEventStreamService;
         this.objectMapper = objectMapper;
+        this.activeRideRegistry = activeRideRegistry;
+        this.rideSnapshotCache = rideSnapshotCache;
+    }
+    
+    /**
+     * Forward driver positions to the rider of the driver's active ride.
+     * The nodes share one consumer group, so each position is sent once; the message sender
+     * relays it to whichever node holds the rider's session.
+     */
+    @KafkaListener(
+        topics = "${app.kafka.topics.driver-locations}",
+        groupId = "dispatch-rider-locations",
+        properties = "auto.offset.reset=latest"
+    )
+    public void onDriverLocation(DriverLocationEvent event) {
+        if (event.getLat() == null || event.getLng() == null
+                || DriverStatus.OFFLINE.name().equals(event.getStatus())) {
+            return;
+        }
+        
+        try {
+            Optional<UUID> rideId = activeRideRegistry.findActiveRideForDriver(event.getDriverId());
+            if (rideId.isEmpty()) {
+                return;
+            }
+            
+            Optional<String> riderId = rideSnapshotCache.get(rideId.get())
+                .filter(ride -> event.getDriverId().equals(ride.getDriverId()))
+                .map(RideResponse::getRiderId);
+            riderId.ifPresent(rider -> notifyRiderOfDriverLocation(
+                rider,
+                event.getDriverId(),
+                event.getLat().doubleValue(),
+                event.getLng().doubleValue(),
+                event.getHeading() != null ? event.getHeading() : 0
+            ));
+        } catch (Exception e) {
+            logger.error("Failed to forward location of driver {} to its rider", event.getDriverId(), e);
+        }
     }
     
     /**
@@ -41,14 +100,19 @@ public class RealtimeNotificationService {
     public void notifyRiderOfDriverLocation(String riderId, String driverId, 
                                            double lat, double lng, double heading) {
         try {
+            Instant now = Instant.now();
             DriverLocationUpdate update = new DriverLocationUpdate(
-                driverId, lat, lng, heading, LocalDateTime.now()
+                driverId, lat, lng, heading, LocalDateTime.ofInstant(now, ZoneId.systemDefault())
             );
             
-            messagingTemplate.convertAndSendToUser(
+            // Only the latest position matters to a rider that has fallen behind;
+            // clients that negotiated it get the compact binary frame instead of JSON
+            messageSender.sendConflatableToUser(
                 riderId, 
                 "/queue/driver-location", 
-                update
+                update,
+                driverId,
+                LocationFrameCodec.encodePosition(driverId, lat, lng, heading, now.toEpochMilli())
             );
             
             logger.debug("Sent driver location update to rider {}: driver {} at ({}, {})", 
@@ -80,7 +144,7 @@ public class RealtimeNotificationService {
                 "expiresAt", LocalDateTime.now().plusMinutes(2) // 2 minute timeout
             );
             
-            messagingTemplate.convertAndSendToUser(
+            messageSender.sendToUser(
                 driverId,
                 "/queue/ride-requests",
                 notification
@@ -98,7 +162,7 @@ public class RealtimeNotificationService {
      */
     public void notifyRiderOfRideStatus(String riderId, RideStatusUpdate statusUpdate) {
         try {
-            messagingTemplate.convertAndSendToUser(
+            messageSender.sendToUser(
                 riderId,
                 "/queue/ride-status",
                 statusUpdate
@@ -121,7 +185,7 @@ public class RealtimeNotificationService {
             );
             
             // Broadcast to all drivers in the area (simplified - in production would target specific drivers)
-            messagingTemplate.convertAndSend(
+            messageSender.send(
                 "/topic/surge-updates",
                 surgeUpdate
             );
@@ -146,7 +210,7 @@ public class RealtimeNotificationService {
                 "timestamp", LocalDateTime.now()
             );
             
-            messagingTemplate.convertAndSend("/topic/announcements", announcement);
+            messageSender.send("/topic/announcements", announcement);
             
             logger.info("Broadcast system announcement: {} ({})", message, level);
             
@@ -156,106 +220,108 @@ public class RealtimeNotificationService {
     }
     
     /**
-     * Handle ride events and send appropriate notifications
+     * Handle ride events and send appropriate notifications.
+     * Called where the transition happened, so each is notified once across all nodes.
      */
     public void handleRideEvent(RideEvent event) {
         try {
-            switch (event.getEventType()) {
-                case RIDE_CREATED -> handleRideCreated(event);
-                case RIDE_ASSIGNED -> handleRideAssigned(event);
-                case RIDE_STARTED -> handleRideStarted(event);
-                case RIDE_COMPLETED -> handleRideCompleted(event);
-                case RIDE_CANCELLED -> handleRideCancelled(event);
-                case DRIVER_ARRIVED -> handleDriverArrived(event);
-                default -> logger.debug("No notification handler for event type: {}", event.getEventType());
+            RideStatusUpdate update = toStatusUpdate(event);
+            if (update == null) {
+                logger.debug("No notification for ride event type: {}", event.getEventType());
+                return;
+            }
+            
+            notifyRiderOfRideStatus(event.getRiderId(), update);
+            
+            // Also tell the driver about a cancellation
+            if ("CANCELLED".equals(event.getEventType()) && event.getDriverId() != null) {
+                Map<String, Object> driverNotification = Map.of(
+                    "type", "RIDE_CANCELLED",
+                    "rideId", event.getRideId().toString(),
+                    "message", "Ride has been cancelled"
+                );
+                
+                messageSender.sendToUser(
+                    event.getDriverId(),
+                    "/queue/notifications",
+                    driverNotification
+                );
             }
         } catch (Exception e) {
             logger.error("Failed to handle ride event: {}", event, e);
         }
     }
     
-    private void handleRideCreated(RideEvent event) {
-        // Notify nearby drivers about new ride request
-        logger.info("New ride created: {}", event.getRideId());
-    }
-    
-    private void handleRideAssigned(RideEvent event) {
-        // Notify rider that driver has been assigned
-        RideStatusUpdate update = new RideStatusUpdate(
-            event.getRideId().toString(),
-            "ASSIGNED",
-            "Driver assigned and on the way",
-            Map.of("driverId", event.getDriverId())
-        );
-        
-        notifyRiderOfRideStatus(event.getRiderId(), update);
-    }
-    
-    private void handleRideStarted(RideEvent event) {
-        // Notify rider that ride has started
-        RideStatusUpdate update = new RideStatusUpdate(
-            event.getRideId().toString(),
-            "IN_PROGRESS",
-            "Your ride has started",
-            Map.of("startTime", LocalDateTime.now())
-        );
-        
-        notifyRiderOfRideStatus(event.getRiderId(), update);
-    }
-    
-    private void handleRideCompleted(RideEvent event) {
-        // Notify rider that ride is completed
-        Map<String, Object> details = new HashMap<>();
-        details.put("fareAmount", event.getFareAmount());
-        details.put("duration", event.getDurationMinutes());
-        details.put("completedAt", LocalDateTime.now());
-        
-        RideStatusUpdate update = new RideStatusUpdate(
-            event.getRideId().toString(),
-            "COMPLETED",
-            "Your ride has been completed. Thank you!",
-            details
-        );
+    /**
+     * Feed ride events to the Server-Sent Events streams. Every node consumes the whole topic,
+     * so a stream gets its ride's events whichever node serves it; the record offset is the
+     * event id, the same on every node.
+     */
+    @KafkaListener(
+        topics = "${app.kafka.topics.ride-events}",
+        groupId = "dispatch-ride-streams-${app.websocket.node-id}",
+        properties = "auto.offset.reset=latest"
+    )
+    public void onRideEvent(RideEvent event, @Header(KafkaHeaders.OFFSET) long offset) {
+        RideStatusUpdate update = toStatusUpdate(event);
+        if (update == null) {
+            return;
+        }
         
-        notifyRiderOfRideStatus(event.getRiderId(), update);
+        try {
+            rideEventStreamService.publish(event.getRideId(), offset, "ride-status", update.getStatus(), update);
+        } catch (Exception e) {
+            logger.error("Failed to publish ride status update for ride {} to SSE streams", event.getRideId(), e);
+        }
     }
     
-    private void handleRideCancelled(RideEvent event) {
-        // Notify both rider and driver about cancellation
-        RideStatusUpdate update = new RideStatusUpdate(
-            event.getRideId().toString(),
-            "CANCELLED",
-            "Your ride has been cancelled",
-            Map.of("cancelledAt", LocalDateTime.now())
-        );
-        
-        notifyRiderOfRideStatus(event.getRiderId(), update);
+    // Built from the event alone, so every node renders the same update for it
+    private static RideStatusUpdate toStatusUpdate(RideEvent event) {
+        if (event.getRideId() == null || event.getEventType() == null) {
+            return null;
+        }
         
-        if (event.getDriverId() != null) {
-            Map<String, Object> driverNotification = Map.of(
-                "type", "RIDE_CANCELLED",
-                "rideId", event.getRideId().toString(),
-                "message", "Ride has been cancelled"
+        String rideId = event.getRideId().toString();
+        LocalDateTime at = event.getTimestamp();
+        return switch (event.getEventType()) {
+            case "ACCEPTED" -> new RideStatusUpdate(
+                rideId,
+                "ASSIGNED",
+                "Driver assigned and on the way",
+                Map.of("driverId", event.getDriverId())
             );
-            
-            messagingTemplate.convertAndSendToUser(
-                event.getDriverId(),
-                "/queue/notifications",
-                driverNotification
+            case "STARTED" -> new RideStatusUpdate(
+                rideId,
+                "IN_PROGRESS",
+                "Your ride has started",
+                Map.of("startTime", at)
             );
-        }
-    }
-    
-    private void handleDriverArrived(RideEvent event) {
-        // Notify rider that driver has arrived
-        RideStatusUpdate update = new RideStatusUpdate(
-            event.getRideId().toString(),
-            "DRIVER_ARRIVED",
-            "Your driver has arrived",
-            Map.of("arrivedAt", LocalDateTime.now())
-        );
-        
-        notifyRiderOfRideStatus(event.getRiderId(), update);
+            case "COMPLETED" -> {
+                Map<String, Object> details = new HashMap<>();
+                details.put("fareAmount", event.getFareAmount());
+                details.put("duration", event.getActualDurationMinutes());
+                details.put("completedAt", at);
+                yield new RideStatusUpdate(
+                    rideId,
+                    "COMPLETED",
+                    "Your ride has been completed. Thank you!",
+                    details
+                );
+            }
+            case "CANCELLED" -> new RideStatusUpdate(
+                rideId,
+                "CANCELLED",
+                "Your ride has been cancelled",
+                Map.of("cancelledAt", at)
+            );
+            case "DRIVER_ARRIVED" -> new RideStatusUpdate(
+                rideId,
+                "DRIVER_ARRIVED",
+                "Your driver has arrived",
+                Map.of("arrivedAt", at)
+            );
+            default -> null;
+        };
     }
     
     /**
@@ -269,7 +335,7 @@ public class RealtimeNotificationService {
                 "timestamp", LocalDateTime.now()
             );
             
-            messagingTemplate.convertAndSendToUser(
+            messageSender.sendToUser(
                 driverId,
                 "/queue/performance",
                 notification
@@ -293,7 +359,7 @@ public class RealtimeNotificationService {
                 "timestamp", LocalDateTime.now()
             );
             
-            messagingTemplate.convertAndSendToUser(
+            messageSender.sendToUser(
                 driverId,
                 "/queue/forecasts",
                 notification
@@ -317,7 +383,7 @@ public class RealtimeNotificationService {
                 "timestamp", LocalDateTime.now()
             );
             
-            messagingTemplate.convertAndSendToUser(userId, "/queue/test", testMessage);
+            messageSender.sendToUser(userId, "/queue/test", testMessage);
             
             logger.info("Sent test message to user {}: {}", userId, message);
             
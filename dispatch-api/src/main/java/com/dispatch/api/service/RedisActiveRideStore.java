@@ -0,0 +1,85 @@
+package com.dispatch.api.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Active rides shared by all API nodes, one Redis hash per party keyed by rider or driver id.
+ *
+ * Values are {@code rideId:claimedAtMillis}; the conditional updates run as Lua scripts so
+ * each is a single atomic step on the Redis side.
+ */
+@Component
+@ConditionalOnProperty(name = "app.rides.active-registry.store", havingValue = "redis")
+public class RedisActiveRideStore implements ActiveRideStore {
+
+    private static final String RIDERS_KEY = "dispatch:rides:active:riders";
+    private static final String DRIVERS_KEY = "dispatch:rides:active:drivers";
+
+    private static final RedisScript<String> PUT_IF_ABSENT = new DefaultRedisScript<>(
+        "if redis.call('HSETNX', KEYS[1], ARGV[1], ARGV[2]) == 1 then return false end " +
+        "return redis.call('HGET', KEYS[1], ARGV[1])",
+        String.class);
+
+    private static final RedisScript<Long> REPLACE = new DefaultRedisScript<>(
+        "if redis.call('HGET', KEYS[1], ARGV[1]) == ARGV[2] then " +
+        "redis.call('HSET', KEYS[1], ARGV[1], ARGV[3]) return 1 end " +
+        "return 0",
+        Long.class);
+
+    // Matches on the ride id prefix, whenever the claim was taken
+    private static final RedisScript<Long> REMOVE = new DefaultRedisScript<>(
+        "local held = redis.call('HGET', KEYS[1], ARGV[1]) " +
+        "if held and string.sub(held, 1, string.len(ARGV[2]) + 1) == ARGV[2] .. ':' then " +
+        "return redis.call('HDEL', KEYS[1], ARGV[1]) end " +
+        "return 0",
+        Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    public RedisActiveRideStore(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public Claim get(Party party, String id) {
+        Object held = redisTemplate.opsForHash().get(key(party), id);
+        return held != null ? decode(held.toString()) : null;
+    }
+
+    @Override
+    public Claim putIfAbsent(Party party, String id, Claim claim) {
+        String held = redisTemplate.execute(PUT_IF_ABSENT, List.of(key(party)), id, encode(claim));
+        return held != null ? decode(held) : null;
+    }
+
+    @Override
+    public boolean replace(Party party, String id, Claim expected, Claim replacement) {
+        Long replaced = redisTemplate.execute(REPLACE, List.of(key(party)), id, encode(expected), encode(replacement));
+        return replaced != null && replaced == 1;
+    }
+
+    @Override
+    public void remove(Party party, String id, UUID rideId) {
+        redisTemplate.execute(REMOVE, List.of(key(party)), id, rideId.toString());
+    }
+
+    private static String key(Party party) {
+        return party == Party.RIDER ? RIDERS_KEY : DRIVERS_KEY;
+    }
+
+    static String encode(Claim claim) {
+        return claim.rideId() + ":" + claim.claimedAt();
+    }
+
+    static Claim decode(String value) {
+        int separator = value.lastIndexOf(':');
+        return new Claim(UUID.fromString(value.substring(0, separator)), Long.parseLong(value.substring(separator + 1)));
+    }
+}
@@ -0,0 +1,275 @@
+package com.dispatch.api.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server-Sent Events streams of ride notifications.
+ *
+ * Each ride keeps a small ring buffer of its recent events, so a client that reconnects with
+ * {@code Last-Event-ID} gets what it missed. Every node consumes the whole ride event topic, and
+ * an event's id is its Kafka offset: ride events are keyed by ride id, so a ride's events share
+ * one partition and their offsets increase. Ids therefore mean the same on every node and a
+ * client can resume on any of them, but each node only replays what it has buffered itself
+ * since it joined, so a resume on a node that started after the missed events gets none.
+ *
+ * Emitters are completed asynchronously by the servlet container and hold no request thread
+ * while idle. Payloads are serialized once per event, not once per connection, and each
+ * connection is written from its own queue on a virtual thread, so a slow client never holds
+ * up the others or the consumer; one that falls a whole buffer behind is closed and resumes.
+ */
+@Service
+public class RideEventStreamService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RideEventStreamService.class);
+
+    private static final Set<String> TERMINAL_STATUSES = Set.of("COMPLETED", "CANCELLED");
+
+    private final ObjectMapper objectMapper;
+    private Executor writer = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<UUID, RideChannel> channels = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+
+    @Value("${app.rides.stream.buffer-size:64}")
+    private int bufferSize;
+
+    @Value("${app.rides.stream.timeout:30m}")
+    private Duration timeout;
+
+    @Value("${app.rides.stream.retention:10m}")
+    private Duration retention;
+
+    public RideEventStreamService(ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        meterRegistry.gauge("dispatch.rides.stream.connections", connections);
+        meterRegistry.gaugeMapSize("dispatch.rides.stream.rides", List.of(), channels);
+    }
+
+    /**
+     * Open a stream for a ride, replaying buffered events newer than {@code lastEventId}
+     */
+    public SseEmitter subscribe(UUID rideId, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        RideChannel channel = channels.computeIfAbsent(rideId, id -> new RideChannel());
+        Subscriber subscriber = new Subscriber(rideId, channel, emitter);
+
+        emitter.onCompletion(() -> channel.remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> channel.remove(subscriber));
+
+        long after = parseEventId(lastEventId);
+        synchronized (channel) {
+            // Queued before it can see live events, so the replay comes first
+            for (StreamEvent event : channel.events) {
+                if (event.id() > after) {
+                    subscriber.offer(event.toSse());
+                }
+            }
+
+            channel.lastActivity = System.currentTimeMillis();
+            if (channel.finished) {
+                subscriber.finish();
+            } else {
+                channel.subscribers.add(subscriber);
+                connections.incrementAndGet();
+            }
+        }
+        return emitter;
+    }
+
+    /**
+     * Append an event to the ride's stream; a terminal ride status also ends the open streams.
+     * Events with an id the ride has already seen are dropped, so redelivery is harmless.
+     */
+    public void publish(UUID rideId, long eventId, String name, String status, Object payload) {
+        String data;
+        try {
+            data = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            logger.error("Failed to serialize {} event for ride {}", name, rideId, e);
+            return;
+        }
+
+        RideChannel channel = channels.computeIfAbsent(rideId, id -> new RideChannel());
+        synchronized (channel) {
+            if (eventId <= channel.lastId) {
+                return;
+            }
+            StreamEvent event = new StreamEvent(eventId, name, data);
+            channel.lastId = eventId;
+            channel.events.addLast(event);
+            if (channel.events.size() > bufferSize) {
+                channel.events.removeFirst();
+            }
+            channel.lastActivity = System.currentTimeMillis();
+
+            // Only queued here; the writes happen outside the lock
+            for (Subscriber subscriber : channel.subscribers) {
+                subscriber.offer(event.toSse());
+            }
+
+            if (status != null && TERMINAL_STATUSES.contains(status)) {
+                channel.finished = true;
+                channel.subscribers.forEach(Subscriber::finish);
+            }
+        }
+    }
+
+    /**
+     * Keep idle connections (and proxies in between) open, and forget rides nobody follows anymore
+     */
+    public void sendHeartbeats() {
+        long expireBefore = System.currentTimeMillis() - retention.toMillis();
+
+        channels.forEach((rideId, channel) -> {
+            synchronized (channel) {
+                for (Subscriber subscriber : channel.subscribers) {
+                    subscriber.offer(SseEmitter.event().comment("heartbeat"));
+                }
+                if (channel.subscribers.isEmpty() && channel.lastActivity <= expireBefore) {
+                    channels.remove(rideId, channel);
+                }
+            }
+        });
+    }
+
+    private static long parseEventId(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private record StreamEvent(long id, String name, String data) {
+
+        SseEmitter.SseEventBuilder toSse() {
+            return SseEmitter.event().id(String.valueOf(id)).name(name).data(data);
+        }
+    }
+
+    private final class RideChannel {
+        private final ArrayDeque<StreamEvent> events = new ArrayDeque<>();
+        private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+        private long lastId = -1;
+        private boolean finished;
+        private volatile long lastActivity = System.currentTimeMillis();
+
+        private void remove(Subscriber subscriber) {
+            if (subscribers.remove(subscriber)) {
+                connections.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * One connection's outbound queue, drained by one writer at a time so its events stay in order
+     */
+    private final class Subscriber {
+        private final UUID rideId;
+        private final RideChannel channel;
+        private final SseEmitter emitter;
+        private final ArrayDeque<SseEmitter.SseEventBuilder> queue = new ArrayDeque<>();
+        private boolean finishing;
+        private boolean draining;
+        private volatile boolean closed;
+
+        private Subscriber(UUID rideId, RideChannel channel, SseEmitter emitter) {
+            this.rideId = rideId;
+            this.channel = channel;
+            this.emitter = emitter;
+        }
+
+        void offer(SseEmitter.SseEventBuilder event) {
+            synchronized (queue) {
+                if (closed || finishing) {
+                    return;
+                }
+                if (queue.size() >= bufferSize) {
+                    // Too far behind to catch up from here; it resumes with Last-Event-ID
+                    logger.debug("SSE stream of ride {} fell {} events behind, closing it", rideId, queue.size());
+                    queue.clear();
+                    finishing = true;
+                } else {
+                    queue.addLast(event);
+                }
+            }
+            startDrain();
+        }
+
+        void finish() {
+            synchronized (queue) {
+                finishing = true;
+            }
+            startDrain();
+        }
+
+        private void startDrain() {
+            synchronized (queue) {
+                if (draining || closed) {
+                    return;
+                }
+                draining = true;
+            }
+            writer.execute(this::drain);
+        }
+
+        private void drain() {
+            while (true) {
+                SseEmitter.SseEventBuilder next;
+                boolean complete;
+                synchronized (queue) {
+                    next = queue.pollFirst();
+                    complete = next == null && finishing;
+                    if (next == null) {
+                        draining = false;
+                        closed = complete;
+                    }
+                }
+
+                if (next == null) {
+                    if (complete) {
+                        channel.remove(this);
+                        emitter.complete();
+                    }
+                    return;
+                }
+
+                try {
+                    emitter.send(next);
+                } catch (Exception e) {
+                    logger.debug("Dropping SSE stream of ride {}", rideId, e);
+                    synchronized (queue) {
+                        closed = true;
+                        draining = false;
+                        queue.clear();
+                    }
+                    channel.remove(this);
+                    emitter.completeWithError(e);
+                    return;
+                }
+            }
+        }
+    }
+}
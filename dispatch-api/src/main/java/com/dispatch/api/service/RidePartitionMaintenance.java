@@ -0,0 +1,203 @@
+package com.dispatch.api.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.scheduling.support.CronTrigger;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the monthly partitions of {@code rides} rolling.
+ *
+ * Partitions are created a few months ahead so new rides never land in the default partition.
+ * Rides that got there anyway, e.g. after missed runs, are moved into their month's partition
+ * on the next run; the number found is logged and exported as a gauge to alert on.
+ * Months past retention are detached and moved to the {@code rides_archive} schema: the data
+ * stays queryable there, but the planner and the active-ride indexes no longer see it.
+ *
+ * The job runs on its own scheduler thread, since a DETACH waiting out its lock timeout must not
+ * hold up the shared scheduler. Every node schedules it; a session-level advisory lock makes sure
+ * only one of them does the work, so the whole run stays on a single pinned connection.
+ */
+@Component
+public class RidePartitionMaintenance {
+
+    private static final Logger logger = LoggerFactory.getLogger(RidePartitionMaintenance.class);
+
+    private static final String PARTITION_PREFIX = "rides_p";
+    private static final DateTimeFormatter PARTITION_MONTH = DateTimeFormatter.ofPattern("uuuuMM");
+    private static final String ARCHIVE_SCHEMA = "rides_archive";
+
+    // Arbitrary, but fixed: every node has to contend for the same key
+    static final long MAINTENANCE_LOCK_KEY = 0x72696465735f70L;
+
+    private static final String LIST_PARTITIONS_SQL =
+        "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+        "WHERE i.inhparent = 'rides'::regclass AND c.relname ~ '^rides_p[0-9]{6}$' ORDER BY c.relname";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+    // Rides found in rides_default by the last run
+    private final AtomicLong defaultPartitionRows = new AtomicLong();
+
+    @Value("${app.rides.partitions.months-ahead:3}")
+    private int monthsAhead;
+
+    @Value("${app.rides.partitions.retention-months:13}")
+    private int retentionMonths;
+
+    @Value("${app.rides.partitions.detach-lock-timeout:5s}")
+    private String detachLockTimeout;
+
+    @Value("${app.rides.partitions.maintenance-cron:0 15 3 * * *}")
+    private String maintenanceCron;
+
+    public RidePartitionMaintenance(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        meterRegistry.gauge("dispatch.rides.partitions.default.rows", defaultPartitionRows);
+    }
+
+    @PostConstruct
+    void start() {
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("ride-partitions-");
+        scheduler.initialize();
+        scheduler.schedule(this::runScheduled, new CronTrigger(maintenanceCron));
+    }
+
+    @PreDestroy
+    void stop() {
+        scheduler.shutdown();
+    }
+
+    private void runScheduled() {
+        try {
+            int archived = maintain();
+            if (archived > 0) {
+                logger.info("Archived {} ride partitions", archived);
+            }
+        } catch (Exception e) {
+            logger.error("Error during ride partition maintenance", e);
+        }
+    }
+
+    /**
+     * Create upcoming partitions and archive expired ones, unless another node is already at it
+     *
+     * @return number of partitions archived, or -1 if another node holds the maintenance lock
+     */
+    public int maintain() {
+        Integer archived = jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+            // The advisory lock belongs to this session, so everything below must use this connection
+            JdbcTemplate session = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+
+            Boolean locked = session.queryForObject("SELECT pg_try_advisory_lock(?)", Boolean.class, MAINTENANCE_LOCK_KEY);
+            if (!Boolean.TRUE.equals(locked)) {
+                logger.debug("Ride partition maintenance is running on another node");
+                return -1;
+            }
+
+            try {
+                ensureFuturePartitions(session);
+                drainDefaultPartition(session);
+                return archiveExpiredPartitions(session);
+            } finally {
+                session.queryForObject("SELECT pg_advisory_unlock(?)", Boolean.class, MAINTENANCE_LOCK_KEY);
+            }
+        });
+        return archived != null ? archived : -1;
+    }
+
+    private void ensureFuturePartitions(JdbcTemplate session) {
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= monthsAhead; i++) {
+            LocalDate month = current.plusMonths(i).atDay(1);
+            session.queryForObject("SELECT ensure_rides_partition(?)", String.class, month);
+        }
+    }
+
+    /**
+     * Give every month that has rides in the default partition its own partition, which moves them
+     */
+    private void drainDefaultPartition(JdbcTemplate session) {
+        long rows = session.queryForObject("SELECT count(*) FROM rides_default", Long.class);
+        defaultPartitionRows.set(rows);
+        if (rows == 0) {
+            return;
+        }
+
+        logger.error("Found {} rides in the default partition; moving them to monthly partitions", rows);
+        for (LocalDate month : session.queryForList(
+                "SELECT DISTINCT date_trunc('month', created_at)::date FROM rides_default", LocalDate.class)) {
+            try {
+                session.queryForObject("SELECT ensure_rides_partition(?)", String.class, month);
+            } catch (Exception e) {
+                logger.error("Failed to move rides of {} out of the default partition", YearMonth.from(month), e);
+            }
+        }
+    }
+
+    /**
+     * Detach every partition that ended more than the retention period ago
+     */
+    private int archiveExpiredPartitions(JdbcTemplate session) {
+        YearMonth oldestKept = YearMonth.now().minusMonths(retentionMonths);
+        TransactionTemplate transactionTemplate =
+            new TransactionTemplate(new DataSourceTransactionManager(session.getDataSource()));
+        int archived = 0;
+
+        for (String partition : session.queryForList(LIST_PARTITIONS_SQL, String.class)) {
+            YearMonth month = YearMonth.parse(partition.substring(PARTITION_PREFIX.length()), PARTITION_MONTH);
+            if (!month.isBefore(oldestKept)) {
+                continue;
+            }
+
+            try {
+                Boolean detached = transactionTemplate.execute(status -> {
+                    // DETACH briefly locks the parent; give up rather than queue writers behind it
+                    session.execute("SET LOCAL lock_timeout = '" + detachLockTimeout + "'");
+
+                    // Block writes to the partition so no ride can turn active between the check and the detach
+                    session.execute("LOCK TABLE " + partition + " IN EXCLUSIVE MODE");
+
+                    // A ride stuck in an active state would vanish from dispatch; leave it for someone to look at
+                    Boolean hasActive = session.queryForObject(
+                        "SELECT EXISTS (SELECT 1 FROM " + partition + " WHERE status IN ('REQUESTED', 'ACCEPTED', 'IN_PROGRESS'))",
+                        Boolean.class);
+                    if (Boolean.TRUE.equals(hasActive)) {
+                        return false;
+                    }
+
+                    session.execute("ALTER TABLE rides DETACH PARTITION " + partition);
+                    session.execute("ALTER TABLE " + partition + " SET SCHEMA " + ARCHIVE_SCHEMA);
+                    return true;
+                });
+
+                if (Boolean.TRUE.equals(detached)) {
+                    archived++;
+                    logger.info("Archived ride partition {} to schema {}", partition, ARCHIVE_SCHEMA);
+                } else {
+                    logger.warn("Not archiving ride partition {}: it still holds active rides", partition);
+                }
+            } catch (Exception e) {
+                logger.error("Failed to archive ride partition {}", partition, e);
+            }
+        }
+
+        return archived;
+    }
+}
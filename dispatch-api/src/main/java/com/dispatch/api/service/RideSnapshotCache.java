@@ -0,0 +1,206 @@
+package com.dispatch.api.service;
+
+import com.dispatch.api.dto.events.RideEvent;
+import com.dispatch.api.dto.mapper.RideMapper;
+import com.dispatch.api.dto.response.RideResponse;
+import com.dispatch.api.model.Ride;
+import com.dispatch.api.model.RideStatus;
+import com.dispatch.api.repository.RideRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Read-through cache of ride snapshots for the polled GET endpoints.
+ *
+ * Two levels: a small in-JVM cache per node and a shared Redis copy. {@link DispatchService}
+ * writes the new snapshot through both levels once a state transition commits. Other nodes
+ * learn about the transition from the ride event and drop their local copy.
+ *
+ * A ride's status only ever moves forward. Each ride event leaves a status floor behind, and a
+ * snapshot behind the floor is never served from cache. This covers an event that arrives
+ * before the writer's commit has reached Redis.
+ */
+@Component
+public class RideSnapshotCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(RideSnapshotCache.class);
+
+    private static final String KEY_PREFIX = "ride:snapshot:";
+
+    private static final Map<String, RideStatus> EVENT_STATUSES = Map.of(
+        "REQUESTED", RideStatus.REQUESTED,
+        "ACCEPTED", RideStatus.ACCEPTED,
+        "STARTED", RideStatus.IN_PROGRESS,
+        "COMPLETED", RideStatus.COMPLETED,
+        "CANCELLED", RideStatus.CANCELLED
+    );
+
+    private final RideRepository rideRepository;
+    private final RideMapper rideMapper;
+    // Values are RideSnapshot protobuf messages, see RideSnapshotRedisSerializer
+    private final RedisTemplate<String, RideResponse> redisTemplate;
+
+    private final Cache<UUID, RideResponse> local;
+    // Latest status announced by a ride event, kept a little longer than local entries
+    private final Cache<UUID, RideStatus> statusFloors;
+
+    private final Counter redisHits;
+    private final Counter redisMisses;
+    private final Counter staleRejected;
+
+    @Value("${app.rides.cache.redis-ttl:60s}")
+    private Duration redisTtl;
+
+    public RideSnapshotCache(RideRepository rideRepository,
+                             RideMapper rideMapper,
+                             RedisTemplate<String, RideResponse> redisTemplate,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.rides.cache.local-max-size:50000}") long localMaxSize,
+                             @Value("${app.rides.cache.local-ttl:5s}") Duration localTtl) {
+        this.rideRepository = rideRepository;
+        this.rideMapper = rideMapper;
+        this.redisTemplate = redisTemplate;
+
+        this.local = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(localTtl)
+                .recordStats()
+                .build();
+        this.statusFloors = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(localTtl.multipliedBy(2))
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, local, "rides.snapshot.local");
+
+        this.redisHits = meterRegistry.counter("dispatch.rides.cache.redis", "result", "hit");
+        this.redisMisses = meterRegistry.counter("dispatch.rides.cache.redis", "result", "miss");
+        this.staleRejected = meterRegistry.counter("dispatch.rides.cache.stale");
+    }
+
+    /**
+     * Ride snapshot from the local cache, then Redis, then the database
+     */
+    public Optional<RideResponse> get(UUID rideId) {
+        RideStatus floor = statusFloors.getIfPresent(rideId);
+
+        RideResponse cached = local.getIfPresent(rideId);
+        if (cached != null) {
+            if (isCurrent(cached, floor)) {
+                return Optional.of(cached);
+            }
+            local.invalidate(rideId);
+        }
+
+        RideResponse shared = readShared(rideId);
+        if (shared != null && isCurrent(shared, floor)) {
+            local.put(rideId, shared);
+            return Optional.of(shared);
+        }
+
+        Optional<RideResponse> loaded = rideRepository.findById(rideId).map(rideMapper::toResponse);
+        loaded.ifPresent(snapshot -> {
+            // Behind the floor means the transition has not committed yet; serve it, but don't keep it
+            if (isCurrent(snapshot, floor)) {
+                store(rideId, snapshot);
+            }
+        });
+        return loaded;
+    }
+
+    /**
+     * Write a ride's new state through both levels, after the surrounding transaction commits
+     */
+    public void put(Ride ride) {
+        UUID rideId = ride.getId();
+        RideResponse snapshot = rideMapper.toResponse(ride);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Readers on this node must not see the old snapshot in the meantime
+            local.invalidate(rideId);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    store(rideId, snapshot);
+                }
+            });
+        } else {
+            store(rideId, snapshot);
+        }
+    }
+
+    public void evict(UUID rideId) {
+        local.invalidate(rideId);
+        try {
+            redisTemplate.delete(KEY_PREFIX + rideId);
+        } catch (Exception e) {
+            logger.warn("Failed to evict ride snapshot {} from Redis", rideId, e);
+        }
+    }
+
+    @KafkaListener(
+        topics = "${app.kafka.topics.ride-events}",
+        // Every node drops its own local copies, so each gets its own group
+        groupId = "dispatch-ride-cache-${app.websocket.node-id}",
+        properties = "auto.offset.reset=latest"
+    )
+    public void onRideEvent(RideEvent event) {
+        if (event.getRideId() != null) {
+            invalidate(event.getRideId(), EVENT_STATUSES.get(event.getEventType()));
+        }
+    }
+
+    void invalidate(UUID rideId, RideStatus status) {
+        if (status != null) {
+            statusFloors.asMap().merge(rideId, status, (current, next) -> next.ordinal() > current.ordinal() ? next : current);
+        }
+        local.invalidate(rideId);
+    }
+
+    private boolean isCurrent(RideResponse snapshot, RideStatus floor) {
+        if (floor == null || snapshot.getStatus() == null || snapshot.getStatus().ordinal() >= floor.ordinal()) {
+            return true;
+        }
+        staleRejected.increment();
+        return false;
+    }
+
+    private void store(UUID rideId, RideResponse snapshot) {
+        local.put(rideId, snapshot);
+        try {
+            redisTemplate.opsForValue().set(KEY_PREFIX + rideId, snapshot, redisTtl);
+        } catch (Exception e) {
+            logger.warn("Failed to write ride snapshot {} to Redis", rideId, e);
+        }
+    }
+
+    private RideResponse readShared(UUID rideId) {
+        try {
+            RideResponse snapshot = redisTemplate.opsForValue().get(KEY_PREFIX + rideId);
+            if (snapshot == null) {
+                redisMisses.increment();
+                return null;
+            }
+            redisHits.increment();
+            return snapshot;
+        } catch (Exception e) {
+            logger.warn("Failed to read ride snapshot {} from Redis", rideId, e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.dispatch.api.service;
+
+import com.dispatch.api.model.Ride;
+import com.dispatch.api.repository.RideRepository;
+import com.dispatch.api.repository.RideTransitionRepository;
+import com.dispatch.api.repository.RideTransitionRepository.Command;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Group commit for ride state transitions.
+ *
+ * A transition touches one ride row and at most one driver row, so on its own it gains nothing
+ * from JDBC batching and pays a full commit. Here concurrent transitions are queued, and a
+ * single writer thread collects whatever arrives within a few milliseconds (or up to a batch
+ * size) and applies them in one transaction: the conditional ride UPDATEs as JDBC batches, one
+ * read of the affected rides, and a batch freeing their drivers. Each caller's future completes
+ * with the updated ride once that transaction has committed, or with the reason the transition
+ * was rejected.
+ *
+ * If a batch fails, its transitions are retried one transaction each, so one bad row only fails
+ * its own caller.
+ */
+@Component
+public class RideStateWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RideStateWriter.class);
+
+    private final RideTransitionRepository rideTransitionRepository;
+    private final RideRepository rideRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<Pending> queue;
+
+    private final DistributionSummary batchSize;
+    private final Counter fallbacks;
+
+    @Value("${app.rides.writer.max-batch-size:64}")
+    private int maxBatchSize;
+
+    @Value("${app.rides.writer.max-wait:2ms}")
+    private Duration maxWait;
+
+    private volatile boolean running = true;
+    private Thread writerThread;
+
+    public RideStateWriter(RideTransitionRepository rideTransitionRepository,
+                           RideRepository rideRepository,
+                           PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.rides.writer.queue-capacity:10000}") int queueCapacity) {
+        this.rideTransitionRepository = rideTransitionRepository;
+        this.rideRepository = rideRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        this.batchSize = DistributionSummary.builder("dispatch.rides.writer.batch.size")
+                .description("Ride transitions committed per transaction")
+                .register(meterRegistry);
+        this.fallbacks = meterRegistry.counter("dispatch.rides.writer.fallbacks");
+        meterRegistry.gaugeCollectionSize("dispatch.rides.writer.queue", Tags.empty(), queue);
+    }
+
+    @PostConstruct
+    void start() {
+        writerThread = Thread.ofPlatform().name("ride-state-writer").daemon().start(this::run);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        writerThread.interrupt();
+        writerThread.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    /**
+     * Queue a transition for the next group commit
+     *
+     * @return completes with the ride as committed; fails with {@link IllegalArgumentException} if the
+     *         ride doesn't exist or isn't assigned to the driver, {@link IllegalStateException} if its
+     *         status doesn't allow the transition
+     */
+    public CompletableFuture<Ride> submit(Command command) {
+        Pending pending = new Pending(command, new CompletableFuture<>());
+        if (!running || !queue.offer(pending)) {
+            pending.result().completeExceptionally(new IllegalStateException("Ride state writer is not accepting transitions"));
+        }
+        return pending.result();
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                long deadline = System.nanoTime() + maxWait.toNanos();
+                while (batch.size() < maxBatchSize) {
+                    Pending next = queue.poll(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                commit(batch);
+            } catch (InterruptedException e) {
+                // Woken up for shutdown; whatever is queued still gets written
+                queue.drainTo(batch);
+                commit(batch);
+            } catch (Exception e) {
+                logger.error("Ride state writer failed on a batch of {}", batch.size(), e);
+                batch.forEach(pending -> pending.result().completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<Pending> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            List<Outcome> outcomes = transactionTemplate.execute(status -> write(batch));
+            batchSize.record(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                outcomes.get(i).complete(batch.get(i).result());
+            }
+        } catch (Exception e) {
+            if (batch.size() == 1) {
+                batch.get(0).result().completeExceptionally(e);
+                return;
+            }
+
+            fallbacks.increment();
+            logger.warn("Group commit of {} ride transitions failed, writing them one by one", batch.size(), e);
+            for (Pending pending : batch) {
+                try {
+                    transactionTemplate.execute(status -> write(List.of(pending))).get(0).complete(pending.result());
+                } catch (Exception single) {
+                    pending.result().completeExceptionally(single);
+                }
+            }
+        }
+    }
+
+    private List<Outcome> write(List<Pending> batch) {
+        List<Command> commands = batch.stream().map(Pending::command).toList();
+        int[] updated = rideTransitionRepository.applyAll(commands);
+
+        // One read for the whole batch: the new state of applied rides, the reason for rejected ones
+        Map<UUID, Ride> rides = rideRepository.findAllById(commands.stream().map(Command::rideId).distinct().toList())
+                .stream()
+                .collect(Collectors.toMap(Ride::getId, Function.identity()));
+
+        List<Outcome> outcomes = new ArrayList<>(commands.size());
+        List<String> freedDrivers = new ArrayList<>();
+        for (int i = 0; i < commands.size(); i++) {
+            Command command = commands.get(i);
+            Ride ride = rides.get(command.rideId());
+            if (updated[i] == 0) {
+                outcomes.add(new Outcome(null, rejection(command, ride)));
+                continue;
+            }
+            if (command.transition().freesDriver() && ride.getDriverId() != null) {
+                freedDrivers.add(ride.getDriverId());
+            }
+            outcomes.add(new Outcome(ride, null));
+        }
+
+        rideTransitionRepository.releaseDrivers(freedDrivers);
+        return outcomes;
+    }
+
+    private static RuntimeException rejection(Command command, Ride current) {
+        if (current == null) {
+            return new IllegalArgumentException("Ride not found");
+        }
+        if (command.transition().requiresAssignedDriver() && !command.driverId().equals(current.getDriverId())) {
+            return new IllegalArgumentException("Driver not assigned to this ride");
+        }
+        return new IllegalStateException(command.transition().rejectionMessage(current.getStatus()));
+    }
+
+    private record Outcome(Ride ride, RuntimeException rejection) {
+
+        void complete(CompletableFuture<Ride> result) {
+            if (rejection != null) {
+                result.completeExceptionally(rejection);
+            } else {
+                result.complete(ride);
+            }
+        }
+    }
+
+    record Pending(Command command, CompletableFuture<Ride> result) {}
+}
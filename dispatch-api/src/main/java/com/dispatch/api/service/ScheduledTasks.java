@@ -11,12 +11,24 @@ public class ScheduledTasks {
     private static final Logger logger = LoggerFactory.getLogger(ScheduledTasks.class);
     
     private final DriverLocationService driverLocationService;
+    private final RideEventStreamService rideEventStreamService;
     
-    public ScheduledTasks(DriverLocationService driverLocationService) {
+    public ScheduledTasks(DriverLocationService driverLocationService,
+                          RideEventStreamService rideEventStreamService) {
         this.driverLocationService = driverLocationService;
+        this.rideEventStreamService = rideEventStreamService;
     }
     
-    @Scheduled(fixedRate = 300000) // Every 5 minutes
+    @Scheduled(fixedDelayString = "${app.drivers.heartbeat.reap-interval-ms:1000}")
+    public void reapExpiredDrivers() {
+        try {
+            driverLocationService.reapExpiredDrivers();
+        } catch (Exception e) {
+            logger.error("Error while reaping expired drivers", e);
+        }
+    }
+    
+    @Scheduled(fixedRateString = "${app.drivers.heartbeat.sweep-interval-ms:1800000}")
     public void cleanupStaleDrivers() {
         try {
             driverLocationService.cleanupStaleDrivers();
@@ -24,4 +36,13 @@ public class ScheduledTasks {
             logger.error("Error during scheduled cleanup of stale drivers", e);
         }
     }
+    
+    @Scheduled(fixedDelayString = "${app.rides.stream.heartbeat-interval-ms:15000}")
+    public void sendRideStreamHeartbeats() {
+        try {
+            rideEventStreamService.sendHeartbeats();
+        } catch (Exception e) {
+            logger.error("Error while sending ride stream heartbeats", e);
+        }
+    }
 }
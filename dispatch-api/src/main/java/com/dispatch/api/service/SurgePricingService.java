@@ -21,7 +21,8 @@ public class SurgePricingService {
     
     private static final Logger logger = LoggerFactory.getLogger(SurgePricingService.class);
     
-    private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisTemplate<String, BigDecimal> surgeRedisTemplate;
+    private final RedisTemplate<String, Double> historicalRedisTemplate;
     private final DispatchService dispatchService;
     
     // Base surge pricing parameters
@@ -35,16 +36,18 @@ public class SurgePricingService {
     private static final double HIGH_DEMAND_THRESHOLD = 0.8; // 80% driver utilization
     private static final double CRITICAL_DEMAND_THRESHOLD = 0.95; // 95% driver utilization
     
-    public SurgePricingService(RedisTemplate<String, Object> redisTemplate, 
+    public SurgePricingService(RedisTemplate<String, BigDecimal> surgeRedisTemplate,
+                              RedisTemplate<String, Double> historicalRedisTemplate,
                               DispatchService dispatchService) {
-        this.redisTemplate = redisTemplate;
+        this.surgeRedisTemplate = surgeRedisTemplate;
+        this.historicalRedisTemplate = historicalRedisTemplate;
         this.dispatchService = dispatchService;
     }
     
     /**
      * Calculate dynamic surge multiplier for a specific location
      */
-    @Cacheable(value = "surge-cache", key = "#lat + '-' + #lng", unless = "#result.compareTo(new java.math.BigDecimal('1.0')) <= 0")
+    @Cacheable(value = "surge-cache", key = "#lat + '-' + #lng", sync = true)
     public BigDecimal calculateSurgeMultiplier(double lat, double lng) {
         try {
             // 1. Calculate supply/demand ratio
@@ -239,7 +242,7 @@ public class SurgePricingService {
         String cacheKey = String.format("historical_demand:%.3f:%.3f:%d:%d", 
             lat, lng, LocalDateTime.now().getHour(), LocalDateTime.now().getDayOfWeek().getValue());
         
-        Double cachedMultiplier = (Double) redisTemplate.opsForValue().get(cacheKey);
+        Double cachedMultiplier = historicalRedisTemplate.opsForValue().get(cacheKey);
         if (cachedMultiplier != null) {
             return cachedMultiplier;
         }
@@ -249,7 +252,7 @@ public class SurgePricingService {
         double clampedHistorical = Math.max(0.8, Math.min(1.4, baseHistorical));
         
         // Cache for 1 hour
-        redisTemplate.opsForValue().set(cacheKey, clampedHistorical, java.time.Duration.ofHours(1));
+        historicalRedisTemplate.opsForValue().set(cacheKey, clampedHistorical, java.time.Duration.ofHours(1));
         
         return clampedHistorical;
     }
@@ -271,7 +274,7 @@ public class SurgePricingService {
     private BigDecimal applySurgeSmoothing(double lat, double lng, BigDecimal newSurge) {
         // Get previous surge value
         String cacheKey = String.format("surge:%.3f:%.3f", lat, lng);
-        BigDecimal previousSurge = (BigDecimal) redisTemplate.opsForValue().get(cacheKey);
+        BigDecimal previousSurge = surgeRedisTemplate.opsForValue().get(cacheKey);
         
         if (previousSurge == null) {
             return newSurge; // No previous value, use new surge
@@ -292,7 +295,7 @@ public class SurgePricingService {
     
     private void cacheSurgeMultiplier(double lat, double lng, BigDecimal surge) {
         String cacheKey = String.format("surge:%.3f:%.3f", lat, lng);
-        redisTemplate.opsForValue().set(cacheKey, surge, java.time.Duration.ofMinutes(2));
+        surgeRedisTemplate.opsForValue().set(cacheKey, surge, java.time.Duration.ofMinutes(2));
     }
     
     private int getPendingRequestsInArea(double lat, double lng, int radiusMeters) {
@@ -0,0 +1,28 @@
+package com.dispatch.api.util;
+
+import com.dispatch.api.grpc.GeoIndexProto.DriverLocation;
+import com.dispatch.api.grpc.GeoIndexProto.DriverStatus;
+
+import java.util.List;
+
+/**
+ * Picks from the candidate drivers the geo-index returns for a pickup
+ */
+public final class DriverCandidates {
+
+    private DriverCandidates() {}
+
+    /**
+     * Available driver with the smallest distance to the pickup, or null if none is available
+     */
+    public static DriverLocation nearestAvailable(List<DriverLocation> drivers) {
+        DriverLocation nearest = null;
+        for (DriverLocation driver : drivers) {
+            if (driver.getStatus() == DriverStatus.AVAILABLE
+                    && (nearest == null || driver.getDistanceKm() < nearest.getDistanceKm())) {
+                nearest = driver;
+            }
+        }
+        return nearest;
+    }
+}
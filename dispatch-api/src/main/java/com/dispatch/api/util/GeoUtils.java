@@ -0,0 +1,35 @@
+package com.dispatch.api.util;
+
+/**
+ * Small geodesy helpers shared by the location pipeline
+ */
+public final class GeoUtils {
+
+    private static final double EARTH_RADIUS_METERS = 6_371_000;
+
+    private GeoUtils() {}
+
+    /**
+     * Great-circle distance between two points in meters (haversine formula)
+     */
+    public static double distanceMeters(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
+                   Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) *
+                   Math.sin(dLng / 2) * Math.sin(dLng / 2);
+
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+
+        return EARTH_RADIUS_METERS * c;
+    }
+
+    /**
+     * Smallest angle between two compass headings, in degrees (0..180)
+     */
+    public static int headingDelta(int heading1, int heading2) {
+        int delta = Math.abs(heading1 - heading2) % 360;
+        return delta > 180 ? 360 - delta : delta;
+    }
+}
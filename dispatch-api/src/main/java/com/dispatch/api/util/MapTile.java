@@ -0,0 +1,64 @@
+package com.dispatch.api.util;
+
+/**
+ * Web-mercator ("slippy map") tile, as used by the map clients for {@code z/x/y} addressing
+ */
+public record MapTile(int z, int x, int y) {
+
+    public static final int MAX_ZOOM = 22;
+
+    private static final double MAX_LATITUDE = 85.05112878;
+    private static final String DESTINATION_PREFIX = "/topic/tiles/";
+
+    public MapTile {
+        if (z < 0 || z > MAX_ZOOM) {
+            throw new IllegalArgumentException("Zoom must be between 0 and " + MAX_ZOOM + ": " + z);
+        }
+        int tiles = 1 << z;
+        if (x < 0 || x >= tiles || y < 0 || y >= tiles) {
+            throw new IllegalArgumentException("Tile " + x + "/" + y + " out of range for zoom " + z);
+        }
+    }
+
+    /**
+     * Tile containing the given point at the given zoom level
+     */
+    public static MapTile containing(double lat, double lng, int zoom) {
+        int tiles = 1 << zoom;
+        double clampedLat = Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, lat));
+        double latRad = Math.toRadians(clampedLat);
+
+        int x = (int) Math.floor((lng + 180.0) / 360.0 * tiles);
+        int y = (int) Math.floor((1.0 - Math.log(Math.tan(latRad) + 1.0 / Math.cos(latRad)) / Math.PI) / 2.0 * tiles);
+
+        return new MapTile(zoom, clamp(x, tiles), clamp(y, tiles));
+    }
+
+    /**
+     * Parse a {@code /topic/tiles/{z}/{x}/{y}} destination, or return null if it is not one
+     */
+    public static MapTile fromDestination(String destination) {
+        if (destination == null || !destination.startsWith(DESTINATION_PREFIX)) {
+            return null;
+        }
+
+        String[] parts = destination.substring(DESTINATION_PREFIX.length()).split("/");
+        if (parts.length != 3) {
+            return null;
+        }
+
+        try {
+            return new MapTile(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public String destination() {
+        return DESTINATION_PREFIX + z + "/" + x + "/" + y;
+    }
+
+    private static int clamp(int value, int tiles) {
+        return Math.max(0, Math.min(tiles - 1, value));
+    }
+}
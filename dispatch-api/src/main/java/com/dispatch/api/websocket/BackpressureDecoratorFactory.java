@@ -0,0 +1,72 @@
+package com.dispatch.api.websocket;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Puts a bounded, conflating outbound queue in front of every WebSocket session.
+ * Queues are drained on virtual threads, so a stalled client parks a cheap thread
+ * instead of the broker's. Binary driver locations that get conflated or dropped are
+ * resynced by the {@link BinaryLocationInterceptor}.
+ */
+@Component
+public class BackpressureDecoratorFactory implements WebSocketHandlerDecoratorFactory {
+
+    private final BackpressureMetrics metrics;
+    private final BinaryLocationInterceptor binaryLocationInterceptor;
+    private final ExecutorService writer = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Value("${app.websocket.backpressure.max-queued-messages:256}")
+    private int maxQueuedMessages;
+
+    @Value("${app.websocket.backpressure.max-queued-bytes:1048576}")
+    private int maxQueuedBytes;
+
+    @Value("${app.websocket.backpressure.send-time-limit:10s}")
+    private Duration sendTimeLimit;
+
+    @Value("${app.websocket.backpressure.overflow-policy:close}")
+    private String overflowPolicy;
+
+    public BackpressureDecoratorFactory(MeterRegistry meterRegistry, BinaryLocationInterceptor binaryLocationInterceptor) {
+        this.metrics = new BackpressureMetrics(meterRegistry);
+        this.binaryLocationInterceptor = binaryLocationInterceptor;
+    }
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new BackpressureWebSocketHandlerDecorator(handler, limits(), metrics, writer, binaryLocationInterceptor);
+    }
+
+    BackpressureWebSocketHandlerDecorator.Limits limits() {
+        return new BackpressureWebSocketHandlerDecorator.Limits(
+            maxQueuedMessages,
+            maxQueuedBytes,
+            sendTimeLimit.toMillis(),
+            BackpressureWebSocketSession.OverflowPolicy.valueOf(
+                overflowPolicy.trim().toUpperCase(Locale.ROOT).replace('-', '_'))
+        );
+    }
+
+    public int getMaxQueuedBytes() {
+        return maxQueuedBytes;
+    }
+
+    public Duration getSendTimeLimit() {
+        return sendTimeLimit;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        writer.shutdownNow();
+    }
+}
@@ -0,0 +1,57 @@
+package com.dispatch.api.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Meters for the per-session outbound queues, shared by all sessions
+ */
+class BackpressureMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger queuedFrames = new AtomicInteger();
+    private final DistributionSummary queueDepth;
+    private final Counter conflatedCounter;
+    private final Counter droppedCounter;
+
+    BackpressureMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+
+        meterRegistry.gauge("dispatch.websocket.outbound.queued", queuedFrames);
+        this.queueDepth = DistributionSummary.builder("dispatch.websocket.outbound.queue.depth")
+                .description("Session queue depth after each enqueue")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.conflatedCounter = meterRegistry.counter("dispatch.websocket.outbound.conflated");
+        this.droppedCounter = meterRegistry.counter("dispatch.websocket.outbound.dropped");
+    }
+
+    void enqueued(int depth) {
+        queuedFrames.incrementAndGet();
+        queueDepth.record(depth);
+    }
+
+    void dequeued() {
+        queuedFrames.decrementAndGet();
+    }
+
+    void conflated() {
+        conflatedCounter.increment();
+    }
+
+    void dropped() {
+        queuedFrames.decrementAndGet();
+        droppedCounter.increment();
+    }
+
+    void discarded(int frames) {
+        queuedFrames.addAndGet(-frames);
+    }
+
+    void disconnected(String reason) {
+        meterRegistry.counter("dispatch.websocket.slow-consumer.disconnects", "reason", reason).increment();
+    }
+}
@@ -0,0 +1,69 @@
+package com.dispatch.api.websocket;
+
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Hands every session to the STOMP handler wrapped in a {@link BackpressureWebSocketSession}
+ */
+class BackpressureWebSocketHandlerDecorator extends WebSocketHandlerDecorator {
+
+    record Limits(int maxQueuedMessages,
+                  int maxQueuedBytes,
+                  long sendTimeLimitMillis,
+                  BackpressureWebSocketSession.OverflowPolicy overflowPolicy) {}
+
+    private final Limits limits;
+    private final BackpressureMetrics metrics;
+    private final Executor writer;
+    private final BackpressureWebSocketSession.ConflationListener conflationListener;
+    private final Map<String, BackpressureWebSocketSession> sessions = new ConcurrentHashMap<>();
+
+    BackpressureWebSocketHandlerDecorator(WebSocketHandler delegate, Limits limits,
+                                          BackpressureMetrics metrics, Executor writer,
+                                          BackpressureWebSocketSession.ConflationListener conflationListener) {
+        super(delegate);
+        this.limits = limits;
+        this.metrics = metrics;
+        this.writer = writer;
+        this.conflationListener = conflationListener;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        BackpressureWebSocketSession decorated = new BackpressureWebSocketSession(session, limits, metrics, writer, conflationListener);
+        sessions.put(session.getId(), decorated);
+        super.afterConnectionEstablished(decorated);
+    }
+
+    @Override
+    public void handleMessage(WebSocketSession session, WebSocketMessage<?> message) throws Exception {
+        super.handleMessage(decorated(session), message);
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
+        super.handleTransportError(decorated(session), exception);
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+        BackpressureWebSocketSession decorated = sessions.remove(session.getId());
+        if (decorated != null) {
+            decorated.release();
+        }
+        super.afterConnectionClosed(decorated != null ? decorated : session, closeStatus);
+    }
+
+    private WebSocketSession decorated(WebSocketSession session) {
+        BackpressureWebSocketSession decorated = sessions.get(session.getId());
+        return decorated != null ? decorated : session;
+    }
+}
@@ -0,0 +1,267 @@
+package com.dispatch.api.websocket;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Session decorator with a bounded outbound queue drained by a separate writer.
+ *
+ * Broker threads only enqueue, so a slow or stalled client never blocks them. STOMP frames
+ * carrying a {@code conflate-key} header replace the still-queued frame with the same
+ * subscription and key, so a lagging rider only gets the latest driver position; the
+ * {@link ConflationListener} gets to rewrite the surviving frame, and hears about conflatable
+ * frames dropped for room, so delta-encoded streams can resync. When the
+ * queue is full, other frames are handled by the configured overflow policy, and a client
+ * whose current write has been stuck longer than the send time limit is disconnected.
+ */
+class BackpressureWebSocketSession extends WebSocketSessionDecorator {
+
+    private static final Logger logger = LoggerFactory.getLogger(BackpressureWebSocketSession.class);
+
+    enum OverflowPolicy {
+        // Drop the oldest frame to make room
+        DROP_OLDEST,
+        // Close the session; the client reconnects and resyncs
+        CLOSE
+    }
+
+    /**
+     * Told when a queued frame of a subscription never reaches the client
+     */
+    interface ConflationListener {
+
+        ConflationListener NONE = new ConflationListener() {};
+
+        /**
+         * @return the frame to queue in place of the conflated one
+         */
+        default WebSocketMessage<?> conflated(String sessionId, String subscriptionId, WebSocketMessage<?> replacement) {
+            return replacement;
+        }
+
+        default void dropped(String sessionId, String subscriptionId) {
+        }
+    }
+
+    private static final int MAX_HEADER_SCAN = 1024;
+
+    private final BackpressureWebSocketHandlerDecorator.Limits limits;
+    private final BackpressureMetrics metrics;
+    private final Executor writer;
+    private final ConflationListener conflationListener;
+
+    // Conflatable frames keyed by subscription + conflate-key, others by sequence number
+    private final LinkedHashMap<Object, WebSocketMessage<?>> queue = new LinkedHashMap<>();
+    private long sequence;
+    private int queuedBytes;
+
+    private boolean draining;
+    private volatile long writeStartedAt;
+    private volatile boolean closing;
+
+    BackpressureWebSocketSession(WebSocketSession delegate,
+                                 BackpressureWebSocketHandlerDecorator.Limits limits,
+                                 BackpressureMetrics metrics,
+                                 Executor writer,
+                                 ConflationListener conflationListener) {
+        super(delegate);
+        this.limits = limits;
+        this.metrics = metrics;
+        this.writer = writer;
+        this.conflationListener = conflationListener;
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        if (closing) {
+            return;
+        }
+
+        if (isWriteStuck()) {
+            disconnect("send-timeout", "send time limit " + limits.sendTimeLimitMillis() + "ms exceeded");
+            return;
+        }
+
+        boolean startDrain;
+        synchronized (queue) {
+            String conflateKey = conflateKey(message);
+            if (conflateKey != null && queue.containsKey(conflateKey)) {
+                WebSocketMessage<?> replacement = conflationListener.conflated(getId(), subscriptionOf(conflateKey), message);
+                WebSocketMessage<?> replaced = queue.put(conflateKey, replacement);
+                queuedBytes += replacement.getPayloadLength() - replaced.getPayloadLength();
+                metrics.conflated();
+                return;
+            }
+
+            if (queue.size() >= limits.maxQueuedMessages()
+                    || queuedBytes + message.getPayloadLength() > limits.maxQueuedBytes()) {
+                if (!makeRoom()) {
+                    return;
+                }
+            }
+
+            queue.put(conflateKey != null ? conflateKey : sequence++, message);
+            queuedBytes += message.getPayloadLength();
+            metrics.enqueued(queue.size());
+
+            startDrain = !draining;
+            draining = true;
+        }
+
+        if (startDrain) {
+            writer.execute(this::drain);
+        }
+    }
+
+    // Called with the queue lock held; returns false if the new frame must not be queued
+    private boolean makeRoom() {
+        Iterator<Map.Entry<Object, WebSocketMessage<?>>> entries = queue.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<Object, WebSocketMessage<?>> entry = entries.next();
+            // Queued positions go first, they are superseded soon anyway
+            if (entry.getKey() instanceof String || limits.overflowPolicy() == OverflowPolicy.DROP_OLDEST) {
+                queuedBytes -= entry.getValue().getPayloadLength();
+                entries.remove();
+                metrics.dropped();
+                if (entry.getKey() instanceof String conflateKey) {
+                    conflationListener.dropped(getId(), subscriptionOf(conflateKey));
+                }
+                return true;
+            }
+        }
+
+        closing = true;
+        String detail = "outbound queue full (" + queue.size() + " frames, " + queuedBytes + " bytes)";
+        writer.execute(() -> disconnect("queue-full", detail));
+        return false;
+    }
+
+    private void drain() {
+        while (true) {
+            WebSocketMessage<?> next;
+            synchronized (queue) {
+                Iterator<WebSocketMessage<?>> first = queue.values().iterator();
+                if (closing || !first.hasNext()) {
+                    draining = false;
+                    return;
+                }
+                next = first.next();
+                first.remove();
+                queuedBytes -= next.getPayloadLength();
+                metrics.dequeued();
+            }
+
+            writeStartedAt = System.currentTimeMillis();
+            try {
+                getDelegate().sendMessage(next);
+            } catch (Exception e) {
+                logger.debug("Failed to write to WebSocket session {}", getId(), e);
+                if (getDelegate().isOpen()) {
+                    disconnect("write-error", e.getMessage());
+                } else {
+                    release();
+                }
+            } finally {
+                writeStartedAt = 0;
+            }
+        }
+    }
+
+    private boolean isWriteStuck() {
+        long started = writeStartedAt;
+        return started > 0 && System.currentTimeMillis() - started > limits.sendTimeLimitMillis();
+    }
+
+    private void disconnect(String reason, String detail) {
+        closing = true;
+        synchronized (queue) {
+            metrics.discarded(queue.size());
+            queue.clear();
+            queuedBytes = 0;
+        }
+
+        metrics.disconnected(reason);
+        logger.info("Closing slow WebSocket session {}: {}", getId(), detail);
+
+        try {
+            getDelegate().close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (Exception e) {
+            logger.debug("Failed to close WebSocket session {}", getId(), e);
+        }
+    }
+
+    void release() {
+        closing = true;
+        synchronized (queue) {
+            metrics.discarded(queue.size());
+            queue.clear();
+            queuedBytes = 0;
+        }
+    }
+
+    int getQueueSize() {
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+
+    // Conflate keys are driver ids, which never contain the separator
+    private static String subscriptionOf(String conflateKey) {
+        return conflateKey.substring(0, conflateKey.lastIndexOf('|'));
+    }
+
+    /**
+     * {@code subscription|conflate-key} of a STOMP MESSAGE frame, or null if it has no conflate-key
+     */
+    static String conflateKey(WebSocketMessage<?> message) {
+        String frame;
+        if (message instanceof TextMessage text) {
+            String payload = text.getPayload();
+            frame = payload.length() > MAX_HEADER_SCAN ? payload.substring(0, MAX_HEADER_SCAN) : payload;
+        } else if (message instanceof BinaryMessage binary) {
+            ByteBuffer buffer = binary.getPayload().duplicate();
+            byte[] head = new byte[Math.min(buffer.remaining(), MAX_HEADER_SCAN)];
+            buffer.get(head);
+            frame = new String(head, StandardCharsets.UTF_8);
+        } else {
+            return null;
+        }
+
+        if (!frame.startsWith("MESSAGE\n")) {
+            return null;
+        }
+
+        String subscription = null;
+        String key = null;
+        int lineStart = frame.indexOf('\n') + 1;
+        while (lineStart < frame.length()) {
+            int lineEnd = frame.indexOf('\n', lineStart);
+            if (lineEnd < 0 || lineEnd == lineStart) {
+                break;
+            }
+            String line = frame.substring(lineStart, lineEnd);
+            if (line.startsWith("subscription:")) {
+                subscription = line.substring("subscription:".length());
+            } else if (line.startsWith(SerializedMessageSender.CONFLATE_KEY_HEADER + ":")) {
+                key = line.substring(SerializedMessageSender.CONFLATE_KEY_HEADER.length() + 1);
+            }
+            lineStart = lineEnd + 1;
+        }
+
+        return key != null ? subscription + "|" + key : null;
+    }
+}
@@ -0,0 +1,181 @@
+package com.dispatch.api.websocket;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompDecoder;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Delivers driver positions as {@link LocationFrameCodec} frames to subscriptions that ask for them.
+ *
+ * A client opts in per subscription:
+ * <pre>
+ * SUBSCRIBE
+ * destination:/user/queue/driver-location
+ * accept:application/octet-stream;codec=dispatch-location-v1
+ * </pre>
+ * Messages carrying a {@link SerializedMessageSender#BINARY_PAYLOAD_HEADER} keyframe are
+ * re-encoded for those subscriptions on the outbound channel; everyone else keeps the JSON
+ * payload. Binary frames need the raw WebSocket transport, SockJS only carries text.
+ *
+ * Deltas are encoded before a frame reaches the session's outbound queue, so when a lagging
+ * session conflates a frame away, the delta replacing it is rewritten into a keyframe; when
+ * one is dropped for room, the next frame of that subscription is a keyframe.
+ */
+@Component
+public class BinaryLocationInterceptor implements ChannelInterceptor, BackpressureWebSocketSession.ConflationListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(BinaryLocationInterceptor.class);
+
+    static final String DESTINATION = "/user/queue/driver-location";
+    private static final String ACCEPT_HEADER = "accept";
+
+    // Binary subscriptions per session
+    private final Map<String, Map<String, LocationFrameCodec.Encoder>> sessions = new ConcurrentHashMap<>();
+
+    private final StompDecoder stompDecoder = new StompDecoder();
+    private final StompEncoder stompEncoder = new StompEncoder();
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        MessageHeaders headers = event.getMessage().getHeaders();
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(headers);
+        String subscriptionId = SimpMessageHeaderAccessor.getSubscriptionId(headers);
+        if (sessionId == null || subscriptionId == null
+                || !DESTINATION.equals(SimpMessageHeaderAccessor.getDestination(headers))
+                || !acceptsBinary(SimpMessageHeaderAccessor.getFirstNativeHeader(ACCEPT_HEADER, headers))) {
+            return;
+        }
+
+        sessions.computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>())
+                .put(subscriptionId, new LocationFrameCodec.Encoder());
+        logger.debug("Session {} receives driver locations as binary frames", sessionId);
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        MessageHeaders headers = event.getMessage().getHeaders();
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(headers);
+        String subscriptionId = SimpMessageHeaderAccessor.getSubscriptionId(headers);
+        if (sessionId != null && subscriptionId != null) {
+            sessions.computeIfPresent(sessionId, (id, encoders) -> {
+                encoders.remove(subscriptionId);
+                return encoders.isEmpty() ? null : encoders;
+            });
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        sessions.remove(event.getSessionId());
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (sessions.isEmpty()) {
+            return message;
+        }
+
+        MessageHeaders headers = message.getHeaders();
+        if (!(headers.get(SerializedMessageSender.BINARY_PAYLOAD_HEADER) instanceof byte[] keyframe)
+                || SimpMessageHeaderAccessor.getMessageType(headers) != SimpMessageType.MESSAGE) {
+            return message;
+        }
+
+        LocationFrameCodec.Encoder encoder = encoder(
+                SimpMessageHeaderAccessor.getSessionId(headers), SimpMessageHeaderAccessor.getSubscriptionId(headers));
+        if (encoder == null) {
+            return message;
+        }
+
+        try {
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+            accessor.setContentType(LocationFrameCodec.CONTENT_TYPE);
+            accessor.removeHeader(SerializedMessageSender.BINARY_PAYLOAD_HEADER);
+            return MessageBuilder.createMessage(encoder.encode(keyframe), accessor.getMessageHeaders());
+        } catch (Exception e) {
+            logger.warn("Failed to encode binary driver location, sending JSON", e);
+            return message;
+        }
+    }
+
+    @Override
+    public WebSocketMessage<?> conflated(String sessionId, String subscriptionId, WebSocketMessage<?> replacement) {
+        LocationFrameCodec.Encoder encoder = encoder(sessionId, subscriptionId);
+        if (encoder == null || !(replacement instanceof BinaryMessage binary)) {
+            return replacement;
+        }
+
+        try {
+            List<Message<byte[]>> frames = stompDecoder.decode(binary.getPayload().duplicate());
+            if (frames.size() != 1) {
+                encoder.forceKeyframe();
+                return replacement;
+            }
+
+            Message<byte[]> frame = frames.get(0);
+            byte[] keyframe = encoder.resync(frame.getPayload());
+            if (keyframe == null) {
+                return replacement;
+            }
+            // The encoder writes content-length for the new payload
+            return new BinaryMessage(stompEncoder.encode(frame.getHeaders(), keyframe));
+        } catch (Exception e) {
+            logger.warn("Failed to resync binary driver locations of session {}", sessionId, e);
+            encoder.forceKeyframe();
+            return replacement;
+        }
+    }
+
+    @Override
+    public void dropped(String sessionId, String subscriptionId) {
+        LocationFrameCodec.Encoder encoder = encoder(sessionId, subscriptionId);
+        if (encoder != null) {
+            encoder.forceKeyframe();
+        }
+    }
+
+    private LocationFrameCodec.Encoder encoder(String sessionId, String subscriptionId) {
+        if (sessionId == null || subscriptionId == null) {
+            return null;
+        }
+        Map<String, LocationFrameCodec.Encoder> encoders = sessions.get(sessionId);
+        return encoders != null ? encoders.get(subscriptionId) : null;
+    }
+
+    static boolean acceptsBinary(String accept) {
+        if (accept == null) {
+            return false;
+        }
+        try {
+            return MimeTypeUtils.parseMimeTypes(accept).stream()
+                    .anyMatch(LocationFrameCodec.CONTENT_TYPE::equals);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    int getBinarySessionCount() {
+        return sessions.size();
+    }
+}
@@ -0,0 +1,60 @@
+package com.dispatch.api.websocket;
+
+import com.dispatch.api.security.AuthContext;
+import com.dispatch.api.security.JwtTokenProvider;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Only lets a WebSocket handshake through with a valid JWT, taken from
+ * {@code Authorization: Bearer <jwt>} or, for browser and SockJS clients that cannot set
+ * headers, the {@code access_token} query parameter. The caller's {@link AuthContext} is kept in
+ * the session attributes for {@link UserHandshakeHandler}.
+ */
+public class JwtHandshakeInterceptor implements HandshakeInterceptor {
+
+    static final String AUTH_CONTEXT_ATTRIBUTE = AuthContext.class.getName();
+
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final String TOKEN_PARAMETER = "access_token";
+
+    private final JwtTokenProvider tokenProvider;
+
+    public JwtHandshakeInterceptor(JwtTokenProvider tokenProvider) {
+        this.tokenProvider = tokenProvider;
+    }
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        Optional<AuthContext> context = token(request).flatMap(tokenProvider::authenticate);
+        if (context.isEmpty()) {
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+        attributes.put(AUTH_CONTEXT_ATTRIBUTE, context.get());
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+    }
+
+    private static Optional<String> token(ServerHttpRequest request) {
+        String header = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.startsWith(BEARER_PREFIX)) {
+            return Optional.of(header.substring(BEARER_PREFIX.length()).trim());
+        }
+        return Optional.ofNullable(UriComponentsBuilder.fromUri(request.getURI()).build()
+                .getQueryParams().getFirst(TOKEN_PARAMETER));
+    }
+}
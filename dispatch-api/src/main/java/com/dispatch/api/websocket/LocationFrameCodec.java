@@ -0,0 +1,189 @@
+package com.dispatch.api.websocket;
+
+import org.springframework.util.MimeType;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Compact binary encoding of driver positions for riders that opt in.
+ *
+ * A keyframe carries the driver id and the absolute position; the frames after it only carry
+ * the difference to the previous frame of the same subscription, 9 bytes each. A keyframe is
+ * sent for the first frame, every {@value #KEYFRAME_INTERVAL} frames, and whenever a delta
+ * would not fit. A delta that replaces a conflated frame in a lagging session's queue is turned
+ * back into a keyframe, and a dropped frame makes the next one a keyframe. Every frame has a
+ * sequence number, so a client that misses a frame anyway ignores deltas until the next keyframe.
+ *
+ * <pre>
+ * keyframe: version/flags u8 | seq u8 | driver id (16 byte UUID, or u8 length + UTF-8)
+ *           | lat i32 | lng i32 (degrees * 1e6) | heading u8 (360/256 deg) | epoch millis i64
+ * delta:    version/flags u8 | seq u8 | dLat i16 | dLng i16 | heading u8 | dMillis u16
+ * </pre>
+ * All values are big-endian.
+ */
+public final class LocationFrameCodec {
+
+    /**
+     * Content type of the frames; clients request it with an {@code accept} header on SUBSCRIBE.
+     * It is an octet-stream type so the frames go out as binary WebSocket messages.
+     */
+    public static final MimeType CONTENT_TYPE =
+            new MimeType("application", "octet-stream", Map.of("codec", "dispatch-location-v1"));
+
+    static final int VERSION = 1;
+    static final int FLAG_KEYFRAME = 0x1;
+    static final int FLAG_UUID = 0x2;
+    static final int KEYFRAME_INTERVAL = 20;
+
+    private static final double E6 = 1_000_000d;
+    private static final int DELTA_SIZE = 9;
+
+    private LocationFrameCodec() {}
+
+    /**
+     * Encode an absolute position as a keyframe; {@link Encoder} turns it into the per-subscription stream
+     */
+    public static byte[] encodePosition(String driverId, double lat, double lng, double heading, long epochMillis) {
+        UUID uuid = parseUuid(driverId);
+        byte[] id = uuid == null ? driverId.getBytes(StandardCharsets.UTF_8) : null;
+        if (id != null && id.length > 255) {
+            throw new IllegalArgumentException("Driver id too long: " + driverId);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(2 + (uuid != null ? 16 : 1 + id.length) + 4 + 4 + 1 + 8);
+        buffer.put((byte) (VERSION << 4 | FLAG_KEYFRAME | (uuid != null ? FLAG_UUID : 0)));
+        buffer.put((byte) 0);
+        if (uuid != null) {
+            buffer.putLong(uuid.getMostSignificantBits());
+            buffer.putLong(uuid.getLeastSignificantBits());
+        } else {
+            buffer.put((byte) id.length);
+            buffer.put(id);
+        }
+        buffer.putInt((int) Math.round(lat * E6));
+        buffer.putInt((int) Math.round(lng * E6));
+        buffer.put((byte) Math.round(((heading % 360 + 360) % 360) * 256 / 360));
+        buffer.putLong(epochMillis);
+        return buffer.array();
+    }
+
+    /**
+     * Decode a keyframe back into its position
+     */
+    static Position decodePosition(byte[] keyframe) {
+        ByteBuffer buffer = ByteBuffer.wrap(keyframe);
+        int flags = buffer.get() & 0x0F;
+        if ((flags & FLAG_KEYFRAME) == 0) {
+            throw new IllegalArgumentException("Not a keyframe");
+        }
+        buffer.get();
+
+        String driverId;
+        if ((flags & FLAG_UUID) != 0) {
+            driverId = new UUID(buffer.getLong(), buffer.getLong()).toString();
+        } else {
+            byte[] id = new byte[buffer.get() & 0xFF];
+            buffer.get(id);
+            driverId = new String(id, StandardCharsets.UTF_8);
+        }
+        return new Position(driverId, buffer.getInt(), buffer.getInt(), buffer.get() & 0xFF, buffer.getLong());
+    }
+
+    private static UUID parseUuid(String driverId) {
+        if (driverId.length() != 36) {
+            return null;
+        }
+        try {
+            return UUID.fromString(driverId);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    record Position(String driverId, int latE6, int lngE6, int heading, long epochMillis) {}
+
+    /**
+     * Delta state of one subscription
+     */
+    static final class Encoder {
+
+        private Position previous;
+        // Keyframe input of the previous frame and the sequence number it went out with
+        private byte[] previousPosition;
+        private int previousSequence;
+        private int sequence;
+        private int sinceKeyframe;
+
+        synchronized byte[] encode(byte[] keyframe) {
+            Position current = decodePosition(keyframe);
+            int seq = sequence++ & 0xFF;
+
+            if (previous == null || !previous.driverId().equals(current.driverId())
+                    || ++sinceKeyframe >= KEYFRAME_INTERVAL) {
+                return keyframe(keyframe, current, seq);
+            }
+
+            int dLat = current.latE6() - previous.latE6();
+            int dLng = current.lngE6() - previous.lngE6();
+            long dMillis = current.epochMillis() - previous.epochMillis();
+            if (dLat != (short) dLat || dLng != (short) dLng || dMillis < 0 || dMillis > 0xFFFF) {
+                return keyframe(keyframe, current, seq);
+            }
+
+            remember(current, keyframe, seq);
+            return ByteBuffer.allocate(DELTA_SIZE)
+                    .put((byte) (VERSION << 4))
+                    .put((byte) seq)
+                    .putShort((short) dLat)
+                    .putShort((short) dLng)
+                    .put((byte) current.heading())
+                    .putShort((short) dMillis)
+                    .array();
+        }
+
+        /**
+         * Keyframe to send instead of a delta whose base frame never reached the client, with
+         * the delta's sequence number. Returns null if the frame is not a delta; if it is not the
+         * latest frame of this encoder, the next frame is made a keyframe instead.
+         */
+        synchronized byte[] resync(byte[] frame) {
+            if (frame.length != DELTA_SIZE || (frame[0] & FLAG_KEYFRAME) != 0) {
+                return null;
+            }
+            if (previousPosition == null || (frame[1] & 0xFF) != previousSequence) {
+                forceKeyframe();
+                return null;
+            }
+
+            sinceKeyframe = 0;
+            byte[] keyframe = previousPosition.clone();
+            keyframe[1] = frame[1];
+            return keyframe;
+        }
+
+        /**
+         * Make the next frame a keyframe, e.g. after a frame was dropped on the way to the client
+         */
+        synchronized void forceKeyframe() {
+            previous = null;
+            previousPosition = null;
+        }
+
+        private byte[] keyframe(byte[] keyframe, Position current, int seq) {
+            remember(current, keyframe, seq);
+            sinceKeyframe = 0;
+            byte[] frame = keyframe.clone();
+            frame[1] = (byte) seq;
+            return frame;
+        }
+
+        private void remember(Position current, byte[] keyframe, int seq) {
+            previous = current;
+            previousPosition = keyframe;
+            previousSequence = seq;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.dispatch.api.websocket;
+
+import com.dispatch.api.service.RealtimeNotificationService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Controller;
+
+/**
+ * Lets a STOMP client send a test message to any user, wherever that user is connected.
+ * Used by the WebSocket load test; disabled unless {@code app.websocket.test-messages.enabled}.
+ */
+@Controller
+@ConditionalOnProperty(name = "app.websocket.test-messages.enabled", havingValue = "true")
+public class NotificationTestController {
+
+    private final RealtimeNotificationService realtimeNotificationService;
+
+    public NotificationTestController(RealtimeNotificationService realtimeNotificationService) {
+        this.realtimeNotificationService = realtimeNotificationService;
+    }
+
+    @MessageMapping("/test/notify")
+    public void notifyUser(@Payload TestNotification notification) {
+        realtimeNotificationService.sendTestMessage(notification.userId(), notification.message());
+    }
+
+    @MessageMapping("/test/broadcast")
+    public void broadcast(@Payload TestNotification notification) {
+        realtimeNotificationService.broadcastSystemAnnouncement(notification.message(), "INFO");
+    }
+
+    public record TestNotification(String userId, String message) {}
+}
@@ -0,0 +1,283 @@
+package com.dispatch.api.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.security.Principal;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Carries server-sent STOMP messages to the other API nodes through Redis pub/sub.
+ *
+ * Sits on the broker channel, so every {@code convertAndSend} / {@code convertAndSendToUser}
+ * is delivered locally as before and additionally published to Redis:
+ * <ul>
+ *   <li>{@code /topic/**} goes to a broadcast channel every node subscribes to</li>
+ *   <li>{@code /user/{name}/**} goes only to the channels of nodes the user is connected to,
+ *       looked up in a Redis set that each node maintains for its own users</li>
+ * </ul>
+ * Receiving nodes re-inject the message into their own broker channel, where the simple
+ * broker and user destination resolution deliver it to local sessions.
+ */
+@Component
+@ConditionalOnProperty(name = "app.websocket.fanout", havingValue = "redis")
+public class RedisStompFanout implements ChannelInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisStompFanout.class);
+
+    static final String RELAYED_HEADER = "dispatchRelayed";
+
+    /**
+     * Set on messages every node produces for its own sessions, e.g. tile frames
+     */
+    public static final String LOCAL_ONLY_HEADER = "dispatchLocalOnly";
+
+    private static final String BROADCAST_CHANNEL = "dispatch:ws:broadcast";
+    private static final String NODE_CHANNEL_PREFIX = "dispatch:ws:node:";
+    private static final String USER_NODES_KEY_PREFIX = "dispatch:ws:user:";
+    private static final String USER_PREFIX = "/user/";
+    private static final String TOPIC_PREFIX = "/topic/";
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisConnectionFactory connectionFactory;
+    private final ObjectProvider<SimpMessagingTemplate> messagingTemplate;
+    private final ObjectMapper objectMapper;
+
+    // Open session ids per user on this node; ids rather than a count, as a session may report its disconnect twice
+    private final Map<String, Set<String>> localSessions = new ConcurrentHashMap<>();
+
+    private final Counter publishedCounter;
+    private final Counter receivedCounter;
+
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Value("${app.websocket.node-id}")
+    private String nodeId;
+
+    @Value("${app.websocket.redis.user-ttl:90s}")
+    private Duration userTtl;
+
+    public RedisStompFanout(StringRedisTemplate redisTemplate,
+                            RedisConnectionFactory connectionFactory,
+                            ObjectProvider<SimpMessagingTemplate> messagingTemplate,
+                            ObjectMapper objectMapper,
+                            MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.connectionFactory = connectionFactory;
+        this.messagingTemplate = messagingTemplate;
+        this.objectMapper = objectMapper;
+
+        this.publishedCounter = meterRegistry.counter("dispatch.websocket.fanout", "direction", "published");
+        this.receivedCounter = meterRegistry.counter("dispatch.websocket.fanout", "direction", "received");
+    }
+
+    @PostConstruct
+    void subscribe() {
+        listenerContainer = new RedisMessageListenerContainer();
+        listenerContainer.setConnectionFactory(connectionFactory);
+        listenerContainer.addMessageListener((message, pattern) -> deliver(message.getBody()),
+                Set.of(new ChannelTopic(BROADCAST_CHANNEL), new ChannelTopic(NODE_CHANNEL_PREFIX + nodeId)));
+        listenerContainer.afterPropertiesSet();
+        listenerContainer.start();
+
+        logger.info("STOMP fan-out via Redis enabled on node {}", nodeId);
+    }
+
+    @PreDestroy
+    void unsubscribe() throws Exception {
+        listenerContainer.destroy();
+        localSessions.keySet().forEach(user -> redisTemplate.opsForSet().remove(userNodesKey(user), nodeId));
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        MessageHeaders headers = message.getHeaders();
+        String destination = SimpMessageHeaderAccessor.getDestination(headers);
+
+        if (destination == null || headers.containsKey(RELAYED_HEADER) || headers.containsKey(LOCAL_ONLY_HEADER)
+                || SimpMessageHeaderAccessor.getMessageType(headers) != SimpMessageType.MESSAGE
+                || !(message.getPayload() instanceof byte[] payload)) {
+            return message;
+        }
+
+        try {
+            if (destination.startsWith(TOPIC_PREFIX)) {
+                publish(BROADCAST_CHANNEL, destination, headers, payload);
+            } else if (destination.startsWith(USER_PREFIX)) {
+                publishToUser(destination, headers, payload);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to publish STOMP message for {} to other nodes", destination, e);
+        }
+
+        // Local delivery continues as usual
+        return message;
+    }
+
+    private void publishToUser(String destination, MessageHeaders headers, byte[] payload) throws Exception {
+        int end = destination.indexOf('/', USER_PREFIX.length());
+        if (end < 0) {
+            return;
+        }
+
+        String user = destination.substring(USER_PREFIX.length(), end);
+        Set<String> nodes = redisTemplate.opsForSet().members(userNodesKey(user));
+        if (nodes == null) {
+            return;
+        }
+
+        for (String node : nodes) {
+            if (!node.equals(nodeId)) {
+                publish(NODE_CHANNEL_PREFIX + node, destination, headers, payload);
+            }
+        }
+    }
+
+    private void publish(String channel, String destination, MessageHeaders headers, byte[] payload) throws Exception {
+        Object contentType = headers.get(MessageHeaders.CONTENT_TYPE);
+        RelayedMessage relayed = new RelayedMessage(
+            nodeId, destination, contentType != null ? contentType.toString() : null,
+            SimpMessageHeaderAccessor.getFirstNativeHeader(SerializedMessageSender.CONFLATE_KEY_HEADER, headers),
+            payload,
+            headers.get(SerializedMessageSender.BINARY_PAYLOAD_HEADER, byte[].class)
+        );
+
+        redisTemplate.convertAndSend(channel, objectMapper.writeValueAsString(relayed));
+        publishedCounter.increment();
+    }
+
+    private void deliver(byte[] body) {
+        try {
+            RelayedMessage relayed = objectMapper.readValue(body, RelayedMessage.class);
+            if (nodeId.equals(relayed.origin())) {
+                return;
+            }
+
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            accessor.setDestination(relayed.destination());
+            if (relayed.contentType() != null) {
+                accessor.setContentType(MimeType.valueOf(relayed.contentType()));
+            }
+            if (relayed.conflateKey() != null) {
+                accessor.setNativeHeader(SerializedMessageSender.CONFLATE_KEY_HEADER, relayed.conflateKey());
+            }
+            if (relayed.binaryPayload() != null) {
+                accessor.setHeader(SerializedMessageSender.BINARY_PAYLOAD_HEADER, relayed.binaryPayload());
+            }
+            accessor.setHeader(RELAYED_HEADER, relayed.origin());
+            accessor.setLeaveMutable(true);
+
+            Message<byte[]> message = MessageBuilder.createMessage(relayed.payload(), accessor.getMessageHeaders());
+            messagingTemplate.getObject().send(relayed.destination(), message);
+            receivedCounter.increment();
+
+        } catch (Exception e) {
+            logger.error("Failed to deliver relayed STOMP message", e);
+        }
+    }
+
+    @EventListener
+    public void onSessionConnected(SessionConnectedEvent event) {
+        Principal user = event.getUser();
+        if (user == null) {
+            return;
+        }
+
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(event.getMessage().getHeaders());
+        localSessions.compute(user.getName(), (name, sessions) -> {
+            Set<String> open = sessions != null ? sessions : new HashSet<>();
+            open.add(sessionId);
+            return open;
+        });
+        try {
+            String key = userNodesKey(user.getName());
+            redisTemplate.opsForSet().add(key, nodeId);
+            redisTemplate.expire(key, userTtl);
+        } catch (Exception e) {
+            logger.warn("Failed to register user {} on node {}", user.getName(), nodeId, e);
+        }
+    }
+
+    @EventListener
+    public void onSessionDisconnect(SessionDisconnectEvent event) {
+        Principal user = event.getUser();
+        if (user == null) {
+            return;
+        }
+
+        Set<String> remaining = localSessions.computeIfPresent(user.getName(), (name, sessions) -> {
+            sessions.remove(event.getSessionId());
+            return sessions.isEmpty() ? null : sessions;
+        });
+        if (remaining == null) {
+            try {
+                redisTemplate.opsForSet().remove(userNodesKey(user.getName()), nodeId);
+            } catch (Exception e) {
+                logger.warn("Failed to unregister user {} from node {}", user.getName(), nodeId, e);
+            }
+        }
+    }
+
+    /**
+     * Keep this node's registrations alive; they expire on their own if the node dies.
+     */
+    @Scheduled(fixedDelayString = "${app.websocket.redis.refresh-interval-ms:30000}")
+    public void refreshRegistrations() {
+        if (localSessions.isEmpty()) {
+            return;
+        }
+
+        try {
+            long ttlSeconds = userTtl.toSeconds();
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection redis = (StringRedisConnection) connection;
+                for (String user : localSessions.keySet()) {
+                    redis.sAdd(userNodesKey(user), nodeId);
+                    redis.expire(userNodesKey(user), ttlSeconds);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            logger.warn("Failed to refresh {} user registrations", localSessions.size(), e);
+        }
+    }
+
+    private static String userNodesKey(String user) {
+        return USER_NODES_KEY_PREFIX + user;
+    }
+
+    record RelayedMessage(String origin, String destination, String contentType, String conflateKey,
+                          byte[] payload, byte[] binaryPayload) {}
+}
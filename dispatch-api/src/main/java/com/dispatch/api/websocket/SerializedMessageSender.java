@@ -0,0 +1,142 @@
+package com.dispatch.api.websocket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * Sends STOMP messages whose payload was serialized up front.
+ *
+ * {@code convertAndSend} runs the message converters on every call. Here a payload is turned
+ * into JSON bytes once, and each send only wraps that same buffer in a fresh set of headers,
+ * so the converter chain is skipped entirely. The broker fans the buffer out to subscribers
+ * as-is; only the STOMP frame headers are written per session.
+ */
+@Component
+public class SerializedMessageSender {
+
+    /**
+     * STOMP header naming what a message is the latest state of (e.g. a driver id).
+     * A session that falls behind keeps only the newest queued message per subscription and key.
+     */
+    public static final String CONFLATE_KEY_HEADER = "conflate-key";
+
+    /**
+     * Internal header with a binary form of the payload, for sessions that negotiated it.
+     * Not written to the wire; see {@link BinaryLocationInterceptor}.
+     */
+    public static final String BINARY_PAYLOAD_HEADER = "dispatchBinaryPayload";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ObjectMapper objectMapper;
+
+    public SerializedMessageSender(SimpMessagingTemplate messagingTemplate, ObjectMapper objectMapper) {
+        this.messagingTemplate = messagingTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Serialize a payload to JSON once, for any number of sends
+     */
+    public SerializedPayload serialize(Object payload) {
+        try {
+            return new SerializedPayload(objectMapper.writeValueAsBytes(payload), MimeTypeUtils.APPLICATION_JSON);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize " + payload.getClass().getSimpleName(), e);
+        }
+    }
+
+    public void send(String destination, Object payload) {
+        send(destination, serialize(payload));
+    }
+
+    public void send(String destination, SerializedPayload payload) {
+        messagingTemplate.send(destination, buildMessage(payload, false, null, null));
+    }
+
+    /**
+     * Send to this node's subscribers only, even when cross-node fan-out is enabled
+     */
+    public void sendLocal(String destination, SerializedPayload payload) {
+        messagingTemplate.send(destination, buildMessage(payload, true, null, null));
+    }
+
+    public void sendToUser(String user, String destination, Object payload) {
+        sendToUser(user, destination, serialize(payload));
+    }
+
+    public void sendToUser(String user, String destination, SerializedPayload payload) {
+        send(userDestination(user, destination), payload);
+    }
+
+    /**
+     * Send a message that only matters until the next one with the same key, see {@link #CONFLATE_KEY_HEADER}
+     */
+    public void sendConflatableToUser(String user, String destination, Object payload, String conflateKey) {
+        sendConflatableToUser(user, destination, payload, conflateKey, null);
+    }
+
+    /**
+     * Same, with a binary form of the payload for sessions that asked for it, see {@link #BINARY_PAYLOAD_HEADER}
+     */
+    public void sendConflatableToUser(String user, String destination, Object payload, String conflateKey,
+                                      byte[] binaryPayload) {
+        messagingTemplate.send(userDestination(user, destination),
+                buildMessage(serialize(payload), false, conflateKey, binaryPayload));
+    }
+
+    private String userDestination(String user, String destination) {
+        // Same encoding SimpMessagingTemplate.convertAndSendToUser applies
+        String encodedUser = user.contains("/") ? user.replace("/", "%2F") : user;
+        String prefix = messagingTemplate.getUserDestinationPrefix();
+        String suffix = destination.startsWith("/") ? destination : "/" + destination;
+        return prefix + encodedUser + suffix;
+    }
+
+    private Message<byte[]> buildMessage(SerializedPayload payload, boolean localOnly, String conflateKey,
+                                         byte[] binaryPayload) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(payload.contentType());
+        if (conflateKey != null) {
+            accessor.setNativeHeader(CONFLATE_KEY_HEADER, conflateKey);
+        }
+        if (binaryPayload != null) {
+            accessor.setHeader(BINARY_PAYLOAD_HEADER, binaryPayload);
+        }
+        if (localOnly) {
+            accessor.setHeader(RedisStompFanout.LOCAL_ONLY_HEADER, true);
+        }
+        // Left mutable so the template sets the destination without copying the headers again
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(payload.bytes, accessor.getMessageHeaders());
+    }
+
+    /**
+     * A serialized payload shared by every message built from it; never modified after creation
+     */
+    public static final class SerializedPayload {
+
+        private final byte[] bytes;
+        private final MimeType contentType;
+
+        SerializedPayload(byte[] bytes, MimeType contentType) {
+            this.bytes = bytes;
+            this.contentType = contentType;
+        }
+
+        public MimeType contentType() {
+            return contentType;
+        }
+
+        public int size() {
+            return bytes.length;
+        }
+    }
+}
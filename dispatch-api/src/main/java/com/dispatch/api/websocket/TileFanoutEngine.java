@@ -0,0 +1,292 @@
+package com.dispatch.api.websocket;
+
+import com.dispatch.api.dto.events.DriverLocationEvent;
+import com.dispatch.api.dto.websocket.TileFrame;
+import com.dispatch.api.dto.websocket.TileFrame.DriverPosition;
+import com.dispatch.api.model.DriverStatus;
+import com.dispatch.api.util.MapTile;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Streams live driver positions to map views subscribed to {@code /topic/tiles/{z}/{x}/{y}}.
+ *
+ * Every node consumes the full driver location stream, keeps only the latest position per
+ * driver for tiles that have watchers on this node, and once per tick sends one frame per
+ * such tile. Work per tick is proportional to watched tiles with movement, not to
+ * drivers times watchers, and tiles nobody watches cost a map lookup per ping.
+ *
+ * A driver leaves every tile when an OFFLINE event for them arrives, or when they have not
+ * pinged for the driver timeout (e.g. reaped without a final event).
+ */
+@Component
+public class TileFanoutEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(TileFanoutEngine.class);
+
+    private final SerializedMessageSender messageSender;
+
+    // Number of subscriptions per tile on this node
+    private final Map<MapTile, Integer> watchers = new ConcurrentHashMap<>();
+
+    // sessionId -> subscriptionId -> tile
+    private final Map<String, Map<String, MapTile>> sessionSubscriptions = new ConcurrentHashMap<>();
+
+    // Positions collected since the last tick, per watched tile; buffers are only touched inside compute
+    private final Map<MapTile, TileBuffer> pending = new ConcurrentHashMap<>();
+
+    // Last tile of each driver per supported zoom level, to report departures; only touched inside compute
+    private final Map<String, DriverTiles> lastTiles = new ConcurrentHashMap<>();
+
+    private final Counter framesCounter;
+    private final DistributionSummary driversPerFrame;
+
+    private final int[] zoomLevels;
+
+    @Value("${app.websocket.tiles.driver-timeout:${app.drivers.heartbeat.timeout:10m}}")
+    private Duration driverTimeout;
+
+    public TileFanoutEngine(SerializedMessageSender messageSender,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.websocket.tiles.zoom-levels:12,14,16}") int[] zoomLevels) {
+        this.messageSender = messageSender;
+        this.zoomLevels = zoomLevels.clone();
+
+        this.framesCounter = meterRegistry.counter("dispatch.websocket.tiles.frames");
+        this.driversPerFrame = meterRegistry.summary("dispatch.websocket.tiles.drivers-per-frame");
+        meterRegistry.gaugeMapSize("dispatch.websocket.tiles.watched", List.of(), watchers);
+    }
+
+    @KafkaListener(
+        topics = "${app.kafka.topics.driver-locations}",
+        // Every node needs the whole stream, so each gets its own group
+        groupId = "dispatch-tiles-${app.websocket.node-id}",
+        properties = "auto.offset.reset=latest",
+        autoStartup = "${app.websocket.tiles.enabled:true}"
+    )
+    public void onDriverLocation(DriverLocationEvent event) {
+        if (DriverStatus.OFFLINE.name().equals(event.getStatus())) {
+            remove(event.getDriverId());
+            return;
+        }
+        if (event.getLat() == null || event.getLng() == null) {
+            return;
+        }
+        record(event);
+    }
+
+    void record(DriverLocationEvent event) {
+        double lat = event.getLat().doubleValue();
+        double lng = event.getLng().doubleValue();
+        DriverPosition position = new DriverPosition(event.getDriverId(), lat, lng, event.getHeading(), event.getStatus());
+        long now = System.currentTimeMillis();
+
+        lastTiles.compute(event.getDriverId(), (driverId, driver) -> {
+            DriverTiles current = driver != null ? driver : new DriverTiles(zoomLevels.length);
+            current.lastSeenMillis = now;
+
+            for (int i = 0; i < zoomLevels.length; i++) {
+                MapTile tile = MapTile.containing(lat, lng, zoomLevels[i]);
+                MapTile before = current.tiles[i];
+                current.tiles[i] = tile;
+
+                if (before != null && !before.equals(tile)) {
+                    depart(before, driverId);
+                }
+                if (watchers.containsKey(tile)) {
+                    buffer(tile, pendingTile -> {
+                        pendingTile.departed.remove(driverId);
+                        pendingTile.positions.put(driverId, position);
+                    });
+                }
+            }
+            return current;
+        });
+    }
+
+    /**
+     * Take a driver off every tile they were last seen on
+     */
+    void remove(String driverId) {
+        lastTiles.computeIfPresent(driverId, (id, driver) -> {
+            for (MapTile tile : driver.tiles) {
+                if (tile != null) {
+                    depart(tile, id);
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Drop drivers that stopped pinging without an OFFLINE event reaching this node
+     */
+    @Scheduled(fixedDelayString = "${app.websocket.tiles.sweep-interval-ms:30000}")
+    public void evictSilentDrivers() {
+        long cutoff = System.currentTimeMillis() - driverTimeout.toMillis();
+        int evicted = 0;
+
+        for (Map.Entry<String, DriverTiles> entry : lastTiles.entrySet()) {
+            if (entry.getValue().lastSeenMillis < cutoff) {
+                // Re-checked under the entry's lock, a ping may have arrived meanwhile
+                DriverTiles kept = lastTiles.computeIfPresent(entry.getKey(), (driverId, driver) -> {
+                    if (driver.lastSeenMillis >= cutoff) {
+                        return driver;
+                    }
+                    for (MapTile tile : driver.tiles) {
+                        if (tile != null) {
+                            depart(tile, driverId);
+                        }
+                    }
+                    return null;
+                });
+                if (kept == null) {
+                    evicted++;
+                }
+            }
+        }
+
+        if (evicted > 0) {
+            logger.debug("Evicted {} silent drivers from live tiles", evicted);
+        }
+    }
+
+    /**
+     * Send one frame per watched tile that changed since the last tick
+     */
+    @Scheduled(fixedDelayString = "${app.websocket.tiles.tick-ms:1000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        for (MapTile tile : List.copyOf(pending.keySet())) {
+            TileBuffer buffer = pending.remove(tile);
+            if (buffer == null || !watchers.containsKey(tile)) {
+                continue;
+            }
+
+            // Removed from the map, so no record can touch the buffer any more
+            List<DriverPosition> drivers = new ArrayList<>(buffer.positions.values());
+            List<String> departed = new ArrayList<>(buffer.departed);
+
+            try {
+                // Frames are produced on every node from the shared stream, so they are never relayed
+                messageSender.sendLocal(tile.destination(),
+                    messageSender.serialize(new TileFrame(tile.z(), tile.x(), tile.y(), drivers, departed, now)));
+                framesCounter.increment();
+                driversPerFrame.record(drivers.size());
+            } catch (Exception e) {
+                logger.error("Failed to send frame for tile {}", tile, e);
+            }
+        }
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        MapTile tile = MapTile.fromDestination(accessor.getDestination());
+        if (tile == null || !isSupportedZoom(tile.z())) {
+            return;
+        }
+
+        sessionSubscriptions.computeIfAbsent(accessor.getSessionId(), id -> new ConcurrentHashMap<>())
+                .put(accessor.getSubscriptionId(), tile);
+        watchers.merge(tile, 1, Integer::sum);
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        Map<String, MapTile> subscriptions = sessionSubscriptions.get(accessor.getSessionId());
+        if (subscriptions == null) {
+            return;
+        }
+
+        MapTile tile = subscriptions.remove(accessor.getSubscriptionId());
+        if (tile != null) {
+            unwatch(tile);
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Map<String, MapTile> subscriptions = sessionSubscriptions.remove(event.getSessionId());
+        if (subscriptions != null) {
+            subscriptions.values().forEach(this::unwatch);
+        }
+    }
+
+    public int getWatchedTileCount() {
+        return watchers.size();
+    }
+
+    private void unwatch(MapTile tile) {
+        watchers.computeIfPresent(tile, (t, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private void depart(MapTile tile, String driverId) {
+        if (watchers.containsKey(tile)) {
+            buffer(tile, pendingTile -> {
+                pendingTile.positions.remove(driverId);
+                pendingTile.departed.add(driverId);
+            });
+        }
+    }
+
+    // Atomic with flush() taking the buffer, so an update lands either in this tick's frame or the next one's
+    private void buffer(MapTile tile, Consumer<TileBuffer> update) {
+        pending.compute(tile, (t, buffer) -> {
+            TileBuffer current = buffer != null ? buffer : new TileBuffer();
+            update.accept(current);
+            return current;
+        });
+    }
+
+    private boolean isSupportedZoom(int zoom) {
+        for (int level : zoomLevels) {
+            if (level == zoom) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class TileBuffer {
+        private final Map<String, DriverPosition> positions = new HashMap<>();
+        private final Set<String> departed = new LinkedHashSet<>();
+    }
+
+    private static final class DriverTiles {
+        private final MapTile[] tiles;
+        private volatile long lastSeenMillis;
+
+        private DriverTiles(int zoomLevels) {
+            this.tiles = new MapTile[zoomLevels];
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.dispatch.api.websocket;
+
+import com.dispatch.api.security.AuthContext;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
+
+import java.security.Principal;
+import java.util.Map;
+
+/**
+ * Names the WebSocket session after the caller of the token verified by
+ * {@link JwtHandshakeInterceptor}, so {@code /user/**} destinations resolve to that user only.
+ */
+public class UserHandshakeHandler extends DefaultHandshakeHandler {
+
+    @Override
+    protected Principal determineUser(ServerHttpRequest request, WebSocketHandler wsHandler,
+                                      Map<String, Object> attributes) {
+        return (AuthContext) attributes.get(JwtHandshakeInterceptor.AUTH_CONTEXT_ATTRIBUTE);
+    }
+}
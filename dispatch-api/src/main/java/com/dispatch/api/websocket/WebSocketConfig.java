@@ -1,35 +1,85 @@
 package com.dispatch.api.websocket;
 
+import com.dispatch.api.security.JwtTokenProvider;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final ObjectProvider<RedisStompFanout> redisStompFanout;
+    private final BackpressureDecoratorFactory backpressureDecoratorFactory;
+    private final BinaryLocationInterceptor binaryLocationInterceptor;
+    private final JwtTokenProvider tokenProvider;
+
+    public WebSocketConfig(ObjectProvider<RedisStompFanout> redisStompFanout,
+                           BackpressureDecoratorFactory backpressureDecoratorFactory,
+                           BinaryLocationInterceptor binaryLocationInterceptor,
+                           JwtTokenProvider tokenProvider) {
+        this.redisStompFanout = redisStompFanout;
+        this.backpressureDecoratorFactory = backpressureDecoratorFactory;
+        this.binaryLocationInterceptor = binaryLocationInterceptor;
+        this.tokenProvider = tokenProvider;
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         // Enable simple broker for real-time updates
         config.enableSimpleBroker("/topic", "/queue");
         config.setApplicationDestinationPrefixes("/app");
         config.setUserDestinationPrefix("/user");
+        
+        // With app.websocket.fanout=redis, server-sent messages also reach sessions on other nodes
+        redisStompFanout.ifAvailable(fanout -> config.configureBrokerChannel().interceptors(fanout));
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        // Driver positions go out as binary frames to subscriptions that negotiated it
+        registration.interceptors(binaryLocationInterceptor);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // Inbound frames from clients are small; reject anything unreasonable
+        registration.setMessageSizeLimit(64 * 1024);
+        
+        // Outbound buffering and slow-consumer policy live in the per-session queues;
+        // the framework's own limits match them so they never disagree
+        registration.setSendBufferSizeLimit(backpressureDecoratorFactory.getMaxQueuedBytes());
+        registration.setSendTimeLimit((int) backpressureDecoratorFactory.getSendTimeLimit().toMillis());
+        registration.addDecoratorFactory(backpressureDecoratorFactory);
     }
 
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
+        UserHandshakeHandler handshakeHandler = new UserHandshakeHandler();
+        // Every session belongs to the caller of a verified JWT; handshakes without one are refused
+        JwtHandshakeInterceptor authentication = new JwtHandshakeInterceptor(tokenProvider);
+        
         // Register STOMP endpoints with SockJS fallback
         registry.addEndpoint("/ws")
+                .setHandshakeHandler(handshakeHandler)
+                .addInterceptors(authentication)
                 .setAllowedOriginPatterns("*")
                 .withSockJS();
         
         registry.addEndpoint("/ws-driver")
+                .setHandshakeHandler(handshakeHandler)
+                .addInterceptors(authentication)
                 .setAllowedOriginPatterns("*")
                 .withSockJS();
         
         registry.addEndpoint("/ws-rider")
+                .setHandshakeHandler(handshakeHandler)
+                .addInterceptors(authentication)
                 .setAllowedOriginPatterns("*")
                 .withSockJS();
     }
@@ -0,0 +1,60 @@
+package com.dispatch.api.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-node STOMP connection metrics, tagged with the node id so dashboards can
+ * show how sessions spread across API nodes.
+ *
+ * Sessions are tracked by id: Spring may publish more than one disconnect event for the same
+ * session, and only the first may count.
+ */
+@Component
+public class WebSocketSessionMetrics {
+
+    private final Set<String> openSessions = ConcurrentHashMap.newKeySet();
+    private final Counter connectedCounter;
+    private final Counter disconnectedCounter;
+
+    public WebSocketSessionMetrics(MeterRegistry meterRegistry,
+                                   SimpUserRegistry userRegistry,
+                                   @Value("${app.websocket.node-id}") String nodeId) {
+        Tags tags = Tags.of("node", nodeId);
+
+        meterRegistry.gaugeCollectionSize("dispatch.websocket.sessions", tags, openSessions);
+        meterRegistry.gauge("dispatch.websocket.users", tags, userRegistry, SimpUserRegistry::getUserCount);
+        this.connectedCounter = meterRegistry.counter("dispatch.websocket.connections", tags.and("event", "connected"));
+        this.disconnectedCounter = meterRegistry.counter("dispatch.websocket.connections", tags.and("event", "disconnected"));
+    }
+
+    @EventListener
+    public void onSessionConnected(SessionConnectedEvent event) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(event.getMessage().getHeaders());
+        if (sessionId != null && openSessions.add(sessionId)) {
+            connectedCounter.increment();
+        }
+    }
+
+    @EventListener
+    public void onSessionDisconnect(SessionDisconnectEvent event) {
+        if (openSessions.remove(event.getSessionId())) {
+            disconnectedCounter.increment();
+        }
+    }
+
+    public int getOpenSessions() {
+        return openSessions.size();
+    }
+}
@@ -0,0 +1,51 @@
+-- Schema as infrastructure/postgres/init.sql creates it, without the sample data.
+-- A database set up by init.sql already has all of this: Flyway baselines it at version 1
+-- (spring.flyway.baseline-on-migrate) and starts at V2. An empty database runs this first.
+-- Schema changes go into new migrations; init.sql only changes along with this file.
+
+CREATE TABLE rides (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    rider_id VARCHAR(255) NOT NULL,
+    driver_id VARCHAR(255),
+    pickup_lat DECIMAL(10, 8) NOT NULL,
+    pickup_lng DECIMAL(11, 8) NOT NULL,
+    destination_lat DECIMAL(10, 8),
+    destination_lng DECIMAL(11, 8),
+    status VARCHAR(50) NOT NULL DEFAULT 'REQUESTED',
+    fare_amount DECIMAL(10, 2),
+    estimated_duration_minutes INTEGER,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    accepted_at TIMESTAMP,
+    started_at TIMESTAMP,
+    completed_at TIMESTAMP,
+    cancelled_at TIMESTAMP,
+    CONSTRAINT valid_status CHECK (status IN ('REQUESTED', 'ACCEPTED', 'IN_PROGRESS', 'COMPLETED', 'CANCELLED'))
+);
+
+CREATE TABLE drivers (
+    id VARCHAR(255) PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    phone VARCHAR(20),
+    license_plate VARCHAR(20),
+    current_lat DECIMAL(10, 8),
+    current_lng DECIMAL(11, 8),
+    status VARCHAR(50) NOT NULL DEFAULT 'OFFLINE',
+    last_location_update TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT valid_driver_status CHECK (status IN ('OFFLINE', 'AVAILABLE', 'BUSY', 'EN_ROUTE'))
+);
+
+CREATE TABLE riders (
+    id VARCHAR(255) PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    phone VARCHAR(20),
+    email VARCHAR(255),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_rides_status ON rides(status);
+CREATE INDEX idx_rides_driver_id ON rides(driver_id);
+CREATE INDEX idx_rides_created_at ON rides(created_at);
+CREATE INDEX idx_drivers_status ON drivers(status);
+CREATE INDEX idx_drivers_location ON drivers(current_lat, current_lng);
+CREATE INDEX idx_drivers_last_update ON drivers(last_location_update);
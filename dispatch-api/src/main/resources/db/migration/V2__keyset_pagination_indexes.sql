@@ -0,0 +1,14 @@
+-- Indexes for keyset pagination on (created_at, id), newest first.
+-- Each filter column leads its own index so a filtered slice is one index range scan.
+
+CREATE INDEX IF NOT EXISTS idx_rides_created_at_id ON rides(created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_rides_rider_created_at_id ON rides(rider_id, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_rides_driver_created_at_id ON rides(driver_id, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_rides_status_created_at_id ON rides(status, created_at DESC, id DESC);
+
+-- Covered by the composite indexes above
+DROP INDEX IF EXISTS idx_rides_created_at;
+DROP INDEX IF EXISTS idx_rides_driver_id;
+
+CREATE INDEX IF NOT EXISTS idx_drivers_created_at_id ON drivers(created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_drivers_status_created_at_id ON drivers(status, created_at DESC, id DESC);
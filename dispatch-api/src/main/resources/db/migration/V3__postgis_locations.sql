@@ -0,0 +1,24 @@
+-- Spatial columns for radius searches.
+-- Kept in sync with the existing lat/lng columns by Postgres itself, so no writer has to change.
+
+CREATE EXTENSION IF NOT EXISTS postgis;
+
+ALTER TABLE drivers
+    ADD COLUMN IF NOT EXISTS location geography(Point, 4326)
+    GENERATED ALWAYS AS (
+        CASE WHEN current_lat IS NOT NULL AND current_lng IS NOT NULL
+             THEN ST_SetSRID(ST_MakePoint(current_lng, current_lat), 4326)::geography
+        END
+    ) STORED;
+
+ALTER TABLE rides
+    ADD COLUMN IF NOT EXISTS pickup_location geography(Point, 4326)
+    GENERATED ALWAYS AS (
+        ST_SetSRID(ST_MakePoint(pickup_lng, pickup_lat), 4326)::geography
+    ) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_drivers_location_gist ON drivers USING GIST (location);
+CREATE INDEX IF NOT EXISTS idx_rides_pickup_location_gist ON rides USING GIST (pickup_location);
+
+-- The lat/lng B-tree could only ever use its latitude range
+DROP INDEX IF EXISTS idx_drivers_location;
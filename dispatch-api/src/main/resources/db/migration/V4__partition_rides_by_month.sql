@@ -0,0 +1,78 @@
+-- Monthly range partitions on rides.created_at.
+-- Active rides are always recent, so their lookups only touch the newest partitions and the
+-- partial indexes below; old months are detached and moved to the rides_archive schema by
+-- RidePartitionMaintenance once they are past retention.
+
+CREATE SCHEMA IF NOT EXISTS rides_archive;
+
+-- Creates the partition for the month containing p_month if it doesn't exist yet
+CREATE OR REPLACE FUNCTION ensure_rides_partition(p_month DATE) RETURNS TEXT AS $$
+DECLARE
+    month_start DATE := date_trunc('month', p_month)::DATE;
+    partition_name TEXT := 'rides_p' || to_char(month_start, 'YYYYMM');
+BEGIN
+    IF to_regclass(partition_name) IS NULL THEN
+        EXECUTE format(
+            'CREATE TABLE %I PARTITION OF rides FOR VALUES FROM (%L) TO (%L)',
+            partition_name, month_start, (month_start + INTERVAL '1 month')::DATE
+        );
+    END IF;
+    RETURN partition_name;
+END;
+$$ LANGUAGE plpgsql;
+
+-- The partition key has to be part of the primary key
+UPDATE rides SET created_at = CURRENT_TIMESTAMP WHERE created_at IS NULL;
+
+CREATE TABLE rides_partitioned (
+    LIKE rides INCLUDING DEFAULTS INCLUDING CONSTRAINTS INCLUDING GENERATED,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+-- Catches anything outside the months created ahead, so inserts never fail
+CREATE TABLE rides_default PARTITION OF rides_partitioned DEFAULT;
+
+ALTER TABLE rides RENAME TO rides_unpartitioned;
+ALTER TABLE rides_partitioned RENAME TO rides;
+
+DO $$
+DECLARE
+    first_month DATE;
+    month DATE;
+    columns TEXT;
+BEGIN
+    SELECT COALESCE(date_trunc('month', MIN(created_at)), date_trunc('month', CURRENT_DATE))::DATE
+    INTO first_month FROM rides_unpartitioned;
+
+    month := first_month;
+    WHILE month <= date_trunc('month', CURRENT_DATE) + INTERVAL '3 months' LOOP
+        PERFORM ensure_rides_partition(month);
+        month := (month + INTERVAL '1 month')::DATE;
+    END LOOP;
+
+    -- Generated columns are recomputed on insert and can't be copied
+    SELECT string_agg(quote_ident(attname), ', ' ORDER BY attnum) INTO columns
+    FROM pg_attribute
+    WHERE attrelid = 'rides_unpartitioned'::regclass AND attnum > 0 AND NOT attisdropped AND attgenerated = '';
+
+    EXECUTE format('INSERT INTO rides (%s) SELECT %s FROM rides_unpartitioned', columns, columns);
+END;
+$$;
+
+DROP TABLE rides_unpartitioned;
+
+-- Indexes on the parent are created on every partition, current and future
+CREATE INDEX idx_rides_status ON rides(status);
+CREATE INDEX idx_rides_created_at_id ON rides(created_at DESC, id DESC);
+CREATE INDEX idx_rides_rider_created_at_id ON rides(rider_id, created_at DESC, id DESC);
+CREATE INDEX idx_rides_driver_created_at_id ON rides(driver_id, created_at DESC, id DESC);
+CREATE INDEX idx_rides_status_created_at_id ON rides(status, created_at DESC, id DESC);
+CREATE INDEX idx_rides_pickup_location_gist ON rides USING GIST (pickup_location);
+
+-- Active rides are a tiny fraction of each partition; these stay small however much history piles up
+CREATE INDEX idx_rides_active_rider ON rides(rider_id)
+    WHERE status IN ('REQUESTED', 'ACCEPTED', 'IN_PROGRESS');
+CREATE INDEX idx_rides_active_driver ON rides(driver_id)
+    WHERE status IN ('REQUESTED', 'ACCEPTED', 'IN_PROGRESS');
+CREATE INDEX idx_rides_active_status_created_at ON rides(status, created_at)
+    WHERE status IN ('REQUESTED', 'ACCEPTED', 'IN_PROGRESS');
@@ -0,0 +1,6 @@
+-- The entities (@UpdateTimestamp) and the JDBC writers for ride transitions and driver
+-- status keep updated_at current, but the baseline schema never had the column.
+-- CURRENT_TIMESTAMP is stable, so existing rows get it without a table rewrite.
+
+ALTER TABLE rides ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP;
+ALTER TABLE drivers ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP;
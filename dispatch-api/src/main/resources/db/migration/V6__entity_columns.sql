@@ -0,0 +1,12 @@
+-- Columns the Ride and Driver entities map that the baseline schema never had.
+-- Defaults match the entity field initializers; constant defaults need no table rewrite.
+
+ALTER TABLE rides ADD COLUMN IF NOT EXISTS estimated_fare DECIMAL(10, 2);
+
+ALTER TABLE drivers
+    ADD COLUMN IF NOT EXISTS rating DECIMAL(3, 2) DEFAULT 5.00,
+    ADD COLUMN IF NOT EXISTS total_rides INTEGER DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS acceptance_rate DECIMAL(3, 2) DEFAULT 1.00,
+    ADD COLUMN IF NOT EXISTS experience_years INTEGER DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS vehicle_type VARCHAR(50) DEFAULT 'STANDARD',
+    ADD COLUMN IF NOT EXISTS total_earnings DECIMAL(10, 2) DEFAULT 0;
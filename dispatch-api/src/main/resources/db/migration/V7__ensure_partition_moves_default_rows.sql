@@ -0,0 +1,59 @@
+-- A month can only get its own partition if rides_default holds none of its rows, so after a
+-- missed maintenance run CREATE TABLE ... PARTITION OF would fail on every later run. Such rows
+-- are now moved into the new partition before it is attached, all in the caller's transaction.
+
+CREATE OR REPLACE FUNCTION ensure_rides_partition(p_month DATE) RETURNS TEXT AS $$
+DECLARE
+    month_start DATE := date_trunc('month', p_month)::DATE;
+    month_end DATE := (date_trunc('month', p_month) + INTERVAL '1 month')::DATE;
+    partition_name TEXT := 'rides_p' || to_char(month_start, 'YYYYMM');
+    columns TEXT;
+    moved BIGINT;
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN partition_name;
+    END IF;
+
+    -- No new rows for the month may land in the default partition until it is attached
+    LOCK TABLE rides_default IN SHARE ROW EXCLUSIVE MODE;
+
+    IF NOT EXISTS (SELECT 1 FROM rides_default WHERE created_at >= month_start AND created_at < month_end) THEN
+        EXECUTE format(
+            'CREATE TABLE %I PARTITION OF rides FOR VALUES FROM (%L) TO (%L)',
+            partition_name, month_start, month_end
+        );
+        RETURN partition_name;
+    END IF;
+
+    EXECUTE format(
+        'CREATE TABLE %I (LIKE rides INCLUDING DEFAULTS INCLUDING CONSTRAINTS INCLUDING GENERATED)',
+        partition_name
+    );
+
+    -- Generated columns are recomputed on insert and can't be copied
+    SELECT string_agg(quote_ident(attname), ', ' ORDER BY attnum) INTO columns
+    FROM pg_attribute
+    WHERE attrelid = 'rides'::regclass AND attnum > 0 AND NOT attisdropped AND attgenerated = '';
+
+    EXECUTE format(
+        'WITH moved AS (DELETE FROM rides_default WHERE created_at >= %L AND created_at < %L RETURNING *) ' ||
+        'INSERT INTO %I (%s) SELECT %s FROM moved',
+        month_start, month_end, partition_name, columns, columns
+    );
+    GET DIAGNOSTICS moved = ROW_COUNT;
+
+    -- Lets the attach skip scanning the moved rows against the partition bounds
+    EXECUTE format(
+        'ALTER TABLE %I ADD CONSTRAINT %I CHECK (created_at IS NOT NULL AND created_at >= %L AND created_at < %L)',
+        partition_name, partition_name || '_bounds', month_start, month_end
+    );
+    EXECUTE format(
+        'ALTER TABLE rides ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+        partition_name, month_start, month_end
+    );
+    EXECUTE format('ALTER TABLE %I DROP CONSTRAINT %I', partition_name, partition_name || '_bounds');
+
+    RAISE WARNING 'Moved % rides from rides_default into new partition %', moved, partition_name;
+    RETURN partition_name;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,159 @@
+package com.dispatch.api.cache;
+
+import com.dispatch.api.cache.TieredCacheManager.Spec;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TieredCacheManagerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Map<String, Integer> redis = new HashMap<>();
+    private final List<String> published = new ArrayList<>();
+
+    private TieredCacheManager manager;
+    private Cache cache;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        RedisTemplate<String, Integer> redisTemplate = mock(RedisTemplate.class);
+        ValueOperations<String, Integer> values = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(values);
+        when(values.get(anyString())).thenAnswer(invocation -> redis.get(invocation.<String>getArgument(0)));
+        doAnswer(invocation -> redis.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(values).set(anyString(), anyInt(), any(Duration.class));
+        when(values.setIfAbsent(anyString(), anyInt(), any(Duration.class)))
+                .thenAnswer(invocation -> redis.putIfAbsent(invocation.getArgument(0), invocation.getArgument(1)) == null);
+
+        StringRedisTemplate stringRedisTemplate = mock(StringRedisTemplate.class);
+        doAnswer(invocation -> published.add(invocation.getArgument(1)))
+                .when(stringRedisTemplate).convertAndSend(anyString(), anyString());
+
+        manager = new TieredCacheManager(mock(RedisConnectionFactory.class), stringRedisTemplate, objectMapper,
+                meterRegistry, "node-a")
+                .addCache("eta-cache", Integer.class, redisTemplate, new Spec(100, Duration.ofMinutes(1), Duration.ofMinutes(5)));
+        cache = manager.getCache("eta-cache");
+    }
+
+    @Test
+    void onlyConfiguredCachesExist() {
+        assertNotNull(cache);
+        assertNull(manager.getCache("unbounded-cache"));
+    }
+
+    @Test
+    void loadsOnceAndSharesTheValueThroughRedis() {
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals(11, cache.get("k", () -> 10 + loads.incrementAndGet()));
+        assertEquals(11, cache.get("k", () -> 10 + loads.incrementAndGet()));
+
+        assertEquals(1, loads.get());
+        assertEquals(11, redis.get("cache:eta-cache:k"));
+        assertTrue(published.isEmpty());
+    }
+
+    @Test
+    void loaderMayUseTheCacheForOtherKeys() {
+        // Loading inside the local cache's compute can fail here with a recursive update or deadlock
+        assertEquals(13, cache.get("outer", () -> 1 + cache.get("inner", () -> 12)));
+
+        assertEquals(12, redis.get("cache:eta-cache:inner"));
+        assertEquals(13, redis.get("cache:eta-cache:outer"));
+        assertEquals(12, cache.get("inner", () -> 0));
+    }
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Callable<Integer> slowLoader = () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            release.await();
+            return 21;
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> first = executor.submit(() -> cache.get("k", slowLoader));
+            loading.await();
+            Future<Integer> second = executor.submit(() -> cache.get("k", slowLoader));
+            Thread.sleep(50);
+            release.countDown();
+
+            assertEquals(21, first.get(5, TimeUnit.SECONDS));
+            assertEquals(21, second.get(5, TimeUnit.SECONDS));
+            assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void readsThroughFromRedisOnLocalMiss() {
+        redis.put("cache:eta-cache:k", 7);
+
+        assertEquals(7, cache.get("k").get());
+        redis.clear();
+        assertEquals(7, cache.get("k").get());
+
+        assertEquals(1.0, meterRegistry.counter("dispatch.cache.redis", "cache", "eta-cache", "result", "hit").count());
+    }
+
+    @Test
+    void fillingAfterAMissIsNotAnnounced() {
+        assertNull(cache.get("k"));
+        cache.put("k", 5);
+
+        assertEquals(5, redis.get("cache:eta-cache:k"));
+        assertTrue(published.isEmpty());
+    }
+
+    @Test
+    void putIsAnnouncedAndOtherNodesDropTheirLocalCopy() throws Exception {
+        redis.put("cache:eta-cache:k", 4);
+        cache.put("k", 5);
+        assertEquals(5, redis.get("cache:eta-cache:k"));
+
+        assertEquals(1, published.size());
+        TieredCacheManager.Invalidation invalidation =
+                objectMapper.readValue(published.get(0), TieredCacheManager.Invalidation.class);
+        assertEquals(new TieredCacheManager.Invalidation("node-a", "eta-cache", "k"), invalidation);
+
+        // Own announcements come back too and are ignored
+        manager.onInvalidation(published.get(0).getBytes(StandardCharsets.UTF_8));
+        redis.clear();
+        assertEquals(5, cache.get("k").get());
+
+        manager.onInvalidation(objectMapper.writeValueAsBytes(new TieredCacheManager.Invalidation("node-b", "eta-cache", "k")));
+        assertNull(cache.get("k"));
+    }
+}
@@ -0,0 +1,156 @@
+package com.dispatch.api.controller;
+
+import com.dispatch.api.dto.request.UpdateDriverLocationRequest;
+import com.dispatch.api.dto.response.BatchLocationUpdateResponse;
+import com.dispatch.api.dto.response.BatchLocationUpdateResponse.ItemResult;
+import com.dispatch.api.dto.response.BatchLocationUpdateResponse.ItemStatus;
+import com.dispatch.api.model.Driver;
+import com.dispatch.api.ratelimit.LocalRateLimitBuckets;
+import com.dispatch.api.ratelimit.RateLimiter;
+import com.dispatch.api.repository.DriverRepository;
+import com.dispatch.api.service.DriverLocationService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class DriverControllerTest {
+
+    private DriverLocationService driverLocationService;
+    private DriverController controller;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("app.rate-limits.driver-location.capacity", "1")
+                .withProperty("app.rate-limits.driver-location.refill-period", "1m")
+                .withProperty("app.rate-limits.ride-request.capacity", "5")
+                .withProperty("app.rate-limits.ride-request.refill-period", "1m");
+        environment.setConversionService(new ApplicationConversionService());
+        RateLimiter rateLimiter = new RateLimiter(new LocalRateLimitBuckets(100, Duration.ofMinutes(10)),
+                environment, new SimpleMeterRegistry());
+
+        driverLocationService = mock(DriverLocationService.class);
+        when(driverLocationService.updateDriverLocation(anyString(), any(), any(), any(), any(), any()))
+                .thenAnswer(invocation -> new Driver(invocation.getArgument(0), "Driver"));
+        when(driverLocationService.updateDriverLocations(anyList())).thenAnswer(invocation ->
+                ((List<UpdateDriverLocationRequest>) invocation.getArgument(0)).stream().map(request -> ItemStatus.ACCEPTED).toList());
+
+        controller = new DriverController(mock(DriverRepository.class), driverLocationService, mock(DriverMapper.class),
+                Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper(), rateLimiter);
+        ReflectionTestUtils.setField(controller, "maxBatchItems", 3);
+    }
+
+    @Test
+    void jsonBatchReportsInvalidItemsAndAppliesTheRest() {
+        UpdateDriverLocationRequest outOfRange = ping("driver-2", "40.760000");
+        outOfRange.setLat(new BigDecimal("140.000000"));
+
+        BatchLocationUpdateResponse response = controller.updateDriverLocations(List.of(
+                ping("driver-1", "40.758900"), outOfRange)).getBody();
+
+        assertEquals(ItemStatus.ACCEPTED, response.getResults().get(0).getStatus());
+        assertEquals(ItemStatus.INVALID, response.getResults().get(1).getStatus());
+        assertEquals(1, response.getAccepted());
+        verify(driverLocationService).updateDriverLocations(argThat(requests ->
+                requests.size() == 1 && requests.get(0).getDriverId().equals("driver-1")));
+    }
+
+    @Test
+    void jsonBatchOverTheLimitIsRejected() {
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, controller.updateDriverLocations(List.of(
+                ping("driver-1", "40.758900"), ping("driver-2", "40.758900"),
+                ping("driver-3", "40.758900"), ping("driver-4", "40.758900"))).getStatusCode());
+        verifyNoInteractions(driverLocationService);
+    }
+
+    @Test
+    void ndjsonBatchFailsOnlyTheMalformedLines() throws IOException {
+        String body = """
+                {"driverId":"driver-1","lat":40.758900,"lng":-73.985100}
+                {"driverId":"driver-2","lat":
+
+                {"driverId":"driver-3","lat":40.760000,"lng":-73.985100}
+                """;
+
+        BatchLocationUpdateResponse response = controller.updateDriverLocationsStream(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8))).getBody();
+
+        List<ItemStatus> statuses = response.getResults().stream().map(ItemResult::getStatus).toList();
+        assertEquals(List.of(ItemStatus.ACCEPTED, ItemStatus.INVALID, ItemStatus.ACCEPTED), statuses);
+        assertTrue(response.getResults().get(1).getMessage().startsWith("Malformed JSON"));
+        verify(driverLocationService).updateDriverLocations(argThat(requests -> requests.size() == 2));
+    }
+
+    @Test
+    void ndjsonBatchOverTheLimitIsRejected() throws IOException {
+        String line = "{\"driverId\":\"driver-1\",\"lat\":40.758900,\"lng\":-73.985100}\n";
+
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, controller.updateDriverLocationsStream(
+                new ByteArrayInputStream(line.repeat(4).getBytes(StandardCharsets.UTF_8))).getStatusCode());
+        verifyNoInteractions(driverLocationService);
+    }
+
+    @Test
+    void pingsOverTheLimitAreConflatedAndAccepted() {
+        assertEquals(HttpStatus.OK, controller.updateDriverLocation("driver-1", ping("driver-1", "40.758900")).getStatusCode());
+        assertEquals(HttpStatus.ACCEPTED, controller.updateDriverLocation("driver-1", ping("driver-1", "40.759900")).getStatusCode());
+
+        verify(driverLocationService, times(1)).updateDriverLocation(anyString(), any(), any(), any(), any(), any());
+        verify(driverLocationService).conflateDriverLocation(eq("driver-1"), eq(new BigDecimal("40.759900")), any(), any(), any(), any());
+    }
+
+    @Test
+    void batchTakesOneTokenPerDriverAndConflatesTheLatestPositionOfThoseOverIt() {
+        // Uses up driver-1's only token
+        controller.updateDriverLocation("driver-1", ping("driver-1", "40.758000"));
+
+        BatchLocationUpdateResponse response = controller.updateDriverLocations(List.of(
+                ping("driver-1", "40.758900"),
+                ping("driver-2", "40.760000"),
+                ping("driver-1", "40.759900"))).getBody();
+
+        List<ItemStatus> statuses = response.getResults().stream().map(ItemResult::getStatus).toList();
+        assertEquals(List.of(ItemStatus.SUPERSEDED, ItemStatus.ACCEPTED, ItemStatus.CONFLATED), statuses);
+        assertEquals(3, response.getAccepted());
+
+        verify(driverLocationService).updateDriverLocations(argThat(requests ->
+                requests.size() == 1 && requests.get(0).getDriverId().equals("driver-2")));
+        verify(driverLocationService).conflateDriverLocation(eq("driver-1"), eq(new BigDecimal("40.759900")), any(), any(), any(), any());
+    }
+
+    @Test
+    void conflatingAnUnknownDriverReportsItNotFound() {
+        controller.updateDriverLocation("driver-9", ping("driver-9", "40.758000"));
+        doThrow(new IllegalArgumentException("Driver not found: driver-9"))
+                .when(driverLocationService).conflateDriverLocation(eq("driver-9"), any(), any(), any(), any(), any());
+
+        BatchLocationUpdateResponse response = controller.updateDriverLocations(List.of(ping("driver-9", "40.758900"))).getBody();
+
+        assertEquals(ItemStatus.NOT_FOUND, response.getResults().get(0).getStatus());
+        verify(driverLocationService).updateDriverLocations(argThat(List::isEmpty));
+    }
+
+    private static UpdateDriverLocationRequest ping(String driverId, String lat) {
+        UpdateDriverLocationRequest request = new UpdateDriverLocationRequest(driverId, new BigDecimal(lat), new BigDecimal("-73.985100"));
+        request.setHeading(90);
+        return request;
+    }
+}
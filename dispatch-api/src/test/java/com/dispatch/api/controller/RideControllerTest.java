@@ -0,0 +1,122 @@
+package com.dispatch.api.controller;
+
+import com.dispatch.api.dto.mapper.RideMapper;
+import com.dispatch.api.dto.request.CreateRideRequest;
+import com.dispatch.api.model.Ride;
+import com.dispatch.api.ratelimit.LocalRateLimitBuckets;
+import com.dispatch.api.ratelimit.RateLimiter;
+import com.dispatch.api.repository.GeoSearchJdbcRepository;
+import com.dispatch.api.repository.RideRepository;
+import com.dispatch.api.security.AuthContext;
+import com.dispatch.api.service.ActiveRideRegistry;
+import com.dispatch.api.service.DispatchService;
+import com.dispatch.api.service.RideEventStreamService;
+import com.dispatch.api.service.RideSnapshotCache;
+import com.dispatch.api.util.KeysetCursor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class RideControllerTest {
+
+    private DispatchService dispatchService;
+    private RideRepository rideRepository;
+    private RideController controller;
+
+    @BeforeEach
+    void setUp() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("app.rate-limits.driver-location.capacity", "10")
+                .withProperty("app.rate-limits.driver-location.refill-period", "5s")
+                .withProperty("app.rate-limits.ride-request.capacity", "1")
+                .withProperty("app.rate-limits.ride-request.refill-period", "1m");
+        environment.setConversionService(new ApplicationConversionService());
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RateLimiter rateLimiter = new RateLimiter(new LocalRateLimitBuckets(100, Duration.ofMinutes(10)),
+                environment, meterRegistry);
+
+        dispatchService = mock(DispatchService.class);
+        when(dispatchService.createRide(any(), any(), any(), any(), any()))
+                .thenAnswer(invocation -> new Ride(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2)));
+
+        rideRepository = mock(RideRepository.class);
+        controller = new RideController(dispatchService, rideRepository, mock(GeoSearchJdbcRepository.class),
+                mock(RideMapper.class), mock(RideEventStreamService.class), mock(RideSnapshotCache.class), mock(ActiveRideRegistry.class),
+                rateLimiter, meterRegistry);
+    }
+
+    @Test
+    void limitsTheAuthenticatedCallerWhateverRiderTheBodyNames() {
+        AuthContext caller = rider("rider-1");
+
+        assertEquals(HttpStatus.CREATED, createRide("rider-1", caller, "10.0.0.1").getStatusCode());
+        ResponseEntity<?> limited = createRide("rider-2", caller, "10.0.0.1");
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, limited.getStatusCode());
+        long retryAfter = Long.parseLong(limited.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertTrue(retryAfter >= 1 && retryAfter <= 60);
+        verify(dispatchService, times(1)).createRide(any(), any(), any(), any(), any());
+
+        // Naming the limited rider in the body does not use up another caller's requests
+        assertEquals(HttpStatus.CREATED, createRide("rider-1", rider("rider-3"), "10.0.0.1").getStatusCode());
+    }
+
+    @Test
+    void limitsAnonymousCallersByAddress() {
+        assertEquals(HttpStatus.CREATED, createRide("rider-1", null, "10.0.0.1").getStatusCode());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, createRide("rider-2", null, "10.0.0.1").getStatusCode());
+        assertEquals(HttpStatus.CREATED, createRide("rider-2", null, "10.0.0.2").getStatusCode());
+    }
+
+    @Test
+    void tamperedCursorIsBadRequestButRepositoryErrorsAreNot() {
+        String notARideId = new KeysetCursor(LocalDateTime.of(2024, 3, 1, 12, 30), "driver_001").encode();
+
+        assertEquals(HttpStatus.BAD_REQUEST, controller.getRides(null, null, null, "not a cursor", 20).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, controller.getRides(null, null, null, notARideId, 20).getStatusCode());
+        verifyNoInteractions(rideRepository);
+
+        when(rideRepository.findSlice(any(), any(), any(), any(), anyInt()))
+                .thenThrow(new IllegalArgumentException("bug in the query"));
+        assertThrows(IllegalArgumentException.class, () -> controller.getRides(null, null, null, null, 20));
+    }
+
+    @Test
+    void transitionThatDidNotCommitInTimeIsServiceUnavailable() {
+        UUID rideId = UUID.randomUUID();
+        when(dispatchService.startRide(rideId, "driver-1"))
+                .thenThrow(new QueryTimeoutException("Ride " + rideId + " transition not committed within PT5S"));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, controller.startRide(rideId, "driver-1").getStatusCode());
+    }
+
+    private ResponseEntity<?> createRide(String riderId, AuthContext caller, String remoteAddress) {
+        CreateRideRequest request = new CreateRideRequest(riderId, new BigDecimal("40.758000"), new BigDecimal("-73.985500"));
+        MockHttpServletRequest httpRequest = new MockHttpServletRequest("POST", "/api/rides");
+        httpRequest.setRemoteAddr(remoteAddress);
+        return controller.createRide(request, caller, httpRequest);
+    }
+
+    private static AuthContext rider(String riderId) {
+        return new AuthContext(riderId, "RIDER", Set.of("request_rides"), Instant.now().plusSeconds(3600));
+    }
+}
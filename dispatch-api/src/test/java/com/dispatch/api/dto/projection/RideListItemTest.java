@@ -0,0 +1,35 @@
+package com.dispatch.api.dto.projection;
+
+import com.dispatch.api.dto.response.RideResponse;
+import com.dispatch.api.model.RideStatus;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RideListItemTest {
+
+    @Test
+    void fillsTheSameResponseFieldsAsTheEntityMapper() {
+        UUID id = UUID.randomUUID();
+        LocalDateTime started = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+        RideResponse response = new RideListItem(
+                id, "rider-1", "driver-1",
+                new BigDecimal("40.75890000"), new BigDecimal("-73.98510000"), null, null,
+                RideStatus.COMPLETED, new BigDecimal("12.50"), new BigDecimal("14.00"), 15,
+                started.minusMinutes(5), started.minusMinutes(3), started, started.plusMinutes(17), null
+        ).toResponse();
+
+        assertEquals(id.toString(), response.getRideId());
+        assertEquals("40.758900,-73.985100", response.getPickupLocation());
+        assertNull(response.getDestinationLocation());
+        assertEquals(new BigDecimal("14.00"), response.getActualFare());
+        assertEquals(15, response.getEstimatedDuration());
+        assertEquals(17, response.getActualDuration());
+        assertEquals(RideStatus.COMPLETED, response.getStatus());
+    }
+}
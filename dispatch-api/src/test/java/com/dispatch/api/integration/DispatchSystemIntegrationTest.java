@@ -42,7 +42,8 @@ import static org.junit.jupiter.api.Assertions.*;
 class DispatchSystemIntegrationTest {
 
     @Container
-    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15")
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(
+            DockerImageName.parse("postgis/postgis:15-3.4").asCompatibleSubstituteFor("postgres"))
             .withDatabaseName("dispatch_test")
             .withUsername("test")
             .withPassword("test");
@@ -72,6 +73,8 @@ class DispatchSystemIntegrationTest {
         registry.add("app.geo-index.enabled", () -> "false");
         registry.add("app.features.surge-pricing", () -> "true");
         registry.add("app.features.eta-prediction", () -> "true");
+        // All requests come from one anonymous address here; limits are covered by RideControllerTest
+        registry.add("app.rate-limits.enabled", () -> "false");
     }
 
     @Autowired
@@ -0,0 +1,71 @@
+package com.dispatch.api.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RateLimiterTest {
+
+    private MockEnvironment environment;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        environment = new MockEnvironment()
+                .withProperty("app.rate-limits.driver-location.capacity", "3")
+                .withProperty("app.rate-limits.driver-location.refill-period", "1m")
+                .withProperty("app.rate-limits.ride-request.capacity", "1")
+                .withProperty("app.rate-limits.ride-request.refill-period", "1m");
+        environment.setConversionService(new ApplicationConversionService());
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void limitsEachCallerSeparately() {
+        RateLimiter rateLimiter = new RateLimiter(new LocalRateLimitBuckets(100, Duration.ofMinutes(10)),
+                environment, meterRegistry);
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(rateLimiter.tryAcquire(RateLimitedEndpoint.DRIVER_LOCATION, "driver-1").isZero());
+        }
+        Duration retryAfter = rateLimiter.tryAcquire(RateLimitedEndpoint.DRIVER_LOCATION, "driver-1");
+
+        assertFalse(retryAfter.isZero());
+        assertTrue(retryAfter.compareTo(Duration.ofSeconds(20)) <= 0);
+        assertTrue(rateLimiter.tryAcquire(RateLimitedEndpoint.DRIVER_LOCATION, "driver-2").isZero());
+        // Same caller id on another endpoint has its own bucket
+        assertTrue(rateLimiter.tryAcquire(RateLimitedEndpoint.RIDE_REQUEST, "driver-1").isZero());
+
+        assertEquals(1.0, meterRegistry.counter("dispatch.ratelimit",
+                "endpoint", "driver-location", "outcome", "limited").count());
+    }
+
+    @Test
+    void allowsRequestsWhenTheBucketStoreFails() {
+        RateLimitBuckets failing = mock(RateLimitBuckets.class);
+        when(failing.bucket(anyString(), any())).thenThrow(new IllegalStateException("Redis down"));
+        RateLimiter rateLimiter = new RateLimiter(failing, environment, meterRegistry);
+
+        assertTrue(rateLimiter.tryAcquire(RateLimitedEndpoint.RIDE_REQUEST, "rider-1").isZero());
+        assertTrue(rateLimiter.tryAcquire(RateLimitedEndpoint.RIDE_REQUEST, "rider-1").isZero());
+    }
+
+    @Test
+    void canBeSwitchedOff() {
+        environment.setProperty("app.rate-limits.enabled", "false");
+        RateLimiter rateLimiter = new RateLimiter(new LocalRateLimitBuckets(100, Duration.ofMinutes(10)),
+                environment, meterRegistry);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(rateLimiter.tryAcquire(RateLimitedEndpoint.RIDE_REQUEST, "rider-1").isZero());
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.dispatch.api.ratelimit;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Refill;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Testcontainers
+class RedisRateLimitBucketsTest {
+
+    @Container
+    static GenericContainer<?> redis = new GenericContainer<>("redis:7-alpine")
+            .withExposedPorts(6379);
+
+    private static final Bandwidth THREE_PER_MINUTE = Bandwidth.classic(3, Refill.greedy(3, Duration.ofMinutes(1)));
+
+    private LettuceConnectionFactory connectionFactory;
+    private RedisRateLimitBuckets nodeA;
+    private RedisRateLimitBuckets nodeB;
+
+    @BeforeEach
+    void setUp() {
+        connectionFactory = new LettuceConnectionFactory(redis.getHost(), redis.getMappedPort(6379));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+
+        // No unsynchronized tokens, so every consumption is visible to the other node right away
+        nodeA = new RedisRateLimitBuckets(connectionFactory, 100, Duration.ofMinutes(10), 0, Duration.ofMillis(1));
+        nodeB = new RedisRateLimitBuckets(connectionFactory, 100, Duration.ofMinutes(10), 0, Duration.ofMillis(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        nodeA.close();
+        nodeB.close();
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void nodesShareOneBucketPerKey() {
+        String key = "ride-request:" + UUID.randomUUID();
+
+        assertTrue(nodeA.bucket(key, THREE_PER_MINUTE).tryConsume(1));
+        assertTrue(nodeB.bucket(key, THREE_PER_MINUTE).tryConsume(1));
+        assertTrue(nodeA.bucket(key, THREE_PER_MINUTE).tryConsume(1));
+
+        assertFalse(nodeB.bucket(key, THREE_PER_MINUTE).tryConsume(1));
+        assertFalse(nodeA.bucket(key, THREE_PER_MINUTE).tryConsume(1));
+
+        // Other callers are not affected
+        assertTrue(nodeB.bucket("ride-request:" + UUID.randomUUID(), THREE_PER_MINUTE).tryConsume(1));
+    }
+
+    @Test
+    void bucketsExpireFromRedisOnceTheyWouldHaveRefilled() {
+        String key = "driver-location:" + UUID.randomUUID();
+        nodeA.bucket(key, THREE_PER_MINUTE).tryConsume(1);
+
+        StringRedisTemplate redisTemplate = new StringRedisTemplate(connectionFactory);
+        Long ttl = redisTemplate.getExpire("dispatch:ratelimit:" + key);
+
+        assertNotNull(ttl);
+        // Refill time of the consumed token plus the idle timeout
+        assertTrue(ttl > 0 && ttl <= Duration.ofMinutes(11).toSeconds(), "ttl " + ttl);
+    }
+}
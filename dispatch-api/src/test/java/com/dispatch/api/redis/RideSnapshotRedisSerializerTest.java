@@ -0,0 +1,67 @@
+package com.dispatch.api.redis;
+
+import com.dispatch.api.dto.response.RideResponse;
+import com.dispatch.api.model.RideStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RideSnapshotRedisSerializerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final RideSnapshotRedisSerializer serializer = new RideSnapshotRedisSerializer(objectMapper);
+
+    @Test
+    void roundTripsAllFields() {
+        RideResponse ride = ride();
+
+        RideResponse read = serializer.deserialize(serializer.serialize(ride));
+
+        assertEquals(ride.getRideId(), read.getRideId());
+        assertEquals(ride.getRiderId(), read.getRiderId());
+        assertEquals(ride.getDriverId(), read.getDriverId());
+        assertEquals(ride.getStatus(), read.getStatus());
+        assertEquals(ride.getEstimatedFare(), read.getEstimatedFare());
+        assertEquals(ride.getEstimatedDuration(), read.getEstimatedDuration());
+        assertEquals(ride.getCreatedAt(), read.getCreatedAt());
+        assertEquals(ride.getAcceptedAt(), read.getAcceptedAt());
+        assertNull(read.getActualFare());
+        assertNull(read.getCompletedAt());
+    }
+
+    @Test
+    void isSmallerThanTheJsonItReplaces() throws Exception {
+        RideResponse ride = ride();
+
+        assertTrue(serializer.serialize(ride).length * 2 < objectMapper.writeValueAsBytes(ride).length);
+    }
+
+    @Test
+    void readsJsonSnapshotsWrittenBeforeTheMigration() throws Exception {
+        RideResponse ride = ride();
+
+        RideResponse read = serializer.deserialize(objectMapper.writeValueAsBytes(ride));
+
+        assertEquals(ride.getRideId(), read.getRideId());
+        assertEquals(RideStatus.ACCEPTED, read.getStatus());
+        assertEquals(ride.getEstimatedFare(), read.getEstimatedFare());
+    }
+
+    private RideResponse ride() {
+        RideResponse ride = new RideResponse();
+        ride.setRideId("6a1f2c3d-4b5e-4f60-8a7b-9c0d1e2f3a4b");
+        ride.setRiderId("rider-1");
+        ride.setDriverId("driver-7");
+        ride.setStatus(RideStatus.ACCEPTED);
+        ride.setEstimatedFare(new BigDecimal("18.40"));
+        ride.setEstimatedDuration(14);
+        ride.setCreatedAt(LocalDateTime.of(2024, 3, 1, 8, 15, 30, 123_456_000));
+        ride.setAcceptedAt(LocalDateTime.of(2024, 3, 1, 8, 16, 2));
+        return ride;
+    }
+}
@@ -0,0 +1,51 @@
+package com.dispatch.api.redis;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScalarRedisSerializerTest {
+
+    private final JdkSerializationRedisSerializer jdk = new JdkSerializationRedisSerializer();
+
+    @Test
+    void writesPlainDecimalStrings() {
+        byte[] bytes = ScalarRedisSerializer.decimals().serialize(new BigDecimal("1.25"));
+
+        assertEquals("1.25", new String(bytes, StandardCharsets.US_ASCII));
+        assertEquals(new BigDecimal("1.25"), ScalarRedisSerializer.decimals().deserialize(bytes));
+    }
+
+    @Test
+    void doublesRoundTripExactly() {
+        double value = 1.0 + 0.1 * 3;
+
+        assertEquals(value, ScalarRedisSerializer.doubles().deserialize(ScalarRedisSerializer.doubles().serialize(value)));
+    }
+
+    @Test
+    void readsJdkSerializedValuesWrittenBeforeTheMigration() {
+        assertEquals(new BigDecimal("2.50"), ScalarRedisSerializer.decimals().deserialize(jdk.serialize(new BigDecimal("2.50"))));
+        assertEquals(1.2, ScalarRedisSerializer.doubles().deserialize(jdk.serialize(1.2)));
+        // A legacy Double read into a decimal template
+        assertEquals(new BigDecimal("1.5"), ScalarRedisSerializer.decimals().deserialize(jdk.serialize(1.5)));
+    }
+
+    @Test
+    void rejectsValuesThatAreNotNumbers() {
+        assertThrows(SerializationException.class,
+                () -> ScalarRedisSerializer.longs().deserialize("abc".getBytes(StandardCharsets.US_ASCII)));
+        assertThrows(SerializationException.class, () -> ScalarRedisSerializer.longs().deserialize(jdk.serialize("7")));
+    }
+
+    @Test
+    void missingValuesAreNull() {
+        assertNull(ScalarRedisSerializer.doubles().serialize(null));
+        assertNull(ScalarRedisSerializer.doubles().deserialize(null));
+    }
+}
@@ -0,0 +1,75 @@
+package com.dispatch.api.repository;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.flywaydb.core.api.MigrationState;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import org.testcontainers.utility.MountableFile;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Testcontainers
+class FlywayMigrationTest {
+
+    private static final DockerImageName POSTGIS =
+            DockerImageName.parse("postgis/postgis:15-3.4").asCompatibleSubstituteFor("postgres");
+
+    // Set up the way docker-compose does it
+    @Container
+    static PostgreSQLContainer<?> initialized = new PostgreSQLContainer<>(POSTGIS)
+            .withCopyFileToContainer(MountableFile.forHostPath("../infrastructure/postgres/init.sql"),
+                    "/docker-entrypoint-initdb.d/init.sql");
+
+    @Container
+    static PostgreSQLContainer<?> empty = new PostgreSQLContainer<>(POSTGIS);
+
+    private static final String COLUMNS_SQL =
+        "SELECT table_name || '.' || column_name || ' ' || data_type || ' ' || is_nullable || ' ' || " +
+        "coalesce(column_default, '') FROM information_schema.columns " +
+        "WHERE table_schema = 'public' AND table_name IN ('rides', 'drivers', 'riders') ORDER BY 1";
+
+    @Test
+    void initScriptDatabaseIsBaselinedAndEmptyDatabaseRunsTheBaseline() {
+        DataSource fromInitScript = dataSource(initialized);
+        DataSource fromScratch = dataSource(empty);
+
+        MigrationInfo[] baselined = migrate(fromInitScript);
+        MigrationInfo[] migrated = migrate(fromScratch);
+
+        assertEquals(MigrationState.BASELINE, baselined[0].getState());
+        assertEquals("1", baselined[0].getVersion().getVersion());
+        assertTrue(Arrays.stream(migrated).allMatch(info -> info.getState() == MigrationState.SUCCESS));
+        assertEquals("1", migrated[0].getVersion().getVersion());
+        assertEquals(migrated[migrated.length - 1].getVersion(), baselined[baselined.length - 1].getVersion());
+
+        // init.sql and V1 have to describe the same schema
+        List<String> expected = new JdbcTemplate(fromInitScript).queryForList(COLUMNS_SQL, String.class);
+        assertEquals(expected, new JdbcTemplate(fromScratch).queryForList(COLUMNS_SQL, String.class));
+        assertTrue(expected.contains("rides.estimated_fare numeric YES "));
+    }
+
+    private static MigrationInfo[] migrate(DataSource dataSource) {
+        Flyway flyway = Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load();
+        flyway.migrate();
+        return flyway.info().applied();
+    }
+
+    private static DataSource dataSource(PostgreSQLContainer<?> postgres) {
+        return new DriverManagerDataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+    }
+}
@@ -0,0 +1,116 @@
+package com.dispatch.api.repository;
+
+import com.dispatch.api.dto.projection.DriverListItem;
+import com.dispatch.api.dto.projection.RideListItem;
+import com.dispatch.api.model.DriverStatus;
+import com.dispatch.api.model.RideStatus;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import org.testcontainers.utility.MountableFile;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Testcontainers
+class GeoSearchJdbcRepositoryTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(
+            DockerImageName.parse("postgis/postgis:15-3.4").asCompatibleSubstituteFor("postgres"))
+            .withCopyFileToContainer(MountableFile.forHostPath("../infrastructure/postgres/init.sql"),
+                    "/docker-entrypoint-initdb.d/init.sql");
+
+    // Far away from the Manhattan seed data; 0.001 degrees of latitude is about 111 m
+    private static final double LAT = 51.5000;
+    private static final double LNG = -0.1200;
+
+    private static JdbcTemplate jdbcTemplate;
+
+    private GeoSearchJdbcRepository repository;
+
+    @BeforeAll
+    static void migrate() {
+        DriverManagerDataSource dataSource =
+                new DriverManagerDataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .baselineOnMigrate(true)
+                .load()
+                .migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        LocalDateTime now = LocalDateTime.now();
+        insertDriver("geo-near-2", LAT + 0.003, "AVAILABLE", now);
+        insertDriver("geo-near-1", LAT + 0.001, "AVAILABLE", now);
+        insertDriver("geo-busy", LAT + 0.0005, "BUSY", now);
+        insertDriver("geo-stale", LAT + 0.0005, "AVAILABLE", now.minusHours(1));
+        insertDriver("geo-far", LAT + 0.02, "AVAILABLE", now);
+    }
+
+    @BeforeEach
+    void setUp() {
+        repository = new GeoSearchJdbcRepository(jdbcTemplate);
+    }
+
+    @Test
+    void driversWithinTheRadiusComeNearestFirst() {
+        List<DriverListItem> drivers = repository.findDriversNear(
+                DriverStatus.AVAILABLE, LAT, LNG, 1000, LocalDateTime.now().minusMinutes(5), 10);
+
+        assertEquals(List.of("geo-near-1", "geo-near-2"), drivers.stream().map(DriverListItem::id).toList());
+        assertEquals(DriverStatus.AVAILABLE, drivers.get(0).status());
+    }
+
+    @Test
+    void radiusIsInMetersAndLimitStopsAtTheNearest() {
+        // 333 m away, so just outside a 300 m radius
+        assertEquals(List.of("geo-near-1"), repository.findDriversNear(
+                DriverStatus.AVAILABLE, LAT, LNG, 300, LocalDateTime.now().minusMinutes(5), 10)
+                .stream().map(DriverListItem::id).toList());
+
+        assertEquals(List.of("geo-near-1"), repository.findDriversNear(
+                DriverStatus.AVAILABLE, LAT, LNG, 5000, LocalDateTime.now().minusMinutes(5), 1)
+                .stream().map(DriverListItem::id).toList());
+    }
+
+    @Test
+    void ridesMatchTheRequestedStatusesNearestFirst() {
+        UUID waiting = insertRide(LAT + 0.002, "REQUESTED");
+        UUID accepted = insertRide(LAT + 0.001, "ACCEPTED");
+        insertRide(LAT + 0.0005, "COMPLETED");
+        insertRide(LAT + 0.05, "REQUESTED");
+
+        List<RideListItem> rides = repository.findRidesNear(
+                List.of(RideStatus.REQUESTED, RideStatus.ACCEPTED), LAT, LNG, 1000, 10);
+
+        assertEquals(List.of(accepted, waiting), rides.stream().map(RideListItem::id).toList());
+        assertEquals(RideStatus.ACCEPTED, rides.get(0).status());
+        assertEquals(List.of(waiting), repository.findRidesNear(List.of(RideStatus.REQUESTED), LAT, LNG, 1000, 10)
+                .stream().map(RideListItem::id).toList());
+    }
+
+    private static void insertDriver(String driverId, double lat, String status, LocalDateTime lastUpdate) {
+        jdbcTemplate.update("INSERT INTO drivers (id, name, current_lat, current_lng, status, last_location_update) " +
+                "VALUES (?, ?, ?, ?, ?, ?)", driverId, "Test Driver", lat, LNG, status, Timestamp.valueOf(lastUpdate));
+    }
+
+    private static UUID insertRide(double pickupLat, String status) {
+        UUID rideId = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO rides (id, rider_id, pickup_lat, pickup_lng, status) VALUES (?, ?, ?, ?, ?)",
+                rideId, "rider_001", pickupLat, LNG, status);
+        return rideId;
+    }
+}
@@ -0,0 +1,114 @@
+package com.dispatch.api.repository;
+
+import com.dispatch.api.repository.RideTransitionRepository.Command;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import org.testcontainers.utility.MountableFile;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Testcontainers
+class RideTransitionRepositoryTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(
+            DockerImageName.parse("postgis/postgis:15-3.4").asCompatibleSubstituteFor("postgres"))
+            .withCopyFileToContainer(MountableFile.forHostPath("../infrastructure/postgres/init.sql"),
+                    "/docker-entrypoint-initdb.d/init.sql");
+
+    private static JdbcTemplate jdbcTemplate;
+
+    private RideTransitionRepository repository;
+
+    @BeforeAll
+    static void migrate() {
+        DriverManagerDataSource dataSource =
+                new DriverManagerDataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .baselineOnMigrate(true)
+                .load()
+                .migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @BeforeEach
+    void setUp() {
+        repository = new RideTransitionRepository(jdbcTemplate);
+    }
+
+    @Test
+    void commandsForOneRideApplyInArrivalOrder() {
+        UUID rideId = insertRide("ACCEPTED", "driver-t1");
+
+        // Grouped by transition type, the start would run first and the cancel would be rejected
+        int[] updated = repository.applyAll(List.of(Command.cancel(rideId), Command.start(rideId, "driver-t1")));
+
+        assertArrayEquals(new int[] {1, 0}, updated);
+        assertEquals("CANCELLED", statusOf(rideId));
+    }
+
+    @Test
+    void runsOfTheSameTransitionShareABatchAndLaterRunsSeeThem() {
+        UUID first = insertRide("ACCEPTED", "driver-t2");
+        UUID second = insertRide("ACCEPTED", "driver-t3");
+
+        int[] updated = repository.applyAll(List.of(
+                Command.start(first, "driver-t2"),
+                Command.start(second, "driver-t3"),
+                Command.complete(first, "driver-t2", new BigDecimal("18.50")),
+                Command.complete(second, "someone-else", new BigDecimal("9.00"))));
+
+        assertArrayEquals(new int[] {1, 1, 1, 0}, updated);
+
+        Map<String, Object> completed = jdbcTemplate.queryForMap(
+                "SELECT status, fare_amount, started_at, completed_at, updated_at FROM rides WHERE id = ?", first);
+        assertEquals("COMPLETED", completed.get("status"));
+        assertEquals(0, new BigDecimal("18.50").compareTo((BigDecimal) completed.get("fare_amount")));
+        assertNotNull(completed.get("started_at"));
+        assertNotNull(completed.get("completed_at"));
+        assertNotNull(completed.get("updated_at"));
+
+        assertEquals("IN_PROGRESS", statusOf(second));
+    }
+
+    @Test
+    void releaseOnlyTouchesBusyDrivers() {
+        insertDriver("driver-t4", "BUSY");
+        insertDriver("driver-t5", "OFFLINE");
+
+        repository.releaseDrivers(List.of("driver-t4", "driver-t5"));
+
+        assertEquals("AVAILABLE", jdbcTemplate.queryForObject("SELECT status FROM drivers WHERE id = 'driver-t4'", String.class));
+        assertEquals("OFFLINE", jdbcTemplate.queryForObject("SELECT status FROM drivers WHERE id = 'driver-t5'", String.class));
+    }
+
+    private UUID insertRide(String status, String driverId) {
+        UUID rideId = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO rides (id, rider_id, driver_id, pickup_lat, pickup_lng, status) VALUES (?, ?, ?, ?, ?, ?)",
+                rideId, "rider_001", driverId, 40.7580, -73.9855, status);
+        return rideId;
+    }
+
+    private void insertDriver(String driverId, String status) {
+        jdbcTemplate.update("INSERT INTO drivers (id, name, status) VALUES (?, ?, ?)", driverId, "Test Driver", status);
+    }
+
+    private String statusOf(UUID rideId) {
+        return jdbcTemplate.queryForObject("SELECT status FROM rides WHERE id = ?", String.class, rideId);
+    }
+}
@@ -0,0 +1,80 @@
+package com.dispatch.api.security;
+
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtTokenProviderTest {
+
+    private static final String SECRET = "test-secret-key-that-is-long-enough-for-hs512-signatures-0123456789abcdef";
+
+    private JwtTokenProvider provider;
+
+    @BeforeEach
+    void setUp() {
+        provider = provider(SECRET, 86400);
+    }
+
+    @Test
+    void parsesATokenOnceForAllChecks() {
+        String token = provider.generateDriverToken("driver-7", "L-123", "V-9");
+
+        AuthContext context = provider.parse(token);
+
+        assertEquals("driver-7", context.userId());
+        assertEquals("DRIVER", context.userType());
+        assertTrue(context.hasPermission("update_location"));
+        assertFalse(context.hasPermission("request_rides"));
+        assertSame(context, provider.parse(token));
+        assertEquals("driver-7", provider.getUserIdFromToken(token));
+        assertTrue(provider.hasPermission(token, "accept_rides"));
+        assertFalse(provider.isTokenExpired(token));
+    }
+
+    @Test
+    void rejectsTamperedTokens() {
+        String token = provider.generateRiderToken("rider-1", "rider@example.com");
+        provider.parse(token);
+
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        assertThrows(JwtException.class, () -> provider.parse(tampered));
+        assertTrue(provider.authenticate(tampered).isEmpty());
+        assertFalse(provider.validateToken(tampered));
+    }
+
+    @Test
+    void rejectsTokensSignedWithAnotherKey() {
+        JwtTokenProvider other = provider(SECRET.replace('0', '1'), 60);
+
+        assertTrue(provider.authenticate(other.generateToken("user-1", "RIDER", Map.of())).isEmpty());
+    }
+
+    @Test
+    void expiredTokensAreNotServedFromCache() throws Exception {
+        JwtTokenProvider shortLived = provider(SECRET, 1);
+        String token = shortLived.generateToken("user-1", "RIDER", Map.of());
+        assertTrue(shortLived.validateToken(token));
+
+        Thread.sleep(1100);
+
+        assertTrue(shortLived.authenticate(token).isEmpty());
+        assertTrue(shortLived.isTokenExpired(token));
+    }
+
+    private static JwtTokenProvider provider(String secret, int expirationSeconds) {
+        JwtTokenProvider provider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(provider, "jwtSecret", secret);
+        ReflectionTestUtils.setField(provider, "jwtExpirationInSeconds", expirationSeconds);
+        ReflectionTestUtils.setField(provider, "cacheMaxSize", 1000L);
+        ReflectionTestUtils.setField(provider, "cacheMaxTtl", Duration.ofMinutes(10));
+        provider.init();
+        return provider;
+    }
+}
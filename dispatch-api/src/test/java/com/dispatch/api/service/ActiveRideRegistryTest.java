@@ -0,0 +1,124 @@
+package com.dispatch.api.service;
+
+import com.dispatch.api.model.Ride;
+import com.dispatch.api.model.RideStatus;
+import com.dispatch.api.repository.RideRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ActiveRideRegistryTest {
+
+    private final UUID firstRide = UUID.randomUUID();
+    private final UUID secondRide = UUID.randomUUID();
+
+    private RideRepository rideRepository;
+    private ActiveRideRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        rideRepository = mock(RideRepository.class);
+        when(rideRepository.findById(any())).thenReturn(Optional.empty());
+
+        registry = new ActiveRideRegistry(new LocalActiveRideStore(), rideRepository, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(registry, "claimGrace", Duration.ofSeconds(30));
+    }
+
+    @AfterEach
+    void clearTransaction() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void secondActiveRideForTheSameRiderIsRejected() {
+        registry.claimRider("rider-1", firstRide);
+
+        assertThrows(IllegalStateException.class, () -> registry.claimRider("rider-1", secondRide));
+        // Not in the database yet, but claimed only just now: still held
+        assertEquals(Optional.of(firstRide), registry.findActiveRideForRider("rider-1"));
+    }
+
+    @Test
+    void finishedRideFreesRiderAndDriver() {
+        registry.claimRider("rider-1", firstRide);
+        registry.claimDriver("driver-1", firstRide);
+
+        registry.release(ride(firstRide, RideStatus.COMPLETED, "driver-1"));
+
+        assertTrue(registry.findActiveRideForRider("rider-1").isEmpty());
+        assertTrue(registry.findActiveRideForDriver("driver-1").isEmpty());
+        registry.claimRider("rider-1", secondRide);
+    }
+
+    @Test
+    void claimIsDroppedWhenTheTransactionRollsBack() {
+        TransactionSynchronizationManager.initSynchronization();
+        registry.claimRider("rider-1", firstRide);
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertTrue(registry.findActiveRideForRider("rider-1").isEmpty());
+    }
+
+    @Test
+    void claimLeftBehindByAFinishedRideIsTakenOver() {
+        registry.claimRider("rider-1", firstRide);
+        // Its release was lost, e.g. the node died right after the commit
+        when(rideRepository.findById(firstRide)).thenReturn(Optional.of(ride(firstRide, RideStatus.COMPLETED, null)));
+
+        registry.claimRider("rider-1", secondRide);
+
+        assertEquals(Optional.of(secondRide), registry.findActiveRideForRider("rider-1"));
+    }
+
+    @Test
+    void startupRebuildRestoresActiveRidesAndFailsLoudly() {
+        when(rideRepository.findByStatusIn(ActiveRideRegistry.ACTIVE_STATUSES))
+            .thenReturn(List.of(ride(firstRide, RideStatus.ACCEPTED, "driver-1")));
+
+        registry.afterSingletonsInstantiated();
+
+        assertEquals(Optional.of(firstRide), registry.findActiveRideForDriver("driver-1"));
+        assertThrows(IllegalStateException.class, () -> registry.claimDriver("driver-1", secondRide));
+
+        when(rideRepository.findByStatusIn(any())).thenThrow(new RuntimeException("database down"));
+        assertThrows(IllegalStateException.class, registry::afterSingletonsInstantiated);
+    }
+
+    @Test
+    void releasedDriverClaimOnlyDropsItsOwnRide() {
+        registry.claimDriver("driver-1", firstRide);
+
+        registry.releaseDriver("driver-1", secondRide);
+        assertEquals(Optional.of(firstRide), registry.findActiveRideForDriver("driver-1"));
+
+        registry.releaseDriver("driver-1", firstRide);
+        assertTrue(registry.findActiveRideForDriver("driver-1").isEmpty());
+    }
+
+    private Ride ride(UUID id, RideStatus status, String driverId) {
+        Ride ride = new Ride("rider-1", BigDecimal.ONE, BigDecimal.ONE);
+        ride.setId(id);
+        ride.setStatus(status);
+        ride.setDriverId(driverId);
+        return ride;
+    }
+}
@@ -0,0 +1,132 @@
+package com.dispatch.api.service;
+
+import com.dispatch.api.grpc.GeoIndexProto;
+import com.dispatch.api.model.Driver;
+import com.dispatch.api.model.DriverStatus;
+import com.dispatch.api.model.Ride;
+import com.dispatch.api.repository.DriverRepository;
+import com.dispatch.api.repository.RideRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class DispatchServiceTest {
+
+    private RideRepository rideRepository;
+    private DriverRepository driverRepository;
+    private EventPublishingService eventPublishingService;
+    private ActiveRideRegistry activeRideRegistry;
+    private RideStateWriter rideStateWriter;
+    private RealtimeNotificationService realtimeNotificationService;
+    private DispatchService dispatchService;
+
+    private Ride ride;
+
+    @BeforeEach
+    void setUp() {
+        rideRepository = mock(RideRepository.class);
+        driverRepository = mock(DriverRepository.class);
+        GeoIndexService geoIndexService = mock(GeoIndexService.class);
+        eventPublishingService = mock(EventPublishingService.class);
+        FeatureFlagService featureFlagService = mock(FeatureFlagService.class);
+        activeRideRegistry = mock(ActiveRideRegistry.class);
+        rideStateWriter = mock(RideStateWriter.class);
+        realtimeNotificationService = mock(RealtimeNotificationService.class);
+
+        dispatchService = new DispatchService(rideRepository, driverRepository, geoIndexService,
+            eventPublishingService, featureFlagService, mock(DriverLocationCoalescer.class),
+            mock(RideSnapshotCache.class), activeRideRegistry, rideStateWriter,
+            realtimeNotificationService);
+        ReflectionTestUtils.setField(dispatchService, "maxSearchRadiusKm", 5.0);
+        ReflectionTestUtils.setField(dispatchService, "maxDriversToConsider", 10);
+        ReflectionTestUtils.setField(dispatchService, "commitTimeout", Duration.ofMillis(50));
+
+        ride = new Ride("rider-1", new BigDecimal("40.7580"), new BigDecimal("-73.9855"));
+        ride.setId(UUID.randomUUID());
+
+        Driver driver = new Driver("driver-1", "Driver One");
+        driver.setStatus(DriverStatus.AVAILABLE);
+        when(driverRepository.findById("driver-1")).thenReturn(Optional.of(driver));
+        when(geoIndexService.findNearestDrivers(any(), any(), anyInt(), anyDouble())).thenReturn(List.of(
+            GeoIndexProto.DriverLocation.newBuilder()
+                .setDriverId("driver-1")
+                .setStatus(GeoIndexProto.DriverStatus.AVAILABLE)
+                .setDistanceKm(0.4)
+                .build()));
+    }
+
+    @Test
+    void claimIsReleasedWhenTheAssignmentCannotBeSaved() {
+        when(driverRepository.save(any())).thenThrow(new RuntimeException("connection reset"));
+
+        dispatchService.attemptDriverMatching(ride);
+
+        verify(activeRideRegistry).claimDriver("driver-1", ride.getId());
+        verify(activeRideRegistry).releaseDriver("driver-1", ride.getId());
+        verify(eventPublishingService, never()).publishRideAssignmentEvent(any(), any(), any());
+    }
+
+    @Test
+    void claimHeldByAnotherRideIsLeftAlone() {
+        doThrow(new IllegalStateException("Driver already has an active ride"))
+            .when(activeRideRegistry).claimDriver("driver-1", ride.getId());
+
+        dispatchService.attemptDriverMatching(ride);
+
+        verify(activeRideRegistry, never()).releaseDriver(any(), any());
+        verify(rideRepository, never()).save(any());
+    }
+
+    @Test
+    void successfulAssignmentKeepsTheClaim() {
+        dispatchService.attemptDriverMatching(ride);
+
+        verify(activeRideRegistry).claimDriver("driver-1", ride.getId());
+        verify(activeRideRegistry, never()).releaseDriver(any(), any());
+        verify(eventPublishingService).publishRideAssignmentEvent(ride.getId().toString(), "driver-1", "ASSIGNED");
+    }
+
+    @Test
+    void riderHearsAboutTheAssignmentOnlyAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            dispatchService.attemptDriverMatching(ride);
+
+            verify(realtimeNotificationService, never()).handleRideEvent(any());
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(realtimeNotificationService).handleRideEvent(argThat(event -> "ACCEPTED".equals(event.getEventType())));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void transitionNotCommittedInTimeIsReportedAsATimeout() {
+        when(rideStateWriter.submit(any())).thenReturn(new CompletableFuture<>());
+
+        assertThrows(QueryTimeoutException.class, () -> dispatchService.startRide(ride.getId(), "driver-1"));
+        verify(eventPublishingService, never()).publishRideEvent(any());
+    }
+
+    @Test
+    void rejectedTransitionKeepsItsOwnException() {
+        when(rideStateWriter.submit(any())).thenReturn(CompletableFuture.failedFuture(
+            new IllegalStateException("Ride cannot be started")));
+
+        assertThrows(IllegalStateException.class, () -> dispatchService.startRide(ride.getId(), "driver-1"));
+    }
+}
@@ -0,0 +1,70 @@
+package com.dispatch.api.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DriverHeartbeatTrackerTest {
+
+    private static final long START = 1_700_000_000_000L;
+
+    private DriverHeartbeatTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new DriverHeartbeatTracker();
+        ReflectionTestUtils.setField(tracker, "timeout", Duration.ofSeconds(60));
+        ReflectionTestUtils.setField(tracker, "tick", Duration.ofSeconds(1));
+        tracker.init();
+        tracker.expire(START);
+    }
+
+    @Test
+    void expiresDriverAfterTimeout() {
+        tracker.heartbeat("driver-1", START);
+
+        assertTrue(tracker.expire(START + 59_000).isEmpty());
+        assertEquals(List.of("driver-1"), tracker.expire(START + 60_000));
+        assertEquals(0, tracker.size());
+    }
+
+    @Test
+    void laterHeartbeatPushesDeadlineBack() {
+        tracker.heartbeat("driver-1", START);
+        tracker.heartbeat("driver-1", START + 30_000);
+
+        assertTrue(tracker.expire(START + 60_000).isEmpty());
+        assertTrue(tracker.expire(START + 89_000).isEmpty());
+        assertEquals(List.of("driver-1"), tracker.expire(START + 90_000));
+    }
+
+    @Test
+    void removedDriverNeverExpires() {
+        tracker.heartbeat("driver-1", START);
+        tracker.remove("driver-1");
+
+        assertTrue(tracker.expire(START + 120_000).isEmpty());
+    }
+
+    @Test
+    void staleSeedExpiresOnNextTick() {
+        tracker.heartbeat("driver-1", START - 600_000);
+
+        assertEquals(List.of("driver-1"), tracker.expire(START + 1_000));
+    }
+
+    @Test
+    void catchesUpAfterLongPause() {
+        tracker.heartbeat("driver-1", START);
+        tracker.heartbeat("driver-2", START + 10_000);
+
+        List<String> expired = tracker.expire(START + 300_000);
+        assertEquals(2, expired.size());
+        assertTrue(expired.containsAll(List.of("driver-1", "driver-2")));
+    }
+}
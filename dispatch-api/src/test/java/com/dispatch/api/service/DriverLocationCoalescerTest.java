@@ -0,0 +1,176 @@
+package com.dispatch.api.service;
+
+import com.dispatch.api.dto.events.DriverLocationEvent;
+import com.dispatch.api.repository.DriverLocationJdbcRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class DriverLocationCoalescerTest {
+
+    private DriverLocationJdbcRepository jdbcRepository;
+    private GeoIndexService geoIndexService;
+    private EventPublishingService eventPublishingService;
+    private DriverLocationCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        jdbcRepository = mock(DriverLocationJdbcRepository.class);
+        geoIndexService = mock(GeoIndexService.class);
+        eventPublishingService = mock(EventPublishingService.class);
+
+        coalescer = new DriverLocationCoalescer(jdbcRepository, geoIndexService, eventPublishingService,
+                                                new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(coalescer, "enabled", true);
+        ReflectionTestUtils.setField(coalescer, "minDistanceMeters", 15.0);
+        ReflectionTestUtils.setField(coalescer, "minHeadingDeltaDegrees", 20);
+        ReflectionTestUtils.setField(coalescer, "maxSilence", Duration.ofSeconds(30));
+    }
+
+    @Test
+    void suppressesPingsThatBarelyMoveAfterFlush() {
+        assertTrue(coalescer.offer(ping("40.758900", "-73.985100", 90)));
+        coalescer.flush();
+
+        // ~1m north, same heading
+        assertFalse(coalescer.offer(ping("40.758910", "-73.985100", 92)));
+        coalescer.flush();
+
+        verify(eventPublishingService, times(1)).publishDriverLocationEvent(any());
+    }
+
+    @Test
+    void forwardsSignificantMovesAndHeadingChanges() {
+        coalescer.offer(ping("40.758900", "-73.985100", 90));
+        coalescer.flush();
+
+        // ~110m north
+        assertTrue(coalescer.offer(ping("40.759900", "-73.985100", 90)));
+        coalescer.flush();
+
+        // Same position, turned around
+        assertTrue(coalescer.offer(ping("40.759900", "-73.985100", 270)));
+        coalescer.flush();
+
+        verify(eventPublishingService, times(3)).publishDriverLocationEvent(any());
+    }
+
+    @Test
+    void forwardsStatusChangesEvenWithoutMovement() {
+        coalescer.offer(ping("40.758900", "-73.985100", 90));
+        coalescer.flush();
+
+        DriverLocationEvent busy = ping("40.758900", "-73.985100", 90);
+        busy.setStatus("BUSY");
+        assertTrue(coalescer.offer(busy));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flushesOnlyLatestPingPerDriver() {
+        coalescer.offer(ping("40.758900", "-73.985100", 90));
+        coalescer.offer(ping("40.760000", "-73.985100", 90));
+        DriverLocationEvent latest = ping("40.761000", "-73.985100", 90);
+        coalescer.offer(latest);
+
+        coalescer.flush();
+
+        ArgumentCaptor<Collection<DriverLocationEvent>> batch = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcRepository).batchUpdateLocations(batch.capture());
+        assertEquals(List.of(latest), List.copyOf(batch.getValue()));
+        verify(geoIndexService).updateDriverLocations(batch.getValue());
+        verify(eventPublishingService, times(1)).publishDriverLocationEvent(latest);
+    }
+
+    @Test
+    void evictDropsPendingPing() {
+        coalescer.offer(ping("40.758900", "-73.985100", 90));
+        coalescer.evict("driver-1");
+
+        coalescer.flush();
+
+        verifyNoInteractions(jdbcRepository, geoIndexService, eventPublishingService);
+    }
+
+    @Test
+    void conflatedPingsTakeTheLastKnownStatus() {
+        DriverLocationEvent unknown = ping("40.758900", "-73.985100", 90);
+        unknown.setStatus(null);
+        assertFalse(coalescer.conflate(unknown));
+
+        DriverLocationEvent busy = ping("40.758900", "-73.985100", 90);
+        busy.setStatus("BUSY");
+        coalescer.offer(busy);
+        coalescer.flush();
+
+        DriverLocationEvent conflated = ping("40.761000", "-73.985100", 90);
+        conflated.setStatus(null);
+        assertTrue(coalescer.conflate(conflated));
+        coalescer.flush();
+
+        assertEquals("BUSY", conflated.getStatus());
+        verify(eventPublishingService).publishDriverLocationEvent(conflated);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failedFlushIsRetriedWithTheNextOne() {
+        DriverLocationEvent first = ping("40.758900", "-73.985100", 90);
+        coalescer.offer(first);
+        when(jdbcRepository.batchUpdateLocations(any())).thenThrow(new RuntimeException("connection reset"));
+        coalescer.flush();
+        verify(eventPublishingService, never()).publishDriverLocationEvent(any());
+
+        // Still waiting to be written, so a ping next to it adds nothing
+        assertFalse(coalescer.offer(ping("40.758910", "-73.985100", 90)));
+
+        reset(jdbcRepository);
+        coalescer.flush();
+
+        ArgumentCaptor<Collection<DriverLocationEvent>> batch = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcRepository).batchUpdateLocations(batch.capture());
+        assertEquals(List.of(first), List.copyOf(batch.getValue()));
+        verify(eventPublishingService).publishDriverLocationEvent(first);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failedFlushDoesNotOverwriteNewerPings() {
+        DriverLocationEvent first = ping("40.758900", "-73.985100", 90);
+        DriverLocationEvent newer = ping("40.761000", "-73.985100", 90);
+        coalescer.offer(first);
+        // The newer ping arrives while the flush is writing, which then fails
+        when(jdbcRepository.batchUpdateLocations(any())).thenAnswer(invocation -> {
+            coalescer.offer(newer);
+            throw new RuntimeException("connection reset");
+        });
+        coalescer.flush();
+
+        reset(jdbcRepository);
+        coalescer.flush();
+
+        ArgumentCaptor<Collection<DriverLocationEvent>> batch = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcRepository).batchUpdateLocations(batch.capture());
+        assertEquals(List.of(newer), List.copyOf(batch.getValue()));
+        verify(eventPublishingService, never()).publishDriverLocationEvent(first);
+    }
+
+    private DriverLocationEvent ping(String lat, String lng, int heading) {
+        DriverLocationEvent event = new DriverLocationEvent(
+            "driver-1", new BigDecimal(lat), new BigDecimal(lng), "AVAILABLE"
+        );
+        event.setHeading(heading);
+        return event;
+    }
+}
@@ -0,0 +1,112 @@
+package com.dispatch.api.service;
+
+import com.dispatch.api.dto.events.DriverLocationEvent;
+import com.dispatch.api.dto.request.UpdateDriverLocationRequest;
+import com.dispatch.api.dto.response.BatchLocationUpdateResponse.ItemStatus;
+import com.dispatch.api.repository.DriverLocationJdbcRepository;
+import com.dispatch.api.repository.DriverRepository;
+import com.dispatch.api.repository.GeoSearchJdbcRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class DriverLocationServiceTest {
+
+    private GeoIndexService geoIndexService;
+    private EventPublishingService eventPublishingService;
+    private DriverLocationCoalescer coalescer;
+    private DriverHeartbeatTracker heartbeatTracker;
+    private DriverLocationJdbcRepository jdbcRepository;
+    private DriverLocationService service;
+
+    @BeforeEach
+    void setUp() {
+        geoIndexService = mock(GeoIndexService.class);
+        eventPublishingService = mock(EventPublishingService.class);
+        coalescer = mock(DriverLocationCoalescer.class);
+        heartbeatTracker = mock(DriverHeartbeatTracker.class);
+        jdbcRepository = mock(DriverLocationJdbcRepository.class);
+
+        service = new DriverLocationService(mock(DriverRepository.class), geoIndexService, eventPublishingService,
+                coalescer, mock(EntityManager.class), heartbeatTracker, jdbcRepository, mock(GeoSearchJdbcRepository.class));
+
+        when(jdbcRepository.findStatuses(anyCollection())).thenReturn(Map.of(
+                "driver-1", "AVAILABLE",
+                "driver-2", "OFFLINE"));
+        when(geoIndexService.updateDriverLocations(anyCollection())).thenAnswer(invocation -> ((Collection<?>) invocation.getArgument(0)).size());
+    }
+
+    @Test
+    void batchWritesLatestPositionPerDriverInRequestOrder() {
+        List<ItemStatus> statuses = service.updateDriverLocations(List.of(
+                ping("driver-1", "40.758000"),
+                ping("driver-3", "40.758500"),
+                ping("driver-1", "40.759000")));
+
+        assertEquals(List.of(ItemStatus.SUPERSEDED, ItemStatus.NOT_FOUND, ItemStatus.ACCEPTED), statuses);
+        verify(jdbcRepository).batchUpdateLocations(argThat(events -> events.size() == 1
+                && events.iterator().next().getLat().equals(new BigDecimal("40.759000"))));
+        verify(eventPublishingService, times(1)).publishDriverLocationEvent(any());
+    }
+
+    @Test
+    void batchDoesNotTrackHeartbeatsOfOfflineDrivers() {
+        service.updateDriverLocations(List.of(ping("driver-1", "40.758000"), ping("driver-2", "40.760000")));
+
+        verify(heartbeatTracker).heartbeat(eq("driver-1"), anyLong());
+        verify(heartbeatTracker, never()).heartbeat(eq("driver-2"), anyLong());
+    }
+
+    @Test
+    void failedBatchWriteIsReportedPerItemWithoutIndexingOrPublishing() {
+        when(jdbcRepository.batchUpdateLocations(anyCollection()))
+                .thenThrow(new DataAccessResourceFailureException("connection reset"));
+
+        List<ItemStatus> statuses = service.updateDriverLocations(List.of(ping("driver-1", "40.758000"), ping("driver-2", "40.760000")));
+
+        assertEquals(List.of(ItemStatus.FAILED, ItemStatus.FAILED), statuses);
+        verify(geoIndexService, never()).updateDriverLocations(anyCollection());
+        verify(eventPublishingService, never()).publishDriverLocationEvent(any());
+    }
+
+    @Test
+    void coalescedBatchReportsSuppressedPings() {
+        when(coalescer.isEnabled()).thenReturn(true);
+        when(coalescer.offer(argThat(event -> event != null && event.getDriverId().equals("driver-1")))).thenReturn(true);
+
+        List<ItemStatus> statuses = service.updateDriverLocations(List.of(ping("driver-1", "40.758000"), ping("driver-2", "40.760000")));
+
+        assertEquals(List.of(ItemStatus.ACCEPTED, ItemStatus.SUPPRESSED), statuses);
+        verify(jdbcRepository, never()).batchUpdateLocations(anyCollection());
+    }
+
+    @Test
+    void reapedDriversAreAnnouncedOfflineAtTheirLastPosition() {
+        when(heartbeatTracker.expire(anyLong())).thenReturn(List.of("driver-1", "driver-4", "driver-5"));
+        when(heartbeatTracker.getTimeout()).thenReturn(Duration.ofSeconds(30));
+        DriverLocationEvent located = new DriverLocationEvent("driver-1", new BigDecimal("40.758000"), new BigDecimal("-73.985100"), "OFFLINE");
+        DriverLocationEvent neverLocated = new DriverLocationEvent("driver-4", null, null, "OFFLINE");
+        when(jdbcRepository.markOffline(anyCollection(), any())).thenReturn(List.of(located, neverLocated));
+
+        service.reapExpiredDrivers();
+
+        verify(geoIndexService).removeDrivers(List.of("driver-1", "driver-4"));
+        verify(eventPublishingService).publishDriverLocationEvent(located);
+        verify(eventPublishingService, never()).publishDriverLocationEvent(neverLocated);
+    }
+
+    private static UpdateDriverLocationRequest ping(String driverId, String lat) {
+        return new UpdateDriverLocationRequest(driverId, new BigDecimal(lat), new BigDecimal("-73.985100"));
+    }
+}
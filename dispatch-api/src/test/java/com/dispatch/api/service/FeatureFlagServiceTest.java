@@ -0,0 +1,78 @@
+package com.dispatch.api.service;
+
+import com.dispatch.api.service.FeatureFlagService.FeatureFlag;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class FeatureFlagServiceTest {
+
+    private RestTemplate restTemplate;
+    private FeatureFlagService featureFlagService;
+
+    @BeforeEach
+    void setUp() {
+        restTemplate = mock(RestTemplate.class);
+        featureFlagService = new FeatureFlagService(new RestTemplateBuilder(), Duration.ofSeconds(1), Duration.ofSeconds(2));
+        ReflectionTestUtils.setField(featureFlagService, "restTemplate", restTemplate);
+        ReflectionTestUtils.setField(featureFlagService, "featureFlagApiUrl", "http://flags/api");
+        ReflectionTestUtils.setField(featureFlagService, "featureFlagsEnabled", true);
+    }
+
+    @Test
+    void servesSnapshotWithoutCallingFlagService() {
+        when(restTemplate.getForObject(anyString(), any())).thenReturn(new FeatureFlag[] {
+            new FeatureFlag("advanced_matching", true, null)
+        });
+        featureFlagService.refreshFlags();
+
+        assertTrue(featureFlagService.isFeatureEnabled("advanced_matching", "default"));
+        assertTrue(featureFlagService.isFeatureEnabled("advanced_matching", "rider_42"));
+        verify(restTemplate, times(1)).getForObject(anyString(), any());
+    }
+
+    @Test
+    void keepsLastSnapshotWhenFlagServiceIsDown() {
+        when(restTemplate.getForObject(anyString(), any()))
+            .thenReturn(new FeatureFlag[] { new FeatureFlag("advanced_matching", true, 100.0) })
+            .thenThrow(new ResourceAccessException("connection refused"));
+
+        featureFlagService.refreshFlags();
+        featureFlagService.refreshFlags();
+
+        assertTrue(featureFlagService.isFeatureEnabled("advanced_matching", "default"));
+    }
+
+    @Test
+    void unknownFlagsFallBackToDefaults() {
+        assertTrue(featureFlagService.isFeatureEnabled("dynamic_eta", "default"));
+        assertFalse(featureFlagService.isFeatureEnabled("advanced_matching", "default"));
+    }
+
+    @Test
+    void rolloutIsStablePerContextAndRoughlyProportional() {
+        int enabled = 0;
+        for (int i = 0; i < 10_000; i++) {
+            String context = "rider_" + i;
+            boolean first = FeatureFlagService.isInRollout("surge_pricing", context, 25.0);
+            assertEquals(first, FeatureFlagService.isInRollout("surge_pricing", context, 25.0));
+            if (first) {
+                enabled++;
+                // Raising the percentage never drops a context that was already in
+                assertTrue(FeatureFlagService.isInRollout("surge_pricing", context, 60.0));
+            }
+        }
+
+        assertTrue(enabled > 2_200 && enabled < 2_800, "expected ~25% rollout but got " + enabled);
+    }
+}
@@ -0,0 +1,63 @@
+package com.dispatch.api.service;
+
+import com.dispatch.api.dto.events.DriverLocationEvent;
+import com.dispatch.api.dto.response.RideResponse;
+import com.dispatch.api.websocket.SerializedMessageSender;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RealtimeNotificationServiceTest {
+
+    private SerializedMessageSender messageSender;
+    private ActiveRideRegistry activeRideRegistry;
+    private RideSnapshotCache rideSnapshotCache;
+    private RealtimeNotificationService service;
+
+    @BeforeEach
+    void setUp() {
+        messageSender = mock(SerializedMessageSender.class);
+        activeRideRegistry = mock(ActiveRideRegistry.class);
+        rideSnapshotCache = mock(RideSnapshotCache.class);
+        service = new RealtimeNotificationService(messageSender, mock(RideEventStreamService.class), new ObjectMapper(),
+                activeRideRegistry, rideSnapshotCache);
+    }
+
+    @Test
+    void driverPositionsGoToTheRiderOfTheActiveRide() {
+        UUID rideId = UUID.randomUUID();
+        RideResponse ride = new RideResponse();
+        ride.setRiderId("rider-1");
+        ride.setDriverId("driver-1");
+        when(activeRideRegistry.findActiveRideForDriver("driver-1")).thenReturn(Optional.of(rideId));
+        when(rideSnapshotCache.get(rideId)).thenReturn(Optional.of(ride));
+
+        service.onDriverLocation(location("driver-1", "AVAILABLE"));
+
+        verify(messageSender).sendConflatableToUser(eq("rider-1"), eq("/queue/driver-location"), any(), eq("driver-1"), any(byte[].class));
+    }
+
+    @Test
+    void positionsOfDriversWithoutARideOrGoingOfflineAreNotForwarded() {
+        when(activeRideRegistry.findActiveRideForDriver(anyString())).thenReturn(Optional.empty());
+
+        service.onDriverLocation(location("driver-2", "AVAILABLE"));
+        service.onDriverLocation(location("driver-3", "OFFLINE"));
+
+        verify(activeRideRegistry, never()).findActiveRideForDriver("driver-3");
+        verifyNoInteractions(messageSender, rideSnapshotCache);
+    }
+
+    private static DriverLocationEvent location(String driverId, String status) {
+        DriverLocationEvent event = new DriverLocationEvent(driverId, new BigDecimal("40.758000"), new BigDecimal("-73.985100"), status);
+        event.setHeading(90);
+        return event;
+    }
+}
@@ -0,0 +1,115 @@
+package com.dispatch.api.service;
+
+import com.dispatch.api.dto.websocket.RideStatusUpdate;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RideEventStreamServiceTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private RideEventStreamService service;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        service = new RideEventStreamService(new ObjectMapper(), meterRegistry);
+        ReflectionTestUtils.setField(service, "bufferSize", 2);
+        ReflectionTestUtils.setField(service, "timeout", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(service, "retention", Duration.ofMinutes(10));
+        ReflectionTestUtils.setField(service, "writer", (Executor) Runnable::run);
+    }
+
+    @Test
+    void doesNotKeepStreamsOpenedAfterTheRideEnded() {
+        UUID rideId = UUID.randomUUID();
+
+        service.subscribe(rideId, null);
+        service.subscribe(rideId, "1");
+        assertEquals(2.0, connections());
+
+        service.publish(rideId, 1, "ride-status", "ASSIGNED", update(rideId, "ASSIGNED"));
+        service.publish(rideId, 2, "ride-status", "COMPLETED", update(rideId, "COMPLETED"));
+        assertEquals(0.0, connections());
+
+        // Replays what it missed and is completed right away
+        service.subscribe(rideId, "1");
+        assertEquals(0.0, connections());
+    }
+
+    @Test
+    void publishingOnlyQueuesTheWrites() {
+        List<Runnable> writes = new ArrayList<>();
+        ReflectionTestUtils.setField(service, "writer", (Executor) writes::add);
+        UUID rideId = UUID.randomUUID();
+
+        service.subscribe(rideId, null);
+        service.publish(rideId, 7, "ride-status", "ASSIGNED", update(rideId, "ASSIGNED"));
+        service.publish(rideId, 8, "ride-status", "IN_PROGRESS", update(rideId, "IN_PROGRESS"));
+
+        // One writer for the connection, still pending; the events wait in its queue
+        assertEquals(1, writes.size());
+        assertEquals(1.0, connections());
+
+        writes.forEach(Runnable::run);
+        assertEquals(1.0, connections());
+    }
+
+    @Test
+    void closesStreamsThatFallAWholeBufferBehind() {
+        List<Runnable> writes = new ArrayList<>();
+        ReflectionTestUtils.setField(service, "writer", (Executor) writes::add);
+        UUID rideId = UUID.randomUUID();
+
+        service.subscribe(rideId, null);
+        for (long offset = 10; offset < 13; offset++) {
+            service.publish(rideId, offset, "ride-status", "IN_PROGRESS", update(rideId, "IN_PROGRESS"));
+        }
+
+        writes.forEach(Runnable::run);
+        assertEquals(0.0, connections());
+    }
+
+    @Test
+    void ignoresRedeliveredEvents() {
+        UUID rideId = UUID.randomUUID();
+        service.publish(rideId, 5, "ride-status", "ASSIGNED", update(rideId, "ASSIGNED"));
+
+        // An older offset arriving late must not end the stream
+        service.publish(rideId, 4, "ride-status", "CANCELLED", update(rideId, "CANCELLED"));
+        service.subscribe(rideId, "5");
+
+        assertEquals(1.0, connections());
+    }
+
+    @Test
+    void forgetsIdleRidesAfterRetention() {
+        UUID rideId = UUID.randomUUID();
+        service.publish(rideId, 0, "ride-status", "ASSIGNED", update(rideId, "ASSIGNED"));
+        assertEquals(1.0, meterRegistry.get("dispatch.rides.stream.rides").gauge().value());
+
+        ReflectionTestUtils.setField(service, "retention", Duration.ZERO);
+        service.sendHeartbeats();
+
+        assertEquals(0.0, meterRegistry.get("dispatch.rides.stream.rides").gauge().value());
+    }
+
+    private double connections() {
+        return meterRegistry.get("dispatch.rides.stream.connections").gauge().value();
+    }
+
+    private static RideStatusUpdate update(UUID rideId, String status) {
+        return new RideStatusUpdate(rideId.toString(), status, status, Map.of());
+    }
+}
@@ -0,0 +1,147 @@
+package com.dispatch.api.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import org.testcontainers.utility.MountableFile;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Testcontainers
+class RidePartitionMaintenanceTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(
+            DockerImageName.parse("postgis/postgis:15-3.4").asCompatibleSubstituteFor("postgres"))
+            .withCopyFileToContainer(MountableFile.forHostPath("../infrastructure/postgres/init.sql"),
+                    "/docker-entrypoint-initdb.d/init.sql");
+
+    private static final DateTimeFormatter PARTITION_MONTH = DateTimeFormatter.ofPattern("uuuuMM");
+
+    private static DriverManagerDataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private RidePartitionMaintenance maintenance;
+
+    @BeforeAll
+    static void migrate() {
+        dataSource = new DriverManagerDataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .baselineOnMigrate(true)
+                .load()
+                .migrate();
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        meterRegistry = new SimpleMeterRegistry();
+        maintenance = new RidePartitionMaintenance(jdbcTemplate, meterRegistry);
+        ReflectionTestUtils.setField(maintenance, "monthsAhead", 3);
+        ReflectionTestUtils.setField(maintenance, "retentionMonths", 13);
+        ReflectionTestUtils.setField(maintenance, "detachLockTimeout", "5s");
+    }
+
+    @Test
+    void migrationPartitionsRidesByMonthAndKeepsAhead() {
+        assertEquals(Boolean.TRUE, jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = 'rides'::regclass)", Boolean.class));
+        for (int i = 0; i <= 3; i++) {
+            assertTrue(isAttached(partition(YearMonth.now().plusMonths(i))), "partition " + i + " months ahead");
+        }
+
+        insertRide("COMPLETED", LocalDateTime.now());
+        assertEquals(partition(YearMonth.now()), jdbcTemplate.queryForObject(
+                "SELECT tableoid::regclass::text FROM rides ORDER BY created_at DESC LIMIT 1", String.class));
+    }
+
+    @Test
+    void expiredMonthsAreArchivedUnlessTheyStillHoldActiveRides() {
+        YearMonth finished = YearMonth.now().minusMonths(25);
+        YearMonth stuck = YearMonth.now().minusMonths(24);
+        jdbcTemplate.queryForObject("SELECT ensure_rides_partition(?)", String.class, finished.atDay(1));
+        jdbcTemplate.queryForObject("SELECT ensure_rides_partition(?)", String.class, stuck.atDay(1));
+        insertRide("COMPLETED", finished.atDay(10).atStartOfDay());
+        insertRide("IN_PROGRESS", stuck.atDay(10).atStartOfDay());
+
+        assertEquals(1, maintenance.maintain());
+
+        assertFalse(isAttached(partition(finished)));
+        assertNotNull(jdbcTemplate.queryForObject(
+                "SELECT to_regclass('rides_archive." + partition(finished) + "')::text", String.class));
+        assertTrue(isAttached(partition(stuck)));
+    }
+
+    @Test
+    void ridesCaughtByTheDefaultPartitionMoveIntoTheirMonth() {
+        // Beyond the months created ahead, as if maintenance had not run for a while
+        YearMonth missed = YearMonth.now().plusMonths(8);
+        insertRide("REQUESTED", missed.atDay(3).atStartOfDay());
+        assertEquals(1, countIn("rides_default"));
+
+        maintenance.maintain();
+
+        assertEquals(1.0, meterRegistry.get("dispatch.rides.partitions.default.rows").gauge().value());
+        assertEquals(0, countIn("rides_default"));
+        assertTrue(isAttached(partition(missed)));
+        assertEquals(1, countIn(partition(missed)));
+        assertEquals(1, jdbcTemplate.queryForObject(
+            "SELECT count(*) FROM rides WHERE status = 'REQUESTED' AND pickup_location IS NOT NULL " +
+            "AND created_at >= ? AND created_at < ?", Integer.class,
+            Timestamp.valueOf(missed.atDay(1).atStartOfDay()), Timestamp.valueOf(missed.plusMonths(1).atDay(1).atStartOfDay())));
+
+        maintenance.maintain();
+        assertEquals(0.0, meterRegistry.get("dispatch.rides.partitions.default.rows").gauge().value());
+    }
+
+    @Test
+    void skipsWhileAnotherNodeHoldsTheMaintenanceLock() throws Exception {
+        try (Connection other = dataSource.getConnection(); Statement statement = other.createStatement()) {
+            statement.execute("SELECT pg_advisory_lock(" + RidePartitionMaintenance.MAINTENANCE_LOCK_KEY + ")");
+
+            assertEquals(-1, maintenance.maintain());
+
+            statement.execute("SELECT pg_advisory_unlock(" + RidePartitionMaintenance.MAINTENANCE_LOCK_KEY + ")");
+        }
+
+        assertTrue(maintenance.maintain() >= 0);
+    }
+
+    private void insertRide(String status, LocalDateTime createdAt) {
+        jdbcTemplate.update("INSERT INTO rides (rider_id, pickup_lat, pickup_lng, status, created_at) VALUES (?, ?, ?, ?, ?)",
+                "rider_001", 40.7580, -73.9855, status, Timestamp.valueOf(createdAt));
+    }
+
+    private int countIn(String table) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM " + table, Integer.class);
+    }
+
+    private boolean isAttached(String partition) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                "WHERE i.inhparent = 'rides'::regclass AND c.relname = ?)", Boolean.class, partition));
+    }
+
+    private static String partition(YearMonth month) {
+        return "rides_p" + month.format(PARTITION_MONTH);
+    }
+}
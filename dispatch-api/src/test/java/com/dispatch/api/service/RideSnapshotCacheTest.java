@@ -0,0 +1,142 @@
+package com.dispatch.api.service;
+
+import com.dispatch.api.dto.mapper.RideMapper;
+import com.dispatch.api.dto.response.RideResponse;
+import com.dispatch.api.model.Ride;
+import com.dispatch.api.model.RideStatus;
+import com.dispatch.api.redis.RideSnapshotRedisSerializer;
+import com.dispatch.api.repository.RideRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RideSnapshotCacheTest {
+
+    private final UUID rideId = UUID.randomUUID();
+    private final Map<String, byte[]> redis = new HashMap<>();
+
+    private RideRepository rideRepository;
+    private RideSnapshotCache cache;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        rideRepository = mock(RideRepository.class);
+        RideMapper rideMapper = mock(RideMapper.class);
+        when(rideMapper.toResponse(any(Ride.class))).thenAnswer(invocation -> {
+            Ride ride = invocation.getArgument(0);
+            RideResponse response = new RideResponse();
+            response.setRideId(ride.getId().toString());
+            response.setStatus(ride.getStatus());
+            return response;
+        });
+
+        // Values go through the real codec, as they would on the wire
+        RideSnapshotRedisSerializer serializer =
+                new RideSnapshotRedisSerializer(new ObjectMapper().registerModule(new JavaTimeModule()));
+        RedisTemplate<String, RideResponse> redisTemplate = mock(RedisTemplate.class);
+        ValueOperations<String, RideResponse> values = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(values);
+        when(values.get(anyString())).thenAnswer(invocation -> serializer.deserialize(redis.get(invocation.<String>getArgument(0))));
+        doAnswer(invocation -> redis.put(invocation.getArgument(0), serializer.serialize(invocation.getArgument(1))))
+                .when(values).set(anyString(), any(RideResponse.class), any(Duration.class));
+
+        cache = new RideSnapshotCache(rideRepository, rideMapper, redisTemplate, new SimpleMeterRegistry(),
+                1000, Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(cache, "redisTtl", Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    void clearTransaction() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void pollsAreServedFromCacheAfterTheFirstRead() {
+        when(rideRepository.findById(rideId)).thenReturn(Optional.of(ride(RideStatus.REQUESTED)));
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(RideStatus.REQUESTED, cache.get(rideId).orElseThrow().getStatus());
+        }
+
+        verify(rideRepository, times(1)).findById(rideId);
+    }
+
+    @Test
+    void writeThroughIsVisibleOnlyAfterCommit() {
+        when(rideRepository.findById(rideId)).thenReturn(Optional.of(ride(RideStatus.REQUESTED)));
+        cache.get(rideId);
+
+        TransactionSynchronizationManager.initSynchronization();
+        cache.put(ride(RideStatus.ACCEPTED));
+
+        // Not committed yet: the database still has the old row, and that is what readers get
+        assertEquals(RideStatus.REQUESTED, cache.get(rideId).orElseThrow().getStatus());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertEquals(RideStatus.ACCEPTED, cache.get(rideId).orElseThrow().getStatus());
+    }
+
+    @Test
+    void rideEventFromAnotherNodeReplacesTheLocalSnapshot() {
+        when(rideRepository.findById(rideId)).thenReturn(Optional.of(ride(RideStatus.ACCEPTED)));
+        cache.get(rideId);
+
+        // Another node, still on the JSON format, started the ride and wrote the new snapshot to Redis
+        redis.put("ride:snapshot:" + rideId,
+                ("{\"rideId\":\"" + rideId + "\",\"status\":\"IN_PROGRESS\"}").getBytes(StandardCharsets.UTF_8));
+        cache.invalidate(rideId, RideStatus.IN_PROGRESS);
+
+        assertEquals(RideStatus.IN_PROGRESS, cache.get(rideId).orElseThrow().getStatus());
+        verify(rideRepository, times(1)).findById(rideId);
+    }
+
+    @Test
+    void neverCachesASnapshotOlderThanTheLatestEvent() {
+        when(rideRepository.findById(rideId)).thenReturn(Optional.of(ride(RideStatus.ACCEPTED)));
+        cache.get(rideId);
+
+        // The event arrives before the other node's commit reached Redis or the database
+        cache.invalidate(rideId, RideStatus.IN_PROGRESS);
+
+        assertEquals(RideStatus.ACCEPTED, cache.get(rideId).orElseThrow().getStatus());
+        assertEquals(RideStatus.ACCEPTED, cache.get(rideId).orElseThrow().getStatus());
+        verify(rideRepository, times(3)).findById(rideId);
+
+        when(rideRepository.findById(rideId)).thenReturn(Optional.of(ride(RideStatus.IN_PROGRESS)));
+        assertEquals(RideStatus.IN_PROGRESS, cache.get(rideId).orElseThrow().getStatus());
+        assertEquals(RideStatus.IN_PROGRESS, cache.get(rideId).orElseThrow().getStatus());
+        verify(rideRepository, times(4)).findById(rideId);
+    }
+
+    private Ride ride(RideStatus status) {
+        Ride ride = new Ride("rider-1", BigDecimal.ONE, BigDecimal.ONE);
+        ride.setId(rideId);
+        ride.setStatus(status);
+        return ride;
+    }
+}
@@ -0,0 +1,138 @@
+package com.dispatch.api.service;
+
+import com.dispatch.api.model.Ride;
+import com.dispatch.api.model.RideStatus;
+import com.dispatch.api.repository.RideRepository;
+import com.dispatch.api.repository.RideTransitionRepository;
+import com.dispatch.api.repository.RideTransitionRepository.Command;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RideStateWriterTest {
+
+    // Current state of the rides table
+    private final Map<UUID, Ride> rides = new HashMap<>();
+    private final List<Integer> applyBatchSizes = new ArrayList<>();
+
+    private RideTransitionRepository rideTransitionRepository;
+    private PlatformTransactionManager transactionManager;
+    private RideStateWriter writer;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        rideTransitionRepository = mock(RideTransitionRepository.class);
+        when(rideTransitionRepository.applyAll(anyList())).thenAnswer(invocation -> {
+            List<Command> commands = invocation.getArgument(0);
+            applyBatchSizes.add(commands.size());
+            return commands.stream().mapToInt(this::apply).toArray();
+        });
+
+        RideRepository rideRepository = mock(RideRepository.class);
+        when(rideRepository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            List<Ride> found = new ArrayList<>();
+            invocation.<Iterable<UUID>>getArgument(0).forEach(id -> {
+                if (rides.containsKey(id)) {
+                    found.add(rides.get(id));
+                }
+            });
+            return found;
+        });
+
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        writer = new RideStateWriter(rideTransitionRepository, rideRepository, transactionManager,
+                new SimpleMeterRegistry(), 100);
+        ReflectionTestUtils.setField(writer, "maxBatchSize", 64);
+        ReflectionTestUtils.setField(writer, "maxWait", Duration.ofMillis(50));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        writer.stop();
+    }
+
+    @Test
+    void concurrentTransitionsShareOneCommit() throws Exception {
+        List<CompletableFuture<Ride>> results = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            UUID rideId = ride(RideStatus.ACCEPTED, "driver-" + i);
+            results.add(writer.submit(Command.start(rideId, "driver-" + i)));
+        }
+
+        writer.start();
+        for (CompletableFuture<Ride> result : results) {
+            assertEquals(RideStatus.IN_PROGRESS, result.get(5, TimeUnit.SECONDS).getStatus());
+        }
+
+        assertEquals(List.of(10), applyBatchSizes);
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    void completingFreesTheDriverInTheSameCommit() throws Exception {
+        UUID rideId = ride(RideStatus.IN_PROGRESS, "driver-1");
+
+        writer.start();
+        Ride completed = writer.submit(Command.complete(rideId, "driver-1", BigDecimal.TEN)).get(5, TimeUnit.SECONDS);
+
+        assertEquals(RideStatus.COMPLETED, completed.getStatus());
+        verify(rideTransitionRepository).releaseDrivers(List.of("driver-1"));
+    }
+
+    @Test
+    void rejectedTransitionsFailOnlyTheirOwnCaller() throws Exception {
+        UUID started = ride(RideStatus.IN_PROGRESS, "driver-1");
+        UUID accepted = ride(RideStatus.ACCEPTED, "driver-2");
+
+        CompletableFuture<Ride> ok = writer.submit(Command.start(accepted, "driver-2"));
+        CompletableFuture<Ride> alreadyStarted = writer.submit(Command.start(started, "driver-1"));
+        CompletableFuture<Ride> missing = writer.submit(Command.cancel(UUID.randomUUID()));
+        writer.start();
+
+        ok.get(5, TimeUnit.SECONDS);
+        assertInstanceOf(IllegalStateException.class, assertThrows(CompletionException.class, alreadyStarted::join).getCause());
+        assertInstanceOf(IllegalArgumentException.class, assertThrows(CompletionException.class, missing::join).getCause());
+    }
+
+    // What the conditional UPDATE does to the row
+    private int apply(Command command) {
+        Ride ride = rides.get(command.rideId());
+        if (ride == null || !command.transition().isAllowedFrom(ride.getStatus())
+                || (command.transition().requiresAssignedDriver() && !command.driverId().equals(ride.getDriverId()))) {
+            return 0;
+        }
+        ride.setStatus(command.transition().target());
+        return 1;
+    }
+
+    private UUID ride(RideStatus status, String driverId) {
+        Ride ride = new Ride("rider-1", BigDecimal.ONE, BigDecimal.ONE);
+        ride.setId(UUID.randomUUID());
+        ride.setStatus(status);
+        ride.setDriverId(driverId);
+        rides.put(ride.getId(), ride);
+        return ride.getId();
+    }
+}
@@ -0,0 +1,37 @@
+package com.dispatch.api.util;
+
+import com.dispatch.api.grpc.GeoIndexProto.DriverLocation;
+import com.dispatch.api.grpc.GeoIndexProto.DriverStatus;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DriverCandidatesTest {
+
+    @Test
+    void picksTheNearestAvailableDriverAndKeepsTheFirstOnTies() {
+        List<DriverLocation> drivers = List.of(
+                driver("busy", 0.2, DriverStatus.BUSY),
+                driver("far", 1.5, DriverStatus.AVAILABLE),
+                driver("near", 0.4, DriverStatus.AVAILABLE),
+                driver("near-too", 0.4, DriverStatus.AVAILABLE));
+
+        assertEquals("near", DriverCandidates.nearestAvailable(drivers).getDriverId());
+    }
+
+    @Test
+    void nullWhenNoDriverIsAvailable() {
+        assertNull(DriverCandidates.nearestAvailable(List.of(driver("busy", 0.2, DriverStatus.BUSY))));
+        assertNull(DriverCandidates.nearestAvailable(List.of()));
+    }
+
+    private static DriverLocation driver(String driverId, double distanceKm, DriverStatus status) {
+        return DriverLocation.newBuilder()
+                .setDriverId(driverId)
+                .setDistanceKm(distanceKm)
+                .setStatus(status)
+                .build();
+    }
+}
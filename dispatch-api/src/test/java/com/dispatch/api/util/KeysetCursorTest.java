@@ -0,0 +1,43 @@
+package com.dispatch.api.util;
+
+import com.dispatch.api.dto.response.SliceResponse;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeysetCursorTest {
+
+    @Test
+    void roundTripsThroughItsEncodedForm() {
+        KeysetCursor cursor = new KeysetCursor(LocalDateTime.of(2024, 3, 1, 12, 30, 15, 123_456_000), "driver|007");
+
+        String encoded = cursor.encode();
+
+        assertTrue(encoded.matches("[A-Za-z0-9_-]+"));
+        assertEquals(cursor, KeysetCursor.decode(encoded));
+    }
+
+    @Test
+    void rejectsCursorsItDidNotProduce() {
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode("not a cursor"));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode("bm8tc2VwYXJhdG9y"));
+    }
+
+    @Test
+    void sliceHasNextCursorOnlyWhenMoreRowsExist() {
+        LocalDateTime now = LocalDateTime.of(2024, 3, 1, 12, 0);
+        List<String> rows = List.of("c", "b", "a");
+
+        SliceResponse<String> first = SliceResponse.of(rows, 2, id -> new KeysetCursor(now, id), String::toUpperCase);
+        SliceResponse<String> last = SliceResponse.of(rows, 3, id -> new KeysetCursor(now, id), String::toUpperCase);
+
+        assertEquals(List.of("C", "B"), first.getItems());
+        assertEquals("b", KeysetCursor.decode(first.getNextCursor()).id());
+        assertTrue(first.isHasMore());
+        assertNull(last.getNextCursor());
+        assertFalse(last.isHasMore());
+    }
+}
@@ -0,0 +1,37 @@
+package com.dispatch.api.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MapTileTest {
+
+    @Test
+    void computesSlippyTileForPoint() {
+        assertEquals(new MapTile(14, 4824, 6157), MapTile.containing(40.7589, -73.9851, 14));
+        assertEquals(new MapTile(12, 1206, 1539), MapTile.containing(40.7589, -73.9851, 12));
+        assertEquals(new MapTile(1, 1, 1), MapTile.containing(0, 0, 1));
+    }
+
+    @Test
+    void clampsToTileGridAtTheEdges() {
+        assertEquals(new MapTile(3, 7, 0), MapTile.containing(89.9, 180.0, 3));
+        assertEquals(new MapTile(3, 0, 7), MapTile.containing(-89.9, -180.0, 3));
+    }
+
+    @Test
+    void roundTripsDestination() {
+        MapTile tile = new MapTile(14, 4824, 6157);
+
+        assertEquals("/topic/tiles/14/4824/6157", tile.destination());
+        assertEquals(tile, MapTile.fromDestination(tile.destination()));
+    }
+
+    @Test
+    void rejectsMalformedDestinations() {
+        assertNull(MapTile.fromDestination("/topic/surge-updates"));
+        assertNull(MapTile.fromDestination("/topic/tiles/14/4824"));
+        assertNull(MapTile.fromDestination("/topic/tiles/14/a/b"));
+        assertNull(MapTile.fromDestination("/topic/tiles/2/4/0"));
+    }
+}
@@ -0,0 +1,138 @@
+package com.dispatch.api.websocket;
+
+import com.dispatch.api.websocket.BackpressureWebSocketSession.OverflowPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class BackpressureWebSocketSessionTest {
+
+    private WebSocketSession delegate;
+    private SimpleMeterRegistry meterRegistry;
+    private Queue<Runnable> writerTasks;
+    private BackpressureWebSocketSession.ConflationListener listener;
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(WebSocketSession.class);
+        when(delegate.getId()).thenReturn("session-1");
+        when(delegate.isOpen()).thenReturn(true);
+        meterRegistry = new SimpleMeterRegistry();
+        writerTasks = new ArrayDeque<>();
+        listener = BackpressureWebSocketSession.ConflationListener.NONE;
+    }
+
+    @Test
+    void keepsOnlyTheLatestPositionPerDriverWhileTheWriterIsBusy() throws Exception {
+        BackpressureWebSocketSession session = session(16, OverflowPolicy.CLOSE);
+
+        session.sendMessage(frame("sub-0", "driver-1", "{\"lat\":1}"));
+        session.sendMessage(frame("sub-0", "driver-2", "{\"lat\":2}"));
+        session.sendMessage(frame("sub-0", "driver-1", "{\"lat\":3}"));
+        session.sendMessage(frame("sub-1", null, "{\"status\":\"ARRIVED\"}"));
+
+        assertEquals(3, session.getQueueSize());
+        runWriter();
+
+        ArgumentCaptor<WebSocketMessage<?>> written = ArgumentCaptor.forClass(WebSocketMessage.class);
+        verify(delegate, times(3)).sendMessage(written.capture());
+        assertTrue(((String) written.getAllValues().get(0).getPayload()).endsWith("{\"lat\":3}\u0000"));
+        assertEquals(1.0, meterRegistry.counter("dispatch.websocket.outbound.conflated").count());
+    }
+
+    @Test
+    void conflationListenerRewritesTheSurvivingFrameAndHearsAboutDrops() throws Exception {
+        listener = mock(BackpressureWebSocketSession.ConflationListener.class);
+        TextMessage keyframe = frame("sub-0", "driver-1", "{\"keyframe\":3}");
+        when(listener.conflated(eq("session-1"), eq("sub-0"), any())).thenAnswer(invocation -> keyframe);
+        BackpressureWebSocketSession session = session(3, OverflowPolicy.CLOSE);
+
+        session.sendMessage(frame("sub-0", "driver-1", "{\"lat\":1}"));
+        session.sendMessage(frame("sub-0", "driver-1", "{\"lat\":3}"));
+        session.sendMessage(frame("sub-1", null, "a"));
+        session.sendMessage(frame("sub-1", null, "b"));
+        // Queue is full: the queued position makes room
+        session.sendMessage(frame("sub-1", null, "c"));
+        verify(listener).dropped("session-1", "sub-0");
+        runWriter();
+
+        session.sendMessage(frame("sub-0", "driver-1", "{\"lat\":4}"));
+        session.sendMessage(frame("sub-0", "driver-1", "{\"lat\":5}"));
+        runWriter();
+
+        ArgumentCaptor<WebSocketMessage<?>> written = ArgumentCaptor.forClass(WebSocketMessage.class);
+        verify(delegate, times(4)).sendMessage(written.capture());
+        assertSame(keyframe, written.getAllValues().get(3));
+        verify(listener, times(2)).conflated(eq("session-1"), eq("sub-0"), any());
+    }
+
+    @Test
+    void closesTheSessionWhenTheQueueIsFull() throws Exception {
+        BackpressureWebSocketSession session = session(2, OverflowPolicy.CLOSE);
+
+        session.sendMessage(frame("sub-1", null, "a"));
+        session.sendMessage(frame("sub-1", null, "b"));
+        session.sendMessage(frame("sub-1", null, "c"));
+        runWriter();
+
+        verify(delegate).close(CloseStatus.SESSION_NOT_RELIABLE);
+        verify(delegate, never()).sendMessage(any());
+        assertEquals(1.0, meterRegistry.counter("dispatch.websocket.slow-consumer.disconnects",
+                "reason", "queue-full").count());
+    }
+
+    @Test
+    void dropsTheOldestFrameWhenConfiguredTo() throws Exception {
+        BackpressureWebSocketSession session = session(2, OverflowPolicy.DROP_OLDEST);
+
+        session.sendMessage(frame("sub-1", null, "a"));
+        session.sendMessage(frame("sub-1", null, "b"));
+        session.sendMessage(frame("sub-1", null, "c"));
+        runWriter();
+
+        ArgumentCaptor<WebSocketMessage<?>> written = ArgumentCaptor.forClass(WebSocketMessage.class);
+        verify(delegate, times(2)).sendMessage(written.capture());
+        assertTrue(((String) written.getAllValues().get(0).getPayload()).endsWith("b\u0000"));
+        verify(delegate, never()).close(any());
+    }
+
+    @Test
+    void readsTheConflateKeyFromStompHeaders() {
+        assertEquals("sub-0|driver-1", BackpressureWebSocketSession.conflateKey(frame("sub-0", "driver-1", "{}")));
+        assertNull(BackpressureWebSocketSession.conflateKey(frame("sub-0", null, "{}")));
+        assertNull(BackpressureWebSocketSession.conflateKey(new TextMessage("\n")));
+    }
+
+    private BackpressureWebSocketSession session(int maxQueuedMessages, OverflowPolicy policy) {
+        BackpressureWebSocketHandlerDecorator.Limits limits =
+                new BackpressureWebSocketHandlerDecorator.Limits(maxQueuedMessages, 64 * 1024, 10_000, policy);
+        return new BackpressureWebSocketSession(delegate, limits, new BackpressureMetrics(meterRegistry), writerTasks::add, listener);
+    }
+
+    private void runWriter() {
+        while (!writerTasks.isEmpty()) {
+            writerTasks.poll().run();
+        }
+    }
+
+    private static TextMessage frame(String subscription, String conflateKey, String body) {
+        StringBuilder frame = new StringBuilder("MESSAGE\n")
+                .append("destination:/user/queue/driver-location\n")
+                .append("subscription:").append(subscription).append('\n');
+        if (conflateKey != null) {
+            frame.append(SerializedMessageSender.CONFLATE_KEY_HEADER).append(':').append(conflateKey).append('\n');
+        }
+        return new TextMessage(frame.append('\n').append(body).append('\u0000').toString());
+    }
+}
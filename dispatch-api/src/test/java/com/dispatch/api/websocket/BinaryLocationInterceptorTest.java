@@ -0,0 +1,101 @@
+package com.dispatch.api.websocket;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompDecoder;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class BinaryLocationInterceptorTest {
+
+    private static final String DRIVER_ID = "3f2b8c1e-6a4d-4e0f-9b7a-2c5d8e1f0a3b";
+
+    private BinaryLocationInterceptor interceptor;
+    private MessageChannel channel;
+
+    @BeforeEach
+    void setUp() {
+        interceptor = new BinaryLocationInterceptor();
+        channel = mock(MessageChannel.class);
+        interceptor.onSubscribe(new SessionSubscribeEvent(this, subscribe("session-1", "sub-0")));
+    }
+
+    @Test
+    void deltaReplacingAConflatedFrameBecomesAKeyframe() {
+        interceptor.preSend(position(40.712776, 1_000), channel);
+        Message<?> delta = interceptor.preSend(position(40.712876, 2_000), channel);
+        assertEquals(9, ((byte[]) delta.getPayload()).length);
+
+        WebSocketMessage<?> resynced = interceptor.conflated("session-1", "sub-0", stompFrame(delta));
+
+        Message<byte[]> frame = new StompDecoder().decode(((BinaryMessage) resynced).getPayload()).get(0);
+        StompHeaderAccessor headers = StompHeaderAccessor.wrap(frame);
+        assertEquals(StompCommand.MESSAGE, headers.getCommand());
+        assertEquals("sub-0", headers.getSubscriptionId());
+        assertEquals(frame.getPayload().length, headers.getContentLength());
+        assertEquals(1, frame.getPayload()[1]);
+        assertEquals(40_712_876, LocationFrameCodec.decodePosition(frame.getPayload()).latE6());
+    }
+
+    @Test
+    void droppedFrameMakesTheNextOneAKeyframe() {
+        interceptor.preSend(position(40.712776, 1_000), channel);
+        interceptor.dropped("session-1", "sub-0");
+
+        byte[] next = (byte[]) interceptor.preSend(position(40.712876, 2_000), channel).getPayload();
+
+        assertEquals(LocationFrameCodec.FLAG_KEYFRAME, next[0] & LocationFrameCodec.FLAG_KEYFRAME);
+    }
+
+    @Test
+    void framesOfOtherSubscriptionsAreLeftAlone() {
+        BinaryMessage json = new BinaryMessage("{}".getBytes(StandardCharsets.UTF_8));
+
+        assertSame(json, interceptor.conflated("session-1", "sub-9", json));
+        assertSame(json, interceptor.conflated("session-2", "sub-0", json));
+    }
+
+    private static Message<byte[]> subscribe(String sessionId, String subscriptionId) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(BinaryLocationInterceptor.DESTINATION);
+        accessor.setNativeHeader("accept", "application/octet-stream;codec=dispatch-location-v1");
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Message<byte[]> position(double lat, long epochMillis) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId("session-1");
+        accessor.setSubscriptionId("sub-0");
+        accessor.setHeader(SerializedMessageSender.BINARY_PAYLOAD_HEADER,
+                LocationFrameCodec.encodePosition(DRIVER_ID, lat, -74.005974, 90, epochMillis));
+        return MessageBuilder.createMessage("{}".getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders());
+    }
+
+    // What the STOMP handler would write for the message
+    private static BinaryMessage stompFrame(Message<?> message) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.MESSAGE);
+        accessor.setSubscriptionId("sub-0");
+        accessor.setDestination(BinaryLocationInterceptor.DESTINATION);
+        accessor.setContentType(LocationFrameCodec.CONTENT_TYPE);
+        accessor.setNativeHeader(SerializedMessageSender.CONFLATE_KEY_HEADER, DRIVER_ID);
+        byte[] payload = (byte[]) message.getPayload();
+        return new BinaryMessage(ByteBuffer.wrap(new StompEncoder().encode(accessor.getMessageHeaders(), payload)));
+    }
+}
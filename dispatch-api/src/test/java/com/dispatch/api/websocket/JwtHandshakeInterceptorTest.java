@@ -0,0 +1,95 @@
+package com.dispatch.api.websocket;
+
+import com.dispatch.api.security.AuthContext;
+import com.dispatch.api.security.JwtTokenProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.socket.WebSocketHandler;
+
+import java.security.Principal;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class JwtHandshakeInterceptorTest {
+
+    private static final AuthContext RIDER = new AuthContext("rider-1", "RIDER", Set.of("view_rides"),
+            Instant.now().plusSeconds(3600));
+
+    private JwtTokenProvider tokenProvider;
+    private JwtHandshakeInterceptor interceptor;
+    private MockHttpServletResponse servletResponse;
+    private Map<String, Object> attributes;
+
+    @BeforeEach
+    void setUp() {
+        tokenProvider = mock(JwtTokenProvider.class);
+        when(tokenProvider.authenticate(anyString())).thenReturn(Optional.empty());
+        when(tokenProvider.authenticate("good-token")).thenReturn(Optional.of(RIDER));
+        interceptor = new JwtHandshakeInterceptor(tokenProvider);
+        servletResponse = new MockHttpServletResponse();
+        attributes = new HashMap<>();
+    }
+
+    @Test
+    void acceptsABearerToken() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/ws/websocket");
+        request.addHeader("Authorization", "Bearer good-token");
+
+        assertTrue(handshake(request));
+        assertSame(RIDER, attributes.get(JwtHandshakeInterceptor.AUTH_CONTEXT_ATTRIBUTE));
+    }
+
+    @Test
+    void acceptsAnAccessTokenParameter() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/ws/websocket");
+        request.setQueryString("access_token=good-token");
+
+        assertTrue(handshake(request));
+        assertSame(RIDER, attributes.get(JwtHandshakeInterceptor.AUTH_CONTEXT_ATTRIBUTE));
+    }
+
+    @Test
+    void rejectsHandshakesWithoutAValidToken() {
+        MockHttpServletRequest anonymous = new MockHttpServletRequest("GET", "/api/ws/websocket");
+        anonymous.setQueryString("userId=rider-1");
+        assertFalse(handshake(anonymous));
+        assertEquals(HttpStatus.UNAUTHORIZED.value(), servletResponse.getStatus());
+
+        MockHttpServletRequest forged = new MockHttpServletRequest("GET", "/api/ws/websocket");
+        forged.addHeader("Authorization", "Bearer forged-token");
+        assertFalse(handshake(forged));
+        assertTrue(attributes.isEmpty());
+    }
+
+    @Test
+    void sessionUserIsTheTokenSubject() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/ws/websocket");
+        request.setQueryString("access_token=good-token&userId=driver-9");
+        assertTrue(handshake(request));
+
+        Principal user = new UserHandshakeHandler() {
+            Principal user() {
+                return determineUser(new ServletServerHttpRequest(request), mock(WebSocketHandler.class), attributes);
+            }
+        }.user();
+
+        assertEquals("rider-1", user.getName());
+    }
+
+    private boolean handshake(MockHttpServletRequest request) {
+        return interceptor.beforeHandshake(new ServletServerHttpRequest(request),
+                new ServletServerHttpResponse(servletResponse), mock(WebSocketHandler.class), attributes);
+    }
+}
@@ -0,0 +1,82 @@
+package com.dispatch.api.websocket;
+
+import com.dispatch.api.websocket.LocationFrameCodec.Position;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocationFrameCodecTest {
+
+    private static final String DRIVER_ID = "3f2b8c1e-6a4d-4e0f-9b7a-2c5d8e1f0a3b";
+
+    @Test
+    void keyframeRoundTripsWithUuidDriverId() {
+        byte[] frame = LocationFrameCodec.encodePosition(DRIVER_ID, 40.712776, -74.005974, 90, 1_700_000_000_000L);
+
+        assertEquals(35, frame.length);
+        assertEquals(new Position(DRIVER_ID, 40_712_776, -74_005_974, 64, 1_700_000_000_000L),
+                LocationFrameCodec.decodePosition(frame));
+    }
+
+    @Test
+    void encodesFollowingPositionsAsSmallDeltas() {
+        LocationFrameCodec.Encoder encoder = new LocationFrameCodec.Encoder();
+
+        byte[] first = encoder.encode(LocationFrameCodec.encodePosition(DRIVER_ID, 40.712776, -74.005974, 90, 1_000));
+        byte[] second = encoder.encode(LocationFrameCodec.encodePosition(DRIVER_ID, 40.712876, -74.005874, 95, 2_000));
+
+        assertEquals(LocationFrameCodec.FLAG_KEYFRAME, first[0] & LocationFrameCodec.FLAG_KEYFRAME);
+        assertEquals(9, second.length);
+
+        ByteBuffer delta = ByteBuffer.wrap(second);
+        assertEquals(LocationFrameCodec.VERSION << 4, delta.get());
+        assertEquals(1, delta.get());
+        assertEquals(100, delta.getShort());
+        assertEquals(100, delta.getShort());
+        assertEquals(68, delta.get() & 0xFF);
+        assertEquals(1_000, delta.getShort() & 0xFFFF);
+    }
+
+    @Test
+    void fallsBackToKeyframeWhenDeltaDoesNotFit() {
+        LocationFrameCodec.Encoder encoder = new LocationFrameCodec.Encoder();
+
+        encoder.encode(LocationFrameCodec.encodePosition(DRIVER_ID, 40.0, -74.0, 0, 1_000));
+        byte[] jump = encoder.encode(LocationFrameCodec.encodePosition(DRIVER_ID, 40.5, -74.0, 0, 2_000));
+        byte[] otherDriver = encoder.encode(LocationFrameCodec.encodePosition("driver-7", 40.5, -74.0, 0, 3_000));
+
+        assertEquals(LocationFrameCodec.FLAG_KEYFRAME, jump[0] & LocationFrameCodec.FLAG_KEYFRAME);
+        assertEquals(1, jump[1]);
+        assertEquals("driver-7", LocationFrameCodec.decodePosition(otherDriver).driverId());
+    }
+
+    @Test
+    void resyncTurnsTheLatestDeltaBackIntoAKeyframe() {
+        LocationFrameCodec.Encoder encoder = new LocationFrameCodec.Encoder();
+
+        encoder.encode(LocationFrameCodec.encodePosition(DRIVER_ID, 40.712776, -74.005974, 90, 1_000));
+        byte[] older = encoder.encode(LocationFrameCodec.encodePosition(DRIVER_ID, 40.712876, -74.005874, 90, 2_000));
+        byte[] latest = encoder.encode(LocationFrameCodec.encodePosition(DRIVER_ID, 40.712976, -74.005774, 90, 3_000));
+
+        byte[] keyframe = encoder.resync(latest);
+        assertEquals(LocationFrameCodec.FLAG_KEYFRAME, keyframe[0] & LocationFrameCodec.FLAG_KEYFRAME);
+        assertEquals(2, keyframe[1]);
+        assertEquals(new Position(DRIVER_ID, 40_712_976, -74_005_774, 64, 3_000), LocationFrameCodec.decodePosition(keyframe));
+        assertNull(encoder.resync(keyframe));
+
+        // An older delta can't be rebuilt, so the next frame is a keyframe
+        assertNull(encoder.resync(older));
+        byte[] next = encoder.encode(LocationFrameCodec.encodePosition(DRIVER_ID, 40.713076, -74.005674, 90, 4_000));
+        assertEquals(LocationFrameCodec.FLAG_KEYFRAME, next[0] & LocationFrameCodec.FLAG_KEYFRAME);
+        assertEquals(3, next[1]);
+    }
+
+    @Test
+    void acceptHeaderNegotiatesTheCodec() {
+        assertTrue(BinaryLocationInterceptor.acceptsBinary("application/json, application/octet-stream;codec=dispatch-location-v1"));
+        assertFalse(BinaryLocationInterceptor.acceptsBinary("application/octet-stream"));
+        assertFalse(BinaryLocationInterceptor.acceptsBinary(null));
+    }
+}
@@ -0,0 +1,63 @@
+package com.dispatch.api.websocket;
+
+import com.dispatch.api.websocket.SerializedMessageSender.SerializedPayload;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SerializedMessageSenderTest {
+
+    private SimpMessagingTemplate messagingTemplate;
+    private SerializedMessageSender sender;
+
+    @BeforeEach
+    void setUp() {
+        messagingTemplate = mock(SimpMessagingTemplate.class);
+        when(messagingTemplate.getUserDestinationPrefix()).thenReturn("/user/");
+        sender = new SerializedMessageSender(messagingTemplate, new ObjectMapper());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void sharesOneBufferAcrossSendsWithoutConverting() {
+        SerializedPayload payload = sender.serialize(Map.of("type", "SYSTEM_ANNOUNCEMENT"));
+
+        sender.send("/topic/announcements", payload);
+        sender.sendToUser("rider-1", "/queue/ride-status", payload);
+
+        ArgumentCaptor<Message<?>> messages = ArgumentCaptor.forClass(Message.class);
+        verify(messagingTemplate).send(eq("/topic/announcements"), messages.capture());
+        verify(messagingTemplate).send(eq("/user/rider-1/queue/ride-status"), messages.capture());
+        verify(messagingTemplate, never()).convertAndSend(anyString(), any(Object.class));
+
+        List<Message<?>> sent = messages.getAllValues();
+        assertSame(sent.get(0).getPayload(), sent.get(1).getPayload());
+        assertEquals("{\"type\":\"SYSTEM_ANNOUNCEMENT\"}",
+                new String((byte[]) sent.get(0).getPayload(), StandardCharsets.UTF_8));
+        assertEquals(MimeTypeUtils.APPLICATION_JSON,
+                sent.get(0).getHeaders().get(MessageHeaders.CONTENT_TYPE));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void marksLocalMessagesSoTheyAreNotRelayed() {
+        sender.sendLocal("/topic/tiles/14/1/1", sender.serialize(Map.of()));
+
+        ArgumentCaptor<Message<?>> message = ArgumentCaptor.forClass(Message.class);
+        verify(messagingTemplate).send(eq("/topic/tiles/14/1/1"), message.capture());
+        assertTrue(message.getValue().getHeaders().containsKey(RedisStompFanout.LOCAL_ONLY_HEADER));
+    }
+}
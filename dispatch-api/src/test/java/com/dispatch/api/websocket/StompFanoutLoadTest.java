@@ -0,0 +1,181 @@
+package com.dispatch.api.websocket;
+
+import com.dispatch.api.security.JwtTokenProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Opens many concurrent STOMP sessions spread over one or more running API nodes and checks
+ * that user and broadcast messages sent through one node reach sessions on all of them.
+ *
+ * Not part of the regular build. Start the nodes with {@code app.websocket.fanout=redis} and
+ * {@code app.websocket.test-messages.enabled=true}, then run e.g.
+ * <pre>
+ * mvn test -Dtest=StompFanoutLoadTest \
+ *   -Dstomp.loadtest.urls=ws://localhost:8080/api/ws/websocket,ws://localhost:8081/api/ws/websocket \
+ *   -Dstomp.loadtest.jwt-secret=$JWT_SECRET -Dstomp.loadtest.sessions=10000
+ * </pre>
+ * Each session authenticates with a rider token signed with the nodes' {@code app.security.jwt.secret}.
+ */
+@EnabledIfSystemProperty(named = "stomp.loadtest.urls", matches = ".+")
+class StompFanoutLoadTest {
+
+    private final List<StompSession> sessions = Collections.synchronizedList(new ArrayList<>());
+    private ThreadPoolTaskScheduler heartbeatScheduler;
+    private WebSocketStompClient stompClient;
+
+    @AfterEach
+    void disconnect() {
+        sessions.forEach(session -> {
+            if (session.isConnected()) {
+                session.disconnect();
+            }
+        });
+        if (stompClient != null) {
+            stompClient.stop();
+        }
+        if (heartbeatScheduler != null) {
+            heartbeatScheduler.shutdown();
+        }
+    }
+
+    @Test
+    void userAndBroadcastMessagesReachSessionsOnEveryNode() throws Exception {
+        String[] urls = System.getProperty("stomp.loadtest.urls").split(",");
+        int sessionCount = Integer.getInteger("stomp.loadtest.sessions", 5000);
+        int concurrentConnects = Integer.getInteger("stomp.loadtest.concurrent-connects", 200);
+        JwtTokenProvider tokens = tokenProvider(System.getProperty("stomp.loadtest.jwt-secret"));
+
+        heartbeatScheduler = new ThreadPoolTaskScheduler();
+        heartbeatScheduler.setPoolSize(4);
+        heartbeatScheduler.initialize();
+
+        stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+        stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+        stompClient.setTaskScheduler(heartbeatScheduler);
+
+        List<Long> connectMillis = Collections.synchronizedList(new ArrayList<>());
+        List<Long> deliveryMillis = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch userMessages = new CountDownLatch(sessionCount);
+        CountDownLatch broadcasts = new CountDownLatch(sessionCount);
+
+        // Connect everyone, round-robin over the nodes
+        Semaphore inFlight = new Semaphore(concurrentConnects);
+        List<CompletableFuture<StompSession>> connects = new ArrayList<>();
+        for (int i = 0; i < sessionCount; i++) {
+            String url = urls[i % urls.length] + "?access_token=" + tokens.generateRiderToken("load-user-" + i, "load-user-" + i + "@example.com");
+            long started = System.nanoTime();
+            inFlight.acquire();
+
+            connects.add(stompClient.connectAsync(url, new StompSessionHandlerAdapter() {})
+                .whenComplete((session, ex) -> {
+                    inFlight.release();
+                    if (ex == null) {
+                        connectMillis.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+                        sessions.add(session);
+                        session.subscribe("/user/queue/test", handler(frame -> {
+                            long sentAt = Long.parseLong(String.valueOf(frame.get("message")));
+                            deliveryMillis.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - sentAt));
+                            userMessages.countDown();
+                        }));
+                        session.subscribe("/topic/announcements", handler(frame -> broadcasts.countDown()));
+                    }
+                }));
+        }
+        CompletableFuture.allOf(connects.toArray(CompletableFuture[]::new))
+            .exceptionally(ex -> null)
+            .get(5, TimeUnit.MINUTES);
+
+        assertEquals(sessionCount, sessions.size(), "sessions connected");
+
+        // Let subscriptions and user registrations settle before publishing
+        Thread.sleep(2000);
+
+        // Every message goes in through the first session, so most of them cross nodes
+        StompSession publisher = sessions.get(0);
+        for (int i = 0; i < sessionCount; i++) {
+            publisher.send("/app/test/notify", Map.of("userId", "load-user-" + i, "message", String.valueOf(System.nanoTime())));
+        }
+        publisher.send("/app/test/broadcast", Map.of("message", "load test"));
+
+        boolean allUsers = userMessages.await(60, TimeUnit.SECONDS);
+        boolean allBroadcasts = broadcasts.await(60, TimeUnit.SECONDS);
+
+        System.out.printf("Nodes: %d, sessions: %d%n", urls.length, sessionCount);
+        System.out.printf("Connect latency  p50=%dms p99=%dms max=%dms%n",
+            percentile(connectMillis, 50), percentile(connectMillis, 99), percentile(connectMillis, 100));
+        System.out.printf("Delivery latency p50=%dms p99=%dms max=%dms%n",
+            percentile(deliveryMillis, 50), percentile(deliveryMillis, 99), percentile(deliveryMillis, 100));
+        System.out.printf("User messages delivered: %d/%d, broadcasts delivered: %d/%d%n",
+            sessionCount - userMessages.getCount(), sessionCount,
+            sessionCount - broadcasts.getCount(), sessionCount);
+
+        assertTrue(allUsers, "every user message delivered");
+        assertTrue(allBroadcasts, "every session received the broadcast");
+    }
+
+    private static JwtTokenProvider tokenProvider(String secret) {
+        assertNotNull(secret, "stomp.loadtest.jwt-secret");
+        JwtTokenProvider provider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(provider, "jwtSecret", secret);
+        ReflectionTestUtils.setField(provider, "jwtExpirationInSeconds", 3600);
+        ReflectionTestUtils.setField(provider, "cacheMaxSize", 1L);
+        ReflectionTestUtils.setField(provider, "cacheMaxTtl", Duration.ofMinutes(1));
+        provider.init();
+        return provider;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static StompFrameHandler handler(Consumer<Map<String, Object>> onFrame) {
+        return new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return Map.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                onFrame.accept((Map<String, Object>) payload);
+            }
+        };
+    }
+
+    private static long percentile(List<Long> values, int percentile) {
+        List<Long> sorted;
+        synchronized (values) {
+            sorted = new ArrayList<>(values);
+        }
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        Collections.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1;
+        return sorted.get(Math.max(index, 0));
+    }
+}
@@ -0,0 +1,146 @@
+package com.dispatch.api.websocket;
+
+import com.dispatch.api.dto.events.DriverLocationEvent;
+import com.dispatch.api.dto.websocket.TileFrame;
+import com.dispatch.api.util.MapTile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TileFanoutEngineTest {
+
+    private static final MapTile TIMES_SQUARE = MapTile.containing(40.7589, -73.9851, 14);
+
+    private SerializedMessageSender messageSender;
+    private TileFanoutEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        messageSender = mock(SerializedMessageSender.class);
+        engine = new TileFanoutEngine(messageSender, new SimpleMeterRegistry(), new int[] {14});
+    }
+
+    @Test
+    void ignoresTilesWithoutWatchers() {
+        engine.record(ping("driver-1", "40.758900", "-73.985100"));
+        engine.flush();
+
+        verifyNoInteractions(messageSender);
+    }
+
+    @Test
+    void sendsOneFrameWithLatestPositionPerDriver() {
+        subscribe("session-1", "sub-1", TIMES_SQUARE);
+        subscribe("session-2", "sub-1", TIMES_SQUARE);
+
+        engine.record(ping("driver-1", "40.758900", "-73.985100"));
+        engine.record(ping("driver-1", "40.759000", "-73.985100"));
+        engine.record(ping("driver-2", "40.758800", "-73.985000"));
+        engine.flush();
+
+        ArgumentCaptor<TileFrame> frame = ArgumentCaptor.forClass(TileFrame.class);
+        verify(messageSender, times(1)).serialize(frame.capture());
+        verify(messageSender, times(1)).sendLocal(eq(TIMES_SQUARE.destination()), any());
+        assertEquals(2, frame.getValue().getDrivers().size());
+        assertEquals(40.759, frame.getValue().getDrivers().stream()
+                .filter(d -> d.getDriverId().equals("driver-1")).findFirst().orElseThrow().getLat(), 1e-9);
+
+        engine.flush();
+        verifyNoMoreInteractions(messageSender);
+    }
+
+    @Test
+    void reportsDriversLeavingAWatchedTile() {
+        subscribe("session-1", "sub-1", TIMES_SQUARE);
+        engine.record(ping("driver-1", "40.758900", "-73.985100"));
+        engine.flush();
+
+        // Several kilometres away
+        engine.record(ping("driver-1", "40.700000", "-73.900000"));
+        engine.flush();
+
+        ArgumentCaptor<TileFrame> frame = ArgumentCaptor.forClass(TileFrame.class);
+        verify(messageSender, times(2)).serialize(frame.capture());
+        verify(messageSender, times(2)).sendLocal(eq(TIMES_SQUARE.destination()), any());
+        assertEquals(List.of("driver-1"), frame.getValue().getDeparted());
+        assertTrue(frame.getValue().getDrivers().isEmpty());
+    }
+
+    @Test
+    void offlineDriversLeaveTheirTilesRightAway() {
+        subscribe("session-1", "sub-1", TIMES_SQUARE);
+        engine.record(ping("driver-1", "40.758900", "-73.985100"));
+        engine.flush();
+
+        engine.onDriverLocation(new DriverLocationEvent("driver-1", null, null, "OFFLINE"));
+        engine.flush();
+
+        ArgumentCaptor<TileFrame> frame = ArgumentCaptor.forClass(TileFrame.class);
+        verify(messageSender, times(2)).serialize(frame.capture());
+        assertEquals(List.of("driver-1"), frame.getValue().getDeparted());
+        assertTrue(frame.getValue().getDrivers().isEmpty());
+
+        // Forgotten: nothing left to depart from
+        engine.remove("driver-1");
+        engine.flush();
+        verify(messageSender, times(2)).serialize(any());
+    }
+
+    @Test
+    void silentDriversAreEvictedWithADeparture() throws InterruptedException {
+        ReflectionTestUtils.setField(engine, "driverTimeout", Duration.ofMillis(1));
+        subscribe("session-1", "sub-1", TIMES_SQUARE);
+        engine.record(ping("driver-1", "40.758900", "-73.985100"));
+        engine.flush();
+
+        Thread.sleep(10);
+        engine.evictSilentDrivers();
+        engine.flush();
+
+        ArgumentCaptor<TileFrame> frame = ArgumentCaptor.forClass(TileFrame.class);
+        verify(messageSender, times(2)).serialize(frame.capture());
+        assertEquals(List.of("driver-1"), frame.getValue().getDeparted());
+    }
+
+    @Test
+    void driverLeavingWithinOneTickIsOnlyReportedAsDeparted() {
+        subscribe("session-1", "sub-1", TIMES_SQUARE);
+        engine.record(ping("driver-1", "40.758900", "-73.985100"));
+        engine.record(ping("driver-1", "40.700000", "-73.900000"));
+        engine.flush();
+
+        ArgumentCaptor<TileFrame> frame = ArgumentCaptor.forClass(TileFrame.class);
+        verify(messageSender).serialize(frame.capture());
+        assertTrue(frame.getValue().getDrivers().isEmpty());
+        assertEquals(List.of("driver-1"), frame.getValue().getDeparted());
+    }
+
+    private void subscribe(String sessionId, String subscriptionId, MapTile tile) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(tile.destination());
+        Message<byte[]> message = MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+
+        engine.onSubscribe(new SessionSubscribeEvent(this, message));
+    }
+
+    private DriverLocationEvent ping(String driverId, String lat, String lng) {
+        return new DriverLocationEvent(driverId, new BigDecimal(lat), new BigDecimal(lng), "AVAILABLE");
+    }
+}
@@ -0,0 +1,56 @@
+package com.dispatch.api.websocket;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class WebSocketSessionMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private WebSocketSessionMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        metrics = new WebSocketSessionMetrics(meterRegistry, mock(SimpUserRegistry.class), "node-a");
+    }
+
+    @Test
+    void repeatedDisconnectOfOneSessionCountsOnce() {
+        metrics.onSessionConnected(connected("s1"));
+        metrics.onSessionConnected(connected("s2"));
+
+        metrics.onSessionDisconnect(disconnected("s1"));
+        metrics.onSessionDisconnect(disconnected("s1"));
+        metrics.onSessionDisconnect(disconnected("unknown"));
+
+        assertEquals(1, metrics.getOpenSessions());
+        assertEquals(1.0, meterRegistry.get("dispatch.websocket.sessions").gauge().value());
+        assertEquals(1.0, meterRegistry.get("dispatch.websocket.connections").tag("event", "disconnected").counter().count());
+    }
+
+    private static SessionConnectedEvent connected(String sessionId) {
+        return new SessionConnectedEvent(new Object(), message(StompCommand.CONNECTED, sessionId));
+    }
+
+    private static SessionDisconnectEvent disconnected(String sessionId) {
+        return new SessionDisconnectEvent(new Object(), message(StompCommand.DISCONNECT, sessionId), sessionId, CloseStatus.NORMAL);
+    }
+
+    private static Message<byte[]> message(StompCommand command, String sessionId) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setSessionId(sessionId);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,56 @@
+package com.dispatch.benchmarks;
+
+import com.dispatch.api.grpc.GeoIndexProto.DriverLocation;
+import com.dispatch.api.grpc.GeoIndexProto.DriverStatus;
+import com.dispatch.api.util.DriverCandidates;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link DriverCandidates#nearestAvailable}, the advanced matching strategy of {@code DispatchService},
+ * over candidate lists as the geo-index returns them: nearest first, most drivers available,
+ * the rest busy or en route.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DriverSelectionBenchmark {
+
+    // 10 is app.matching.max-drivers-to-consider; the larger sizes are dense areas with a raised limit
+    @Param({"10", "100", "1000"})
+    public int candidates;
+
+    private List<DriverLocation> drivers;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(7);
+        long now = System.currentTimeMillis();
+        drivers = new ArrayList<>(candidates);
+        double distanceKm = 0;
+        for (int i = 0; i < candidates; i++) {
+            distanceKm += random.nextDouble(0.01, 10.0 / candidates);
+            double roll = random.nextDouble();
+            drivers.add(DriverLocation.newBuilder()
+                    .setDriverId("driver-" + i)
+                    .setLat(40.7580 + random.nextDouble(-0.05, 0.05))
+                    .setLng(-73.9855 + random.nextDouble(-0.05, 0.05))
+                    .setDistanceKm(distanceKm)
+                    .setStatus(roll < 0.7 ? DriverStatus.AVAILABLE : roll < 0.9 ? DriverStatus.BUSY : DriverStatus.EN_ROUTE)
+                    .setLastUpdateTimestamp(now - random.nextLong(30_000))
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public DriverLocation nearestAvailable() {
+        return DriverCandidates.nearestAvailable(drivers);
+    }
+}
@@ -0,0 +1,47 @@
+package com.dispatch.benchmarks;
+
+import com.dispatch.api.model.Driver;
+import com.dispatch.api.service.ETAPredictionService;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ETA prediction end to end and its model step alone
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ETAPredictionBenchmark {
+
+    private ETAPredictionService etaPredictionService;
+    private Driver driver;
+
+    // Inputs from a state field, so the JIT cannot fold the model into a constant
+    private double distanceKm = 5.3;
+    private double traffic = 1.6;
+
+    @Setup
+    public void setUp() {
+        etaPredictionService = new ETAPredictionService();
+
+        driver = new Driver("driver-1", "Benchmark Driver");
+        driver.setRating(new BigDecimal("4.85"));
+        driver.setAcceptanceRate(new BigDecimal("0.92"));
+        driver.setExperienceYears(4);
+    }
+
+    @Benchmark
+    public int predictETA() {
+        return etaPredictionService.predictETA(40.7580, -73.9855, 40.7128, -74.0060, driver);
+    }
+
+    @Benchmark
+    public double applyMLModel() {
+        return etaPredictionService.applyMLModel(distanceKm, traffic, 1.0, 0.97, 1.3, 1.0, 1.0);
+    }
+}
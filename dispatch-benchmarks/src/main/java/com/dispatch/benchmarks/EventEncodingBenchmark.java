@@ -0,0 +1,118 @@
+package com.dispatch.benchmarks;
+
+import com.dispatch.api.dto.events.DriverLocationEvent;
+import com.dispatch.api.dto.response.RideResponse;
+import com.dispatch.api.grpc.GeoIndexProto.DriverStatus;
+import com.dispatch.api.grpc.GeoIndexProto.UpdateDriverLocationRequest;
+import com.dispatch.api.model.RideStatus;
+import com.dispatch.api.redis.RideSnapshotRedisSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The same driver location and ride snapshot encoded as JSON (Kafka events, legacy cache entries)
+ * and as protobuf (geo-index RPCs, Redis snapshots). Run with {@code -prof gc} to compare
+ * bytes allocated per operation alongside time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventEncodingBenchmark {
+
+    private ObjectMapper objectMapper;
+    private RideSnapshotRedisSerializer snapshotSerializer;
+
+    private DriverLocationEvent locationEvent;
+    private UpdateDriverLocationRequest locationMessage;
+    private RideResponse ride;
+
+    private byte[] locationJson;
+    private byte[] locationProto;
+    private byte[] rideJson;
+    private byte[] rideProto;
+
+    @Setup
+    public void setUp() throws Exception {
+        objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        snapshotSerializer = new RideSnapshotRedisSerializer(objectMapper);
+
+        locationEvent = new DriverLocationEvent("3f2b8c1e-6a4d-4e0f-9b7a-2c5d8e1f0a3b",
+                new BigDecimal("40.758012"), new BigDecimal("-73.985533"), "AVAILABLE");
+        locationEvent.setHeading(92);
+        locationEvent.setSpeedKmh(new BigDecimal("31.5"));
+        locationEvent.setAccuracyMeters(new BigDecimal("4.0"));
+
+        locationMessage = UpdateDriverLocationRequest.newBuilder()
+                .setDriverId(locationEvent.getDriverId())
+                .setLat(locationEvent.getLat().doubleValue())
+                .setLng(locationEvent.getLng().doubleValue())
+                .setStatus(DriverStatus.AVAILABLE)
+                .build();
+
+        ride = new RideResponse();
+        ride.setRideId("6a1f2c3d-4b5e-4f60-8a7b-9c0d1e2f3a4b");
+        ride.setRiderId("rider-1042");
+        ride.setDriverId(locationEvent.getDriverId());
+        ride.setPickupLocation("40.758000,-73.985500");
+        ride.setDestinationLocation("40.712800,-74.006000");
+        ride.setStatus(RideStatus.IN_PROGRESS);
+        ride.setEstimatedFare(new BigDecimal("23.40"));
+        ride.setEstimatedDuration(18);
+        ride.setCreatedAt(LocalDateTime.of(2024, 3, 1, 8, 15, 30));
+        ride.setAcceptedAt(LocalDateTime.of(2024, 3, 1, 8, 16, 2));
+        ride.setStartedAt(LocalDateTime.of(2024, 3, 1, 8, 21, 47));
+
+        locationJson = objectMapper.writeValueAsBytes(locationEvent);
+        locationProto = locationMessage.toByteArray();
+        rideJson = objectMapper.writeValueAsBytes(ride);
+        rideProto = snapshotSerializer.serialize(ride);
+    }
+
+    @Benchmark
+    public byte[] encodeLocationJson() throws Exception {
+        return objectMapper.writeValueAsBytes(locationEvent);
+    }
+
+    @Benchmark
+    public byte[] encodeLocationProto() {
+        return locationMessage.toByteArray();
+    }
+
+    @Benchmark
+    public DriverLocationEvent decodeLocationJson() throws Exception {
+        return objectMapper.readValue(locationJson, DriverLocationEvent.class);
+    }
+
+    @Benchmark
+    public UpdateDriverLocationRequest decodeLocationProto() throws Exception {
+        return UpdateDriverLocationRequest.parseFrom(locationProto);
+    }
+
+    @Benchmark
+    public byte[] encodeRideJson() throws Exception {
+        return objectMapper.writeValueAsBytes(ride);
+    }
+
+    @Benchmark
+    public byte[] encodeRideProto() {
+        return snapshotSerializer.serialize(ride);
+    }
+
+    @Benchmark
+    public RideResponse decodeRideJson() throws Exception {
+        return objectMapper.readValue(rideJson, RideResponse.class);
+    }
+
+    @Benchmark
+    public RideResponse decodeRideProto() {
+        return snapshotSerializer.deserialize(rideProto);
+    }
+}
@@ -0,0 +1,43 @@
+package com.dispatch.benchmarks;
+
+import com.dispatch.api.util.GeoUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Great-circle distance as used by the location pipeline ({@link GeoUtils}), over a fixed set
+ * of city-scale point pairs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HaversineBenchmark {
+
+    private static final int PAIRS = 1024;
+
+    private final double[] coordinates = new double[PAIRS * 4];
+
+    @Setup
+    public void setUp() {
+        // Points within ~25km of midtown Manhattan
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < coordinates.length; i += 2) {
+            coordinates[i] = 40.7580 + random.nextDouble(-0.25, 0.25);
+            coordinates[i + 1] = -73.9855 + random.nextDouble(-0.3, 0.3);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public void geoUtilsDistanceMeters(Blackhole blackhole) {
+        for (int i = 0; i < coordinates.length; i += 4) {
+            blackhole.consume(GeoUtils.distanceMeters(coordinates[i], coordinates[i + 1], coordinates[i + 2], coordinates[i + 3]));
+        }
+    }
+}
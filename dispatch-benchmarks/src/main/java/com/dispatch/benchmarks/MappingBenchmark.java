@@ -0,0 +1,76 @@
+package com.dispatch.benchmarks;
+
+import com.dispatch.api.controller.DriverMapper;
+import com.dispatch.api.dto.mapper.RideMapper;
+import com.dispatch.api.dto.response.DriverResponse;
+import com.dispatch.api.dto.response.RideResponse;
+import com.dispatch.api.model.Driver;
+import com.dispatch.api.model.DriverStatus;
+import com.dispatch.api.model.Ride;
+import com.dispatch.api.model.RideStatus;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The MapStruct-generated entity to response mappers behind every ride and driver response
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MappingBenchmark {
+
+    private RideMapper rideMapper;
+    private DriverMapper driverMapper;
+
+    private Ride ride;
+    private Driver driver;
+
+    @Setup
+    public void setUp() {
+        rideMapper = Mappers.getMapper(RideMapper.class);
+        driverMapper = Mappers.getMapper(DriverMapper.class);
+
+        LocalDateTime createdAt = LocalDateTime.of(2024, 3, 1, 8, 15, 30);
+        ride = new Ride("rider-1042", new BigDecimal("40.758000"), new BigDecimal("-73.985500"));
+        ride.setId(UUID.fromString("6a1f2c3d-4b5e-4f60-8a7b-9c0d1e2f3a4b"));
+        ride.setDriverId("driver-7");
+        ride.setDestinationLat(new BigDecimal("40.712800"));
+        ride.setDestinationLng(new BigDecimal("-74.006000"));
+        ride.setStatus(RideStatus.COMPLETED);
+        ride.setEstimatedFare(new BigDecimal("23.40"));
+        ride.setFareAmount(new BigDecimal("24.10"));
+        ride.setEstimatedDurationMinutes(18);
+        ride.setCreatedAt(createdAt);
+        ride.setAcceptedAt(createdAt.plusSeconds(32));
+        ride.setStartedAt(createdAt.plusMinutes(6));
+        ride.setCompletedAt(createdAt.plusMinutes(26));
+
+        driver = new Driver("driver-7", "Benchmark Driver");
+        driver.setPhone("+1-555-0100");
+        driver.setLicensePlate("T123456C");
+        driver.setStatus(DriverStatus.AVAILABLE);
+        driver.setCurrentLat(new BigDecimal("40.758012"));
+        driver.setCurrentLng(new BigDecimal("-73.985533"));
+        driver.setLastLocationUpdate(createdAt);
+        driver.setRating(new BigDecimal("4.85"));
+        driver.setTotalRides(1280);
+    }
+
+    @Benchmark
+    public RideResponse rideToResponse() {
+        return rideMapper.toResponse(ride);
+    }
+
+    @Benchmark
+    public DriverResponse driverToResponse() {
+        return driverMapper.toResponse(driver);
+    }
+}
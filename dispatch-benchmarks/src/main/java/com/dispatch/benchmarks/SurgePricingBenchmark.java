@@ -0,0 +1,90 @@
+package com.dispatch.benchmarks;
+
+import com.dispatch.api.service.DispatchService;
+import com.dispatch.api.service.SurgePricingService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SurgePricingService#calculateFare} with Redis and the driver count served from memory,
+ * so only the pricing code itself is measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SurgePricingBenchmark {
+
+    private SurgePricingService surgePricingService;
+
+    @Setup
+    public void setUp() {
+        surgePricingService = new SurgePricingService(
+                new InMemoryRedisTemplate<>(), new InMemoryRedisTemplate<>(), new FixedDriverCount(12));
+    }
+
+    @Benchmark
+    public BigDecimal calculateFareMidtown() {
+        return surgePricingService.calculateFare(40.7580, -73.9855, 40.7128, -74.0060, 18, "STANDARD");
+    }
+
+    @Benchmark
+    public BigDecimal calculateFareAirport() {
+        return surgePricingService.calculateFare(40.6413, -73.7781, 40.7580, -73.9855, 45, "PREMIUM");
+    }
+
+    /**
+     * Answers the supply side of the surge calculation without the geo-index. Pricing only calls
+     * the overridden count, so none of the matching collaborators are needed.
+     */
+    static class FixedDriverCount extends DispatchService {
+
+        private final int drivers;
+
+        FixedDriverCount(int drivers) {
+            super(null, null, null, null, null, null, null, null, null, null);
+            this.drivers = drivers;
+        }
+
+        @Override
+        public int getNearbyDriversCount(double lat, double lng, int radiusMeters) {
+            return drivers;
+        }
+    }
+
+    /**
+     * A template whose value operations are a map; only get and set are supported
+     */
+    static class InMemoryRedisTemplate<V> extends RedisTemplate<String, V> {
+
+        private final Map<String, Object> values = new ConcurrentHashMap<>();
+
+        @SuppressWarnings("unchecked")
+        private final ValueOperations<String, V> operations = (ValueOperations<String, V>) Proxy.newProxyInstance(
+                ValueOperations.class.getClassLoader(), new Class<?>[]{ValueOperations.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "get" -> values.get((String) args[0]);
+                    case "set" -> {
+                        // TTLs are irrelevant for the length of a run
+                        values.put((String) args[0], args[1]);
+                        yield null;
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+
+        @Override
+        public ValueOperations<String, V> opsForValue() {
+            return operations;
+        }
+    }
+}
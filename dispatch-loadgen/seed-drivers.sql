@@ -0,0 +1,9 @@
+-- Driver rows for the load generator: lg_driver_1 .. lg_driver_<drivers>, offline until the run
+-- brings them online. Riders need no rows.
+--
+-- psql -U dispatch_user -d dispatch_db -v drivers=1000 -f dispatch-loadgen/seed-drivers.sql
+
+INSERT INTO drivers (id, name, status)
+SELECT 'lg_driver_' || n, 'Load Driver ' || n, 'OFFLINE'
+FROM generate_series(1, :drivers) AS n
+ON CONFLICT (id) DO UPDATE SET status = 'OFFLINE';
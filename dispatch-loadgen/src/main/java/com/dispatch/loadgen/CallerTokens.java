@@ -0,0 +1,72 @@
+package com.dispatch.loadgen;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * JWTs for the simulated riders and drivers, signed with dispatch-api's
+ * {@code app.security.jwt.secret} and carrying the claims its token provider issues. One token
+ * per caller, valid for the whole run.
+ */
+final class CallerTokens {
+
+    private static final Base64.Encoder BASE64URL = Base64.getUrlEncoder().withoutPadding();
+
+    private final byte[] secret;
+    private final String algorithm;
+    private final String macAlgorithm;
+    private final Duration validity;
+    private final Map<String, String> tokens = new ConcurrentHashMap<>();
+
+    CallerTokens(String secret, Duration validity) {
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        this.validity = validity;
+        // Same choice as the server's Keys.hmacShaKeyFor: the strongest HMAC the key is long enough for
+        int bits = this.secret.length * 8;
+        if (bits >= 512) {
+            algorithm = "HS512";
+        } else if (bits >= 384) {
+            algorithm = "HS384";
+        } else if (bits >= 256) {
+            algorithm = "HS256";
+        } else {
+            throw new IllegalArgumentException("jwt-secret must be at least 32 bytes");
+        }
+        macAlgorithm = "HmacSHA" + algorithm.substring(2);
+    }
+
+    String rider(String riderId) {
+        return tokens.computeIfAbsent(riderId, id -> sign(id, "RIDER", "\"request_rides\",\"view_rides\",\"rate_drivers\""));
+    }
+
+    String driver(String driverId) {
+        return tokens.computeIfAbsent(driverId, id -> sign(id, "DRIVER", "\"accept_rides\",\"update_location\",\"complete_rides\""));
+    }
+
+    private String sign(String userId, String userType, String permissions) {
+        Instant now = Instant.now();
+        String header = "{\"alg\":\"" + algorithm + "\",\"typ\":\"JWT\"}";
+        String claims = "{\"sub\":\"" + userId + "\",\"user_id\":\"" + userId + "\",\"user_type\":\"" + userType
+                + "\",\"permissions\":[" + permissions + "],\"iat\":" + now.getEpochSecond()
+                + ",\"exp\":" + now.plus(validity).getEpochSecond() + "}";
+        String unsigned = encode(header.getBytes(StandardCharsets.UTF_8)) + "." + encode(claims.getBytes(StandardCharsets.UTF_8));
+        try {
+            Mac mac = Mac.getInstance(macAlgorithm);
+            mac.init(new SecretKeySpec(secret, macAlgorithm));
+            return unsigned + "." + encode(mac.doFinal(unsigned.getBytes(StandardCharsets.US_ASCII)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(macAlgorithm + " not available", e);
+        }
+    }
+
+    private static String encode(byte[] bytes) {
+        return BASE64URL.encodeToString(bytes);
+    }
+}
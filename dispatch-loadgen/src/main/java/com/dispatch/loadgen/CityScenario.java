@@ -0,0 +1,310 @@
+package com.dispatch.loadgen;
+
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+
+/**
+ * Generates the traffic of a simulated city from a seed. The same options always produce the
+ * same events, so two runs differ only in how the server responded.
+ *
+ * Drivers log on over the first minute and then drive along a Manhattan-style street grid,
+ * pinging their location every {@code ping-interval} with GPS noise. Ride requests arrive as a
+ * Poisson process whose rate follows {@link DiurnalCurve} over a simulated day compressed into
+ * {@code day-length}: the rider looks up nearby drivers, requests the ride a few seconds later
+ * and, for a share of rides, watches the pickup map tile over STOMP.
+ */
+public final class CityScenario implements TrafficSource {
+
+    static final String DRIVER_ONLINE = "driver.online";
+    static final String DRIVER_LOCATION = "driver.location";
+    static final String DRIVERS_NEARBY = "drivers.nearby";
+    static final String RIDE_CREATE = "ride.create";
+    static final String WS_SESSION = "ws.session";
+
+    // Lower and midtown Manhattan, the area the other load tests and seed data use
+    static final double MIN_LAT = 40.700;
+    static final double MAX_LAT = 40.800;
+    static final double MIN_LNG = -74.020;
+    static final double MAX_LNG = -73.930;
+
+    // Streets every ~90 m north-south, avenues every ~250 m east-west
+    private static final double STREET_SPACING_LAT = 0.0008;
+    private static final double AVENUE_SPACING_LNG = 0.003;
+
+    // Half of all pickups: Times Square, Penn Station, Grand Central, Union Square, Wall Street
+    private static final double[][] HOTSPOTS = {
+            {40.7580, -73.9855}, {40.7506, -73.9935}, {40.7527, -73.9772}, {40.7359, -73.9911}, {40.7060, -74.0086}
+    };
+    private static final double HOTSPOT_SPREAD_METERS = 300;
+
+    private static final int TILE_ZOOM = 14;
+    private static final double NEARBY_RADIUS_KM = 3.0;
+    private static final double METERS_PER_DEGREE_LAT = 111_320;
+
+    private final LoadGenOptions options;
+    private final long endMillis;
+    private final PriorityQueue<Actor> actors = new PriorityQueue<>(
+            Comparator.comparingLong((Actor actor) -> actor.nextAt).thenComparingLong(actor -> actor.sequence));
+    private long nextSequence;
+
+    public CityScenario(LoadGenOptions options) {
+        this.options = options;
+        this.endMillis = options.duration().toMillis();
+        
+        SplittableRandom root = new SplittableRandom(options.seed());
+        long rampMillis = Math.max(1, Math.min(60_000, endMillis / 10));
+        for (int i = 1; i <= options.drivers(); i++) {
+            SplittableRandom random = root.split();
+            schedule(new Driver("lg_driver_" + i, random, random.nextLong(rampMillis)));
+        }
+        schedule(new RideDemand(root.split()));
+    }
+
+    @Override
+    public TrafficEvent next() {
+        Actor actor;
+        while ((actor = actors.poll()) != null) {
+            TrafficEvent event = actor.emit();
+            if (actor.nextAt <= endMillis) {
+                actors.add(actor);
+            }
+            if (event != null) {
+                return event;
+            }
+        }
+        return null;
+    }
+
+    private void schedule(Actor actor) {
+        actor.sequence = nextSequence++;
+        if (actor.nextAt <= endMillis) {
+            actors.add(actor);
+        }
+    }
+
+    /** Simulated hour of day {@code millis} into the run. */
+    double hourAt(long millis) {
+        return options.startHour() + 24.0 * millis / options.dayLength().toMillis();
+    }
+
+    static String tileDestination(double lat, double lng) {
+        int tiles = 1 << TILE_ZOOM;
+        double latRad = Math.toRadians(lat);
+        int x = (int) Math.floor((lng + 180.0) / 360.0 * tiles);
+        int y = (int) Math.floor((1.0 - Math.log(Math.tan(latRad) + 1.0 / Math.cos(latRad)) / Math.PI) / 2.0 * tiles);
+        return "/topic/tiles/" + TILE_ZOOM + "/" + x + "/" + y;
+    }
+
+    private static String coordinate(double value) {
+        return String.format(Locale.ROOT, "%.6f", value);
+    }
+
+    private static double metersToLng(double meters, double lat) {
+        return meters / (METERS_PER_DEGREE_LAT * Math.cos(Math.toRadians(lat)));
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private abstract static class Actor {
+        long nextAt;
+        long sequence;
+
+        /**
+         * Emits the actor's event due at {@link #nextAt}, or null if it only changed state,
+         * and moves {@link #nextAt} to its next event.
+         */
+        abstract TrafficEvent emit();
+    }
+
+    private final class Driver extends Actor {
+        private final String id;
+        private final SplittableRandom random;
+        private boolean online;
+        private long lastPingAt;
+        private double lat;
+        private double lng;
+        private double targetLat;
+        private double targetLng;
+        private double speedMps;
+        private int heading;
+        private int stoppedPings;
+
+        Driver(String id, SplittableRandom random, long onlineAt) {
+            this.id = id;
+            this.random = random;
+            this.nextAt = onlineAt;
+            this.lat = gridLat(random.nextDouble(MIN_LAT, MAX_LAT));
+            this.lng = gridLng(random.nextDouble(MIN_LNG, MAX_LNG));
+            newLeg();
+        }
+
+        @Override
+        TrafficEvent emit() {
+            long now = nextAt;
+            TrafficEvent event;
+            if (!online) {
+                online = true;
+                event = TrafficEvent.http(now, DRIVER_ONLINE, "POST",
+                        "/drivers/" + id + "/online?lat=" + coordinate(lat) + "&lng=" + coordinate(lng), null);
+            } else {
+                drive((now - lastPingAt) / 1000.0);
+                event = TrafficEvent.http(now, DRIVER_LOCATION, "POST", "/drivers/" + id + "/location", ping());
+            }
+            lastPingAt = now;
+            nextAt = now + Math.round(options.pingInterval().toMillis() * random.nextDouble(0.9, 1.1));
+            return event;
+        }
+
+        private String ping() {
+            double accuracy = random.nextDouble(3, 15);
+            double reportedLat = lat + random.nextGaussian() * accuracy / 2 / METERS_PER_DEGREE_LAT;
+            double reportedLng = lng + metersToLng(random.nextGaussian() * accuracy / 2, lat);
+            double speed = stoppedPings > 0 ? 0 : speedMps;
+            return String.format(Locale.ROOT,
+                    "{\"driverId\":\"%s\",\"lat\":%.6f,\"lng\":%.6f,\"heading\":%d,\"speedKmh\":%.1f,\"accuracyMeters\":%.1f}",
+                    id, reportedLat, reportedLng, heading, speed * 3.6, accuracy);
+        }
+
+        /** Moves along the grid toward the target, east/west first, then north/south. */
+        private void drive(double seconds) {
+            if (stoppedPings > 0) {
+                stoppedPings--;
+                return;
+            }
+            double meters = speedMps * seconds;
+            while (meters > 0) {
+                if (lng != targetLng) {
+                    double metersPerDegree = METERS_PER_DEGREE_LAT * Math.cos(Math.toRadians(lat));
+                    double remaining = Math.abs(targetLng - lng) * metersPerDegree;
+                    heading = targetLng > lng ? 90 : 270;
+                    if (meters >= remaining) {
+                        lng = targetLng;
+                        meters -= remaining;
+                    } else {
+                        lng += Math.signum(targetLng - lng) * meters / metersPerDegree;
+                        meters = 0;
+                    }
+                } else if (lat != targetLat) {
+                    double remaining = Math.abs(targetLat - lat) * METERS_PER_DEGREE_LAT;
+                    heading = targetLat > lat ? 0 : 180;
+                    if (meters >= remaining) {
+                        lat = targetLat;
+                        meters -= remaining;
+                    } else {
+                        lat += Math.signum(targetLat - lat) * meters / METERS_PER_DEGREE_LAT;
+                        meters = 0;
+                    }
+                } else {
+                    newLeg();
+                    if (stoppedPings > 0) {
+                        return;
+                    }
+                }
+            }
+        }
+
+        private void newLeg() {
+            targetLat = gridLat(random.nextDouble(MIN_LAT, MAX_LAT));
+            targetLng = gridLng(random.nextDouble(MIN_LNG, MAX_LNG));
+            speedMps = random.nextDouble(15, 45) / 3.6;
+            // Drop-offs, pick-ups and red lights
+            stoppedPings = random.nextDouble() < 0.15 ? random.nextInt(1, 5) : 0;
+        }
+
+        private double gridLat(double value) {
+            return MIN_LAT + Math.round((value - MIN_LAT) / STREET_SPACING_LAT) * STREET_SPACING_LAT;
+        }
+
+        private double gridLng(double value) {
+            return MIN_LNG + Math.round((value - MIN_LNG) / AVENUE_SPACING_LNG) * AVENUE_SPACING_LNG;
+        }
+    }
+
+    /** Ride request arrivals: a Poisson process at the peak rate, thinned by the diurnal curve. */
+    private final class RideDemand extends Actor {
+        private final SplittableRandom random;
+        private final double peakPerMilli;
+
+        RideDemand(SplittableRandom random) {
+            this.random = random;
+            this.peakPerMilli = options.peakRidesPerMinute() / 60_000.0;
+            this.nextAt = -1;
+            advance();
+        }
+
+        @Override
+        TrafficEvent emit() {
+            schedule(new RideRequest(random.split(), nextAt));
+            advance();
+            return null;
+        }
+
+        private void advance() {
+            if (peakPerMilli <= 0) {
+                nextAt = Long.MAX_VALUE;
+                return;
+            }
+            double at = Math.max(nextAt, 0);
+            do {
+                at += -Math.log(1 - random.nextDouble()) / peakPerMilli;
+            } while (at <= endMillis && random.nextDouble() * DiurnalCurve.PEAK > DiurnalCurve.at(hourAt((long) at)));
+            nextAt = at > endMillis ? Long.MAX_VALUE : (long) at;
+        }
+    }
+
+    /** One rider's request: nearby drivers, the ride request, then optionally a STOMP session. */
+    private final class RideRequest extends Actor {
+        private final String riderId;
+        private final double pickupLat;
+        private final double pickupLng;
+        private final double destinationLat;
+        private final double destinationLng;
+        private final long requestDelay;
+        private final boolean watch;
+        private int step;
+
+        RideRequest(SplittableRandom random, long at) {
+            this.nextAt = at;
+            this.riderId = "lg_rider_" + random.nextInt(1, options.riders() + 1);
+            if (random.nextBoolean()) {
+                double[] hotspot = HOTSPOTS[random.nextInt(HOTSPOTS.length)];
+                this.pickupLat = clamp(hotspot[0] + random.nextGaussian() * HOTSPOT_SPREAD_METERS / METERS_PER_DEGREE_LAT, MIN_LAT, MAX_LAT);
+                this.pickupLng = clamp(hotspot[1] + metersToLng(random.nextGaussian() * HOTSPOT_SPREAD_METERS, hotspot[0]), MIN_LNG, MAX_LNG);
+            } else {
+                this.pickupLat = random.nextDouble(MIN_LAT, MAX_LAT);
+                this.pickupLng = random.nextDouble(MIN_LNG, MAX_LNG);
+            }
+            this.destinationLat = random.nextDouble(MIN_LAT, MAX_LAT);
+            this.destinationLng = random.nextDouble(MIN_LNG, MAX_LNG);
+            this.requestDelay = random.nextLong(1_500, 4_000);
+            this.watch = random.nextDouble() < options.wsShare();
+        }
+
+        @Override
+        TrafficEvent emit() {
+            long now = nextAt;
+            switch (step++) {
+                case 0 -> {
+                    nextAt = now + requestDelay;
+                    return TrafficEvent.http(now, DRIVERS_NEARBY, "GET", "/drivers/nearby?lat=" + coordinate(pickupLat)
+                            + "&lng=" + coordinate(pickupLng) + "&radiusKm=" + NEARBY_RADIUS_KM, null);
+                }
+                case 1 -> {
+                    nextAt = watch ? now + 500 : Long.MAX_VALUE;
+                    return TrafficEvent.http(now, RIDE_CREATE, "POST", "/rides", String.format(Locale.ROOT,
+                            "{\"riderId\":\"%s\",\"pickupLat\":%.6f,\"pickupLng\":%.6f,\"destinationLat\":%.6f,\"destinationLng\":%.6f}",
+                            riderId, pickupLat, pickupLng, destinationLat, destinationLng), riderId);
+                }
+                default -> {
+                    nextAt = Long.MAX_VALUE;
+                    return TrafficEvent.stomp(now, WS_SESSION, tileDestination(pickupLat, pickupLng), riderId,
+                            options.wsHold().toMillis());
+                }
+            }
+        }
+    }
+}
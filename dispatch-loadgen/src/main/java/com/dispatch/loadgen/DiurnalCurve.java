@@ -0,0 +1,31 @@
+package com.dispatch.loadgen;
+
+/**
+ * Ride demand over a weekday in a large city relative to the evening peak: a night trough
+ * around 04:00, a morning commute peak, a flat midday and the evening peak around 18:00.
+ */
+final class DiurnalCurve {
+
+    // Demand at the start of each hour, 00:00 .. 23:00; linear in between
+    private static final double[] HOURLY = {
+            0.30, 0.20, 0.14, 0.10, 0.09, 0.14, 0.32, 0.62, 0.86, 0.72, 0.58, 0.58,
+            0.64, 0.62, 0.60, 0.66, 0.78, 0.94, 1.00, 0.90, 0.76, 0.66, 0.58, 0.44
+    };
+
+    static final double PEAK = 1.0;
+
+    private DiurnalCurve() {
+    }
+
+    /**
+     * @param hourOfDay hour since midnight, wrapped into [0, 24)
+     * @return demand in (0, {@link #PEAK}]
+     */
+    static double at(double hourOfDay) {
+        double hour = ((hourOfDay % 24) + 24) % 24;
+        int from = (int) hour;
+        int to = (from + 1) % 24;
+        double fraction = hour - from;
+        return HOURLY[from] + (HOURLY[to] - HOURLY[from]) * fraction;
+    }
+}
@@ -0,0 +1,141 @@
+package com.dispatch.loadgen;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency percentiles and outcome counts per endpoint.
+ *
+ * Latency runs from when a request was due, not from when it was sent, so a generator that falls
+ * behind because the server is slow shows up in the percentiles instead of hiding the stall
+ * (coordinated omission).
+ */
+public final class LatencyStats {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentSkipListMap<>();
+    private final Map<String, LongAdder> counters = new ConcurrentSkipListMap<>();
+    private long lastIntervalNanos = System.nanoTime();
+
+    /**
+     * @param status HTTP status, 101 for an established WebSocket session, 0 if the request failed
+     *               without a response
+     */
+    public void record(String endpoint, long latencyNanos, int status) {
+        Endpoint stats = endpoints.computeIfAbsent(endpoint, name -> new Endpoint());
+        stats.recorder.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), HIGHEST_TRACKABLE_MICROS));
+        if (status == 0) {
+            stats.failed.increment();
+        } else if (status == 429) {
+            stats.throttled.increment();
+        } else if (status >= 400) {
+            stats.errors.increment();
+        }
+    }
+
+    /** Counts an occurrence without latency, e.g. a message received on a WebSocket session. */
+    public void count(String counter) {
+        counters.computeIfAbsent(counter, name -> new LongAdder()).increment();
+    }
+
+    /** Throughput and percentiles since the previous interval, one line per endpoint. */
+    public synchronized void printInterval(PrintStream out, long elapsedMillis) {
+        long now = System.nanoTime();
+        double seconds = Math.max(1e-9, (now - lastIntervalNanos) / 1e9);
+        lastIntervalNanos = now;
+        
+        endpoints.forEach((name, stats) -> {
+            Histogram interval = stats.drain();
+            out.printf(Locale.ROOT, "[%6.0fs] %-16s %9.1f req/s  p50=%8.2fms  p99=%8.2fms  max=%8.2fms%n",
+                    elapsedMillis / 1000.0, name, interval.getTotalCount() / seconds,
+                    millis(interval.getValueAtPercentile(50)), millis(interval.getValueAtPercentile(99)),
+                    millis(interval.getMaxValue()));
+        });
+    }
+
+    /** Totals for the whole run. */
+    public synchronized void printSummary(PrintStream out, long elapsedMillis) {
+        double seconds = Math.max(1e-9, elapsedMillis / 1000.0);
+        out.printf(Locale.ROOT, "%n%-16s %9s %9s %8s %8s %8s %9s %9s %9s %9s %9s%n", "endpoint", "count", "req/s",
+                "429", "errors", "failed", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        endpoints.forEach((name, stats) -> {
+            Histogram total = stats.total();
+            out.printf(Locale.ROOT, "%-16s %9d %9.1f %8d %8d %8d %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    name, total.getTotalCount(), total.getTotalCount() / seconds,
+                    stats.throttled.sum(), stats.errors.sum(), stats.failed.sum(),
+                    millis(total.getValueAtPercentile(50)), millis(total.getValueAtPercentile(90)),
+                    millis(total.getValueAtPercentile(99)), millis(total.getValueAtPercentile(99.9)),
+                    millis(total.getMaxValue()));
+        });
+        counters.forEach((name, count) -> out.printf(Locale.ROOT, "%-16s %9d %9.1f%n", name, count.sum(), count.sum() / seconds));
+    }
+
+    /** Writes {@code <endpoint>.hgrm} (percentile distribution) and {@code <endpoint>.hlog} per endpoint. */
+    public synchronized void writeHistograms(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        for (Map.Entry<String, Endpoint> entry : endpoints.entrySet()) {
+            Histogram total = entry.getValue().total();
+            try (PrintStream out = new PrintStream(dir.resolve(entry.getKey() + ".hgrm").toFile())) {
+                total.outputPercentileDistribution(out, 1000.0);
+            }
+            writeLog(dir.resolve(entry.getKey() + ".hlog"), total);
+        }
+    }
+
+    synchronized long requests(String endpoint) {
+        Endpoint stats = endpoints.get(endpoint);
+        return stats != null ? stats.total().getTotalCount() : 0;
+    }
+
+    synchronized long failures(String endpoint) {
+        Endpoint stats = endpoints.get(endpoint);
+        return stats != null ? stats.failed.sum() + stats.errors.sum() : 0;
+    }
+
+    private static void writeLog(Path file, Histogram histogram) throws FileNotFoundException {
+        try (PrintStream out = new PrintStream(file.toFile())) {
+            HistogramLogWriter writer = new HistogramLogWriter(out);
+            writer.outputLogFormatVersion();
+            writer.outputLegend();
+            writer.outputIntervalHistogram(histogram);
+        }
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static final class Endpoint {
+        private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+        private final Histogram total = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+        private final LongAdder throttled = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private Histogram interval;
+
+        /** Moves everything recorded since the previous drain into the total and returns it. */
+        Histogram drain() {
+            interval = recorder.getIntervalHistogram(interval);
+            total.add(interval);
+            return interval;
+        }
+
+        Histogram total() {
+            drain();
+            return total;
+        }
+    }
+}
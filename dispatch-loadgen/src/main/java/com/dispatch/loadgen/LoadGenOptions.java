@@ -0,0 +1,150 @@
+package com.dispatch.loadgen;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Command line options, given as {@code --name=value}. Durations accept {@code ms}, {@code s},
+ * {@code m} and {@code h} suffixes.
+ */
+public record LoadGenOptions(
+        Target target,
+        String baseUrl,
+        long seed,
+        int drivers,
+        int riders,
+        Duration duration,
+        Duration dayLength,
+        double startHour,
+        double peakRidesPerMinute,
+        Duration pingInterval,
+        double wsShare,
+        Duration wsHold,
+        double speed,
+        int maxInFlight,
+        Duration reportInterval,
+        Path record,
+        Path replay,
+        boolean dryRun,
+        Path hgrmDir,
+        Duration stubLatency,
+        String jwtSecret) {
+
+    /** Where requests go: a running dispatch-api, or an in-process HTTP stub. */
+    public enum Target { API, STUB }
+
+    private static final Set<String> KNOWN = Set.of(
+            "target", "base-url", "seed", "drivers", "riders", "duration", "day-length", "start-hour",
+            "peak-rides-per-minute", "ping-interval", "ws-share", "ws-hold", "speed", "max-in-flight",
+            "report-interval", "record", "replay", "dry-run", "hgrm-dir", "stub-latency", "jwt-secret");
+
+    // Default of app.security.jwt.secret in dispatch-api
+    private static final String DEFAULT_JWT_SECRET = "dispatch-system-super-secret-key-for-jwt-token-generation";
+
+    static final String USAGE = """
+            Usage: java -jar dispatch-loadgen/target/loadgen.jar [--name=value ...]
+            
+              --target=api|stub            running dispatch-api (default) or in-process HTTP stub
+              --base-url=URL               API base URL (default http://localhost:8080/api)
+              --seed=N                     scenario seed; same seed and options give the same traffic (default 42)
+              --drivers=N                  simulated drivers, ids lg_driver_1..N (default 1000)
+              --riders=N                   rider pool, ids lg_rider_1..N (default 5000)
+              --duration=10m               length of the run
+              --day-length=10m             wall time one simulated 24h day is compressed into (default: duration)
+              --start-hour=0               simulated hour of day at the start of the run
+              --peak-rides-per-minute=120  ride requests per minute at the diurnal peak
+              --ping-interval=4s           mean driver location ping interval
+              --ws-share=0.2               share of ride requests that also open a STOMP session
+              --ws-hold=2m                 how long each STOMP session stays connected
+              --speed=1.0                  replay/playback speed multiplier
+              --max-in-flight=2000         concurrent requests before dispatch waits
+              --report-interval=10s        interval of the running throughput report
+              --record=FILE                write the traffic as NDJSON
+              --replay=FILE                replay NDJSON traffic instead of generating it
+              --dry-run                    only generate (and --record) the traffic, send nothing
+              --hgrm-dir=DIR               write an HdrHistogram percentile file per endpoint
+              --stub-latency=2ms           response delay of the stub target
+              --jwt-secret=SECRET          dispatch-api's app.security.jwt.secret, to sign the callers' tokens
+                                           (default: the application.yml default)
+            """;
+
+    public static LoadGenOptions parse(String... args) {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                values.put(arg.substring(2), "true");
+            } else {
+                values.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+        
+        Duration duration = duration(values.get("duration"), Duration.ofMinutes(10));
+        LoadGenOptions options = new LoadGenOptions(
+                Target.valueOf(values.getOrDefault("target", "api").toUpperCase(Locale.ROOT)),
+                stripTrailingSlash(values.getOrDefault("base-url", "http://localhost:8080/api")),
+                Long.parseLong(values.getOrDefault("seed", "42")),
+                Integer.parseInt(values.getOrDefault("drivers", "1000")),
+                Integer.parseInt(values.getOrDefault("riders", "5000")),
+                duration,
+                duration(values.get("day-length"), duration),
+                Double.parseDouble(values.getOrDefault("start-hour", "0")),
+                Double.parseDouble(values.getOrDefault("peak-rides-per-minute", "120")),
+                duration(values.get("ping-interval"), Duration.ofSeconds(4)),
+                Double.parseDouble(values.getOrDefault("ws-share", "0.2")),
+                duration(values.get("ws-hold"), Duration.ofMinutes(2)),
+                Double.parseDouble(values.getOrDefault("speed", "1.0")),
+                Integer.parseInt(values.getOrDefault("max-in-flight", "2000")),
+                duration(values.get("report-interval"), Duration.ofSeconds(10)),
+                path(values.get("record")),
+                path(values.get("replay")),
+                Boolean.parseBoolean(values.getOrDefault("dry-run", "false")),
+                path(values.get("hgrm-dir")),
+                duration(values.get("stub-latency"), Duration.ofMillis(2)),
+                values.getOrDefault("jwt-secret", DEFAULT_JWT_SECRET));
+        
+        values.keySet().removeAll(KNOWN);
+        if (!values.isEmpty()) {
+            throw new IllegalArgumentException("Unknown option(s): " + values.keySet());
+        }
+        if (options.drivers < 0 || options.riders < 1 || options.speed <= 0 || options.maxInFlight < 1) {
+            throw new IllegalArgumentException("drivers must be >= 0, riders >= 1, speed > 0 and max-in-flight >= 1");
+        }
+        if (options.pingInterval.isZero() || options.dayLength.isZero()) {
+            throw new IllegalArgumentException("ping-interval and day-length must be positive");
+        }
+        return options;
+    }
+
+    static Duration duration(String value, Duration defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        String v = value.trim().toLowerCase(Locale.ROOT);
+        if (v.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(v.substring(0, v.length() - 2)));
+        }
+        long amount = Long.parseLong(v.substring(0, v.length() - 1));
+        return switch (v.charAt(v.length() - 1)) {
+            case 's' -> Duration.ofSeconds(amount);
+            case 'm' -> Duration.ofMinutes(amount);
+            case 'h' -> Duration.ofHours(amount);
+            default -> throw new IllegalArgumentException("Invalid duration: " + value);
+        };
+    }
+
+    private static Path path(String value) {
+        return value != null ? Path.of(value) : null;
+    }
+
+    private static String stripTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+}
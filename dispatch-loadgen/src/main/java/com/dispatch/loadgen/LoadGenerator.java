@@ -0,0 +1,117 @@
+package com.dispatch.loadgen;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives dispatch-api with a simulated city (or a recorded run) and reports throughput and
+ * latency percentiles per endpoint. See {@link LoadGenOptions#USAGE} for the options.
+ */
+public final class LoadGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadGenerator.class);
+
+    private LoadGenerator() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (List.of(args).contains("--help")) {
+            System.out.print(LoadGenOptions.USAGE);
+            return;
+        }
+        
+        LoadGenOptions options;
+        try {
+            options = LoadGenOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(LoadGenOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+        run(options);
+    }
+
+    static LatencyStats run(LoadGenOptions options) throws IOException, InterruptedException {
+        try (TrafficSource source = source(options)) {
+            if (options.dryRun()) {
+                long events = 0;
+                while (source.next() != null) {
+                    events++;
+                }
+                logger.info("Generated {} events", events);
+                return new LatencyStats();
+            }
+            
+            try (StubDispatchServer stub = options.target() == LoadGenOptions.Target.STUB
+                    ? StubDispatchServer.start(options.stubLatency()) : null) {
+                String baseUrl = stub != null ? stub.baseUrl() : options.baseUrl();
+                if (stub != null) {
+                    logger.info("Stub target at {}; WebSocket sessions are skipped", baseUrl);
+                }
+                return send(options, source, baseUrl, stub == null);
+            }
+        }
+    }
+
+    private static TrafficSource source(LoadGenOptions options) throws IOException {
+        TrafficSource source;
+        if (options.replay() != null) {
+            logger.info("Replaying {} at {}x", options.replay(), options.speed());
+            source = TrafficLog.open(options.replay());
+        } else {
+            logger.info("Simulating {} drivers and {} riders for {} (seed {}, day length {}, start hour {})",
+                    options.drivers(), options.riders(), options.duration(), options.seed(),
+                    options.dayLength(), options.startHour());
+            source = new CityScenario(options);
+        }
+        
+        if (options.record() != null) {
+            logger.info("Recording traffic to {}", options.record());
+            source = TrafficLog.recording(source, TrafficLog.create(options.record()));
+        }
+        return source;
+    }
+
+    private static LatencyStats send(LoadGenOptions options, TrafficSource source, String baseUrl,
+                                     boolean websockets) throws IOException, InterruptedException {
+        LatencyStats stats = new LatencyStats();
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        TrafficRunner runner = new TrafficRunner(client, baseUrl, websockets, options.speed(),
+                options.maxInFlight(), stats, new CallerTokens(options.jwtSecret(), Duration.ofHours(24)));
+        
+        long startNanos = System.nanoTime();
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor();
+        long intervalMillis = options.reportInterval().toMillis();
+        reporter.scheduleAtFixedRate(() -> stats.printInterval(System.out, elapsedMillis(startNanos)),
+                intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        try {
+            runner.run(source, startNanos);
+        } finally {
+            reporter.shutdownNow();
+        }
+        
+        stats.printSummary(System.out, elapsedMillis(startNanos));
+        if (options.hgrmDir() != null) {
+            stats.writeHistograms(options.hgrmDir());
+            logger.info("Histograms written to {}", options.hgrmDir());
+        }
+        return stats;
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+}
@@ -0,0 +1,141 @@
+package com.dispatch.loadgen;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Minimal STOMP 1.2 client over the raw WebSocket transport of the SockJS endpoint: connects
+ * with the user's JWT, subscribes to a tile and the user's driver-location queue, and counts the
+ * messages it gets.
+ */
+final class StompSession implements WebSocket.Listener {
+
+    static final String MESSAGES = "ws.messages";
+    static final String ERRORS = "ws.errors";
+
+    private static final String DRIVER_LOCATION_QUEUE = "/user/queue/driver-location";
+
+    private final String destination;
+    private final LatencyStats stats;
+    private final CompletableFuture<StompSession> connected = new CompletableFuture<>();
+    private final StringBuilder pending = new StringBuilder();
+    private volatile WebSocket webSocket;
+
+    private StompSession(String destination, LatencyStats stats) {
+        this.destination = destination;
+        this.stats = stats;
+    }
+
+    /**
+     * @return completes once the server has answered CONNECTED and the subscriptions are sent
+     */
+    static CompletableFuture<StompSession> open(HttpClient client, URI uri, String token, String destination,
+                                                LatencyStats stats, Duration timeout) {
+        StompSession session = new StompSession(destination, stats);
+        client.newWebSocketBuilder()
+                .connectTimeout(timeout)
+                .header("Authorization", "Bearer " + token)
+                .buildAsync(uri, session)
+                .whenComplete((webSocket, error) -> {
+                    if (error != null) {
+                        session.connected.completeExceptionally(error);
+                    }
+                });
+        return session.connected
+                .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((connected, error) -> {
+                    if (error != null) {
+                        session.close();
+                    }
+                });
+    }
+
+    void close() {
+        WebSocket ws = webSocket;
+        if (ws != null && !ws.isOutputClosed()) {
+            ws.sendClose(WebSocket.NORMAL_CLOSURE, "");
+        }
+    }
+
+    @Override
+    public void onOpen(WebSocket webSocket) {
+        this.webSocket = webSocket;
+        webSocket.sendText(frame("CONNECT", "accept-version:1.2", "host:dispatch-api", "heart-beat:0,0"), true);
+        webSocket.request(1);
+    }
+
+    @Override
+    public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+        pending.append(data);
+        if (last) {
+            // One STOMP frame per message from Spring, but tolerate several NUL-terminated frames
+            for (String frame : pending.toString().split("\0")) {
+                handle(webSocket, frame.stripLeading());
+            }
+            pending.setLength(0);
+        }
+        webSocket.request(1);
+        return null;
+    }
+
+    @Override
+    public CompletionStage<?> onBinary(WebSocket webSocket, ByteBuffer data, boolean last) {
+        if (last) {
+            stats.count(MESSAGES);
+        }
+        webSocket.request(1);
+        return null;
+    }
+
+    @Override
+    public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+        connected.completeExceptionally(new IllegalStateException("Closed before CONNECTED: " + statusCode + " " + reason));
+        return null;
+    }
+
+    @Override
+    public void onError(WebSocket webSocket, Throwable error) {
+        connected.completeExceptionally(error);
+    }
+
+    private void handle(WebSocket webSocket, String frame) {
+        if (frame.isEmpty()) {
+            return; // heart-beat
+        }
+        int end = frame.indexOf('\n');
+        String command = end < 0 ? frame : frame.substring(0, end);
+        switch (command) {
+            case "CONNECTED" -> webSocket
+                    .sendText(frame("SUBSCRIBE", "id:sub-0", "destination:" + destination), true)
+                    .thenCompose(ws -> ws.sendText(frame("SUBSCRIBE", "id:sub-1", "destination:" + DRIVER_LOCATION_QUEUE), true))
+                    .whenComplete((ws, error) -> {
+                        if (error != null) {
+                            connected.completeExceptionally(error);
+                        } else {
+                            connected.complete(this);
+                        }
+                    });
+            case "MESSAGE" -> stats.count(MESSAGES);
+            case "ERROR" -> {
+                stats.count(ERRORS);
+                connected.completeExceptionally(new IllegalStateException("STOMP ERROR frame"));
+            }
+            default -> {
+            }
+        }
+    }
+
+    private static String frame(String command, String... headers) {
+        StringBuilder frame = new StringBuilder(command).append('\n');
+        for (String header : headers) {
+            frame.append(header).append('\n');
+        }
+        return frame.append('\n').append('\0').toString();
+    }
+}
@@ -0,0 +1,80 @@
+package com.dispatch.loadgen;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * In-process stand-in for the dispatch-api endpoints the scenario calls. Answers with canned JSON
+ * after a fixed delay, so the generator and its reporting can be exercised, or the client side
+ * measured, without the docker-compose stack. It does not speak WebSocket.
+ */
+final class StubDispatchServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Duration latency;
+
+    private StubDispatchServer(Duration latency) throws IOException {
+        this.latency = latency;
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 4096);
+        this.server.setExecutor(executor);
+        this.server.createContext("/api/", this::handle);
+    }
+
+    static StubDispatchServer start(Duration latency) throws IOException {
+        StubDispatchServer stub = new StubDispatchServer(latency);
+        stub.server.start();
+        return stub;
+    }
+
+    String baseUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/api";
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange; InputStream body = exchange.getRequestBody()) {
+            body.transferTo(OutputStream.nullOutputStream());
+            Thread.sleep(latency);
+            
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getPath();
+            if (method.equals("POST") && path.equals("/api/rides")) {
+                respond(exchange, 201, "{\"rideId\":\"" + UUID.randomUUID() + "\",\"status\":\"REQUESTED\"}");
+            } else if (method.equals("GET") && path.equals("/api/drivers/nearby")) {
+                respond(exchange, 200, "[]");
+            } else if (method.equals("POST") && path.matches("/api/drivers/[^/]+/(location|online)")) {
+                String driverId = path.split("/")[3];
+                respond(exchange, 200, "{\"id\":\"" + driverId + "\",\"status\":\"AVAILABLE\"}");
+            } else {
+                exchange.sendResponseHeaders(404, -1);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+}
@@ -0,0 +1,36 @@
+package com.dispatch.loadgen;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * One request of a run, due {@code at} milliseconds after the run started.
+ *
+ * HTTP events carry a method, a path relative to the API base URL, an optional JSON body and,
+ * for requests made on a rider's behalf, the rider as {@code user}.
+ * STOMP events open a WebSocket session as {@code user}, subscribe to {@code path} and
+ * {@code /user/queue/driver-location}, and disconnect after {@code holdMillis}.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record TrafficEvent(long at, String endpoint, String method, String path, String body,
+                           String user, Long holdMillis) {
+
+    static final String STOMP = "STOMP";
+
+    static TrafficEvent http(long at, String endpoint, String method, String path, String body) {
+        return new TrafficEvent(at, endpoint, method, path, body, null, null);
+    }
+
+    static TrafficEvent http(long at, String endpoint, String method, String path, String body, String user) {
+        return new TrafficEvent(at, endpoint, method, path, body, user, null);
+    }
+
+    static TrafficEvent stomp(long at, String endpoint, String destination, String user, long holdMillis) {
+        return new TrafficEvent(at, endpoint, STOMP, destination, null, user, holdMillis);
+    }
+
+    @JsonIgnore
+    public boolean isStomp() {
+        return STOMP.equals(method);
+    }
+}
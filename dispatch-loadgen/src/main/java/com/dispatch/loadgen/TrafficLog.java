@@ -0,0 +1,101 @@
+package com.dispatch.loadgen;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Traffic recorded as newline-delimited JSON, one {@link TrafficEvent} per line.
+ */
+public final class TrafficLog {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private TrafficLog() {
+    }
+
+    public static Reader open(Path file) throws IOException {
+        return new Reader(Files.newBufferedReader(file));
+    }
+
+    public static Writer create(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        return new Writer(Files.newBufferedWriter(file));
+    }
+
+    public static final class Reader implements TrafficSource {
+
+        private final BufferedReader in;
+
+        private Reader(BufferedReader in) {
+            this.in = in;
+        }
+
+        @Override
+        public TrafficEvent next() throws IOException {
+            String line;
+            do {
+                line = in.readLine();
+                if (line == null) {
+                    return null;
+                }
+            } while (line.isBlank());
+            return MAPPER.readValue(line, TrafficEvent.class);
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    public static final class Writer implements Closeable {
+
+        private final BufferedWriter out;
+
+        private Writer(BufferedWriter out) {
+            this.out = out;
+        }
+
+        public synchronized void append(TrafficEvent event) throws IOException {
+            out.write(MAPPER.writeValueAsString(event));
+            out.newLine();
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            out.close();
+        }
+    }
+
+    /**
+     * Passes events through from {@code source} and appends each one to {@code writer}.
+     */
+    public static TrafficSource recording(TrafficSource source, Writer writer) {
+        return new TrafficSource() {
+            @Override
+            public TrafficEvent next() throws IOException {
+                TrafficEvent event = source.next();
+                if (event != null) {
+                    writer.append(event);
+                }
+                return event;
+            }
+
+            @Override
+            public void close() throws IOException {
+                try (writer) {
+                    source.close();
+                }
+            }
+        };
+    }
+}
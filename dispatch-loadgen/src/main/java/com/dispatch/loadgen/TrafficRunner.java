@@ -0,0 +1,129 @@
+package com.dispatch.loadgen;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends traffic open-loop: every event goes out when it is due, whether or not earlier requests
+ * have been answered, up to {@code max-in-flight} outstanding requests.
+ */
+final class TrafficRunner {
+
+    static final String WS_SKIPPED = "ws.skipped";
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(60);
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final String webSocketUrl;
+    private final double speed;
+    private final int maxInFlight;
+    private final LatencyStats stats;
+    private final CallerTokens tokens;
+    private final Semaphore inFlight;
+    private final Set<StompSession> sessions = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    /**
+     * @param websockets false to skip STOMP events, e.g. against the stub
+     */
+    TrafficRunner(HttpClient client, String baseUrl, boolean websockets, double speed, int maxInFlight,
+                  LatencyStats stats, CallerTokens tokens) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.webSocketUrl = websockets ? baseUrl.replaceFirst("^http", "ws") + "/ws/websocket" : null;
+        this.speed = speed;
+        this.maxInFlight = maxInFlight;
+        this.stats = stats;
+        this.tokens = tokens;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Sends all events of {@code source}, waits for outstanding responses and closes the
+     * WebSocket sessions still open.
+     *
+     * @param startNanos {@link System#nanoTime()} that event time 0 maps to
+     */
+    void run(TrafficSource source, long startNanos) throws IOException, InterruptedException {
+        try {
+            TrafficEvent event;
+            while ((event = source.next()) != null) {
+                long dueNanos = startNanos + (long) (TimeUnit.MILLISECONDS.toNanos(event.at()) / speed);
+                long wait;
+                while ((wait = dueNanos - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                inFlight.acquire();
+                if (event.isStomp()) {
+                    openSession(event, dueNanos);
+                } else {
+                    send(event, dueNanos);
+                }
+            }
+            inFlight.tryAcquire(maxInFlight, DRAIN_TIMEOUT.toSeconds(), TimeUnit.SECONDS);
+        } finally {
+            scheduler.shutdownNow();
+            sessions.forEach(StompSession::close);
+        }
+    }
+
+    private void send(TrafficEvent event, long dueNanos) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + event.path()))
+                .timeout(REQUEST_TIMEOUT);
+        if (event.user() != null) {
+            // Ride requests are rate limited per authenticated rider
+            request.header("Authorization", "Bearer " + tokens.rider(event.user()));
+        }
+        if (event.body() != null) {
+            request.header("Content-Type", "application/json")
+                    .method(event.method(), HttpRequest.BodyPublishers.ofString(event.body()));
+        } else {
+            request.method(event.method(), HttpRequest.BodyPublishers.noBody());
+        }
+        
+        client.sendAsync(request.build(), HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    stats.record(event.endpoint(), System.nanoTime() - dueNanos, error == null ? response.statusCode() : 0);
+                    inFlight.release();
+                });
+    }
+
+    private void openSession(TrafficEvent event, long dueNanos) {
+        if (webSocketUrl == null) {
+            stats.count(WS_SKIPPED);
+            inFlight.release();
+            return;
+        }
+        
+        StompSession.open(client, URI.create(webSocketUrl), tokens.rider(event.user()), event.path(), stats, REQUEST_TIMEOUT)
+                .whenComplete((session, error) -> {
+                    stats.record(event.endpoint(), System.nanoTime() - dueNanos, error == null ? 101 : 0);
+                    inFlight.release();
+                    if (session != null) {
+                        if (scheduler.isShutdown()) {
+                            session.close();
+                            return;
+                        }
+                        sessions.add(session);
+                        long holdNanos = (long) (TimeUnit.MILLISECONDS.toNanos(event.holdMillis()) / speed);
+                        scheduler.schedule(() -> {
+                            sessions.remove(session);
+                            session.close();
+                        }, holdNanos, TimeUnit.NANOSECONDS);
+                    }
+                });
+    }
+}
@@ -0,0 +1,19 @@
+package com.dispatch.loadgen;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Traffic of a run in the order it is due.
+ */
+public interface TrafficSource extends Closeable {
+
+    /**
+     * @return the next event, never earlier than the previous one, or null when the run is over
+     */
+    TrafficEvent next() throws IOException;
+
+    @Override
+    default void close() throws IOException {
+    }
+}
@@ -0,0 +1,48 @@
+package com.dispatch.loadgen;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CallerTokensTest {
+
+    private static final String SECRET = "test-secret-key-that-is-long-enough-for-hs512-signatures-0123456789abcdef";
+
+    @Test
+    void signsOneTokenPerCallerWithTheServersClaims() throws Exception {
+        CallerTokens tokens = new CallerTokens(SECRET, Duration.ofHours(1));
+
+        String token = tokens.rider("lg_rider_7");
+        String[] parts = token.split("\\.");
+        String header = new String(Base64.getUrlDecoder().decode(parts[0]), StandardCharsets.UTF_8);
+        String claims = new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8);
+
+        assertTrue(header.contains("\"alg\":\"HS512\""));
+        assertTrue(claims.contains("\"sub\":\"lg_rider_7\""));
+        assertTrue(claims.contains("\"user_type\":\"RIDER\""));
+        assertSame(token, tokens.rider("lg_rider_7"));
+        assertTrue(tokens.driver("lg_driver_1").split("\\.")[1].length() > 0);
+
+        Mac mac = Mac.getInstance("HmacSHA512");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA512"));
+        byte[] expected = mac.doFinal((parts[0] + "." + parts[1]).getBytes(StandardCharsets.US_ASCII));
+        assertArrayEquals(expected, Base64.getUrlDecoder().decode(parts[2]));
+    }
+
+    @Test
+    void picksTheHmacTheSecretIsLongEnoughFor() {
+        // The application.yml default secret is 56 bytes
+        String token = new CallerTokens("dispatch-system-super-secret-key-for-jwt-token-generation", Duration.ofHours(1))
+                .rider("lg_rider_1");
+        String header = new String(Base64.getUrlDecoder().decode(token.split("\\.")[0]), StandardCharsets.UTF_8);
+
+        assertTrue(header.contains("\"alg\":\"HS384\""));
+        assertThrows(IllegalArgumentException.class, () -> new CallerTokens("too-short", Duration.ofHours(1)));
+    }
+}
@@ -0,0 +1,109 @@
+package com.dispatch.loadgen;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CityScenarioTest {
+
+    @Test
+    void sameSeedGivesSameTraffic() {
+        LoadGenOptions options = LoadGenOptions.parse("--drivers=50", "--duration=2m", "--peak-rides-per-minute=300");
+
+        assertEquals(events(new CityScenario(options)), events(new CityScenario(options)));
+        assertNotEquals(events(new CityScenario(options)),
+                events(new CityScenario(LoadGenOptions.parse("--drivers=50", "--duration=2m",
+                        "--peak-rides-per-minute=300", "--seed=7"))));
+    }
+
+    @Test
+    void eventsAreInTimeOrderAndWithinTheRun() {
+        List<TrafficEvent> events = events(new CityScenario(LoadGenOptions.parse("--drivers=100", "--duration=5m")));
+
+        long previous = 0;
+        for (TrafficEvent event : events) {
+            assertTrue(event.at() >= previous, "out of order at " + event);
+            assertTrue(event.at() <= 300_000, "after the end: " + event);
+            previous = event.at();
+        }
+    }
+
+    @Test
+    void driversComeOnlineOnceAndPingAtTheConfiguredInterval() {
+        List<TrafficEvent> events = events(new CityScenario(LoadGenOptions.parse(
+                "--drivers=100", "--duration=10m", "--ping-interval=5s", "--peak-rides-per-minute=0")));
+        Map<String, Integer> counts = countByEndpoint(events);
+
+        assertEquals(100, counts.get(CityScenario.DRIVER_ONLINE));
+        // 100 drivers, online after 30s on average, pinging every 5s until the 10 minutes are up
+        assertEquals(11_400, counts.get(CityScenario.DRIVER_LOCATION), 11_400 * 0.05);
+        assertNull(counts.get(CityScenario.RIDE_CREATE));
+        
+        TrafficEvent ping = events.stream()
+                .filter(event -> event.endpoint().equals(CityScenario.DRIVER_LOCATION))
+                .findFirst().orElseThrow();
+        assertEquals("POST", ping.method());
+        assertTrue(ping.path().matches("/drivers/lg_driver_\\d+/location"));
+        assertTrue(ping.body().contains("\"driverId\":\"" + ping.path().split("/")[2] + "\""));
+    }
+
+    @Test
+    void rideRequestsFollowTheDiurnalCurve() {
+        // One simulated day per hour: 00:00-06:00 is the first quarter, 15:00-21:00 the fourth
+        List<TrafficEvent> events = events(new CityScenario(LoadGenOptions.parse(
+                "--drivers=0", "--duration=60m", "--peak-rides-per-minute=200")));
+
+        long night = events.stream().filter(event -> event.endpoint().equals(CityScenario.RIDE_CREATE))
+                .filter(event -> event.at() < 15 * 60_000).count();
+        long evening = events.stream().filter(event -> event.endpoint().equals(CityScenario.RIDE_CREATE))
+                .filter(event -> event.at() >= 37 * 60_000 + 30_000 && event.at() < 52 * 60_000 + 30_000).count();
+        
+        assertTrue(evening > 3 * night, "night " + night + ", evening " + evening);
+    }
+
+    @Test
+    void eachRideLooksUpNearbyDriversFirst() {
+        List<TrafficEvent> events = events(new CityScenario(LoadGenOptions.parse(
+                "--drivers=0", "--duration=5m", "--peak-rides-per-minute=120", "--ws-share=1.0")));
+        Map<String, Integer> counts = countByEndpoint(events);
+
+        // Requests due within the last few seconds of the run may lack their later steps
+        assertEquals(counts.get(CityScenario.DRIVERS_NEARBY), counts.get(CityScenario.RIDE_CREATE), 3);
+        assertEquals(counts.get(CityScenario.RIDE_CREATE), counts.get(CityScenario.WS_SESSION), 3);
+        
+        TrafficEvent session = events.stream().filter(TrafficEvent::isStomp).findFirst().orElseThrow();
+        assertTrue(session.path().startsWith("/topic/tiles/14/"));
+        assertTrue(session.user().startsWith("lg_rider_"));
+        
+        // Sent with the rider's token, the ride request limit is per rider
+        TrafficEvent request = events.stream().filter(event -> event.endpoint().equals(CityScenario.RIDE_CREATE))
+                .findFirst().orElseThrow();
+        assertTrue(request.body().contains("\"riderId\":\"" + request.user() + "\""));
+    }
+
+    @Test
+    void tileDestinationMatchesWebMercatorTiles() {
+        // Times Square at zoom 14
+        assertEquals("/topic/tiles/14/4824/6157", CityScenario.tileDestination(40.7580, -73.9855));
+    }
+
+    private static List<TrafficEvent> events(CityScenario scenario) {
+        List<TrafficEvent> events = new ArrayList<>();
+        TrafficEvent event;
+        while ((event = scenario.next()) != null) {
+            events.add(event);
+        }
+        return events;
+    }
+
+    private static Map<String, Integer> countByEndpoint(List<TrafficEvent> events) {
+        Map<String, Integer> counts = new HashMap<>();
+        events.forEach(event -> counts.merge(event.endpoint(), 1, Integer::sum));
+        return counts;
+    }
+}
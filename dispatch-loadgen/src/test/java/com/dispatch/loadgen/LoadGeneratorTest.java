@@ -0,0 +1,38 @@
+package com.dispatch.loadgen;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadGeneratorTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void drivesTheStubAndReportsEveryEndpoint() throws Exception {
+        // 20 simulated seconds at 10x
+        LatencyStats stats = LoadGenerator.run(LoadGenOptions.parse("--target=stub", "--drivers=20",
+                "--duration=20s", "--speed=10", "--peak-rides-per-minute=600", "--stub-latency=1ms",
+                "--report-interval=1m", "--hgrm-dir=" + dir));
+
+        assertEquals(20, stats.requests(CityScenario.DRIVER_ONLINE));
+        assertTrue(stats.requests(CityScenario.DRIVER_LOCATION) > 20);
+        assertTrue(stats.requests(CityScenario.RIDE_CREATE) > 0);
+        assertEquals(0, stats.failures(CityScenario.DRIVER_LOCATION));
+        assertEquals(0, stats.failures(CityScenario.RIDE_CREATE));
+        assertTrue(Files.exists(dir.resolve(CityScenario.RIDE_CREATE + ".hgrm")));
+    }
+
+    @Test
+    void rejectsUnknownOptions() {
+        assertThrows(IllegalArgumentException.class, () -> LoadGenOptions.parse("--drivres=10"));
+        assertEquals(Duration.ofMillis(250), LoadGenOptions.duration("250ms", null));
+        assertEquals(Duration.ofMinutes(3), LoadGenOptions.duration("3m", null));
+    }
+}
@@ -0,0 +1,43 @@
+package com.dispatch.loadgen;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrafficLogTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replaysExactlyWhatWasRecorded() throws Exception {
+        Path file = dir.resolve("traffic.ndjson");
+        LoadGenOptions options = LoadGenOptions.parse("--drivers=20", "--duration=1m",
+                "--peak-rides-per-minute=120", "--ws-share=0.5");
+
+        List<TrafficEvent> recorded = new ArrayList<>();
+        try (TrafficSource source = TrafficLog.recording(new CityScenario(options), TrafficLog.create(file))) {
+            TrafficEvent event;
+            while ((event = source.next()) != null) {
+                recorded.add(event);
+            }
+        }
+
+        List<TrafficEvent> replayed = new ArrayList<>();
+        try (TrafficSource source = TrafficLog.open(file)) {
+            TrafficEvent event;
+            while ((event = source.next()) != null) {
+                replayed.add(event);
+            }
+        }
+
+        assertFalse(recorded.isEmpty());
+        assertTrue(recorded.stream().anyMatch(TrafficEvent::isStomp));
+        assertEquals(recorded, replayed);
+    }
+}
@@ -1,6 +1,8 @@
 use crate::geo_index::{DriverStatus, GeoIndex};
 use crate::geoindex::{
-    geo_index_service_server::GeoIndexService, DriverLocation, FindNearestDriversRequest,
+    geo_index_service_server::GeoIndexService, BatchRemoveDriversRequest,
+    BatchRemoveDriversResponse, BatchUpdateDriverLocationsRequest,
+    BatchUpdateDriverLocationsResponse, DriverLocation, FindNearestDriversRequest,
     FindNearestDriversResponse, GetDriverLocationRequest, GetDriverLocationResponse,
     RemoveDriverRequest, RemoveDriverResponse, UpdateDriverLocationRequest,
     UpdateDriverLocationResponse,
@@ -122,6 +124,51 @@ impl GeoIndexService for GeoIndexGrpcService {
         }
     }
 
+    async fn batch_update_driver_locations(
+        &self,
+        request: Request<BatchUpdateDriverLocationsRequest>,
+    ) -> Result<Response<BatchUpdateDriverLocationsResponse>, Status> {
+        let req = request.into_inner();
+
+        debug!("Batch updating locations for {} drivers", req.updates.len());
+
+        let mut updated_count = 0;
+        let mut failed_driver_ids = Vec::new();
+
+        // Invalid entries are reported back instead of failing the whole batch
+        for update in req.updates {
+            if update.driver_id.is_empty() {
+                continue;
+            }
+
+            let status = map_proto_status_to_driver(update.status);
+
+            match self.geo_index.update_driver_location(
+                update.driver_id.clone(),
+                update.lat,
+                update.lng,
+                status,
+            ) {
+                Ok(()) => updated_count += 1,
+                Err(e) => {
+                    warn!("Failed to update driver {} in batch: {}", update.driver_id, e);
+                    failed_driver_ids.push(update.driver_id);
+                }
+            }
+        }
+
+        debug!(
+            "Batch update finished: {} updated, {} failed",
+            updated_count,
+            failed_driver_ids.len()
+        );
+
+        Ok(Response::new(BatchUpdateDriverLocationsResponse {
+            updated_count,
+            failed_driver_ids,
+        }))
+    }
+
     async fn remove_driver(
         &self,
         request: Request<RemoveDriverRequest>,
@@ -151,6 +198,29 @@ impl GeoIndexService for GeoIndexGrpcService {
         }
     }
 
+    async fn batch_remove_drivers(
+        &self,
+        request: Request<BatchRemoveDriversRequest>,
+    ) -> Result<Response<BatchRemoveDriversResponse>, Status> {
+        let req = request.into_inner();
+
+        debug!("Batch removing {} drivers", req.driver_ids.len());
+
+        let removed_count = req
+            .driver_ids
+            .iter()
+            .filter(|driver_id| self.geo_index.remove_driver(driver_id))
+            .count() as i32;
+
+        info!(
+            "Batch removed {} of {} drivers",
+            removed_count,
+            req.driver_ids.len()
+        );
+
+        Ok(Response::new(BatchRemoveDriversResponse { removed_count }))
+    }
+
     async fn get_driver_location(
         &self,
         request: Request<GetDriverLocationRequest>,
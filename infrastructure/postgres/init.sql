@@ -1,4 +1,6 @@
 -- PostgreSQL initialization script for dispatch database
+-- Keep the schema part in sync with dispatch-api/src/main/resources/db/migration/V1__baseline.sql;
+-- later schema changes are Flyway migrations, applied when dispatch-api starts.
 
 -- Create rides table
 CREATE TABLE rides (
@@ -0,0 +1,106 @@
+#!/bin/bash
+
+# Compare platform-thread and virtual-thread execution modes of dispatch-api
+#
+# Starts the API once per mode against the docker-compose infrastructure, drives it
+# with scripts/load-test-rides.js and records p99 latency of ride creation together
+# with the maximum number of concurrent in-flight ride creations seen by the server,
+# sampled from the active tasks of the dispatch.rides.create.inflight timer.
+#
+# Usage: ./scripts/compare-thread-modes.sh [peak-rate]
+
+set -e
+
+SCRIPT_DIR="$(cd "$(dirname "$0")" && pwd)"
+ROOT_DIR="$(dirname "$SCRIPT_DIR")"
+API_DIR="$ROOT_DIR/dispatch-api"
+BASE_URL="http://localhost:8080/api"
+MANAGEMENT_URL="http://localhost:8091/actuator"
+PEAK_RATE=${1:-400}
+RESULTS_DIR="$ROOT_DIR/load-test-results"
+REPORT="$RESULTS_DIR/thread-modes-$(date +%Y%m%d-%H%M%S).md"
+
+command -v k6 >/dev/null || { echo "k6 is required (https://k6.io/docs/get-started/installation/)"; exit 1; }
+
+mkdir -p "$RESULTS_DIR"
+
+JAR=$(ls "$API_DIR"/target/dispatch-api-*.jar 2>/dev/null | head -1)
+if [ -z "$JAR" ]; then
+    echo "Building dispatch-api..."
+    (cd "$API_DIR" && mvn -B -q package -DskipTests)
+    JAR=$(ls "$API_DIR"/target/dispatch-api-*.jar | head -1)
+fi
+
+wait_for_api() {
+    for _ in $(seq 1 60); do
+        if curl -sf "$MANAGEMENT_URL/health" >/dev/null; then
+            return 0
+        fi
+        sleep 2
+    done
+    echo "dispatch-api did not become healthy"
+    return 1
+}
+
+run_mode() {
+    local mode=$1
+    local profiles=$2
+
+    echo "=== Running $mode mode ==="
+    java -jar "$JAR" --spring.profiles.active="$profiles" > "$RESULTS_DIR/$mode.log" 2>&1 &
+    local pid=$!
+    trap "kill $pid 2>/dev/null" EXIT
+
+    wait_for_api
+
+    # Poll the in-flight count while k6 runs and keep the highest value seen
+    local samples="$RESULTS_DIR/$mode-inflight.txt"
+    : > "$samples"
+    (
+        while true; do
+            curl -s "$MANAGEMENT_URL/prometheus" \
+                | awk '/^dispatch_rides_create_inflight_active_tasks/ {print $2}' >> "$samples"
+            sleep 1
+        done
+    ) &
+    local sampler=$!
+
+    k6 run --quiet -e BASE_URL="$BASE_URL" -e PEAK_RATE="$PEAK_RATE" \
+        --summary-export "$RESULTS_DIR/$mode-summary.json" \
+        "$SCRIPT_DIR/load-test-rides.js" || true
+
+    kill "$sampler" 2>/dev/null || true
+    wait "$sampler" 2>/dev/null || true
+
+    local max_inflight
+    max_inflight=$(sort -g "$samples" | tail -1)
+
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    trap - EXIT
+
+    local p99 p50 failed
+    p99=$(jq -r '.metrics["http_req_duration{name:create_ride}"]["p(99)"] // .metrics.http_req_duration["p(99)"]' "$RESULTS_DIR/$mode-summary.json")
+    p50=$(jq -r '.metrics["http_req_duration{name:create_ride}"]["p(50)"] // .metrics.http_req_duration["p(50)"]' "$RESULTS_DIR/$mode-summary.json")
+    failed=$(jq -r '.metrics.http_req_failed.value' "$RESULTS_DIR/$mode-summary.json")
+
+    printf "| %s | %.1f | %.1f | %s | %.2f%% |\n" \
+        "$mode" "$p50" "$p99" "${max_inflight:-n/a}" "$(echo "$failed * 100" | bc -l)" >> "$REPORT"
+}
+
+{
+    echo "# Thread mode comparison ($(date -u +%Y-%m-%dT%H:%M:%SZ))"
+    echo
+    echo "Peak arrival rate: $PEAK_RATE rides/s"
+    echo
+    echo "| Mode | p50 (ms) | p99 (ms) | Max in-flight ride creations | Failed requests |"
+    echo "|------|----------|----------|------------------------------|-----------------|"
+} > "$REPORT"
+
+run_mode platform default
+run_mode virtual virtual-threads
+
+echo
+cat "$REPORT"
+echo
+echo "Report written to $REPORT"
@@ -0,0 +1,56 @@
+// k6 load test for ride creation
+//
+// Ramps the arrival rate of POST /rides so that requests pile up on the blocking
+// JPA / gRPC / Redis calls behind ride creation. Every iteration uses a fresh rider
+// so the "rider already has an active ride" check never short-circuits the request.
+//
+// Usage: k6 run -e BASE_URL=http://localhost:8080/api scripts/load-test-rides.js
+
+import http from 'k6/http';
+import { check } from 'k6';
+import exec from 'k6/execution';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080/api';
+const PEAK_RATE = parseInt(__ENV.PEAK_RATE || '400');
+
+export const options = {
+  scenarios: {
+    ride_creation: {
+      executor: 'ramping-arrival-rate',
+      startRate: 20,
+      timeUnit: '1s',
+      preAllocatedVUs: 200,
+      maxVUs: 2000,
+      stages: [
+        { target: PEAK_RATE / 4, duration: '30s' },
+        { target: PEAK_RATE, duration: '1m' },
+        { target: PEAK_RATE, duration: '2m' },
+        { target: 0, duration: '15s' },
+      ],
+    },
+  },
+  summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+  thresholds: {
+    'http_req_duration{name:create_ride}': ['p(99)<2000'],
+  },
+};
+
+export default function () {
+  const riderId = `load_rider_${exec.scenario.iterationInTest}`;
+  const payload = JSON.stringify({
+    riderId: riderId,
+    pickupLat: 40.7589 + (Math.random() - 0.5) * 0.02,
+    pickupLng: -73.9851 + (Math.random() - 0.5) * 0.02,
+    destinationLat: 40.7505,
+    destinationLng: -73.9934,
+  });
+
+  const response = http.post(`${BASE_URL}/rides`, payload, {
+    headers: { 'Content-Type': 'application/json' },
+    tags: { name: 'create_ride' },
+  });
+
+  check(response, {
+    'ride created': (r) => r.status === 201,
+  });
+}
@@ -0,0 +1,30 @@
+#!/bin/bash
+
+# Run the JMH micro-benchmarks for dispatch-api hot paths
+#
+# Installs dispatch-api (with its plain classes jar) into the local Maven repository,
+# builds dispatch-benchmarks/target/benchmarks.jar and runs it with the GC/allocation
+# profiler, writing JSON results to benchmark-results/. Any arguments are passed to JMH,
+# e.g. a benchmark regex, "-prof jfr" or "-prof async:libPath=/path/to/libasyncProfiler.so".
+#
+# Usage: ./scripts/run-benchmarks.sh [jmh-args...]
+
+set -e
+
+SCRIPT_DIR="$(cd "$(dirname "$0")" && pwd)"
+ROOT_DIR="$(dirname "$SCRIPT_DIR")"
+RESULTS_DIR="$ROOT_DIR/benchmark-results"
+RESULT_FILE="$RESULTS_DIR/jmh-$(date +%Y%m%d-%H%M%S).json"
+
+mkdir -p "$RESULTS_DIR"
+
+echo "Building dispatch-api..."
+mvn -f "$ROOT_DIR/dispatch-api/pom.xml" -B -q -Pclasses-jar install -DskipTests
+
+echo "Building dispatch-benchmarks..."
+mvn -f "$ROOT_DIR/dispatch-benchmarks/pom.xml" -B -q package
+
+java -jar "$ROOT_DIR/dispatch-benchmarks/target/benchmarks.jar" \
+    -prof gc -rf json -rff "$RESULT_FILE" "$@"
+
+echo "Results written to $RESULT_FILE"
@@ -0,0 +1,48 @@
+#!/bin/bash
+
+# Drive dispatch-api with the city-scale load generator
+#
+# Builds dispatch-loadgen/target/loadgen.jar if needed, seeds the simulated drivers into the
+# docker-compose PostgreSQL (not for --target=stub or --dry-run) and runs the generator. All
+# arguments are passed to the generator; HdrHistogram files go to load-test-results/ unless
+# --hgrm-dir is given. dispatch-api must already be running for --target=api.
+#
+# Usage: ./scripts/run-loadgen.sh [--drivers=1000] [--duration=10m] [--record=FILE | --replay=FILE] ...
+#        ./scripts/run-loadgen.sh --help
+
+set -e
+
+SCRIPT_DIR="$(cd "$(dirname "$0")" && pwd)"
+ROOT_DIR="$(dirname "$SCRIPT_DIR")"
+LOADGEN_DIR="$ROOT_DIR/dispatch-loadgen"
+JAR="$LOADGEN_DIR/target/loadgen.jar"
+RESULTS_DIR="$ROOT_DIR/load-test-results"
+
+DRIVERS=1000
+SEED_DRIVERS=true
+HGRM_DIR="$RESULTS_DIR/loadgen-$(date +%Y%m%d-%H%M%S)"
+for arg in "$@"; do
+    case "$arg" in
+        --drivers=*) DRIVERS="${arg#--drivers=}" ;;
+        --target=stub|--dry-run|--dry-run=true|--help) SEED_DRIVERS=false ;;
+        --hgrm-dir=*) HGRM_DIR="" ;;
+    esac
+done
+
+if [ ! -f "$JAR" ]; then
+    echo "Building dispatch-loadgen..."
+    mvn -f "$LOADGEN_DIR/pom.xml" -B -q package -DskipTests
+fi
+
+if [ "$SEED_DRIVERS" = true ]; then
+    echo "Seeding $DRIVERS drivers..."
+    docker compose -f "$ROOT_DIR/docker-compose.yml" exec -T postgres \
+        psql -q -U dispatch_user -d dispatch_db -v ON_ERROR_STOP=1 -v drivers="$DRIVERS" \
+        < "$LOADGEN_DIR/seed-drivers.sql"
+fi
+
+if [ -n "$HGRM_DIR" ]; then
+    set -- "$@" --hgrm-dir="$HGRM_DIR"
+fi
+
+java -jar "$JAR" "$@"
@@ -7,6 +7,7 @@ set -e
 
 BASE_URL="http://localhost:8080/api"
 GEO_INDEX_URL="http://localhost:8080"
+MANAGEMENT_URL="http://localhost:8091/actuator"
 
 echo "=== Testing Realtime Dispatch System ==="
 
@@ -85,8 +86,8 @@ run_test test_service "Geo-Index Metrics" "$GEO_INDEX_URL/metrics" "200"
 
 echo -e "\n${YELLOW}=== 3. Dispatch API Tests ===${NC}"
 
-run_test test_service "Dispatch API Health" "$BASE_URL/../actuator/health"
-run_test test_service "Dispatch API Metrics" "$BASE_URL/../actuator/prometheus"
+run_test test_service "Dispatch API Health" "$MANAGEMENT_URL/health"
+run_test test_service "Dispatch API Metrics" "$MANAGEMENT_URL/prometheus"
 
 # Test driver operations
 echo -e "\n${YELLOW}=== 4. Driver API Tests ===${NC}"